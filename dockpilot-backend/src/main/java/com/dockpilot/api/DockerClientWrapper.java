@@ -1,11 +1,16 @@
 package com.dockpilot.api;
 
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
 import com.dockpilot.common.config.DockerConfig;
 import com.dockpilot.common.exception.DockerErrorResolver;
+import com.dockpilot.common.metrics.AppMetrics;
+import com.dockpilot.model.ContainerLogQuery;
 import com.dockpilot.utils.ContainerCmdFactory;
 import com.dockpilot.utils.LogUtil;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
 import com.github.dockerjava.api.command.*;
 import com.github.dockerjava.api.model.*;
 import com.github.dockerjava.core.DefaultDockerClientConfig;
@@ -20,6 +25,7 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
@@ -37,6 +43,14 @@ public class DockerClientWrapper {
     @Resource
     private DockerConfig dockerConfig;
 
+    @Resource
+    private AppMetrics appMetrics;
+
+    /**
+     * 底层 HTTP 客户端，用于 docker-java 未封装的接口
+     */
+    private DockerHttpClient httpClient;
+
     @PostConstruct
     public void init() {
         DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
@@ -49,7 +63,7 @@ public class DockerClientWrapper {
                 .connectionTimeout(Duration.ofMillis(dockerConfig.getConnectionTimeout()))
                 .responseTimeout(Duration.ofMillis(dockerConfig.getResponseTimeout()));
 
-        DockerHttpClient httpClient = httpClientBuilder.build();
+        httpClient = httpClientBuilder.build();
         dockerClient = DockerClientImpl.getInstance(config, httpClient);
     }
 
@@ -103,6 +117,36 @@ public class DockerClientWrapper {
         }, "获取容器统计信息", containerId);
     }
 
+    /**
+     * 获取容器的单个 stats 样本（--no-stream），daemon 采集两次以计算 CPU 使用率，约耗时 1~2 秒，不占用持久连接
+     *
+     * @param containerId 容器ID
+     * @return 样本
+     */
+    public Statistics getContainerStatsOnce(String containerId) {
+        return executeDockerCommandWithResult(() -> {
+            // 获取失败（容器已删除、daemon 异常）时同样关闭回调，释放连接
+            try (InvocationBuilder.AsyncResultCallback<Statistics> callback = new InvocationBuilder.AsyncResultCallback<>()) {
+                dockerClient.statsCmd(containerId).withNoStream(true).exec(callback);
+                return callback.awaitResult();
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to close stats callback", e);
+            }
+        }, "获取容器统计信息", containerId);
+    }
+
+    /**
+     * 订阅容器的 stats 流，daemon 约每秒推送一个样本，直到回调被关闭或容器停止
+     *
+     * @param containerId 容器ID
+     * @param callback    样本回调
+     * @return 传入的回调，关闭它即可结束订阅
+     */
+    public <T extends ResultCallback<Statistics>> T streamContainerStats(String containerId, T callback) {
+        return executeDockerCommandWithResult(() -> dockerClient.statsCmd(containerId).exec(callback),
+                "订阅容器统计信息", containerId);
+    }
+
     public boolean isDockerAvailable() {
         return executeDockerCommandWithResult(() -> {
             try {
@@ -127,6 +171,37 @@ public class DockerClientWrapper {
         }, "获取Docker版本", "system");
     }
 
+    /**
+     * 获取 Docker 数据根目录（docker info 中的 DockerRootDir）
+     */
+    public String getDockerRootDir() {
+        return executeDockerCommandWithResult(() -> dockerClient.infoCmd().exec().getDockerRootDir(),
+                "获取Docker数据目录", "system");
+    }
+
+    /**
+     * 获取 Docker 磁盘占用（docker system df），docker-java 未封装该接口，直接调用 /system/df
+     * 该接口需要计算所有镜像、容器和卷的大小，开销较大，调用方应缓存结果
+     *
+     * @return 接口返回的原始 JSON
+     */
+    public JSONObject getSystemDf() {
+        return executeDockerCommandWithResult(() -> {
+            DockerHttpClient.Request request = DockerHttpClient.Request.builder()
+                    .method(DockerHttpClient.Request.Method.GET)
+                    .path("/system/df")
+                    .build();
+            try (DockerHttpClient.Response response = httpClient.execute(request)) {
+                if (response.getStatusCode() != 200) {
+                    throw new RuntimeException("HTTP " + response.getStatusCode());
+                }
+                return JSON.parseObject(response.getBody(), StandardCharsets.UTF_8, JSONObject.class);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }, "获取Docker磁盘占用", "system");
+    }
+
     public String getContainerLogs(String containerId, int tail, boolean follow, boolean timestamps) {
         return executeDockerCommandWithResult(() -> {
             LogContainerCmd logContainerCmd = dockerClient.logContainerCmd(containerId).withTail(tail).withFollowStream(follow).withTimestamps(timestamps).withStdOut(true).withStdErr(true);
@@ -136,7 +211,7 @@ public class DockerClientWrapper {
                 logContainerCmd.exec(new LogContainerResultCallback() {
                     @Override
                     public void onNext(Frame frame) {
-                        logs.append(new String(frame.getPayload())).append("\n");
+                        logs.append(new String(frame.getPayload(), StandardCharsets.UTF_8)).append("\n");
                     }
                 }).awaitCompletion();
             } catch (InterruptedException e) {
@@ -148,6 +223,39 @@ public class DockerClientWrapper {
         }, "获取容器日志", containerId);
     }
 
+    /**
+     * 以流的方式读取容器日志，日志帧通过回调逐个交付
+     * 跟踪模式下流会一直保持，直到回调被关闭或容器停止
+     *
+     * @param query    日志查询参数
+     * @param callback 日志帧回调
+     * @return 传入的回调，关闭它即可取消读取
+     */
+    public <T extends ResultCallback<Frame>> T streamContainerLogs(ContainerLogQuery query, T callback) {
+        return executeDockerCommandWithResult(() -> {
+            boolean follow = Boolean.TRUE.equals(query.getFollow());
+            LogContainerCmd cmd = dockerClient.logContainerCmd(query.getContainerId())
+                    .withFollowStream(follow)
+                    .withTimestamps(Boolean.TRUE.equals(query.getTimestamps()))
+                    .withStdOut(true)
+                    .withStdErr(true);
+            if (query.getTail() == null) {
+                cmd.withTail(100);
+            } else if (query.getTail() < 0) {
+                cmd.withTailAll();
+            } else {
+                cmd.withTail(query.getTail());
+            }
+            if (query.getSince() != null) {
+                cmd.withSince(query.getSince());
+            }
+            if (query.getUntil() != null && !follow) {
+                cmd.withUntil(query.getUntil());
+            }
+            return cmd.exec(callback);
+        }, "读取容器日志", query.getContainerId());
+    }
+
     public void removeImage(String imageId) {
         executeDockerCommand(() -> {
             dockerClient.removeImageCmd(imageId).withForce(true).exec();
@@ -213,18 +321,25 @@ public class DockerClientWrapper {
     }
 
     private void executeDockerCommand(Runnable command, String action, String containerId) {
+        long start = System.nanoTime();
         try {
             command.run();
+            appMetrics.recordDockerCall(action, System.nanoTime() - start, false);
         } catch (Exception e) {
+            appMetrics.recordDockerCall(action, System.nanoTime() - start, true);
             LogUtil.logSysError(action + "失败: " + e.getMessage());
             throw DockerErrorResolver.resolve(action, containerId, e);
         }
     }
 
     private <T> T executeDockerCommandWithResult(Supplier<T> supplier, String operationName, String containerId) {
+        long start = System.nanoTime();
         try {
-            return supplier.get();
+            T result = supplier.get();
+            appMetrics.recordDockerCall(operationName, System.nanoTime() - start, false);
+            return result;
         } catch (Exception e) {
+            appMetrics.recordDockerCall(operationName, System.nanoTime() - start, true);
             LogUtil.logSysError(operationName + "失败: " + e.getMessage());
             throw DockerErrorResolver.resolve(operationName, containerId, e);
         }
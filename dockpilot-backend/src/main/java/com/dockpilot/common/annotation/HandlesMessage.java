@@ -0,0 +1,21 @@
+package com.dockpilot.common.annotation;
+
+import com.dockpilot.model.MessageType;
+
+import java.lang.annotation.*;
+
+/**
+ * WebSocket消息处理声明注解
+ * 标记在 BaseService 实现类上，声明该服务负责处理的消息类型，
+ * MessageRouter 启动时据此构建消息分发表
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface HandlesMessage {
+
+    /**
+     * 该服务处理的消息类型
+     */
+    MessageType[] value();
+}
@@ -0,0 +1,50 @@
+package com.dockpilot.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 配置包/导出包压缩配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "compression")
+public class CompressionConfig {
+
+    /**
+     * 默认压缩级别：0-9
+     */
+    private int level = 6;
+
+    /**
+     * 压缩线程数，0 表示使用 CPU 核数
+     */
+    private int threads = 0;
+
+    /**
+     * 并行压缩的分块大小（字节）
+     */
+    private int blockSize = 1024 * 1024;
+
+    /**
+     * 已经是压缩格式的文件扩展名，打包时直接存储不再压缩
+     */
+    private Set<String> storeExtensions = new LinkedHashSet<>(Arrays.asList(
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp4", "mkv", "avi", "mov", "webm", "m4v", "ts",
+            "mp3", "flac", "aac", "ogg", "opus", "m4a",
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "7z", "rar", "lz4", "jar", "war"
+    ));
+
+    /**
+     * 实际使用的压缩线程数
+     */
+    public int getEffectiveThreads() {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+}
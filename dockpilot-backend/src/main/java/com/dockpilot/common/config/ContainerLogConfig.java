@@ -0,0 +1,34 @@
+package com.dockpilot.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 容器日志跟踪配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "docker.logs")
+public class ContainerLogConfig {
+
+    /**
+     * 批量推送间隔（毫秒），期间产生的日志行合并为一条消息
+     */
+    private long flushInterval = 200;
+
+    /**
+     * 每个日志流缓冲的最大行数，客户端跟不上时丢弃最旧的行
+     */
+    private int bufferLines = 5000;
+
+    /**
+     * 单条推送消息包含的最大行数
+     */
+    private int maxLinesPerBatch = 1000;
+
+    /**
+     * 同时保持的日志流上限，每个流占用一个 Docker API 连接
+     */
+    private int maxStreams = 20;
+}
@@ -0,0 +1,29 @@
+package com.dockpilot.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 容器实时监控（stats 流）配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "docker.stats")
+public class ContainerStatsConfig {
+
+    /**
+     * 向订阅者推送的最小间隔（毫秒），daemon 约每秒产生一个样本
+     */
+    private long pushInterval = 2000;
+
+    /**
+     * 无订阅者且无轮询访问时，stats 流保留的时间（毫秒）
+     */
+    private long idleTimeout = 30000;
+
+    /**
+     * 同时保持的 stats 流上限，每个流占用一个 Docker API 连接
+     */
+    private int maxStreams = 50;
+}
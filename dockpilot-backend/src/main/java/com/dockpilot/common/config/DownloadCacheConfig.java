@@ -0,0 +1,29 @@
+package com.dockpilot.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 远程下载缓存配置（位于 file.upload.path/download-cache 下）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "download-cache")
+public class DownloadCacheConfig {
+
+    /**
+     * 是否启用缓存，关闭时每次都完整下载
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存总大小上限（字节），超过时按最近使用时间淘汰
+     */
+    private long maxSize = 2L * 1024 * 1024 * 1024;
+
+    /**
+     * 最近使用过的条目至少保留多久才允许淘汰（毫秒），避免调用方还在读取时被删除
+     */
+    private long evictionGracePeriod = 300000;
+}
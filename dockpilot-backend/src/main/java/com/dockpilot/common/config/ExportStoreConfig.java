@@ -0,0 +1,36 @@
+package com.dockpilot.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 增量导出存储配置（位于 file.package.path/store 下）
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "export-store")
+public class ExportStoreConfig {
+
+    /**
+     * 是否启用增量导出（仅对 nested + gzip 的异步打包生效）
+     */
+    private boolean enabled = true;
+
+    /**
+     * 每个项目保留的历史清单数量
+     */
+    private int retainManifests = 3;
+
+    /**
+     * 内容分块的最小、平均、最大大小（字节），平均大小需为 2 的幂
+     */
+    private int minChunkSize = 256 * 1024;
+    private int avgChunkSize = 1024 * 1024;
+    private int maxChunkSize = 4 * 1024 * 1024;
+
+    /**
+     * 垃圾回收时，未被引用的数据块至少存在多久才会删除（毫秒），避免误删正在导出中写入的数据块
+     */
+    private long gcGracePeriod = 3600000;
+}
@@ -5,7 +5,7 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 定时任务配置
- * 启用Spring定时任务支持
+ * 启用Spring定时任务支持，线程池大小见 spring.task.scheduling.pool.size
  */
 @Configuration
 @EnableScheduling
@@ -0,0 +1,44 @@
+package com.dockpilot.common.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Web服务可达性检测配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "web-monitor")
+public class WebServerMonitorConfig {
+
+    /**
+     * 是否启用可达性检测
+     */
+    private boolean enabled = true;
+
+    /**
+     * 同时进行的探测请求上限
+     */
+    private int concurrency = 32;
+
+    /**
+     * 单次探测超时时间（毫秒），包括建立连接和等待响应头
+     */
+    private long timeout = 5000;
+
+    /**
+     * 服务正常时的检测间隔（毫秒）
+     */
+    private long healthyInterval = 60000;
+
+    /**
+     * 服务异常时的首次重试间隔（毫秒），连续失败时逐次翻倍，最长不超过 healthyInterval
+     */
+    private long failingInterval = 10000;
+
+    /**
+     * 是否跳过证书校验（自签名证书的内网服务也能判断可达性，证书过期时间照常上报）
+     */
+    private boolean insecureTls = true;
+}
@@ -0,0 +1,19 @@
+package com.dockpilot.common.event;
+
+import lombok.Getter;
+
+/**
+ * Docker 容器事件（由 DockerEventService 转发），供需要跟随容器变化更新内存索引的组件订阅
+ */
+
+@Getter
+public class DockerContainerEvent {
+    private final String action;
+    private final String containerId;
+
+    public DockerContainerEvent(String action, String containerId) {
+        this.action = action;
+        this.containerId = containerId;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.dockpilot.common.event;
+
+import lombok.Getter;
+
+/**
+ * Docker 网络事件（由 DockerEventService 转发），connect/disconnect 时 containerId 为相关容器，其余动作为 null
+ */
+
+@Getter
+public class DockerNetworkEvent {
+    private final String action;
+    private final String networkId;
+    private final String containerId;
+
+    public DockerNetworkEvent(String action, String networkId, String containerId) {
+        this.action = action;
+        this.networkId = networkId;
+        this.containerId = containerId;
+    }
+
+}
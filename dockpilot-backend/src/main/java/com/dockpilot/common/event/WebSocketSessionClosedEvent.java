@@ -0,0 +1,17 @@
+package com.dockpilot.common.event;
+
+import lombok.Getter;
+
+/**
+ * WebSocket会话关闭事件
+ * 用于通知各订阅型服务清理该会话的订阅
+ */
+@Getter
+public class WebSocketSessionClosedEvent {
+    private final String sessionId;
+
+    public WebSocketSessionClosedEvent(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+}
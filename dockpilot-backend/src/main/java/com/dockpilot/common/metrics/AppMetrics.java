@@ -0,0 +1,133 @@
+package com.dockpilot.common.metrics;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * DockPilot 内部运行指标
+ * 各处只做无锁计数，由 MetricsExporter 在抓取时读取
+ */
+@Component
+public class AppMetrics {
+
+    /**
+     * Docker API 调用耗时，操作名称 -> 直方图
+     */
+    private final Map<String, LatencyHistogram> dockerApiLatency = new ConcurrentHashMap<>();
+
+    /**
+     * Docker API 调用失败次数，操作名称 -> 次数
+     */
+    private final Map<String, LongAdder> dockerApiErrors = new ConcurrentHashMap<>();
+
+    /**
+     * 正在拉取的镜像（name:tag），同一镜像重复开始只计一次
+     */
+    private final Set<String> pullsInProgress = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 单个镜像远程更新检查的耗时
+     */
+    private final LatencyHistogram imageCheckLatency = new LatencyHistogram();
+    private final LongAdder imageCheckErrors = new LongAdder();
+    private volatile double lastImageCheckRunSeconds;
+    private volatile long lastImageCheckRunAt;
+
+    /**
+     * WebSocket 发送：正在进行中的发送数（慢客户端会让它升高）、已发送帧数、字节数、失败数
+     */
+    private final AtomicInteger wsSendsInFlight = new AtomicInteger();
+    private final LongAdder wsFramesSent = new LongAdder();
+    private final LongAdder wsBytesSent = new LongAdder();
+    private final LongAdder wsSendFailures = new LongAdder();
+
+    public void recordDockerCall(String operation, long nanos, boolean failed) {
+        dockerApiLatency.computeIfAbsent(operation, k -> new LatencyHistogram()).record(nanos);
+        if (failed) {
+            dockerApiErrors.computeIfAbsent(operation, k -> new LongAdder()).increment();
+        }
+    }
+
+    public void pullStarted(String image) {
+        pullsInProgress.add(image);
+    }
+
+    public void pullFinished(String image) {
+        pullsInProgress.remove(image);
+    }
+
+    public void recordImageCheck(long nanos, boolean failed) {
+        imageCheckLatency.record(nanos);
+        if (failed) {
+            imageCheckErrors.increment();
+        }
+    }
+
+    public void recordImageCheckRun(long nanos) {
+        lastImageCheckRunSeconds = nanos / 1_000_000_000.0;
+        lastImageCheckRunAt = System.currentTimeMillis();
+    }
+
+    public void wsSendStarted() {
+        wsSendsInFlight.incrementAndGet();
+    }
+
+    public void wsSendFinished(int bytes, boolean failed) {
+        wsSendsInFlight.decrementAndGet();
+        if (failed) {
+            wsSendFailures.increment();
+        } else {
+            wsFramesSent.increment();
+            wsBytesSent.add(bytes);
+        }
+    }
+
+    Map<String, LatencyHistogram> getDockerApiLatency() {
+        return dockerApiLatency;
+    }
+
+    Map<String, LongAdder> getDockerApiErrors() {
+        return dockerApiErrors;
+    }
+
+    int getPullsInProgress() {
+        return pullsInProgress.size();
+    }
+
+    LatencyHistogram getImageCheckLatency() {
+        return imageCheckLatency;
+    }
+
+    long getImageCheckErrors() {
+        return imageCheckErrors.sum();
+    }
+
+    double getLastImageCheckRunSeconds() {
+        return lastImageCheckRunSeconds;
+    }
+
+    long getLastImageCheckRunAt() {
+        return lastImageCheckRunAt;
+    }
+
+    int getWsSendsInFlight() {
+        return wsSendsInFlight.get();
+    }
+
+    long getWsFramesSent() {
+        return wsFramesSent.sum();
+    }
+
+    long getWsBytesSent() {
+        return wsBytesSent.sum();
+    }
+
+    long getWsSendFailures() {
+        return wsSendFailures.sum();
+    }
+}
@@ -0,0 +1,65 @@
+package com.dockpilot.common.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定分桶的耗时直方图，记录无锁，导出时按 OpenMetrics 要求累加为 le 桶
+ */
+public class LatencyHistogram {
+
+    /**
+     * 桶上限（秒）
+     */
+    static final double[] BUCKETS = {0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+        }
+    }
+
+    /**
+     * 各桶的计数（非累加），最后一个为 +Inf
+     */
+    private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        int index = 0;
+        while (index < BUCKET_NANOS.length && nanos > BUCKET_NANOS[index]) {
+            index++;
+        }
+        counts[index].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * 累加后的桶计数，长度为 BUCKETS.length + 1，最后一个即总次数
+     */
+    long[] cumulativeCounts() {
+        long[] result = new long[counts.length];
+        long running = 0;
+        for (int i = 0; i < counts.length; i++) {
+            running += counts[i].sum();
+            result[i] = running;
+        }
+        return result;
+    }
+
+    double sumSeconds() {
+        return sumNanos.sum() / 1_000_000_000.0;
+    }
+}
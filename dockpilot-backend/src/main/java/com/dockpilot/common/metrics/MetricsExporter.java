@@ -0,0 +1,316 @@
+package com.dockpilot.common.metrics;
+
+import com.dockpilot.model.ContainerResourceStatsDTO;
+import com.dockpilot.model.CpuUsageDTO;
+import com.dockpilot.model.DiskUsageDTO;
+import com.dockpilot.model.DockerDiskUsageDTO;
+import com.dockpilot.model.NetworkRateDTO;
+import com.dockpilot.model.NetworkRateSnapshotDTO;
+import com.dockpilot.model.StorageMetricsDTO;
+import com.dockpilot.model.SystemStatusDTO;
+import com.dockpilot.service.CpuUsageTracker;
+import com.dockpilot.service.HostMetricsSampler;
+import com.dockpilot.service.NetworkRateTracker;
+import com.dockpilot.service.StorageMetricsService;
+import com.dockpilot.service.docker.CgroupStatsCollector;
+import com.dockpilot.service.docker.ContainerLogStreamService;
+import com.dockpilot.service.docker.ContainerStatsHub;
+import com.dockpilot.websocket.manager.WebSocketSessionManager;
+import com.dockpilot.websocket.router.MessageMetrics;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OpenMetrics 导出
+ * <p>
+ * 只读取各采样器已有的快照和内部计数，抓取本身不会触发 Docker API 调用或文件系统扫描，
+ * 数据的新鲜度由各采样器的采样间隔决定。
+ */
+@Component
+public class MetricsExporter {
+
+    @Autowired
+    private AppMetrics appMetrics;
+
+    @Autowired
+    private HostMetricsSampler hostMetricsSampler;
+
+    @Autowired
+    private CpuUsageTracker cpuUsageTracker;
+
+    @Autowired
+    private NetworkRateTracker networkRateTracker;
+
+    @Autowired
+    private StorageMetricsService storageMetricsService;
+
+    @Autowired
+    private CgroupStatsCollector cgroupStatsCollector;
+
+    @Autowired
+    private ContainerStatsHub containerStatsHub;
+
+    @Autowired
+    private ContainerLogStreamService containerLogStreamService;
+
+    @Autowired
+    private WebSocketSessionManager sessionManager;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * 将全部指标写出到 writer
+     */
+    public void write(Writer writer) throws IOException {
+        OpenMetricsWriter out = new OpenMetricsWriter(writer);
+        writeHost(out);
+        writeCpu(out);
+        writeNetwork(out);
+        writeStorage(out);
+        writeContainers(out);
+        writeDockerApi(out);
+        writeImages(out);
+        writeWebSocket(out);
+        writeDatabase(out);
+        out.eof();
+    }
+
+    private void writeHost(OpenMetricsWriter out) throws IOException {
+        SystemStatusDTO status = hostMetricsSampler.getSnapshot();
+        if (status == null) {
+            return;
+        }
+        out.family("dockpilot_host", "info", "宿主机静态信息")
+                .sample("dockpilot_host_info", 1,
+                        "hostname", status.getHostname(), "os", status.getOs(), "kernel", status.getKernel(),
+                        "cpu_model", status.getCpuModel(), "docker_version", status.getDockerVersion());
+        out.family("dockpilot_host_cpu_cores", "gauge", "CPU核心数")
+                .sample("dockpilot_host_cpu_cores", nullToZero(status.getCpuCores()));
+        out.family("dockpilot_host_memory_total_bytes", "gauge", "内存总量")
+                .sample("dockpilot_host_memory_total_bytes", nullToZero(status.getMemoryTotal()) * 1024 * 1024);
+        out.family("dockpilot_host_memory_used_bytes", "gauge", "已用内存")
+                .sample("dockpilot_host_memory_used_bytes", nullToZero(status.getMemoryUsed()) * 1024 * 1024);
+        out.family("dockpilot_docker_containers", "gauge", "容器数量")
+                .sample("dockpilot_docker_containers", nullToZero(status.getRunningContainers()), "state", "running")
+                .sample("dockpilot_docker_containers", nullToZero(status.getTotalContainers()), "state", "all");
+        out.family("dockpilot_docker_images", "gauge", "镜像数量")
+                .sample("dockpilot_docker_images", nullToZero(status.getTotalImages()));
+        out.family("dockpilot_docker_networks", "gauge", "网络数量")
+                .sample("dockpilot_docker_networks", nullToZero(status.getTotalNetworks()));
+    }
+
+    private void writeCpu(OpenMetricsWriter out) throws IOException {
+        CpuUsageDTO cpu = cpuUsageTracker.getLatest();
+        if (cpu == null) {
+            return;
+        }
+        out.family("dockpilot_host_cpu_usage_percent", "gauge", "CPU使用率，按模式拆分，cpu=total 为整机");
+        writeCpuCore(out, "total", cpu.getTotal());
+        for (CpuUsageDTO.CoreUsage core : cpu.getCores()) {
+            writeCpuCore(out, Integer.toString(core.getCpu()), core);
+        }
+    }
+
+    private static void writeCpuCore(OpenMetricsWriter out, String cpu, CpuUsageDTO.CoreUsage usage) throws IOException {
+        String name = "dockpilot_host_cpu_usage_percent";
+        out.sample(name, usage.getUsage(), "cpu", cpu, "mode", "busy")
+                .sample(name, usage.getUser(), "cpu", cpu, "mode", "user")
+                .sample(name, usage.getSystem(), "cpu", cpu, "mode", "system")
+                .sample(name, usage.getIowait(), "cpu", cpu, "mode", "iowait")
+                .sample(name, usage.getSteal(), "cpu", cpu, "mode", "steal");
+    }
+
+    private void writeNetwork(OpenMetricsWriter out) throws IOException {
+        NetworkRateSnapshotDTO network = networkRateTracker.getSnapshot();
+        out.family("dockpilot_host_network_receive_bytes", "counter", "网卡累计接收字节数");
+        for (NetworkRateDTO iface : network.getInterfaces()) {
+            out.sample("dockpilot_host_network_receive_bytes_total", iface.getRxBytes(),
+                    "interface", iface.getName(), "virtual", Boolean.toString(iface.isVirtual()));
+        }
+        out.family("dockpilot_host_network_transmit_bytes", "counter", "网卡累计发送字节数");
+        for (NetworkRateDTO iface : network.getInterfaces()) {
+            out.sample("dockpilot_host_network_transmit_bytes_total", iface.getTxBytes(),
+                    "interface", iface.getName(), "virtual", Boolean.toString(iface.isVirtual()));
+        }
+        out.family("dockpilot_container_network_receive_bytes", "counter", "容器累计接收字节数（veth 对端归属）");
+        for (NetworkRateDTO container : network.getContainers()) {
+            out.sample("dockpilot_container_network_receive_bytes_total", container.getRxBytes(),
+                    "container_id", container.getContainerId(), "name", container.getName());
+        }
+        out.family("dockpilot_container_network_transmit_bytes", "counter", "容器累计发送字节数（veth 对端归属）");
+        for (NetworkRateDTO container : network.getContainers()) {
+            out.sample("dockpilot_container_network_transmit_bytes_total", container.getTxBytes(),
+                    "container_id", container.getContainerId(), "name", container.getName());
+        }
+    }
+
+    private void writeStorage(OpenMetricsWriter out) throws IOException {
+        StorageMetricsDTO storage = storageMetricsService.getSnapshot();
+        out.family("dockpilot_host_filesystem_size_bytes", "gauge", "文件系统总容量");
+        for (DiskUsageDTO mount : storage.getMounts()) {
+            out.sample("dockpilot_host_filesystem_size_bytes", mount.getTotal(), filesystemLabels(mount));
+        }
+        out.family("dockpilot_host_filesystem_used_bytes", "gauge", "文件系统已用空间");
+        for (DiskUsageDTO mount : storage.getMounts()) {
+            out.sample("dockpilot_host_filesystem_used_bytes", mount.getUsed(), filesystemLabels(mount));
+        }
+        out.family("dockpilot_host_filesystem_avail_bytes", "gauge", "文件系统普通用户可用空间");
+        for (DiskUsageDTO mount : storage.getMounts()) {
+            out.sample("dockpilot_host_filesystem_avail_bytes", mount.getFree(), filesystemLabels(mount));
+        }
+
+        DockerDiskUsageDTO df = storage.getDockerDiskUsage();
+        if (df != null) {
+            out.family("dockpilot_docker_disk_usage_bytes", "gauge", "Docker 磁盘占用（docker system df）");
+            writeDfCategory(out, "dockpilot_docker_disk_usage_bytes", df, false);
+            out.family("dockpilot_docker_disk_reclaimable_bytes", "gauge", "Docker 可回收空间");
+            writeDfCategory(out, "dockpilot_docker_disk_reclaimable_bytes", df, true);
+        }
+    }
+
+    private static String[] filesystemLabels(DiskUsageDTO mount) {
+        return new String[]{"mountpoint", mount.getMountPoint(), "device", mount.getDevice(), "fstype", mount.getFsType()};
+    }
+
+    private static void writeDfCategory(OpenMetricsWriter out, String name, DockerDiskUsageDTO df, boolean reclaimable) throws IOException {
+        out.sample(name, reclaimable ? df.getImages().getReclaimable() : df.getImages().getSize(), "type", "images")
+                .sample(name, reclaimable ? df.getContainers().getReclaimable() : df.getContainers().getSize(), "type", "containers")
+                .sample(name, reclaimable ? df.getVolumes().getReclaimable() : df.getVolumes().getSize(), "type", "volumes")
+                .sample(name, reclaimable ? df.getBuildCache().getReclaimable() : df.getBuildCache().getSize(), "type", "build_cache");
+    }
+
+    private void writeContainers(OpenMetricsWriter out) throws IOException {
+        List<ContainerResourceStatsDTO> containers = cgroupStatsCollector.getLastResult();
+        out.family("dockpilot_container_cpu_usage_percent", "gauge", "容器CPU使用率（相对单核）");
+        for (ContainerResourceStatsDTO c : containers) {
+            out.sample("dockpilot_container_cpu_usage_percent", nullToZero(c.getCpuPercent()), containerLabels(c));
+        }
+        out.family("dockpilot_container_memory_usage_bytes", "gauge", "容器内存占用");
+        for (ContainerResourceStatsDTO c : containers) {
+            out.sample("dockpilot_container_memory_usage_bytes", nullToZero(c.getMemoryUsage()), containerLabels(c));
+        }
+        out.family("dockpilot_container_io_read_bytes_per_second", "gauge", "容器磁盘读取速率");
+        for (ContainerResourceStatsDTO c : containers) {
+            out.sample("dockpilot_container_io_read_bytes_per_second", nullToZero(c.getIoReadRate()), containerLabels(c));
+        }
+        out.family("dockpilot_container_io_write_bytes_per_second", "gauge", "容器磁盘写入速率");
+        for (ContainerResourceStatsDTO c : containers) {
+            out.sample("dockpilot_container_io_write_bytes_per_second", nullToZero(c.getIoWriteRate()), containerLabels(c));
+        }
+        out.family("dockpilot_container_pressure_percent", "gauge", "容器资源压力（PSI some avg10）");
+        for (ContainerResourceStatsDTO c : containers) {
+            String[] labels = containerLabels(c);
+            if (c.getCpuPressure() != null) {
+                out.sample("dockpilot_container_pressure_percent", c.getCpuPressure(), append(labels, "resource", "cpu"));
+            }
+            if (c.getMemoryPressure() != null) {
+                out.sample("dockpilot_container_pressure_percent", c.getMemoryPressure(), append(labels, "resource", "memory"));
+            }
+            if (c.getIoPressure() != null) {
+                out.sample("dockpilot_container_pressure_percent", c.getIoPressure(), append(labels, "resource", "io"));
+            }
+        }
+    }
+
+    private static String[] containerLabels(ContainerResourceStatsDTO c) {
+        return new String[]{"container_id", c.getContainerId(), "name", c.getName()};
+    }
+
+    private static String[] append(String[] labels, String name, String value) {
+        String[] result = new String[labels.length + 2];
+        System.arraycopy(labels, 0, result, 0, labels.length);
+        result[labels.length] = name;
+        result[labels.length + 1] = value;
+        return result;
+    }
+
+    private void writeDockerApi(OpenMetricsWriter out) throws IOException {
+        out.family("dockpilot_docker_api_duration_seconds", "histogram", "Docker API 调用耗时");
+        for (Map.Entry<String, LatencyHistogram> entry : appMetrics.getDockerApiLatency().entrySet()) {
+            out.histogram("dockpilot_docker_api_duration_seconds", entry.getValue(), "operation", entry.getKey());
+        }
+        out.family("dockpilot_docker_api_errors", "counter", "Docker API 调用失败次数");
+        for (Map.Entry<String, LongAdder> entry : appMetrics.getDockerApiErrors().entrySet()) {
+            out.sample("dockpilot_docker_api_errors_total", entry.getValue().sum(), "operation", entry.getKey());
+        }
+        out.family("dockpilot_container_stats_streams", "gauge", "打开的容器 stats 流数量")
+                .sample("dockpilot_container_stats_streams", containerStatsHub.getActiveStreamCount());
+        out.family("dockpilot_container_log_streams", "gauge", "打开的容器日志流数量")
+                .sample("dockpilot_container_log_streams", containerLogStreamService.getActiveStreamCount());
+    }
+
+    private void writeImages(OpenMetricsWriter out) throws IOException {
+        out.family("dockpilot_image_pulls_in_progress", "gauge", "正在拉取的镜像数量")
+                .sample("dockpilot_image_pulls_in_progress", appMetrics.getPullsInProgress());
+        out.family("dockpilot_image_check_duration_seconds", "histogram", "单个镜像远程更新检查耗时")
+                .histogram("dockpilot_image_check_duration_seconds", appMetrics.getImageCheckLatency());
+        out.family("dockpilot_image_check_errors", "counter", "镜像更新检查失败次数")
+                .sample("dockpilot_image_check_errors_total", appMetrics.getImageCheckErrors());
+        out.family("dockpilot_image_check_last_run_duration_seconds", "gauge", "最近一次全部镜像检查的总耗时")
+                .sample("dockpilot_image_check_last_run_duration_seconds", appMetrics.getLastImageCheckRunSeconds());
+        out.family("dockpilot_image_check_last_run_timestamp_seconds", "gauge", "最近一次全部镜像检查的完成时间")
+                .sample("dockpilot_image_check_last_run_timestamp_seconds", appMetrics.getLastImageCheckRunAt() / 1000.0);
+    }
+
+    private void writeWebSocket(OpenMetricsWriter out) throws IOException {
+        out.family("dockpilot_ws_sessions", "gauge", "活跃的 WebSocket 会话数")
+                .sample("dockpilot_ws_sessions", sessionManager.getActiveSessionCount());
+        out.family("dockpilot_ws_sends_in_flight", "gauge", "正在进行中的 WebSocket 发送数，慢客户端会使其升高")
+                .sample("dockpilot_ws_sends_in_flight", appMetrics.getWsSendsInFlight());
+        out.family("dockpilot_ws_frames_sent", "counter", "已发送的 WebSocket 帧数")
+                .sample("dockpilot_ws_frames_sent_total", appMetrics.getWsFramesSent());
+        out.family("dockpilot_ws_sent_bytes", "counter", "已发送的 WebSocket 字节数")
+                .sample("dockpilot_ws_sent_bytes_total", appMetrics.getWsBytesSent());
+        out.family("dockpilot_ws_send_failures", "counter", "WebSocket 发送失败次数")
+                .sample("dockpilot_ws_send_failures_total", appMetrics.getWsSendFailures());
+
+        Map<String, Map<String, Object>> messages = messageMetrics.snapshot();
+        out.family("dockpilot_ws_messages", "counter", "按类型统计的 WebSocket 请求数");
+        for (Map.Entry<String, Map<String, Object>> entry : messages.entrySet()) {
+            out.sample("dockpilot_ws_messages_total", ((Number) entry.getValue().get("count")).doubleValue(), "type", entry.getKey());
+        }
+        out.family("dockpilot_ws_message_errors", "counter", "按类型统计的 WebSocket 请求失败数");
+        for (Map.Entry<String, Map<String, Object>> entry : messages.entrySet()) {
+            out.sample("dockpilot_ws_message_errors_total", ((Number) entry.getValue().get("errors")).doubleValue(), "type", entry.getKey());
+        }
+    }
+
+    private void writeDatabase(OpenMetricsWriter out) throws IOException {
+        HikariPoolMXBean pool = null;
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+            }
+        } catch (Exception ignored) {
+            // 非连接池数据源
+        }
+        out.family("dockpilot_db_pool", "info", "数据源类型")
+                .sample("dockpilot_db_pool_info", 1, "type", pool != null ? "hikari" : dataSource.getClass().getSimpleName());
+        if (pool == null) {
+            return;
+        }
+        out.family("dockpilot_db_pool_connections", "gauge", "数据库连接池连接数")
+                .sample("dockpilot_db_pool_connections", pool.getActiveConnections(), "state", "active")
+                .sample("dockpilot_db_pool_connections", pool.getIdleConnections(), "state", "idle")
+                .sample("dockpilot_db_pool_connections", pool.getTotalConnections(), "state", "total");
+        out.family("dockpilot_db_pool_pending_threads", "gauge", "等待数据库连接的线程数")
+                .sample("dockpilot_db_pool_pending_threads", pool.getThreadsAwaitingConnection());
+    }
+
+    private static double nullToZero(Number value) {
+        return value != null ? value.doubleValue() : 0;
+    }
+}
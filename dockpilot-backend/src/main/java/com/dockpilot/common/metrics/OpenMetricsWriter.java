@@ -0,0 +1,147 @@
+package com.dockpilot.common.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * OpenMetrics 文本格式的流式写出器，边生成边写入响应，不在内存中拼接完整结果
+ */
+public class OpenMetricsWriter {
+
+    private final Writer out;
+
+    public OpenMetricsWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * 写出指标族的 TYPE 和 HELP
+     *
+     * @param name 指标族名称（counter 不带 _total 后缀）
+     * @param type gauge / counter / histogram / info
+     * @param help 说明
+     */
+    public OpenMetricsWriter family(String name, String type, String help) throws IOException {
+        out.write("# TYPE ");
+        out.write(name);
+        out.write(' ');
+        out.write(type);
+        out.write("\n# HELP ");
+        out.write(name);
+        out.write(' ');
+        out.write(help.replace("\\", "\\\\").replace("\n", "\\n"));
+        out.write('\n');
+        return this;
+    }
+
+    /**
+     * 写出一个样本
+     *
+     * @param name   样本名称
+     * @param value  值
+     * @param labels 标签，按 名称、值 交替排列
+     */
+    public OpenMetricsWriter sample(String name, double value, String... labels) throws IOException {
+        out.write(name);
+        writeLabels(labels, null);
+        out.write(' ');
+        out.write(format(value));
+        out.write('\n');
+        return this;
+    }
+
+    /**
+     * 写出直方图的 _bucket、_count、_sum 样本（耗时单位：秒）
+     */
+    public OpenMetricsWriter histogram(String name, LatencyHistogram histogram, String... labels) throws IOException {
+        long[] cumulative = histogram.cumulativeCounts();
+        for (int i = 0; i < LatencyHistogram.BUCKETS.length; i++) {
+            out.write(name);
+            out.write("_bucket");
+            writeLabels(labels, Double.toString(LatencyHistogram.BUCKETS[i]));
+            out.write(' ');
+            out.write(Long.toString(cumulative[i]));
+            out.write('\n');
+        }
+        long count = cumulative[cumulative.length - 1];
+        out.write(name);
+        out.write("_bucket");
+        writeLabels(labels, "+Inf");
+        out.write(' ');
+        out.write(Long.toString(count));
+        out.write('\n');
+        sample(name + "_count", count, labels);
+        sample(name + "_sum", histogram.sumSeconds(), labels);
+        return this;
+    }
+
+    /**
+     * 结束标记，OpenMetrics 要求以 # EOF 结尾
+     */
+    public void eof() throws IOException {
+        out.write("# EOF\n");
+        out.flush();
+    }
+
+    private void writeLabels(String[] labels, String le) throws IOException {
+        if (labels.length == 0 && le == null) {
+            return;
+        }
+        out.write('{');
+        boolean first = true;
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (!first) {
+                out.write(',');
+            }
+            first = false;
+            out.write(labels[i]);
+            out.write("=\"");
+            writeEscaped(labels[i + 1]);
+            out.write('"');
+        }
+        if (le != null) {
+            if (!first) {
+                out.write(',');
+            }
+            out.write("le=\"");
+            out.write(le);
+            out.write('"');
+        }
+        out.write('}');
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    out.write("\\\\");
+                    break;
+                case '"':
+                    out.write("\\\"");
+                    break;
+                case '\n':
+                    out.write("\\n");
+                    break;
+                default:
+                    out.write(c);
+            }
+        }
+    }
+
+    private static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+}
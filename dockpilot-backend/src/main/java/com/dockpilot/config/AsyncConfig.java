@@ -1,11 +1,13 @@
 package com.dockpilot.config;
 
+import com.dockpilot.common.config.CompressionConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 /**
  * 异步处理配置
@@ -24,4 +26,37 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 配置包并行压缩线程池（所有导出任务共享，线程数固定，避免占满 CPU）
+     */
+    @Bean(name = "compressionExecutor")
+    public Executor compressionExecutor(CompressionConfig compressionConfig) {
+        int threads = compressionConfig.getEffectiveThreads();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads * 16); // 每个导出流自身也限制了在途块数
+        executor.setThreadNamePrefix("Compress-");
+        // 队列满时由调用线程自己压缩，起到背压作用
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * 应用配置包导入时并行写盘的线程池（I/O 密集，线程数不随 CPU 变化）
+     */
+    @Bean(name = "configImportExecutor")
+    public Executor configImportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(256);
+        executor.setThreadNamePrefix("ConfigImport-");
+        // 队列满时由解压线程自己写盘
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -10,6 +10,8 @@ import com.dockpilot.model.application.dto.PullImageRequest;
 import com.dockpilot.model.application.vo.ApplicationVO;
 import com.dockpilot.model.application.vo.ApplicationMarketVO;
 import com.dockpilot.service.ApplicationService;
+import com.dockpilot.service.DownloadCache;
+import com.dockpilot.service.StreamingUploadService;
 import com.dockpilot.service.http.SystemSettingService;
 import com.dockpilot.utils.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -20,8 +22,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.util.List;
 import java.util.Map;
@@ -37,12 +39,27 @@ import java.util.ArrayList;
 @Validated
 public class ApplicationController {
 
+    private static final String BROWSER_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36";
+    private static final long MAX_YAML_SIZE = 10L * 1024 * 1024;
+    private static final long MAX_ZIP_SIZE = 500L * 1024 * 1024;
+    private static final long FORM_OVERHEAD = 64L * 1024;
+    /**
+     * 导入项目目录中记录来源ZIP包SHA-256的文件
+     */
+    private static final String ZIP_SHA256_FILE = ".source-sha256";
+
     @Autowired
     private ApplicationService applicationService;
     
     @Autowired
     private SystemSettingService systemSettingService;
     
+    @Autowired
+    private DownloadCache downloadCache;
+
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+    
     @Value("${file.upload.path:uploads/}")
     private String uploadBasePath;
     
@@ -213,42 +230,63 @@ public class ApplicationController {
     }
 
     /**
-     * 解析ZIP包并返回修改后的YAML内容
+     * 解析ZIP包并返回修改后的YAML内容（流式读取请求体，边接收边解压）
      */
     @PostMapping("/parse-zip")
     @Operation(summary = "解析ZIP包", description = "解析导出的ZIP包，自动关联配置包并返回修改后的YAML")
-    public ApiResponse<String> parseZipPackage(@RequestParam("file") MultipartFile zipFile) {
+    public ApiResponse<String> parseZipPackage(HttpServletRequest request) {
+        try {
+            List<String> yamls = new ArrayList<>();
+            streamingUploadService.forEachFile(request, "file", MAX_ZIP_SIZE + FORM_OVERHEAD, 1,
+                    (fileName, in) -> yamls.add(importZipPackage(fileName, in)));
+            return ApiResponse.success(yamls.get(0));
+        } catch (Exception e) {
+            log.error("ZIP包解析失败: {}", e.getMessage(), e);
+            return ApiResponse.error("ZIP包解析失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 导入ZIP包：解压、存储配置包并返回修改后的YAML
+     * 内容与已导入的ZIP包相同时复用原项目的配置包
+     */
+    private String importZipPackage(String fileName, java.io.InputStream in) throws java.io.IOException {
+        log.info("开始解析ZIP包: {}", fileName);
+        
+        // 按文件头确认是ZIP格式，边读边计算SHA-256
+        StreamingUploadService.CheckedInputStream zipStream = streamingUploadService.check(in, MAX_ZIP_SIZE,
+                java.util.EnumSet.of(StreamingUploadService.FileKind.ZIP));
+        
+        // 1. 解压ZIP包到配置目录下的暂存目录
+        String tempDir = extractZipToTemp(zipStream);
         try {
-            log.info("开始解析ZIP包: {}", zipFile.getOriginalFilename());
-            
-            // 1. 解压ZIP包到临时目录
-            String tempDir = extractZipToTemp(zipFile);
-            
             // 2. 读取docker-compose.yml
             String yamlContent = readDockerComposeFromDir(tempDir);
             if (yamlContent == null) {
-                throw new RuntimeException("ZIP包中未找到docker-compose.yml文件");
+                throw new IllegalArgumentException("ZIP包中未找到docker-compose.yml文件");
             }
             
             // 3. 扫描配置包文件
             List<String> configPackages = findConfigPackagesInDir(tempDir);
             
-            // 4. 生成项目名并存储配置包
-            String projectName = generateProjectName(zipFile.getOriginalFilename());
-            storeConfigPackages(tempDir, configPackages, projectName);
+            // 4. 相同ZIP包已导入过时复用原项目，否则生成项目名并存储配置包
+            String sha256 = zipStream.getSha256();
+            String projectName = findImportedProject(sha256, configPackages);
+            if (projectName != null) {
+                log.info("ZIP包与已导入的项目 {} 内容相同，复用已有配置包", projectName);
+            } else {
+                projectName = generateProjectName(fileName);
+                storeConfigPackages(tempDir, configPackages, projectName, sha256);
+            }
             
             // 5. 修改YAML中的configUrl
             String modifiedYaml = updateConfigUrlsInYaml(yamlContent, configPackages, projectName);
             
-            // 6. 清理临时目录
-            cleanupTempDir(tempDir);
-            
             log.info("ZIP包解析完成，项目: {}, 配置包数量: {}", projectName, configPackages.size());
-            return ApiResponse.success(modifiedYaml);
-            
-        } catch (Exception e) {
-            log.error("ZIP包解析失败: {}", e.getMessage(), e);
-            return ApiResponse.error("ZIP包解析失败: " + e.getMessage());
+            return modifiedYaml;
+        } finally {
+            // 6. 清理暂存目录
+            cleanupTempDir(tempDir);
         }
     }
 
@@ -291,104 +329,69 @@ public class ApplicationController {
      * 从URL下载YAML文件
      */
     private ApiResponse<String> downloadYamlFromUrl(String url) throws Exception {
-        java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
-            .connectTimeout(java.time.Duration.ofSeconds(10))
-            .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
-            .build();
-            
-        java.net.http.HttpRequest httpRequest = java.net.http.HttpRequest.newBuilder()
-            .uri(java.net.URI.create(url))
-            .timeout(java.time.Duration.ofSeconds(60))
-            .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-            .header("Accept", "*/*")
-            .header("Accept-Language", "en-US,en;q=0.9,zh-CN;q=0.8,zh;q=0.7")
-            .header("Cache-Control", "no-cache")
-            .GET()
-            .build();
-            
-        java.net.http.HttpResponse<String> response = client.send(httpRequest, 
-            java.net.http.HttpResponse.BodyHandlers.ofString());
+        Map<String, String> headers = new java.util.LinkedHashMap<>();
+        headers.put("User-Agent", BROWSER_USER_AGENT);
+        headers.put("Accept", "*/*");
+        headers.put("Accept-Language", "en-US,en;q=0.9,zh-CN;q=0.8,zh;q=0.7");
+        
+        try (DownloadCache.Download download = downloadCache.open(url, headers, MAX_YAML_SIZE, null)) {
+            if (!download.isSuccess()) {
+                return ApiResponse.error("HTTP请求失败，状态码: " + download.getStatusCode());
+            }
             
-        if (response.statusCode() != 200) {
-            return ApiResponse.error("HTTP请求失败，状态码: " + response.statusCode());
+            String content;
+            try (java.io.InputStream in = download.getInputStream()) {
+                content = new String(in.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+            }
+            log.info("YAML文件下载完成，内容长度: {}{}", content.length(), download.isFromCache() ? "（本地缓存）" : "");
+            return ApiResponse.success(content);
         }
-        
-        String content = response.body();
-        log.info("YAML文件下载完成，内容长度: {}", content.length());
-        return ApiResponse.success(content);
     }
     
     /**
      * 从URL下载ZIP文件并解析
      */
     private ApiResponse<String> downloadZipFromUrl(String url) throws Exception {
-        java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
-            .connectTimeout(java.time.Duration.ofSeconds(10))
-            .followRedirects(java.net.http.HttpClient.Redirect.NORMAL)
-            .build();
-            
-        java.net.http.HttpRequest httpRequest = java.net.http.HttpRequest.newBuilder()
-            .uri(java.net.URI.create(url))
-            .timeout(java.time.Duration.ofSeconds(60))
-            .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/91.0.4472.124 Safari/537.36")
-            .header("Accept", "application/zip,application/octet-stream,*/*")
-            .header("Accept-Language", "en-US,en;q=0.9,zh-CN;q=0.8,zh;q=0.7")
-            .header("Cache-Control", "no-cache")
-            .GET()
-            .build();
-            
-        // 创建临时文件
-        String tempFileName = "/tmp/url-download-" + System.currentTimeMillis() + ".zip";
-        java.nio.file.Path tempFilePath = java.nio.file.Paths.get(tempFileName);
+        Map<String, String> headers = new java.util.LinkedHashMap<>();
+        headers.put("User-Agent", BROWSER_USER_AGENT);
+        headers.put("Accept", "application/zip,application/octet-stream,*/*");
+        headers.put("Accept-Language", "en-US,en;q=0.9,zh-CN;q=0.8,zh;q=0.7");
         
-        try {
-            // 流式下载到临时文件，不占用内存
-            java.net.http.HttpResponse<java.nio.file.Path> response = client.send(httpRequest, 
-                java.net.http.HttpResponse.BodyHandlers.ofFile(tempFilePath));
-                
-            if (response.statusCode() != 200) {
+        // 下载到本地缓存（未变化时只发送一次条件请求），检查文件大小限制（500MB）
+        try (DownloadCache.Download download = downloadCache.fetch(url, headers, MAX_ZIP_SIZE, null)) {
+            if (!download.isSuccess()) {
+                int statusCode = download.getStatusCode();
                 // 提供更详细的错误信息
-                String errorMsg = String.format("HTTP请求失败，状态码: %d", response.statusCode());
-                if (response.statusCode() == 302 || response.statusCode() == 301) {
+                String errorMsg = String.format("HTTP请求失败，状态码: %d", statusCode);
+                if (statusCode == 302 || statusCode == 301) {
                     errorMsg += "，重定向失败，请检查URL是否需要特殊访问权限";
-                } else if (response.statusCode() == 403) {
+                } else if (statusCode == 403) {
                     errorMsg += "，访问被拒绝，可能需要登录或特殊权限";
-                } else if (response.statusCode() == 404) {
+                } else if (statusCode == 404) {
                     errorMsg += "，文件不存在";
                 }
                 log.warn("下载失败: {}, URL: {}", errorMsg, url);
                 return ApiResponse.error(errorMsg);
             }
             
-            long fileSize = java.nio.file.Files.size(tempFilePath);
-            log.info("ZIP文件下载完成，大小: {} bytes，临时文件: {}", fileSize, tempFileName);
-            
-            // 检查文件大小限制（比如限制500MB）
-            if (fileSize > 500 * 1024 * 1024) {
-                return ApiResponse.error("文件过大，限制500MB以内");
-            }
+            java.nio.file.Path filePath = download.getFile();
+            long fileSize = java.nio.file.Files.size(filePath);
+            log.info("ZIP文件下载完成，大小: {} bytes{}", fileSize, download.isFromCache() ? "（本地缓存）" : "");
             
             // 验证下载的文件是否真的是ZIP格式
-            if (!isValidZipFile(tempFilePath)) {
+            if (!isValidZipFile(filePath)) {
                 return ApiResponse.error("下载的文件不是有效的ZIP格式，可能是网页重定向页面");
             }
             
             // 从URL提取文件名
             String fileName = extractFileNameFromUrl(url);
             
-            // 创建基于临时文件的MultipartFile实现
-            MultipartFile zipFile = new TempFileMultipartFile(fileName, tempFilePath);
-            
-            // 调用现有的ZIP解析方法
-            return parseZipPackage(zipFile);
-            
-        } finally {
-            // 确保临时文件被删除
-            try {
-                java.nio.file.Files.deleteIfExists(tempFilePath);
-                log.debug("临时下载文件已删除: {}", tempFileName);
+            // 调用现有的ZIP导入逻辑
+            try (java.io.InputStream in = java.nio.file.Files.newInputStream(filePath)) {
+                return ApiResponse.success(importZipPackage(fileName, in));
             } catch (Exception e) {
-                log.warn("删除临时文件失败: {}", tempFileName, e);
+                log.error("ZIP包解析失败: {}", e.getMessage(), e);
+                return ApiResponse.error("ZIP包解析失败: " + e.getMessage());
             }
         }
     }
@@ -412,61 +415,6 @@ public class ApplicationController {
         return false;
     }
     
-    /**
-     * 基于临时文件的MultipartFile实现（不占用内存）
-     */
-    private static class TempFileMultipartFile implements MultipartFile {
-        private final String filename;
-        private final java.nio.file.Path filePath;
-        
-        public TempFileMultipartFile(String filename, java.nio.file.Path filePath) {
-            this.filename = filename;
-            this.filePath = filePath;
-        }
-        
-        @Override
-        public String getName() { return "file"; }
-        
-        @Override
-        public String getOriginalFilename() { return filename; }
-        
-        @Override
-        public String getContentType() { return "application/zip"; }
-        
-        @Override
-        public boolean isEmpty() { 
-            try {
-                return java.nio.file.Files.size(filePath) == 0;
-            } catch (Exception e) {
-                return true;
-            }
-        }
-        
-        @Override
-        public long getSize() { 
-            try {
-                return java.nio.file.Files.size(filePath);
-            } catch (Exception e) {
-                return 0;
-            }
-        }
-        
-        @Override
-        public byte[] getBytes() throws java.io.IOException {
-            return java.nio.file.Files.readAllBytes(filePath);
-        }
-        
-        @Override
-        public java.io.InputStream getInputStream() throws java.io.IOException {
-            return java.nio.file.Files.newInputStream(filePath);
-        }
-        
-        @Override
-        public void transferTo(java.io.File dest) throws java.io.IOException {
-            java.nio.file.Files.copy(filePath, dest.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-        }
-    }
-    
     /**
      * 从URL提取文件名
      */
@@ -481,29 +429,29 @@ public class ApplicationController {
     }
 
     /**
-     * 解压ZIP包到临时目录
+     * 解压ZIP包到配置目录下的暂存目录（与最终目录在同一文件系统，存储时直接移动）
+     * 只解压根目录下的docker-compose.yml和*.tar.gz，其余条目（含带路径的条目）跳过
      */
-    private String extractZipToTemp(MultipartFile zipFile) throws Exception {
-        String tempDir = "/tmp/zip-import-" + System.currentTimeMillis();
+    private String extractZipToTemp(StreamingUploadService.CheckedInputStream zipStream) throws java.io.IOException {
+        String tempDir = configPath + ".import-" + java.util.UUID.randomUUID();
         java.nio.file.Files.createDirectories(java.nio.file.Paths.get(tempDir));
         
-        try (java.util.zip.ZipInputStream zis = new java.util.zip.ZipInputStream(zipFile.getInputStream())) {
+        try (java.util.zip.ZipInputStream zis = new java.util.zip.ZipInputStream(zipStream)) {
             java.util.zip.ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
-                if (entry.isDirectory()) continue;
-                
-                String entryPath = tempDir + "/" + entry.getName();
-                java.nio.file.Path targetPath = java.nio.file.Paths.get(entryPath);
-                java.nio.file.Files.createDirectories(targetPath.getParent());
-                
-                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(targetPath.toFile())) {
-                    byte[] buffer = new byte[8192];
-                    int len;
-                    while ((len = zis.read(buffer)) != -1) {
-                        fos.write(buffer, 0, len);
-                    }
+                String name = entry.getName();
+                if (entry.isDirectory() || name.contains("/") || name.contains("\\")
+                        || !(name.equals("docker-compose.yml") || name.endsWith(".tar.gz"))) {
+                    continue;
                 }
+                java.nio.file.Files.copy(zis, java.nio.file.Paths.get(tempDir, name),
+                        java.nio.file.StandardCopyOption.REPLACE_EXISTING);
             }
+            // 读完中央目录，使摘要覆盖整个ZIP包
+            zipStream.drain();
+        } catch (java.io.IOException | RuntimeException e) {
+            cleanupTempDir(tempDir);
+            throw e;
         }
         
         return tempDir;
@@ -512,7 +460,7 @@ public class ApplicationController {
     /**
      * 从目录读取docker-compose.yml
      */
-    private String readDockerComposeFromDir(String dir) throws Exception {
+    private String readDockerComposeFromDir(String dir) throws java.io.IOException {
         String yamlFile = dir + "/docker-compose.yml";
         if (java.nio.file.Files.exists(java.nio.file.Paths.get(yamlFile))) {
             return new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(yamlFile)));
@@ -523,7 +471,7 @@ public class ApplicationController {
     /**
      * 扫描目录中的配置包文件
      */
-    private List<String> findConfigPackagesInDir(String dir) throws Exception {
+    private List<String> findConfigPackagesInDir(String dir) throws java.io.IOException {
         List<String> packages = new ArrayList<>();
         try (java.nio.file.DirectoryStream<java.nio.file.Path> stream = 
                 java.nio.file.Files.newDirectoryStream(java.nio.file.Paths.get(dir), "*.tar.gz")) {
@@ -544,27 +492,51 @@ public class ApplicationController {
     }
     
     /**
-     * 存储配置包到本地目录
+     * 存储配置包到本地目录（从暂存目录移动），并记录ZIP包摘要用于去重
      */
-    private void storeConfigPackages(String tempDir, List<String> packages, String projectName) throws Exception {
+    private void storeConfigPackages(String tempDir, List<String> packages, String projectName, String sha256)
+            throws java.io.IOException {
         String configDir = configPath + projectName;
         java.nio.file.Files.createDirectories(java.nio.file.Paths.get(configDir));
         
-        // 复制docker-compose.yml
-        String yamlSource = tempDir + "/docker-compose.yml";
-        String yamlTarget = configDir + "/docker-compose.yml";
-        java.nio.file.Files.copy(java.nio.file.Paths.get(yamlSource), 
-                                  java.nio.file.Paths.get(yamlTarget), 
+        // 移动docker-compose.yml
+        java.nio.file.Files.move(java.nio.file.Paths.get(tempDir, "docker-compose.yml"),
+                                  java.nio.file.Paths.get(configDir, "docker-compose.yml"),
                                   java.nio.file.StandardCopyOption.REPLACE_EXISTING);
         
-        // 复制配置包
+        // 移动配置包
         for (String packageName : packages) {
-            String source = tempDir + "/" + packageName;
-            String target = configDir + "/" + packageName;
-            java.nio.file.Files.copy(java.nio.file.Paths.get(source), 
-                                      java.nio.file.Paths.get(target), 
+            java.nio.file.Files.move(java.nio.file.Paths.get(tempDir, packageName),
+                                      java.nio.file.Paths.get(configDir, packageName),
                                       java.nio.file.StandardCopyOption.REPLACE_EXISTING);
         }
+        
+        java.nio.file.Files.writeString(java.nio.file.Paths.get(configDir, ZIP_SHA256_FILE), sha256);
+    }
+    
+    /**
+     * 查找已导入的相同ZIP包（按SHA-256），没有时返回null
+     * 配置包被删除过的项目不复用，YAML 中的 configUrl 会指向这些配置包
+     */
+    private String findImportedProject(String sha256, List<String> packages) {
+        java.nio.file.Path configRoot = java.nio.file.Paths.get(configPath);
+        if (!java.nio.file.Files.isDirectory(configRoot)) {
+            return null;
+        }
+        try (java.nio.file.DirectoryStream<java.nio.file.Path> stream = java.nio.file.Files.newDirectoryStream(configRoot)) {
+            for (java.nio.file.Path dir : stream) {
+                java.nio.file.Path marker = dir.resolve(ZIP_SHA256_FILE);
+                if (java.nio.file.Files.isRegularFile(marker)
+                        && java.nio.file.Files.isRegularFile(dir.resolve("docker-compose.yml"))
+                        && sha256.equals(java.nio.file.Files.readString(marker).trim())
+                        && packages.stream().allMatch(name -> java.nio.file.Files.isRegularFile(dir.resolve(name)))) {
+                    return dir.getFileName().toString();
+                }
+            }
+        } catch (java.io.IOException e) {
+            log.warn("查找已导入的ZIP包失败: {}", e.getMessage());
+        }
+        return null;
     }
     
     /**
@@ -5,10 +5,13 @@ import com.dockpilot.model.ContainerYamlRequest;
 import com.dockpilot.model.ContainerYamlResponse;
 import com.dockpilot.utils.ApiResponse;
 import com.dockpilot.utils.ComposeGenerator;
+import com.dockpilot.utils.ProjectArchiveWriter;
+import com.dockpilot.utils.StaticFileServer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +20,15 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.FileSystemResource;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.concurrent.CompletableFuture;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -49,6 +55,9 @@ public class ContainerYamlController {
     @Autowired
     private AsyncPackageService asyncPackageService;
     
+    @Autowired
+    private StaticFileServer staticFileServer;
+    
     /**
      * 根据容器ID列表生成YAML配置
      */
@@ -240,61 +249,35 @@ public class ContainerYamlController {
     
     /**
      * 导出完整项目包（YAML + 配置包）
+     * 配置文件从宿主机路径直接流式写入响应，不在服务器上生成临时目录或ZIP
      */
-    private ResponseEntity<Resource> exportCompleteProject(String yamlContent, 
-                                                         ContainerYamlRequest request, 
-                                                         String projectName) throws Exception {
-        // 创建临时导出目录
-        String exportId = "export_" + System.currentTimeMillis();
-        String exportDir = "/tmp/exports/" + exportId;
-        java.nio.file.Files.createDirectories(java.nio.file.Paths.get(exportDir));
+    private ResponseEntity<StreamingResponseBody> exportCompleteProject(String yamlContent, 
+                                                                      ContainerYamlRequest request, 
+                                                                      String projectName) {
+        ProjectArchiveWriter.Layout layout = ProjectArchiveWriter.Layout.of(request.getArchiveLayout());
+        ProjectArchiveWriter.Compression compression = asyncPackageService.compressionOptions(request.getCompressionLevel());
         
-        try {
-            // 1. 保存YAML文件
-            String yamlFile = exportDir + "/docker-compose.yml";
-            java.nio.file.Files.write(java.nio.file.Paths.get(yamlFile), 
-                yamlContent.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            
-            // 2. 生成配置包 - 传递用户选择的路径
-            Map<String, String> configPackages = composeGenerator.generateConfigPackages(
-                request.getContainerIds(), exportDir, request.getSelectedPaths()
-            );
-            
-            // 3. 生成README
-            generateReadmeFile(exportDir, projectName, configPackages);
-            
-            // 4. 创建ZIP包
-            String zipFile = exportDir + ".zip";
-            createZipFromDirectory(exportDir, zipFile);
-            
-            // 5. 返回ZIP文件
-            org.springframework.core.io.Resource resource = 
-                new org.springframework.core.io.FileSystemResource(new java.io.File(zipFile));
-            
-            // 🔥 修复中文文件名编码问题
-            String filename = projectName + "-export.zip";
-            String encodedFilename = encodeFilename(filename);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"" + sanitizeFilename(filename) + "\"; " +
-                            "filename*=UTF-8''" + encodedFilename)
-                    .header(HttpHeaders.CONTENT_TYPE, "application/zip")
-                    .body(resource);
-                    
-        } finally {
-            // 清理临时文件（在另一个线程中延迟删除）
-            String tempPath = exportDir;
-            CompletableFuture.runAsync(() -> {
-                try {
-                    Thread.sleep(30000); // 30秒后删除
-                    deleteDirectory(tempPath);
-                    deleteDirectory(tempPath + ".zip");
-                } catch (Exception e) {
-                    log.warn("清理临时文件失败: {}", tempPath, e);
-                }
-            });
-        }
+        StreamingResponseBody body = outputStream -> {
+            try {
+                asyncPackageService.writeProjectArchive(outputStream, yamlContent, projectName,
+                        request.getContainerIds(), request.getSelectedPaths(), layout, compression);
+            } catch (IOException e) {
+                // 响应头已经发出，只能中断连接，客户端会收到不完整的ZIP
+                log.error("导出项目包写入中断: {} - {}", projectName, e.getMessage());
+                throw e;
+            }
+        };
+        
+        // 🔥 修复中文文件名编码问题
+        String filename = projectName + "-export.zip";
+        String encodedFilename = encodeFilename(filename);
+        
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, 
+                        "attachment; filename=\"" + sanitizeFilename(filename) + "\"; " +
+                        "filename*=UTF-8''" + encodedFilename)
+                .header(HttpHeaders.CONTENT_TYPE, "application/zip")
+                .body(body);
     }
     
     /**
@@ -355,93 +338,6 @@ public class ContainerYamlController {
         }
     }
     
-    /**
-     * 生成README文件
-     */
-    private void generateReadmeFile(String exportDir, String projectName, Map<String, String> configPackages) throws Exception {
-        StringBuilder readme = new StringBuilder();
-        readme.append("# ").append(projectName).append(" 导出包\n\n");
-        readme.append("## 📁 文件说明\n\n");
-        readme.append("- `docker-compose.yml` - Docker Compose配置文件\n");
-        
-        if (!configPackages.isEmpty()) {
-            readme.append("- 服务配置包:\n");
-            for (Map.Entry<String, String> entry : configPackages.entrySet()) {
-                readme.append("  - `").append(entry.getValue())
-                      .append("` - ").append(entry.getKey()).append(" 服务配置\n");
-            }
-        }
-        
-        readme.append("\n## 🚀 使用方法\n\n");
-        readme.append("1. 解压配置包到对应的服务目录\n");
-        readme.append("2. 根据需要修改 `docker-compose.yml` 中的环境变量\n");
-        readme.append("3. 更新 configUrl 为您上传的配置包地址\n");
-        readme.append("4. 运行: `docker-compose up -d`\n\n");
-        
-        if (!configPackages.isEmpty()) {
-            readme.append("## 📦 配置包部署说明\n\n");
-            for (Map.Entry<String, String> entry : configPackages.entrySet()) {
-                String serviceName = entry.getKey();
-                String packageName = entry.getValue();
-                readme.append("### ").append(serviceName).append("\n");
-                readme.append("```bash\n");
-                readme.append("# 1. 上传配置包到文件服务器，获得下载URL\n");
-                readme.append("# 2. 修改 docker-compose.yml 中 ").append(serviceName).append(" 服务的 configUrl\n");
-                readme.append("# 示例: configUrl: 'https://github.com/xxx/releases/download/v1.0/").append(packageName).append("'\n");
-                readme.append("```\n\n");
-            }
-        }
-        
-        String readmeFile = exportDir + "/README.md";
-        java.nio.file.Files.write(java.nio.file.Paths.get(readmeFile), 
-            readme.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-    }
-    
-    /**
-     * 创建ZIP文件
-     */
-    private void createZipFromDirectory(String sourceDir, String zipFile) throws Exception {
-        try (java.util.zip.ZipOutputStream zos = new java.util.zip.ZipOutputStream(
-                java.nio.file.Files.newOutputStream(java.nio.file.Paths.get(zipFile)))) {
-            
-            java.nio.file.Path sourcePath = java.nio.file.Paths.get(sourceDir);
-            java.nio.file.Files.walk(sourcePath)
-                .filter(path -> !java.nio.file.Files.isDirectory(path))
-                .forEach(path -> {
-                    java.util.zip.ZipEntry zipEntry = new java.util.zip.ZipEntry(
-                        sourcePath.relativize(path).toString());
-                    try {
-                        zos.putNextEntry(zipEntry);
-                        java.nio.file.Files.copy(path, zos);
-                        zos.closeEntry();
-                    } catch (Exception e) {
-                        throw new RuntimeException("添加文件到ZIP失败: " + path, e);
-                    }
-                });
-        }
-    }
-    
-    /**
-     * 删除目录
-     */
-    private void deleteDirectory(String dirPath) {
-        try {
-            java.nio.file.Path path = java.nio.file.Paths.get(dirPath);
-            if (java.nio.file.Files.exists(path)) {
-                if (java.nio.file.Files.isDirectory(path)) {
-                    java.nio.file.Files.walk(path)
-                        .sorted(java.util.Comparator.reverseOrder())
-                        .map(java.nio.file.Path::toFile)
-                        .forEach(java.io.File::delete);
-                } else {
-                    java.nio.file.Files.delete(path);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("删除目录失败: {}", dirPath, e);
-        }
-    }
-
     /**
      * 获取容器路径信息供用户选择打包
      */
@@ -473,12 +369,7 @@ public class ContainerYamlController {
     @Operation(summary = "启动异步打包任务", description = "启动异步打包任务，立即返回任务ID，避免超时问题")
     public ApiResponse<Map<String, Object>> startAsyncPackage(@Valid @RequestBody ContainerYamlRequest request) {
         try {
-            String taskId = asyncPackageService.startPackageTask(
-                request.getContainerIds(),
-                request.getProjectName(),
-                request.getDescription(),
-                request.getSelectedPaths()
-            );
+            String taskId = asyncPackageService.startPackageTask(request);
             
             Map<String, Object> result = new HashMap<>();
             result.put("taskId", taskId);
@@ -518,7 +409,9 @@ public class ContainerYamlController {
      */
     @GetMapping("/download-package/{taskId}")
     @Operation(summary = "下载打包文件", description = "下载已完成的打包文件")
-    public ResponseEntity<?> downloadPackageFile(@PathVariable String taskId) {
+    public ResponseEntity<?> downloadPackageFile(@PathVariable String taskId,
+                                                 HttpServletRequest httpRequest,
+                                                 HttpServletResponse httpResponse) {
         try {
             PackageTask task = asyncPackageService.getTaskStatus(taskId);
             
@@ -537,20 +430,17 @@ public class ContainerYamlController {
                         .body(ApiResponse.error("文件不存在"));
             }
             
-            org.springframework.core.io.Resource resource = 
-                new org.springframework.core.io.FileSystemResource(new java.io.File(task.getFilePath()));
-            
             // 🔥 修复中文文件名编码问题
             String filename = task.getFileName();
             String encodedFilename = encodeFilename(filename);
-            
-            return ResponseEntity.ok()
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "attachment; filename=\"" + sanitizeFilename(filename) + "\"; " +
-                            "filename*=UTF-8''" + encodedFilename)
-                    .header(HttpHeaders.CONTENT_TYPE, "application/zip")
-                    .header(HttpHeaders.CONTENT_LENGTH, task.getFileSize().toString())
-                    .body(resource);
+            String disposition = "attachment; filename=\"" + sanitizeFilename(filename) + "\"; " +
+                    "filename*=UTF-8''" + encodedFilename;
+            
+            // 支持断点续传（Range / If-Range），文件内容直接由容器零拷贝发送
+            staticFileServer.serve(httpRequest, httpResponse, java.nio.file.Paths.get(task.getFilePath()),
+                    "application/zip", CacheControl.noCache(), disposition);
+            // 响应已直接写出
+            return null;
                     
         } catch (Exception e) {
             log.error("下载打包文件失败: {}", e.getMessage(), e);
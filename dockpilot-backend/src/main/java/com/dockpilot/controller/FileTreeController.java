@@ -1,14 +1,15 @@
 package com.dockpilot.controller;
 
 import com.dockpilot.model.FileNode;
+import com.dockpilot.model.FileTreePage;
+import com.dockpilot.service.FileTreeService;
 import com.dockpilot.utils.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -17,54 +18,40 @@ public class FileTreeController {
 
     private static final int MAX_FILES_PER_DIR = 100;  // 每个目录最大文件数
 
+    @Autowired
+    private FileTreeService fileTreeService;
+
     @GetMapping("/list")
     public ApiResponse<List<FileNode>> getFileTree(
             @RequestParam(defaultValue = "/") String path,
             @RequestParam(defaultValue = "100") int maxFilesPerDir) {
         try {
-            // 将所有路径映射到宿主机挂载目录
-            String actualPath = "/".equals(path) ? "/mnt/host" : "/mnt/host" + path;
-            List<FileNode> nodes = buildFileTree(actualPath, Math.min(maxFilesPerDir, MAX_FILES_PER_DIR));
-            return ApiResponse.success(nodes);
+            // 目录在前、按名称排序的第一页
+            FileTreePage page = fileTreeService.list(path, null, Math.min(maxFilesPerDir, MAX_FILES_PER_DIR),
+                    "name", "asc", "all", null, true);
+            return ApiResponse.success(page.getItems());
         } catch (Exception e) {
             return ApiResponse.error("获取文件列表失败: " + e.getMessage());
         }
     }
 
-    private List<FileNode> buildFileTree(String rootPath, int maxFilesPerDir) {
-        List<FileNode> result = new ArrayList<>();
-        File root = new File(rootPath);
-
-        if (!root.exists()) {
-            return result;
-        }
-
-        File[] files = root.listFiles();
-        if (files != null) {
-            int count = 0;
-            for (File file : files) {
-                if (count >= maxFilesPerDir) {
-                    break;
-                }
-
-                FileNode node = new FileNode();
-                node.setName(file.getName());
-                // 将容器内路径转换回前端路径（去掉 /mnt/host 前缀）
-                String absolutePath = file.getAbsolutePath();
-                String frontendPath = absolutePath.startsWith("/mnt/host") ? 
-                    absolutePath.substring(9) : absolutePath;  // 去掉 "/mnt/host" (9个字符)
-                if (frontendPath.isEmpty()) {
-                    frontendPath = "/";
-                }
-                node.setPath(frontendPath);
-                node.setDirectory(file.isDirectory());
-                node.setChildren(new ArrayList<>());  // 初始化为空列表，表示未加载子节点
-
-                result.add(node);
-                count++;
-            }
+    /**
+     * 分页列出目录，翻页时传入上一页返回的 nextCursor
+     */
+    @GetMapping("/page")
+    public ApiResponse<FileTreePage> getFileTreePage(
+            @RequestParam(defaultValue = "/") String path,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "name") String sort,
+            @RequestParam(defaultValue = "asc") String order,
+            @RequestParam(defaultValue = "all") String type,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "true") boolean showHidden) {
+        try {
+            return ApiResponse.success(fileTreeService.list(path, cursor, limit, sort, order, type, keyword, showHidden));
+        } catch (Exception e) {
+            return ApiResponse.error("获取文件列表失败: " + e.getMessage());
         }
-
-        return result;
     }
-} 
\ No newline at end of file
+}
@@ -1,19 +1,19 @@
 package com.dockpilot.controller;
 
+import com.dockpilot.service.StreamingUploadService;
 import com.dockpilot.utils.ApiResponse;
+import com.dockpilot.utils.StaticFileServer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.CacheControl;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -27,10 +27,13 @@ import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
@@ -45,46 +48,56 @@ public class FileUploadController {
     @Value("${file.background.path}")
     private String backgroundPath;
 
-    @Operation(summary = "上传图片", description = "上传图片文件，支持jpg、png、gif、webp、svg格式")
-    @PostMapping("/image")
-    public ApiResponse<Map<String, String>> uploadImage(@RequestParam("file") MultipartFile file) {
-        try {
-            // 验证文件类型
-            if (!isImageFile(file)) {
-                return ApiResponse.error("只支持图片文件格式 (jpg, jpeg, png, gif, webp, svg)");
-            }
+    @Autowired
+    private StaticFileServer staticFileServer;
 
-            // 验证文件大小
-            if (file.getSize() > 10 * 1024 * 1024) { // 10MB
-                return ApiResponse.error("文件大小不能超过10MB");
-            }
+    @Autowired
+    private StreamingUploadService streamingUploadService;
 
-            // 确保背景图片目录存在
-            Path uploadDir = Paths.get(backgroundPath);
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
+    /**
+     * 上传图片大小限制（10MB）
+     */
+    private static final long MAX_IMAGE_SIZE = 10L * 1024 * 1024;
 
-            // 生成唯一文件名
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = getFileExtension(originalFilename);
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-            String uniqueId = UUID.randomUUID().toString().substring(0, 8);
-            String newFilename = "img_" + timestamp + "_" + uniqueId + fileExtension;
+    /**
+     * multipart 表单边界和字段头的额外开销
+     */
+    private static final long FORM_OVERHEAD = 64L * 1024;
 
-            // 保存文件
-            Path filePath = uploadDir.resolve(newFilename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+    private static final Set<StreamingUploadService.FileKind> IMAGE_KINDS = EnumSet.of(
+            StreamingUploadService.FileKind.JPEG, StreamingUploadService.FileKind.PNG,
+            StreamingUploadService.FileKind.GIF, StreamingUploadService.FileKind.WEBP,
+            StreamingUploadService.FileKind.SVG);
 
-            // 返回文件信息（只返回文件名，让前端处理URL）
+    @Operation(summary = "上传图片", description = "上传图片文件，支持jpg、png、gif、webp、svg格式")
+    @PostMapping("/image")
+    public ApiResponse<Map<String, String>> uploadImage(HttpServletRequest request) {
+        try {
+            Path uploadDir = Paths.get(backgroundPath);
             Map<String, String> result = new HashMap<>();
-            result.put("filename", newFilename);
-            result.put("originalName", originalFilename);
-            result.put("size", String.valueOf(file.getSize()));
 
-            log.info("文件上传成功: {} -> {}", originalFilename, newFilename);
+            // 直接从请求体流式写入背景图片目录，按文件头校验格式，超过10MB时立即中止
+            streamingUploadService.forEachFile(request, "file", MAX_IMAGE_SIZE + FORM_OVERHEAD, 1, (originalFilename, in) -> {
+                // 生成唯一文件名，扩展名以实际格式为准
+                String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+                String uniqueId = UUID.randomUUID().toString().substring(0, 8);
+                StreamingUploadService.StoredFile stored = streamingUploadService.store(in, uploadDir, uploadDir,
+                        MAX_IMAGE_SIZE, IMAGE_KINDS, kind -> "img_" + timestamp + "_" + uniqueId + kind.getExtension(), false);
+
+                // 返回文件信息（只返回文件名，让前端处理URL）
+                result.put("filename", stored.getFileName());
+                result.put("originalName", originalFilename);
+                result.put("size", String.valueOf(stored.getSize()));
+                result.put("sha256", stored.getSha256());
+                result.put("deduplicated", String.valueOf(stored.isDeduplicated()));
+
+                log.info("文件上传成功: {} -> {}{}", originalFilename, stored.getFileName(),
+                        stored.isDeduplicated() ? "（与已有图片相同）" : "");
+            });
             return ApiResponse.success(result);
 
+        } catch (IllegalArgumentException e) {
+            return ApiResponse.error(e.getMessage());
         } catch (IOException e) {
             log.error("文件上传失败", e);
             return ApiResponse.error("文件上传失败: " + e.getMessage());
@@ -93,31 +106,28 @@ public class FileUploadController {
 
     @Operation(summary = "获取图片", description = "根据文件名获取图片文件（仅开发环境使用）")
     @GetMapping("/image/{filename}")
-    public ResponseEntity<Resource> getImage(@PathVariable String filename) {
-        try {
-            Path filePath = Paths.get(backgroundPath).resolve(filename);
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                // 根据文件扩展名设置Content-Type
-                String contentType = getContentType(filename);
-                
-                // 🔥 修复可能的中文文件名编码问题
-                String encodedFilename = encodeFilename(filename);
-                
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(contentType))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, 
-                                "inline; filename=\"" + sanitizeFilename(filename) + "\"; " +
-                                "filename*=UTF-8''" + encodedFilename)
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (Exception e) {
-            log.error("获取图片文件失败: {}", filename, e);
-            return ResponseEntity.notFound().build();
+    public void getImage(@PathVariable String filename,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path baseDir = Paths.get(backgroundPath).toAbsolutePath().normalize();
+        Path filePath = baseDir.resolve(filename).normalize();
+        // 防止路径穿越
+        if (!filePath.startsWith(baseDir) || filePath.equals(baseDir)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+
+        // 根据文件扩展名设置Content-Type
+        String contentType = getContentType(filename);
+
+        // 🔥 修复可能的中文文件名编码问题
+        String encodedFilename = encodeFilename(filename);
+        String disposition = "inline; filename=\"" + sanitizeFilename(filename) + "\"; " +
+                "filename*=UTF-8''" + encodedFilename;
+
+        // 背景图片可能被同名覆盖，短期缓存后通过 ETag 重新验证
+        staticFileServer.serve(request, response, filePath, contentType,
+                CacheControl.maxAge(1, TimeUnit.DAYS).cachePublic(), disposition);
     }
 
     @Operation(summary = "删除文件", description = "删除指定的上传文件")
@@ -442,17 +452,6 @@ public class FileUploadController {
         return nameWithoutExt;
     }
 
-    private boolean isImageFile(MultipartFile file) {
-        String contentType = file.getContentType();
-        return contentType != null && (
-                contentType.equals("image/jpeg") ||
-                contentType.equals("image/png") ||
-                contentType.equals("image/gif") ||
-                contentType.equals("image/webp") ||
-                contentType.equals("image/svg+xml")
-        );
-    }
-
     private String getFileExtension(String filename) {
         if (filename == null || !filename.contains(".")) {
             return "";
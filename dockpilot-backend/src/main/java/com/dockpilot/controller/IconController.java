@@ -2,18 +2,22 @@ package com.dockpilot.controller;
 
 import com.dockpilot.dto.IconInfo;
 import com.dockpilot.service.IconService;
+import com.dockpilot.service.StreamingUploadService;
 import com.dockpilot.utils.ApiResponse;
+import com.dockpilot.utils.StaticFileServer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -24,7 +28,20 @@ import java.util.concurrent.TimeUnit;
 @CrossOrigin(origins = "*")
 public class IconController {
 
+    /**
+     * 单个图标上传请求体上限（图标 2MB 加表单开销）
+     */
+    private static final long MAX_ICON_REQUEST_SIZE = 3L * 1024 * 1024;
+
+    /**
+     * 批量上传图标的请求体上限和文件数
+     */
+    private static final long MAX_ICONS_REQUEST_SIZE = 200L * 1024 * 1024;
+    private static final int MAX_ICON_FILES = 500;
+
     private final IconService iconService;
+    private final StaticFileServer staticFileServer;
+    private final StreamingUploadService streamingUploadService;
 
     /**
      * 获取所有可用图标列表
@@ -46,39 +63,45 @@ public class IconController {
      * 获取图标文件
      */
     @GetMapping("/{iconName}")
-    public ResponseEntity<Resource> getIcon(@PathVariable String iconName) {
+    public void getIcon(@PathVariable String iconName,
+                        HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
         try {
             Resource iconResource = iconService.getIconResource(iconName);
             if (iconResource != null && iconResource.exists()) {
                 // 确定内容类型
                 MediaType mediaType = iconService.getMediaType(iconName);
-                
-                return ResponseEntity.ok()
-                        .contentType(mediaType)
-                        .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS))
-                        .header(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*")
-                        .body(iconResource);
+                staticFileServer.serve(request, response, iconResource.getFile().toPath(), mediaType.toString(),
+                        CacheControl.maxAge(30, TimeUnit.DAYS), null);
             } else {
                 // 返回默认图标
                 Resource defaultIcon = iconService.getDefaultIcon();
-                return ResponseEntity.ok()
-                        .contentType(MediaType.IMAGE_PNG)
-                        .body(defaultIcon);
+                if (defaultIcon == null) {
+                    response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                    return;
+                }
+                staticFileServer.serve(request, response, defaultIcon.getFile().toPath(), MediaType.IMAGE_PNG_VALUE,
+                        CacheControl.noCache(), null);
             }
         } catch (Exception e) {
             log.error("获取图标文件失败: {}", iconName, e);
-            return ResponseEntity.notFound().build();
+            if (!response.isCommitted()) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
         }
     }
 
     /**
-     * 上传单个图标文件
+     * 上传单个图标文件（流式读取请求体，不整包缓存）
      */
     @PostMapping("/upload")
-    public ApiResponse<IconInfo> uploadIcon(@RequestParam("file") MultipartFile file) {
+    public ApiResponse<IconInfo> uploadIcon(HttpServletRequest request) {
         try {
-            IconInfo iconInfo = iconService.uploadIcon(file);
-            return ApiResponse.success(iconInfo, "图标上传成功");
+            List<IconInfo> iconInfos = new ArrayList<>();
+            streamingUploadService.forEachFile(request, "file", MAX_ICON_REQUEST_SIZE, 1,
+                    (fileName, in) -> iconInfos.add(iconService.uploadIcon(fileName, in)));
+            return ApiResponse.success(iconInfos.get(0), "图标上传成功");
         } catch (Exception e) {
             log.error("上传图标失败", e);
             return ApiResponse.error("上传失败：" + e.getMessage());
@@ -86,12 +109,21 @@ public class IconController {
     }
 
     /**
-     * 上传多个图标文件
+     * 上传多个图标文件，单个文件失败不影响其他文件
      */
     @PostMapping("/upload-multiple")
-    public ApiResponse<List<IconInfo>> uploadIcons(@RequestParam("files") MultipartFile[] files) {
+    public ApiResponse<List<IconInfo>> uploadIcons(HttpServletRequest request) {
         try {
-            List<IconInfo> iconInfos = iconService.uploadIcons(files);
+            List<IconInfo> iconInfos = new ArrayList<>();
+            streamingUploadService.forEachFile(request, "files", MAX_ICONS_REQUEST_SIZE, MAX_ICON_FILES,
+                    (fileName, in) -> {
+                        try {
+                            iconInfos.add(iconService.uploadIcon(fileName, in));
+                        } catch (IllegalArgumentException | IOException e) {
+                            log.error("上传文件失败: {}", fileName, e);
+                            // 继续处理其他文件，不中断整个过程
+                        }
+                    });
             return ApiResponse.success(iconInfos, "成功上传 " + iconInfos.size() + " 个图标");
         } catch (Exception e) {
             log.error("批量上传图标失败", e);
@@ -0,0 +1,64 @@
+package com.dockpilot.controller;
+
+import com.dockpilot.common.annotation.Anonymous;
+import com.dockpilot.common.metrics.MetricsExporter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Prometheus / OpenMetrics 抓取接口
+ * <p>
+ * 抓取方不持有登录 JWT，因此跳过 JWT 认证，改为校验单独配置的 metrics.token；
+ * 未配置 token 时接口不对外开放。
+ */
+@RestController
+@Tag(name = "监控指标", description = "OpenMetrics 指标导出")
+public class MetricsController {
+
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    @Autowired
+    private MetricsExporter metricsExporter;
+
+    @Value("${metrics.token:}")
+    private String token;
+
+    @Anonymous
+    @Operation(summary = "导出 OpenMetrics 指标", description = "需要在请求头中携带 Authorization: Bearer <metrics.token>")
+    @GetMapping("/metrics")
+    public void metrics(@RequestHeader(value = "Authorization", required = false) String authorization,
+                        HttpServletResponse response) throws IOException {
+        if (token == null || token.trim().isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        if (!isAuthorized(authorization)) {
+            response.setHeader("WWW-Authenticate", "Bearer");
+            response.sendError(HttpStatus.UNAUTHORIZED.value());
+            return;
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-store");
+        metricsExporter.write(response.getWriter());
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        byte[] expected = token.trim().getBytes(StandardCharsets.UTF_8);
+        byte[] actual = authorization.substring(7).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(expected, actual);
+    }
+}
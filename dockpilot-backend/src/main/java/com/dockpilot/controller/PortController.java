@@ -1,5 +1,7 @@
 package com.dockpilot.controller;
 
+import com.dockpilot.model.PortCheckResultDTO;
+import com.dockpilot.service.PortAllocationService;
 import com.dockpilot.service.PortCheckService;
 import com.dockpilot.utils.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -22,6 +25,7 @@ import java.util.Map;
 public class PortController {
     
     private final PortCheckService portCheckService;
+    private final PortAllocationService portAllocationService;
     
     /**
      * 检测单个端口是否可用
@@ -92,4 +96,31 @@ public class PortController {
         
         return ApiResponse.success(result);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 检查应用YAML的端口冲突
+     */
+    @PostMapping(value = "/check-yaml", consumes = {"text/plain", "application/x-yaml", "text/yaml"})
+    @Operation(summary = "检查应用端口冲突", description = "一次检查应用YAML中所有服务的宿主机端口，冲突时给出建议端口")
+    public ApiResponse<PortCheckResultDTO> checkYamlPorts(
+            @Parameter(description = "应用YAML内容")
+            @RequestBody String yamlContent) {
+        
+        return ApiResponse.success(portAllocationService.checkYaml(yamlContent));
+    }
+    
+    /**
+     * 推荐空闲端口
+     */
+    @GetMapping("/suggest")
+    @Operation(summary = "推荐空闲端口", description = "查找离指定端口最近的空闲端口")
+    public ApiResponse<List<Integer>> suggestPorts(
+            @Parameter(description = "参考端口", example = "8080")
+            @RequestParam @Min(1) @Max(65535) int port,
+            
+            @Parameter(description = "需要的端口数量", example = "3")
+            @RequestParam(defaultValue = "3") @Min(1) @Max(20) int count) {
+        
+        return ApiResponse.success(portAllocationService.suggestFreePorts(port, count));
+    }
+}
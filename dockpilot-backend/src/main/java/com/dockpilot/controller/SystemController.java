@@ -1,13 +1,19 @@
 package com.dockpilot.controller;
 
+import com.dockpilot.model.NetworkRateSnapshotDTO;
 import com.dockpilot.model.Route;
+import com.dockpilot.model.StorageMetricsDTO;
 import com.dockpilot.model.SystemSetting;
 import com.dockpilot.model.SystemStatusDTO;
+import com.dockpilot.service.CpuUsageTracker;
+import com.dockpilot.service.NetworkRateTracker;
+import com.dockpilot.service.StorageMetricsService;
 import com.dockpilot.service.http.SystemSettingService;
 import com.dockpilot.service.http.SystemStatusService;
 import com.dockpilot.utils.ApiResponse;
 import com.dockpilot.utils.FaviconFetcher;
 import com.dockpilot.utils.LogUtil;
+import com.dockpilot.websocket.router.MessageMetrics;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +21,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -30,6 +37,18 @@ public class SystemController {
     @Autowired
     private SystemStatusService systemStatusService;
 
+    @Autowired
+    private MessageMetrics messageMetrics;
+
+    @Autowired
+    private CpuUsageTracker cpuUsageTracker;
+
+    @Autowired
+    private NetworkRateTracker networkRateTracker;
+
+    @Autowired
+    private StorageMetricsService storageMetricsService;
+
 
     @Operation(summary = "设置系统配置", description = "设置系统配置项")
     @PostMapping("/settings")
@@ -112,5 +131,32 @@ public class SystemController {
         }
     }
 
+    @Operation(summary = "获取WebSocket消息统计", description = "按消息类型统计处理次数、错误次数和耗时")
+    @GetMapping("/ws-metrics")
+    public ApiResponse<Map<String, Map<String, Object>>> getWebSocketMetrics() {
+        return ApiResponse.success(messageMetrics.snapshot());
+    }
+
+    @Operation(summary = "获取CPU使用详情", description = "整机和各核心的 user/system/iowait/steal 占比，以及最近的使用率历史")
+    @GetMapping("/cpu")
+    public ApiResponse<Map<String, Object>> getCpuUsage() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("current", cpuUsageTracker.getLatest());
+        result.put("history", cpuUsageTracker.getHistory());
+        return ApiResponse.success(result);
+    }
+
+    @Operation(summary = "获取网络速率详情", description = "物理网卡汇总、各网卡以及各容器的瞬时和平滑收发速率")
+    @GetMapping("/network")
+    public ApiResponse<NetworkRateSnapshotDTO> getNetworkRates() {
+        return ApiResponse.success(networkRateTracker.getSnapshot());
+    }
+
+    @Operation(summary = "获取存储详情", description = "宿主机各文件系统容量、Docker 数据目录和运行目录所在文件系统，以及 Docker 磁盘占用")
+    @GetMapping("/storage")
+    public ApiResponse<StorageMetricsDTO> getStorageMetrics() {
+        return ApiResponse.success(storageMetricsService.getSnapshot());
+    }
+
 
 }
\ No newline at end of file
@@ -2,8 +2,10 @@ package com.dockpilot.controller;
 
 import com.dockpilot.common.annotation.Anonymous;
 import com.dockpilot.model.dto.WebServerDTO;
+import com.dockpilot.model.vo.WebServerStatusVO;
 import com.dockpilot.model.vo.WebServerVO;
 import com.dockpilot.model.vo.CategoryVO;
+import com.dockpilot.service.WebServerStatusMonitor;
 import com.dockpilot.service.http.WebServerService;
 import com.dockpilot.utils.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -23,9 +25,11 @@ import java.util.List;
 public class WebServerController {
 
     private final WebServerService webServerService;
+    private final WebServerStatusMonitor statusMonitor;
 
-    public WebServerController(WebServerService webServerService) {
+    public WebServerController(WebServerService webServerService, WebServerStatusMonitor statusMonitor) {
         this.webServerService = webServerService;
+        this.statusMonitor = statusMonitor;
     }
 
     @Operation(summary = "创建Web服务")
@@ -51,6 +55,13 @@ public class WebServerController {
         return ApiResponse.success();
     }
 
+    @Anonymous
+    @Operation(summary = "获取所有Web服务的可达性状态")
+    @GetMapping("/status")
+    public ApiResponse<List<WebServerStatusVO>> listStatus() {
+        return ApiResponse.success(statusMonitor.getAllStatus());
+    }
+
     @Operation(summary = "获取Web服务详情")
     @GetMapping("/{id}")
     public ApiResponse<WebServerVO> getById(@Parameter(description = "服务ID") @PathVariable String id) {
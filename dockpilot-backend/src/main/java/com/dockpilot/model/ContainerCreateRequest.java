@@ -33,6 +33,7 @@ public class ContainerCreateRequest {
     private String[] links;           // 容器间连接（已废弃）
     private List<ExposedPort> exposedPorts; // 声明容器暴露端口
     private Ports portBindings;       // 端口映射（容器端口 -> 主机端口）
+    private String portReservation;   // 应用安装时的端口保留凭证（不传给 Docker）
     private List<String> dns;         // 自定义 DNS
     private List<String> dnsSearch;   // DNS 搜索域
     private List<String> extraHosts;  // 额外的 hosts 映射
@@ -0,0 +1,24 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 容器日志行
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContainerLogLine {
+
+    /**
+     * 输出流：stdout / stderr
+     */
+    private String stream;
+
+    /**
+     * 日志内容（不含换行符）
+     */
+    private String text;
+}
@@ -0,0 +1,41 @@
+package com.dockpilot.model;
+
+import lombok.Data;
+
+/**
+ * 容器日志查询参数
+ * 用于 CONTAINER_LOGS（一次性获取）和 CONTAINER_LOGS_FOLLOW（持续跟踪）
+ */
+@Data
+public class ContainerLogQuery {
+
+    /**
+     * 容器ID
+     */
+    private String containerId;
+
+    /**
+     * 从末尾返回的行数，为空时默认 100，小于 0 表示全部
+     */
+    private Integer tail;
+
+    /**
+     * 起始时间（Unix 秒）
+     */
+    private Integer since;
+
+    /**
+     * 截止时间（Unix 秒），跟踪模式下忽略
+     */
+    private Integer until;
+
+    /**
+     * 是否在每行前附带时间戳
+     */
+    private Boolean timestamps;
+
+    /**
+     * 是否持续跟踪新日志
+     */
+    private Boolean follow;
+}
@@ -74,5 +74,15 @@ public class ContainerPathInfo {
          * 是否推荐打包
          */
         private boolean recommended;
+        
+        /**
+         * 最近一次统计的路径大小（字节），未统计过时为 null
+         */
+        private Long sizeBytes;
+        
+        /**
+         * 大小统计时间（毫秒时间戳）
+         */
+        private Long sizeCalculatedAt;
     }
 } 
\ No newline at end of file
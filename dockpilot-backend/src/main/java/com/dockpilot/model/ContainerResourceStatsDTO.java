@@ -0,0 +1,61 @@
+package com.dockpilot.model;
+
+import lombok.Data;
+
+/**
+ * 容器资源占用概览
+ * 用于"资源占用排行"，由 cgroup 批量采集（或回退到 Docker API）得到
+ */
+@Data
+public class ContainerResourceStatsDTO {
+
+    /**
+     * 容器ID（完整64位）
+     */
+    private String containerId;
+
+    /**
+     * 容器名称
+     */
+    private String name;
+
+    /**
+     * CPU 使用率（百分比，以单核为 100%，多核可超过 100）
+     */
+    private Double cpuPercent;
+
+    /**
+     * 当前内存使用量（字节）
+     */
+    private Long memoryUsage;
+
+    /**
+     * 磁盘读取速率（字节/秒）
+     */
+    private Double ioReadRate;
+
+    /**
+     * 磁盘写入速率（字节/秒）
+     */
+    private Double ioWriteRate;
+
+    /**
+     * CPU 压力（PSI some avg10，百分比）
+     */
+    private Double cpuPressure;
+
+    /**
+     * 内存压力（PSI some avg10，百分比）
+     */
+    private Double memoryPressure;
+
+    /**
+     * IO 压力（PSI some avg10，百分比）
+     */
+    private Double ioPressure;
+
+    /**
+     * 数据来源：cgroup 或 docker
+     */
+    private String source;
+}
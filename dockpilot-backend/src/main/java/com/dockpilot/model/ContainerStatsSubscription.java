@@ -0,0 +1,25 @@
+package com.dockpilot.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量订阅容器实时监控的结果
+ */
+@Data
+public class ContainerStatsSubscription {
+
+    /**
+     * 已订阅容器 -> 当前已有的最新样本，流刚建立时为 null
+     */
+    private Map<String, ResourceUsageDTO> stats = new LinkedHashMap<>();
+
+    /**
+     * 因 stats 流数量达到上限未能订阅的容器，客户端可稍后重试
+     */
+    private List<String> capped = new ArrayList<>();
+}
@@ -50,4 +50,14 @@ public class ContainerYamlRequest {
      * 格式：hostPath:containerPath
      */
     private List<String> selectedPaths;
+    
+    /**
+     * 导出包结构（可选）：nested（默认，每个服务一个 tar.gz）、flat（ZIP 内直接展开目录）
+     */
+    private String archiveLayout;
+    
+    /**
+     * 压缩级别（可选）：0-9，0 表示只打包不压缩
+     */
+    private Integer compressionLevel;
 } 
\ No newline at end of file
@@ -0,0 +1,71 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 宿主机CPU使用情况
+ * 由 /proc/stat 两次采样的差值计算，百分比均相对于对应范围（整机或单核）的总时间
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CpuUsageDTO {
+
+    /**
+     * 采样时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 整机使用情况
+     */
+    private CoreUsage total;
+
+    /**
+     * 各核心使用情况
+     */
+    private List<CoreUsage> cores;
+
+    /**
+     * 单个核心（或整机）的使用情况
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CoreUsage {
+
+        /**
+         * 核心编号，整机为 -1
+         */
+        private int cpu;
+
+        /**
+         * 总使用率（非 idle、iowait 时间占比）
+         */
+        private double usage;
+
+        /**
+         * 用户态（含 nice）
+         */
+        private double user;
+
+        /**
+         * 内核态（含 irq、softirq）
+         */
+        private double system;
+
+        /**
+         * 等待IO
+         */
+        private double iowait;
+
+        /**
+         * 被虚拟化宿主抢占
+         */
+        private double steal;
+    }
+}
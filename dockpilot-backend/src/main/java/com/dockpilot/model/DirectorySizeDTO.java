@@ -0,0 +1,48 @@
+package com.dockpilot.model;
+
+import lombok.Data;
+
+/**
+ * 目录大小统计结果
+ */
+@Data
+public class DirectorySizeDTO {
+
+    /**
+     * 宿主机路径
+     */
+    private String path;
+
+    /**
+     * 文件总字节数（硬链接只计一次）
+     */
+    private long bytes;
+
+    private long files;
+
+    private long dirs;
+
+    /**
+     * 内容未变化、直接复用缓存的目录数
+     */
+    private long reusedDirs;
+
+    /**
+     * 无法读取的条目数
+     */
+    private long errors;
+
+    /**
+     * 是否统计完成，false 表示统计中的部分结果
+     */
+    private boolean done;
+
+    private long durationMs;
+
+    /**
+     * 统计时间（毫秒时间戳）
+     */
+    private long calculatedAt;
+
+    private String error;
+}
@@ -0,0 +1,51 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 文件系统容量信息（单位：字节）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DiskUsageDTO {
+
+    /**
+     * 宿主机上的挂载点
+     */
+    private String mountPoint;
+
+    /**
+     * 设备
+     */
+    private String device;
+
+    /**
+     * 文件系统类型
+     */
+    private String fsType;
+
+    /**
+     * 总容量
+     */
+    private long total;
+
+    /**
+     * 已用空间
+     */
+    private long used;
+
+    /**
+     * 普通用户可用空间
+     */
+    private long free;
+
+    /**
+     * 使用百分比（与 df 一致，不计入保留块）
+     */
+    private double usagePercent;
+}
@@ -0,0 +1,56 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Docker 磁盘占用（docker system df），单位：字节
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DockerDiskUsageDTO {
+
+    /**
+     * 统计时间（毫秒时间戳）
+     */
+    private long updatedAt;
+
+    private Category images;
+
+    private Category containers;
+
+    private Category volumes;
+
+    private Category buildCache;
+
+    /**
+     * 单类资源的占用
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Category {
+
+        /**
+         * 总数
+         */
+        private int count;
+
+        /**
+         * 使用中的数量
+         */
+        private int active;
+
+        /**
+         * 占用空间
+         */
+        private long size;
+
+        /**
+         * 可回收空间
+         */
+        private long reclaimable;
+    }
+}
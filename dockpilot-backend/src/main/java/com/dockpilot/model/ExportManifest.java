@@ -0,0 +1,88 @@
+package com.dockpilot.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量导出清单
+ * <p>
+ * 记录一次导出中每个服务的文件列表以及文件内容对应的数据块（SHA-256），
+ * 数据块本身保存在内容寻址存储中，多次导出之间相同内容只保存一份
+ */
+@Data
+public class ExportManifest {
+
+    /**
+     * 清单ID（与打包任务ID一致）
+     */
+    private String id;
+
+    /**
+     * 项目标识，同一项目的下一次导出会参考上一份清单跳过未变化的文件
+     */
+    private String projectKey;
+
+    private String projectName;
+
+    /**
+     * 创建时间（毫秒时间戳）
+     */
+    private long createTime;
+
+    private List<ServiceEntry> services = new ArrayList<>();
+
+    /**
+     * 文件内容总字节数
+     */
+    private long totalBytes;
+
+    /**
+     * 本次新写入存储的数据块字节数（未压缩）
+     */
+    private long storedBytes;
+
+    /**
+     * 因源文件未变化直接沿用上一份清单的字节数
+     */
+    private long reusedBytes;
+
+    /**
+     * 一个服务的配置包
+     */
+    @Data
+    public static class ServiceEntry {
+        private String name;
+        private List<FileEntry> files = new ArrayList<>();
+    }
+
+    /**
+     * 配置包中的一个条目
+     */
+    @Data
+    public static class FileEntry {
+        /**
+         * 包内路径，如 nginx/conf/nginx.conf；目录以 / 结尾
+         */
+        private String path;
+        /**
+         * file / dir / symlink
+         */
+        private String type;
+        private long size;
+        private long mtime;
+        /**
+         * 符号链接目标
+         */
+        private String linkName;
+        /**
+         * 源文件的实际路径，用于下次导出判断文件是否变化
+         */
+        private String source;
+        /**
+         * 按顺序拼接即为文件内容的数据块哈希
+         */
+        private List<String> chunks;
+    }
+}
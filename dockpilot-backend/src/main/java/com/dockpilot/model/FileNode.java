@@ -7,6 +7,14 @@ public class FileNode {
     private String path;
     private boolean isDirectory;
     private List<FileNode> children;
+    /**
+     * 文件大小（字节），目录为 0
+     */
+    private long size;
+    /**
+     * 最后修改时间（毫秒时间戳）
+     */
+    private long lastModified;
 
     public FileNode() {
     }
@@ -49,4 +57,20 @@ public class FileNode {
     public void setChildren(List<FileNode> children) {
         this.children = children;
     }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.dockpilot.model;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 目录分页列表
+ */
+@Data
+public class FileTreePage {
+
+    private List<FileNode> items;
+
+    /**
+     * 下一页游标，没有更多数据时为 null
+     */
+    private String nextCursor;
+
+    private boolean hasMore;
+
+    /**
+     * 目录中的条目总数（过滤前）
+     */
+    private int totalEntries;
+}
@@ -0,0 +1,48 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 宿主机网卡
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HostInterfaceDTO {
+
+    /**
+     * 网卡名称
+     */
+    private String name;
+
+    /**
+     * MAC 地址
+     */
+    private String macAddress;
+
+    /**
+     * 是否已启用（operstate 为 up 或 unknown）
+     */
+    private boolean up;
+
+    /**
+     * 是否为虚拟网卡（lo、docker0、veth、bridge 等）
+     */
+    private boolean virtual;
+
+    /**
+     * IPv4 地址，CIDR 格式，如 192.168.1.10/24
+     */
+    private List<String> ipv4Addresses;
+
+    /**
+     * IPv6 地址，CIDR 格式
+     */
+    private List<String> ipv6Addresses;
+}
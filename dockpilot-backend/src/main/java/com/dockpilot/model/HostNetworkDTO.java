@@ -0,0 +1,36 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 宿主机网络快照
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HostNetworkDTO {
+
+    /**
+     * 默认路由所在的网卡
+     */
+    private String defaultInterface;
+
+    /**
+     * 默认网关
+     */
+    private String defaultGateway;
+
+    /**
+     * 宿主机主IP（默认路由网卡的第一个 IPv4 地址）
+     */
+    private String primaryIp;
+
+    /**
+     * 网卡列表
+     */
+    private List<HostInterfaceDTO> interfaces;
+}
@@ -1,5 +1,8 @@
 package com.dockpilot.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * WebSocket 消息类型
  */
@@ -113,11 +116,46 @@ public enum MessageType {
      */
     CONTAINER_LOGS,
 
+    /**
+     * 持续跟踪容器日志
+     */
+    CONTAINER_LOGS_FOLLOW,
+
+    /**
+     * 停止跟踪容器日志
+     */
+    CONTAINER_LOGS_STOP,
+
+    /**
+     * 容器日志批量推送
+     */
+    CONTAINER_LOGS_BATCH,
+
     /**
      * 容器资源使用情况
      */
     CONTAINER_STATS,
 
+    /**
+     * 订阅容器实时监控
+     */
+    CONTAINER_STATS_SUBSCRIBE,
+
+    /**
+     * 取消订阅容器实时监控
+     */
+    CONTAINER_STATS_UNSUBSCRIBE,
+
+    /**
+     * 容器实时监控数据推送
+     */
+    CONTAINER_STATS_UPDATE,
+
+    /**
+     * 所有容器资源占用概览
+     */
+    CONTAINER_STATS_OVERVIEW,
+
     /**
      * 容器状态变更
      */
@@ -153,6 +191,26 @@ public enum MessageType {
      */
     NETWORK_DELETE,
 
+    /**
+     * 容器-网络拓扑图
+     */
+    NETWORK_TOPOLOGY,
+
+    /**
+     * 订阅拓扑图变化
+     */
+    NETWORK_TOPOLOGY_SUBSCRIBE,
+
+    /**
+     * 取消订阅拓扑图变化
+     */
+    NETWORK_TOPOLOGY_UNSUBSCRIBE,
+
+    /**
+     * 拓扑图变化推送
+     */
+    NETWORK_TOPOLOGY_UPDATE,
+
     /**
      * 镜像列表
      */
@@ -236,5 +294,38 @@ public enum MessageType {
     /**
      * Docker事件通知
      */
-    DOCKER_EVENT_NOTIFICATION
-} 
\ No newline at end of file
+    DOCKER_EVENT_NOTIFICATION,
+
+    /**
+     * 统计目录大小
+     */
+    DIRECTORY_SIZE,
+
+    /**
+     * 目录大小统计中的部分结果推送
+     */
+    DIRECTORY_SIZE_PROGRESS,
+
+    /**
+     * Web服务可达性状态变化推送
+     */
+    WEB_SERVER_STATUS;
+
+    private static final Map<String, MessageType> BY_NAME = new HashMap<>();
+
+    static {
+        for (MessageType type : values()) {
+            BY_NAME.put(type.name(), type);
+        }
+    }
+
+    /**
+     * 根据名称查找消息类型，与 valueOf 不同的是未知名称返回 null 而不抛异常
+     *
+     * @param name 消息类型名称
+     * @return 消息类型，未知时返回 null
+     */
+    public static MessageType fromName(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+}
@@ -0,0 +1,62 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 网络速率（网卡、容器或整机汇总）
+ * 速率单位为字节/秒，容器的收发方向以容器视角计算
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class NetworkRateDTO {
+
+    /**
+     * 网卡名称，容器为容器名称，整机汇总为 total
+     */
+    private String name;
+
+    /**
+     * 所属容器ID（veth 网卡和容器条目）
+     */
+    private String containerId;
+
+    /**
+     * 是否为虚拟网卡
+     */
+    private boolean virtual;
+
+    /**
+     * 接收速率（最近一次采样间隔）
+     */
+    private double rxRate;
+
+    /**
+     * 发送速率（最近一次采样间隔）
+     */
+    private double txRate;
+
+    /**
+     * 接收速率（指数平滑）
+     */
+    private double rxRateAvg;
+
+    /**
+     * 发送速率（指数平滑）
+     */
+    private double txRateAvg;
+
+    /**
+     * 累计接收字节数
+     */
+    private long rxBytes;
+
+    /**
+     * 累计发送字节数
+     */
+    private long txBytes;
+}
@@ -0,0 +1,36 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 网络速率快照，同一次采样得到的整机、网卡和容器速率
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NetworkRateSnapshotDTO {
+
+    /**
+     * 采样时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 物理网卡汇总
+     */
+    private NetworkRateDTO total;
+
+    /**
+     * 各网卡速率
+     */
+    private List<NetworkRateDTO> interfaces;
+
+    /**
+     * 各容器速率（根据 veth 对端归属）
+     */
+    private List<NetworkRateDTO> containers;
+}
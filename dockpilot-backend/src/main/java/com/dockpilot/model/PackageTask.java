@@ -44,6 +44,16 @@ public class PackageTask {
      */
     private java.util.List<String> selectedPaths;
     
+    /**
+     * 导出包结构：nested（每个服务一个 tar.gz）、flat（直接展开目录）
+     */
+    private String archiveLayout;
+    
+    /**
+     * 压缩级别（为空时使用全局配置）
+     */
+    private Integer compressionLevel;
+    
     /**
      * 生成的文件路径（完成后）
      */
@@ -0,0 +1,31 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 端口检查结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortCheckResultDTO {
+
+    /**
+     * 是否全部可用
+     */
+    private boolean available;
+
+    /**
+     * 检查的宿主机端口
+     */
+    private List<Integer> ports;
+
+    /**
+     * 冲突列表，全部可用时为空
+     */
+    private List<PortConflictDTO> conflicts;
+}
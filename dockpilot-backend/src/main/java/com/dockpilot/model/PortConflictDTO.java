@@ -0,0 +1,36 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 端口冲突
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PortConflictDTO {
+
+    /**
+     * 请求该端口的服务名称
+     */
+    private String service;
+
+    /**
+     * 冲突的宿主机端口
+     */
+    private int port;
+
+    /**
+     * 占用方说明（容器名称、宿主机进程、其他安装任务、同一应用内重复）
+     */
+    private String occupiedBy;
+
+    /**
+     * 建议改用的空闲端口，找不到时为 null
+     */
+    private Integer suggestedPort;
+}
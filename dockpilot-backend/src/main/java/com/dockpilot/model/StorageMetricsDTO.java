@@ -0,0 +1,51 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 宿主机存储概况
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageMetricsDTO {
+
+    /**
+     * 采样时间（毫秒时间戳）
+     */
+    private long timestamp;
+
+    /**
+     * 宿主机上的真实文件系统（已排除 proc、tmpfs、overlay 等，同一设备只保留一个挂载点）
+     */
+    private List<DiskUsageDTO> mounts;
+
+    /**
+     * Docker 数据根目录
+     */
+    private String dockerRootDir;
+
+    /**
+     * Docker 数据根目录所在的文件系统
+     */
+    private DiskUsageDTO dockerRoot;
+
+    /**
+     * 系统设置中的 Docker 运行目录
+     */
+    private String dockerBaseDir;
+
+    /**
+     * Docker 运行目录所在的文件系统
+     */
+    private DiskUsageDTO dockerBase;
+
+    /**
+     * Docker 磁盘占用，定期刷新
+     */
+    private DockerDiskUsageDTO dockerDiskUsage;
+}
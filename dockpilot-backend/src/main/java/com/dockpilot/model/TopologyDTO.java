@@ -0,0 +1,89 @@
+package com.dockpilot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 容器-网络拓扑图（二分图）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopologyDTO {
+
+    /**
+     * 版本号，每次拓扑变化递增
+     */
+    private long version;
+
+    /**
+     * 容器节点
+     */
+    private List<ContainerNode> containers;
+
+    /**
+     * 网络节点
+     */
+    private List<NetworkNode> networks;
+
+    /**
+     * 容器与网络之间的连接
+     */
+    private List<Link> links;
+
+    /**
+     * 容器节点
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ContainerNode {
+        private String id;
+        private String name;
+        private String image;
+        private String state;
+        /**
+         * 已发布端口，如 8080->80/tcp
+         */
+        private List<String> ports;
+    }
+
+    /**
+     * 网络节点
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NetworkNode {
+        private String id;
+        private String name;
+        private String driver;
+        private String scope;
+        /**
+         * IPAM 子网
+         */
+        private List<String> subnets;
+    }
+
+    /**
+     * 容器在某个网络上的端点
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Link {
+        private String containerId;
+        private String networkId;
+        private String ipv4Address;
+        private String ipv6Address;
+        private String macAddress;
+        private List<String> aliases;
+    }
+}
@@ -0,0 +1,66 @@
+package com.dockpilot.model.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Web服务可达性状态
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WebServerStatusVO {
+
+    /**
+     * Web服务ID
+     */
+    private String id;
+
+    /**
+     * 内网地址状态，未配置或尚未检测时为 null
+     */
+    private UrlStatus internal;
+
+    /**
+     * 外网地址状态，未配置或尚未检测时为 null
+     */
+    private UrlStatus external;
+
+    /**
+     * 单个地址的检测结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UrlStatus {
+        /**
+         * 检测的地址
+         */
+        private String url;
+        /**
+         * 是否可达（收到响应且状态码小于500）
+         */
+        private boolean up;
+        /**
+         * HTTP状态码，请求失败时为 null
+         */
+        private Integer statusCode;
+        /**
+         * 响应头到达耗时（毫秒）
+         */
+        private Long latencyMs;
+        /**
+         * 证书过期时间（毫秒时间戳），非 HTTPS 时为 null
+         */
+        private Long tlsExpiresAt;
+        /**
+         * 失败原因
+         */
+        private String error;
+        /**
+         * 检测时间（毫秒时间戳）
+         */
+        private long checkedAt;
+    }
+}
@@ -86,4 +86,9 @@ public class WebServerVO {
      * 更新时间
      */
     private String updatedAt;
-} 
\ No newline at end of file
+
+    /**
+     * 可达性状态（来自内存中的检测结果，不入库）
+     */
+    private WebServerStatusVO status;
+}
@@ -1,20 +1,29 @@
 package com.dockpilot.service;
 
+import com.dockpilot.common.config.CompressionConfig;
+import com.dockpilot.model.ContainerYamlRequest;
+import com.dockpilot.model.ExportManifest;
 import com.dockpilot.model.PackageTask;
 import com.dockpilot.utils.ComposeGenerator;
+import com.dockpilot.utils.ProjectArchiveWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationContext;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * 异步打包服务
@@ -29,6 +38,16 @@ public class AsyncPackageService {
     @Autowired
     private ApplicationContext applicationContext;
     
+    @Autowired
+    private CompressionConfig compressionConfig;
+    
+    @Autowired
+    private ExportChunkStore exportChunkStore;
+    
+    @Autowired
+    @Qualifier("compressionExecutor")
+    private Executor compressionExecutor;
+    
     // 🔥 从配置文件读取包存储路径
     @Value("${file.package.path}")
     private String packageStoragePath;
@@ -39,8 +58,8 @@ public class AsyncPackageService {
     /**
      * 启动异步打包任务
      */
-    public String startPackageTask(List<String> containerIds, String projectName, 
-                                 String description, List<String> selectedPaths) {
+    public String startPackageTask(ContainerYamlRequest request) {
+        String projectName = request.getProjectName();
         String taskId = UUID.randomUUID().toString();
         
         PackageTask task = new PackageTask();
@@ -49,8 +68,10 @@ public class AsyncPackageService {
         task.setProgress(0);
         task.setCurrentStep("准备开始打包...");
         task.setProjectName(projectName);
-        task.setContainerIds(containerIds);
-        task.setSelectedPaths(selectedPaths);
+        task.setContainerIds(request.getContainerIds());
+        task.setSelectedPaths(request.getSelectedPaths());
+        task.setArchiveLayout(ProjectArchiveWriter.Layout.of(request.getArchiveLayout()).name().toLowerCase());
+        task.setCompressionLevel(request.getCompressionLevel());
         task.setCreateTime(LocalDateTime.now());
         
         taskMap.put(taskId, task);
@@ -95,43 +116,38 @@ public class AsyncPackageService {
                 "Docker容器管理项目"
             );
             
-            updateTaskStatus(taskId, "processing", 30, "YAML生成完成，准备打包配置文件...");
-            
-            // 2. 创建导出目录 - 使用配置的包存储路径
-            // 确保基础目录存在
-            java.nio.file.Files.createDirectories(java.nio.file.Paths.get(packageStoragePath));
-            
-            String exportId = "export_" + taskId;
-            String exportDir = packageStoragePath + "/" + exportId;
-            java.nio.file.Files.createDirectories(java.nio.file.Paths.get(exportDir));
-            
-            // 3. 保存YAML文件
-            String yamlFile = exportDir + "/docker-compose.yml";
-            java.nio.file.Files.write(java.nio.file.Paths.get(yamlFile), 
-                yamlContent.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            
-            updateTaskStatus(taskId, "processing", 50, "正在打包容器配置文件...");
-            
-            // 4. 生成配置包
-            Map<String, String> configPackages = composeGenerator.generateConfigPackages(
-                task.getContainerIds(), exportDir, task.getSelectedPaths()
-            );
-            
-            updateTaskStatus(taskId, "processing", 80, "正在生成最终压缩包...");
+            updateTaskStatus(taskId, "processing", 30, "YAML生成完成，正在打包配置文件...");
             
-            // 5. 生成README
-            generateReadmeFile(exportDir, task.getProjectName(), configPackages);
+            // 2. 直接从宿主机路径流式写入单个ZIP，不再生成中间目录
+            // 先写 .part 文件，完成后再改名，避免下载到半成品
+            java.nio.file.Path storageDir = java.nio.file.Paths.get(packageStoragePath);
+            java.nio.file.Files.createDirectories(storageDir);
             
-            // 6. 创建ZIP包
+            java.nio.file.Path zipPath = storageDir.resolve("export_" + taskId + ".zip");
+            java.nio.file.Path partPath = storageDir.resolve("export_" + taskId + ".zip.part");
             String fileName = (task.getProjectName() != null ? task.getProjectName() : "docker-project") + "-export.zip";
-            String zipFile = exportDir + ".zip";
-            createZipFromDirectory(exportDir, zipFile);
             
-            // 7. 计算文件大小
-            File file = new File(zipFile);
-            long fileSize = file.exists() ? file.length() : 0;
+            ProjectArchiveWriter.Layout layout = ProjectArchiveWriter.Layout.of(task.getArchiveLayout());
+            ProjectArchiveWriter.Compression compression = compressionOptions(task.getCompressionLevel());
+            try (OutputStream out = new BufferedOutputStream(java.nio.file.Files.newOutputStream(partPath))) {
+                if (exportChunkStore.isEnabled() && layout == ProjectArchiveWriter.Layout.NESTED) {
+                    // 增量导出：未变化的文件复用已存储的数据块
+                    writeIncrementalArchive(out, yamlContent, task, compression);
+                } else {
+                    writeProjectArchive(out, yamlContent, task.getProjectName(), task.getContainerIds(),
+                            task.getSelectedPaths(), layout, compression);
+                }
+            } catch (Exception e) {
+                java.nio.file.Files.deleteIfExists(partPath);
+                throw e;
+            }
+            java.nio.file.Files.move(partPath, zipPath, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            String zipFile = zipPath.toString();
+            
+            // 3. 计算文件大小
+            long fileSize = java.nio.file.Files.size(zipPath);
             
-            // 8. 任务完成
+            // 4. 任务完成
             task.setStatus("completed");
             task.setProgress(100);
             task.setCurrentStep("打包完成");
@@ -192,16 +208,94 @@ public class AsyncPackageService {
     }
     
     /**
-     * 生成README文件
+     * 将完整项目包（docker-compose.yml + 服务配置 + README）一次性写入输出流
+     * <p>
+     * 配置文件直接从宿主机路径读取写入 ZIP，不产生中间拷贝；输出流由调用方关闭
+     *
+     * @param out 输出流（HTTP 响应或文件）
+     * @param yamlContent 已生成的 docker-compose.yml 内容
+     * @param projectName 项目名称
+     * @param containerIds 容器ID列表
+     * @param selectedPaths 用户选择的路径列表，格式：hostPath:containerPath
+     * @param layout 导出包结构
+     * @param compression 压缩参数，见 {@link #compressionOptions(Integer)}
+     */
+    public void writeProjectArchive(OutputStream out, String yamlContent, String projectName,
+                                    List<String> containerIds, List<String> selectedPaths,
+                                    ProjectArchiveWriter.Layout layout,
+                                    ProjectArchiveWriter.Compression compression) throws IOException {
+        Map<String, List<ProjectArchiveWriter.Source>> sources =
+                composeGenerator.resolveConfigSources(containerIds, selectedPaths);
+        
+        // 不关闭 ZIP 外的输出流，交给调用方处理
+        ProjectArchiveWriter writer = new ProjectArchiveWriter(out, layout, compression);
+        writer.addText("docker-compose.yml", yamlContent);
+        
+        Map<String, String> configPackages = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ProjectArchiveWriter.Source>> entry : sources.entrySet()) {
+            String entryName = writer.addService(entry.getKey(), entry.getValue());
+            configPackages.put(entry.getKey(), entryName);
+            log.info("✅ 服务 {} 配置已写入导出包: {}", entry.getKey(), entryName);
+        }
+        
+        writer.addText("README.md", buildReadme(projectName, configPackages, layout));
+        writer.finish();
+    }
+    
+    /**
+     * 通过增量导出存储生成项目包：先把配置目录写入内容寻址存储并生成清单，再按清单拼装配置包
      */
-    private void generateReadmeFile(String exportDir, String projectName, Map<String, String> configPackages) throws Exception {
+    private void writeIncrementalArchive(OutputStream out, String yamlContent, PackageTask task,
+                                         ProjectArchiveWriter.Compression compression) throws IOException {
+        String projectName = task.getProjectName() != null ? task.getProjectName() : "docker-project";
+        Map<String, List<ProjectArchiveWriter.Source>> sources =
+                composeGenerator.resolveConfigSources(task.getContainerIds(), task.getSelectedPaths());
+        
+        ExportManifest manifest = exportChunkStore.ingest(task.getTaskId(), projectName, projectName, sources, compression);
+        updateTaskStatus(task.getTaskId(), "processing", 70, "正在生成最终压缩包...");
+        
+        ProjectArchiveWriter writer = new ProjectArchiveWriter(out, ProjectArchiveWriter.Layout.NESTED, compression);
+        writer.addText("docker-compose.yml", yamlContent);
+        
+        Map<String, String> configPackages = new LinkedHashMap<>();
+        for (ExportManifest.ServiceEntry service : manifest.getServices()) {
+            String entryName = service.getName() + ProjectArchiveWriter.CONFIG_PACKAGE_EXTENSION;
+            writer.addStoredEntry(entryName, entryOut -> exportChunkStore.writeTarGz(service, entryOut, compression));
+            configPackages.put(service.getName(), entryName);
+        }
+        
+        writer.addText("README.md", buildReadme(task.getProjectName(), configPackages, ProjectArchiveWriter.Layout.NESTED));
+        writer.finish();
+    }
+    
+    /**
+     * 根据全局配置和用户选择生成压缩参数
+     *
+     * @param level 压缩级别，为空时使用配置默认值；超出 0-9 时截断
+     */
+    public ProjectArchiveWriter.Compression compressionOptions(Integer level) {
+        int actualLevel = Math.max(0, Math.min(9, level != null ? level : compressionConfig.getLevel()));
+        return ProjectArchiveWriter.Compression.builder()
+                .level(actualLevel)
+                .executor(compressionExecutor)
+                .parallelism(compressionConfig.getEffectiveThreads())
+                .blockSize(compressionConfig.getBlockSize())
+                .storeExtensions(compressionConfig.getStoreExtensions())
+                .build();
+    }
+    
+    /**
+     * 生成README内容
+     */
+    private String buildReadme(String projectName, Map<String, String> configPackages, ProjectArchiveWriter.Layout layout) {
+        boolean nested = layout == ProjectArchiveWriter.Layout.NESTED;
         StringBuilder readme = new StringBuilder();
-        readme.append("# ").append(projectName).append(" 导出包\n\n");
+        readme.append("# ").append(projectName != null ? projectName : "docker-project").append(" 导出包\n\n");
         readme.append("## 📁 文件说明\n\n");
         readme.append("- `docker-compose.yml` - Docker Compose配置文件\n");
         
         if (!configPackages.isEmpty()) {
-            readme.append("- 服务配置包:\n");
+            readme.append(nested ? "- 服务配置包:\n" : "- 服务配置目录:\n");
             for (Map.Entry<String, String> entry : configPackages.entrySet()) {
                 readme.append("  - `").append(entry.getValue())
                       .append("` - ").append(entry.getKey()).append(" 服务配置\n");
@@ -209,36 +303,28 @@ public class AsyncPackageService {
         }
         
         readme.append("\n## 🚀 使用方法\n\n");
-        readme.append("1. 解压配置包到对应的服务目录\n");
+        readme.append(nested ? "1. 解压配置包到对应的服务目录\n" : "1. 将配置目录复制到对应的服务目录\n");
         readme.append("2. 根据需要修改 `docker-compose.yml` 中的环境变量\n");
-        readme.append("3. 运行: `docker-compose up -d`\n\n");
+        if (nested) {
+            readme.append("3. 更新 configUrl 为您上传的配置包地址\n");
+            readme.append("4. 运行: `docker-compose up -d`\n\n");
+        } else {
+            readme.append("3. 运行: `docker-compose up -d`\n\n");
+        }
         
-        String readmeFile = exportDir + "/README.md";
-        java.nio.file.Files.write(java.nio.file.Paths.get(readmeFile), 
-            readme.toString().getBytes(java.nio.charset.StandardCharsets.UTF_8));
-    }
-    
-    /**
-     * 创建ZIP文件
-     */
-    private void createZipFromDirectory(String sourceDir, String zipFile) throws Exception {
-        try (java.util.zip.ZipOutputStream zos = new java.util.zip.ZipOutputStream(
-                java.nio.file.Files.newOutputStream(java.nio.file.Paths.get(zipFile)))) {
-            
-            java.nio.file.Path sourcePath = java.nio.file.Paths.get(sourceDir);
-            java.nio.file.Files.walk(sourcePath)
-                .filter(path -> !java.nio.file.Files.isDirectory(path))
-                .forEach(path -> {
-                    java.util.zip.ZipEntry zipEntry = new java.util.zip.ZipEntry(
-                        sourcePath.relativize(path).toString());
-                    try {
-                        zos.putNextEntry(zipEntry);
-                        java.nio.file.Files.copy(path, zos);
-                        zos.closeEntry();
-                    } catch (Exception e) {
-                        throw new RuntimeException("添加文件到ZIP失败: " + path, e);
-                    }
-                });
+        if (nested && !configPackages.isEmpty()) {
+            readme.append("## 📦 配置包部署说明\n\n");
+            for (Map.Entry<String, String> entry : configPackages.entrySet()) {
+                String serviceName = entry.getKey();
+                String packageName = entry.getValue();
+                readme.append("### ").append(serviceName).append("\n");
+                readme.append("```bash\n");
+                readme.append("# 1. 上传配置包到文件服务器，获得下载URL\n");
+                readme.append("# 2. 修改 docker-compose.yml 中 ").append(serviceName).append(" 服务的 configUrl\n");
+                readme.append("# 示例: configUrl: 'https://github.com/xxx/releases/download/v1.0/").append(packageName).append("'\n");
+                readme.append("```\n\n");
+            }
         }
+        return readme.toString();
     }
-} 
\ No newline at end of file
+}
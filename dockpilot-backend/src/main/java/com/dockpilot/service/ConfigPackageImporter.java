@@ -0,0 +1,493 @@
+package com.dockpilot.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 应用配置包导入
+ * <p>
+ * 从 HTTP 响应体或本地文件流式解压 tar.gz，直接写入各卷挂载的宿主机目录，不再落地临时包和临时解压目录：
+ * <ul>
+ *   <li>包内路径 {@code <服务名>/<目录名>/...}（标准结构）或 {@code <目录名>/...}（兼容结构）按目录名对应到宿主机路径</li>
+ *   <li>拒绝绝对路径、{@code ..}、指向目标目录之外的符号链接，以及经由符号链接逃逸出目标目录的写入</li>
+ *   <li>小文件读入内存后交给线程池并行写盘，大文件在读取线程中直接流式写入</li>
+ *   <li>进度按时间间隔汇总上报，而不是每个文件一条日志</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class ConfigPackageImporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 小于该大小的文件读入内存后并行写盘
+     */
+    private static final int PARALLEL_FILE_LIMIT = 1024 * 1024;
+
+    /**
+     * 等待写盘的数据总量上限，超过时读取线程等待
+     */
+    private static final int MAX_PENDING_BYTES = 64 * 1024 * 1024;
+
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    /**
+     * 单次导入最多输出的错误日志条数
+     */
+    private static final int MAX_ERROR_LOGS = 10;
+
+    private static final Set<OpenOption> WRITE_OPTIONS = new HashSet<>(Arrays.asList(
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE,
+            LinkOption.NOFOLLOW_LINKS));
+
+    @Autowired
+    @Qualifier("configImportExecutor")
+    private Executor executor;
+
+    /**
+     * 导入 tar.gz 配置包
+     *
+     * @param in 配置包数据流（调用方负责关闭）
+     * @param serviceName 服务名
+     * @param targets 包内目录名 -> 宿主机目录（同一目录名可对应多个挂载）
+     * @param logger 进度日志
+     */
+    public ImportResult importTarGz(InputStream in, String serviceName, Map<String, List<Path>> targets,
+                                    Consumer<String> logger) throws IOException {
+        ImportContext context = new ImportContext(serviceName, targets, logger);
+        for (List<Path> roots : targets.values()) {
+            for (Path root : roots) {
+                Files.createDirectories(root);
+                context.realRoots.put(root, root.toRealPath());
+            }
+        }
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(
+                new GzipCompressorInputStream(new BufferedInputStream(in, BUFFER_SIZE), true))) {
+            TarArchiveEntry entry;
+            while ((entry = tar.getNextTarEntry()) != null) {
+                importEntry(tar, entry, context);
+                context.reportProgress(false);
+            }
+        } finally {
+            context.awaitWrites();
+        }
+        context.reportProgress(true);
+        return context.result;
+    }
+
+    private void importEntry(TarArchiveInputStream tar, TarArchiveEntry entry, ImportContext context) throws IOException {
+        List<String> segments = normalize(entry.getName());
+        if (segments == null) {
+            context.reject(entry.getName(), "不安全的路径");
+            return;
+        }
+        Route route = context.route(segments);
+        if (route == null) {
+            return;
+        }
+        context.result.matchedDirs.add(route.dirName);
+
+        if (entry.isDirectory()) {
+            for (Path root : route.roots) {
+                Path dir = resolve(root, route.relative);
+                if (dir == null) {
+                    context.reject(entry.getName(), "路径越界");
+                    continue;
+                }
+                try {
+                    context.ensureDirectory(root, dir);
+                } catch (IOException e) {
+                    context.fail(entry.getName(), e);
+                }
+            }
+            context.result.dirs.incrementAndGet();
+            return;
+        }
+        if (route.relative.isEmpty()) {
+            return;
+        }
+
+        if (entry.isSymbolicLink()) {
+            importSymlink(entry, route, context);
+        } else if (entry.isLink()) {
+            importHardLink(entry, route, context);
+        } else if (entry.isFile()) {
+            importFile(tar, entry, route, context);
+        } else {
+            context.reject(entry.getName(), "不支持的条目类型");
+        }
+    }
+
+    private void importFile(TarArchiveInputStream tar, TarArchiveEntry entry, Route route,
+                            ImportContext context) throws IOException {
+        List<Path> destinations = new ArrayList<>();
+        for (Path root : route.roots) {
+            Path dest = resolve(root, route.relative);
+            if (dest == null) {
+                context.reject(entry.getName(), "路径越界");
+                continue;
+            }
+            try {
+                context.ensureDirectory(root, dest.getParent());
+                destinations.add(dest);
+            } catch (IOException e) {
+                context.fail(entry.getName(), e);
+            }
+        }
+        if (destinations.isEmpty()) {
+            return;
+        }
+
+        long size = entry.getSize();
+        context.result.files.incrementAndGet();
+        context.result.bytes.addAndGet(size);
+
+        if (size >= PARALLEL_FILE_LIMIT) {
+            // 大文件：在读取线程中直接写入第一个目标，其余目标从第一个复制
+            try {
+                Path first = destinations.get(0);
+                prepareTarget(first);
+                try (SeekableByteChannel channel = Files.newByteChannel(first, WRITE_OPTIONS);
+                     OutputStream out = Channels.newOutputStream(channel)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = tar.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                for (int i = 1; i < destinations.size(); i++) {
+                    prepareTarget(destinations.get(i));
+                    Files.copy(first, destinations.get(i), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                context.fail(entry.getName(), e);
+            }
+            return;
+        }
+
+        byte[] data = new byte[(int) size];
+        int offset = 0;
+        while (offset < data.length) {
+            int read = tar.read(data, offset, data.length - offset);
+            if (read == -1) {
+                throw new IOException("配置包数据不完整: " + entry.getName());
+            }
+            offset += read;
+        }
+
+        int permits = Math.max(1, data.length);
+        context.acquire(permits);
+        String name = entry.getName();
+        executor.execute(() -> {
+            try {
+                for (Path dest : destinations) {
+                    prepareTarget(dest);
+                    try (SeekableByteChannel channel = Files.newByteChannel(dest, WRITE_OPTIONS)) {
+                        ByteBuffer buffer = ByteBuffer.wrap(data);
+                        while (buffer.hasRemaining()) {
+                            channel.write(buffer);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                context.fail(name, e);
+            } finally {
+                context.pending.release(permits);
+            }
+        });
+    }
+
+    private void importSymlink(TarArchiveEntry entry, Route route, ImportContext context) {
+        String linkName = entry.getLinkName();
+        for (Path root : route.roots) {
+            Path dest = resolve(root, route.relative);
+            if (dest == null || linkName == null || linkName.startsWith("/")) {
+                context.reject(entry.getName(), "符号链接指向目标目录之外");
+                continue;
+            }
+            try {
+                context.ensureDirectory(root, dest.getParent());
+                if (!linkStaysInside(context.realRoots.get(root), dest.getParent(), linkName)) {
+                    context.reject(entry.getName(), "符号链接指向目标目录之外");
+                    continue;
+                }
+                prepareTarget(dest);
+                Files.createSymbolicLink(dest, dest.getFileSystem().getPath(linkName));
+            } catch (IOException e) {
+                context.fail(entry.getName(), e);
+            }
+        }
+        context.result.links.incrementAndGet();
+    }
+
+    /**
+     * 判断相对链接目标是否落在目标目录（真实路径 realRoot）内
+     * <p>
+     * 从链接所在目录的真实路径出发逐段解析；.. 只允许出现在开头，
+     * 因为进入子路径后再返回上级时，中间的路径可能是（或之后被导入为）符号链接，
+     * 例如 a/x -> .. 之后的 esc -> a/x/..，按字面规范化无法得出真实位置。
+     * 已存在的路径按真实位置解析；尚不存在的路径只能由之后导入的条目创建，它们同样经过检查。
+     */
+    private static boolean linkStaysInside(Path realRoot, Path parent, String linkName) throws IOException {
+        Path current = parent.toRealPath();
+        boolean descended = false;
+        for (String segment : linkName.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                if (descended) {
+                    return false;
+                }
+                current = current.getParent();
+                if (current == null) {
+                    return false;
+                }
+            } else {
+                descended = true;
+                current = current.resolve(segment);
+                if (Files.exists(current, LinkOption.NOFOLLOW_LINKS)) {
+                    // 已存在的路径（可能是目录中原有的符号链接）按真实位置继续解析，悬空链接无法判断
+                    if (!Files.exists(current)) {
+                        return false;
+                    }
+                    current = current.toRealPath();
+                }
+            }
+        }
+        return current.startsWith(realRoot);
+    }
+
+    /**
+     * 硬链接按复制处理：等待已提交的写入完成后从包内的链接目标复制
+     */
+    private void importHardLink(TarArchiveEntry entry, Route route, ImportContext context) throws IOException {
+        List<String> targetSegments = normalize(entry.getLinkName());
+        Route targetRoute = targetSegments != null ? context.route(targetSegments) : null;
+        if (targetRoute == null || !targetRoute.dirName.equals(route.dirName)) {
+            context.reject(entry.getName(), "硬链接目标不在同一目录中");
+            return;
+        }
+        context.awaitWrites();
+        for (Path root : route.roots) {
+            Path dest = resolve(root, route.relative);
+            Path source = resolve(root, targetRoute.relative);
+            if (dest == null || source == null) {
+                context.reject(entry.getName(), "路径越界");
+                continue;
+            }
+            try {
+                // 链接目标的上级目录可能是指向目录外的符号链接，按真实路径校验（最后一级由 NOFOLLOW_LINKS 保护）
+                if (!source.getParent().toRealPath().resolve(source.getFileName()).startsWith(context.realRoots.get(root))) {
+                    context.reject(entry.getName(), "硬链接目标不在目录中");
+                    continue;
+                }
+                context.ensureDirectory(root, dest.getParent());
+                prepareTarget(dest);
+                Files.copy(source, dest, StandardCopyOption.REPLACE_EXISTING, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException e) {
+                context.fail(entry.getName(), e);
+            }
+        }
+        context.result.files.incrementAndGet();
+    }
+
+    /**
+     * 目标位置已有符号链接时先删除链接本身，避免顺着链接写到其他位置
+     */
+    private static void prepareTarget(Path dest) throws IOException {
+        if (Files.isSymbolicLink(dest)) {
+            Files.delete(dest);
+        }
+    }
+
+    /**
+     * 规范化包内路径，含绝对路径或 .. 时返回 null
+     */
+    private static List<String> normalize(String name) {
+        if (name == null || name.startsWith("/") || name.contains("\\")) {
+            return null;
+        }
+        List<String> segments = new ArrayList<>();
+        for (String segment : name.split("/")) {
+            if (segment.isEmpty() || ".".equals(segment)) {
+                continue;
+            }
+            if ("..".equals(segment)) {
+                return null;
+            }
+            segments.add(segment);
+        }
+        return segments.isEmpty() ? null : segments;
+    }
+
+    private static Path resolve(Path root, String relative) {
+        Path path = relative.isEmpty() ? root : root.resolve(relative).normalize();
+        return path.startsWith(root) ? path : null;
+    }
+
+    /**
+     * 包内条目对应的挂载目录
+     */
+    private static class Route {
+        final String dirName;
+        final List<Path> roots;
+        final String relative;
+
+        Route(String dirName, List<Path> roots, String relative) {
+            this.dirName = dirName;
+            this.roots = roots;
+            this.relative = relative;
+        }
+    }
+
+    /**
+     * 单次导入的状态
+     */
+    private static class ImportContext {
+        private final String serviceName;
+        private final Map<String, List<Path>> targets;
+        private final Consumer<String> logger;
+        private final Map<Path, Path> realRoots = new HashMap<>();
+        private final Set<Path> verifiedDirs = ConcurrentHashMap.newKeySet();
+        private final Semaphore pending = new Semaphore(MAX_PENDING_BYTES);
+        private final AtomicInteger loggedErrors = new AtomicInteger();
+        private final ImportResult result = new ImportResult();
+        private long lastReport = System.currentTimeMillis();
+
+        ImportContext(String serviceName, Map<String, List<Path>> targets, Consumer<String> logger) {
+            this.serviceName = serviceName;
+            this.targets = targets;
+            this.logger = logger;
+        }
+
+        Route route(List<String> segments) {
+            // 标准结构：<服务名>/<目录名>/...
+            if (segments.size() >= 2 && segments.get(0).equals(serviceName) && targets.containsKey(segments.get(1))) {
+                return new Route(segments.get(1), targets.get(segments.get(1)), join(segments, 2));
+            }
+            // 兼容结构：<目录名>/...
+            if (targets.containsKey(segments.get(0))) {
+                return new Route(segments.get(0), targets.get(segments.get(0)), join(segments, 1));
+            }
+            return null;
+        }
+
+        /**
+         * 创建目录前确认最近的已存在上级目录（解析符号链接后）仍位于挂载目录内
+         */
+        void ensureDirectory(Path root, Path dir) throws IOException {
+            if (verifiedDirs.contains(dir)) {
+                return;
+            }
+            Path existing = dir;
+            while (existing != null && !Files.exists(existing, LinkOption.NOFOLLOW_LINKS)) {
+                existing = existing.getParent();
+            }
+            if (existing == null || !existing.toRealPath().startsWith(realRoots.get(root))) {
+                throw new IOException("目标路径越界: " + dir);
+            }
+            Files.createDirectories(dir);
+            verifiedDirs.add(dir);
+        }
+
+        void acquire(int permits) throws IOException {
+            try {
+                pending.acquire(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("配置包导入被中断");
+            }
+        }
+
+        /**
+         * 等待所有已提交的写入完成
+         */
+        void awaitWrites() throws IOException {
+            acquire(MAX_PENDING_BYTES);
+            pending.release(MAX_PENDING_BYTES);
+        }
+
+        void reject(String name, String reason) {
+            result.skipped.incrementAndGet();
+            if (loggedErrors.incrementAndGet() <= MAX_ERROR_LOGS) {
+                logger.accept("⚠️ 跳过 " + name + "：" + reason);
+            }
+        }
+
+        void fail(String name, IOException e) {
+            result.errors.incrementAndGet();
+            log.warn("写入配置文件失败: {} - {}", name, e.getMessage());
+            if (loggedErrors.incrementAndGet() <= MAX_ERROR_LOGS) {
+                logger.accept("❌ 写入失败: " + name + " -> " + e.getMessage());
+            }
+        }
+
+        void reportProgress(boolean done) {
+            long now = System.currentTimeMillis();
+            if (!done && now - lastReport < PROGRESS_INTERVAL_MS) {
+                return;
+            }
+            lastReport = now;
+            logger.accept((done ? "📊 解压完成: " : "📂 已解压: ") + result.files.get() + " 个文件, "
+                    + result.dirs.get() + " 个目录, " + String.format("%.1f MB", result.bytes.get() / 1024.0 / 1024.0));
+        }
+
+        private static String join(List<String> segments, int from) {
+            return String.join("/", segments.subList(from, segments.size()));
+        }
+    }
+
+    /**
+     * 导入结果
+     */
+    @Getter
+    public static class ImportResult {
+        private final AtomicInteger files = new AtomicInteger();
+        private final AtomicInteger dirs = new AtomicInteger();
+        private final AtomicInteger links = new AtomicInteger();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        /**
+         * 包内出现过的目录名
+         */
+        private final Set<String> matchedDirs = ConcurrentHashMap.newKeySet();
+    }
+}
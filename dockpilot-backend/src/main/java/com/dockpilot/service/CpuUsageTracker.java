@@ -0,0 +1,259 @@
+package com.dockpilot.service;
+
+import com.dockpilot.model.CpuUsageDTO;
+import com.dockpilot.utils.HostPaths;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 宿主机CPU使用率统计
+ * <p>
+ * 读取宿主机 /proc/stat（存在 /mnt/host 挂载时读取宿主机的），保留上一次的计数器，
+ * 按差值计算整机和各核心的 user/system/iowait/steal 占比。
+ * 文件通道和读缓冲、计数器数组都预先分配并复用，采样过程中解析不产生临时对象；
+ * 最近的整机使用率保存在环形缓冲中，用于前端绘制趋势图。
+ * 采样由 HostMetricsSampler 定时驱动。
+ */
+@Slf4j
+@Service
+public class CpuUsageTracker {
+
+    /**
+     * 参与计算的字段：user nice system idle iowait irq softirq steal（guest 已计入 user）
+     */
+    private static final int FIELDS = 8;
+    private static final int USER = 0, NICE = 1, SYSTEM = 2, IDLE = 3, IOWAIT = 4, IRQ = 5, SOFTIRQ = 6, STEAL = 7;
+
+    /**
+     * 历史记录容量，按 2 秒采样约覆盖 2 分钟
+     */
+    private static final int HISTORY_SIZE = 60;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+    private FileChannel channel;
+
+    // 行 0 为整机汇总，行 i+1 为 cpu i
+    private long[][] current = new long[0][FIELDS];
+    private long[][] previous = new long[0][FIELDS];
+    private boolean[] present = new boolean[0];
+    private boolean hasPrevious;
+    private final long[] delta = new long[FIELDS];
+
+    private final double[] historyUsage = new double[HISTORY_SIZE];
+    private final long[] historyTime = new long[HISTORY_SIZE];
+    private int historyHead;
+    private int historyCount;
+
+    private volatile CpuUsageDTO latest;
+
+    /**
+     * 采样一次并更新最新结果，首次采样只记录基准
+     */
+    public synchronized void sample() {
+        try {
+            int rows = readProcStat();
+            if (rows <= 0) {
+                return;
+            }
+            if (hasPrevious && previous.length == current.length) {
+                publish(rows);
+            }
+            long[][] swap = previous;
+            previous = current;
+            current = swap;
+            hasPrevious = true;
+        } catch (IOException e) {
+            log.debug("读取 /proc/stat 失败: {}", e.getMessage());
+            closeChannel();
+        }
+    }
+
+    /**
+     * 最新的CPU使用情况，尚未完成两次采样时为 null
+     */
+    public CpuUsageDTO getLatest() {
+        return latest;
+    }
+
+    /**
+     * 整机使用率，尚无数据时返回 0
+     */
+    public double getTotalUsage() {
+        CpuUsageDTO snapshot = latest;
+        return snapshot != null ? snapshot.getTotal().getUsage() : 0.0;
+    }
+
+    /**
+     * 最近的整机使用率历史，按时间先后排列
+     *
+     * @return timestamps（毫秒时间戳数组）和 usage（使用率数组）
+     */
+    public synchronized Map<String, Object> getHistory() {
+        long[] timestamps = new long[historyCount];
+        double[] usage = new double[historyCount];
+        int start = (historyHead - historyCount + HISTORY_SIZE) % HISTORY_SIZE;
+        for (int i = 0; i < historyCount; i++) {
+            int index = (start + i) % HISTORY_SIZE;
+            timestamps[i] = historyTime[index];
+            usage[i] = historyUsage[index];
+        }
+        Map<String, Object> history = new LinkedHashMap<>();
+        history.put("timestamps", timestamps);
+        history.put("usage", usage);
+        return history;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() {
+        closeChannel();
+    }
+
+    /**
+     * 读取并解析 /proc/stat 的 cpu 行到 current
+     *
+     * @return 解析到的行数（整机 + 最大核心编号 + 1），文件不可用时返回 0
+     */
+    private int readProcStat() throws IOException {
+        if (channel == null) {
+            Path stat = HostPaths.proc("stat");
+            if (!Files.isReadable(stat)) {
+                return 0;
+            }
+            channel = FileChannel.open(stat, StandardOpenOption.READ);
+        }
+
+        // procfs 文件每次从偏移 0 读取都会重新生成内容；cpu 行位于文件开头，
+        // 核心很多时后面的 intr 等行可能超出缓冲，截断不影响解析
+        readBuffer.clear();
+        long position = 0;
+        int n;
+        while (readBuffer.hasRemaining() && (n = channel.read(readBuffer, position)) > 0) {
+            position += n;
+        }
+        readBuffer.flip();
+
+        int limit = readBuffer.limit();
+        byte[] data = readBuffer.array();
+        int rows = 0;
+        int pos = 0;
+        Arrays.fill(present, false);
+        while (pos + 3 < limit && data[pos] == 'c' && data[pos + 1] == 'p' && data[pos + 2] == 'u') {
+            pos += 3;
+            int row;
+            if (data[pos] == ' ') {
+                row = 0;
+            } else {
+                int cpu = 0;
+                while (pos < limit && data[pos] >= '0' && data[pos] <= '9') {
+                    cpu = cpu * 10 + (data[pos++] - '0');
+                }
+                row = cpu + 1;
+            }
+            ensureCapacity(row + 1);
+            long[] counters = current[row];
+            for (int field = 0; field < FIELDS; field++) {
+                while (pos < limit && data[pos] == ' ') {
+                    pos++;
+                }
+                long value = 0;
+                while (pos < limit && data[pos] >= '0' && data[pos] <= '9') {
+                    value = value * 10 + (data[pos++] - '0');
+                }
+                counters[field] = value;
+            }
+            present[row] = true;
+            rows = Math.max(rows, row + 1);
+            while (pos < limit && data[pos] != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+        return rows;
+    }
+
+    /**
+     * 核心数增加（如 CPU 热插拔）时扩容计数器，扩容后的第一次采样重新建立基准
+     */
+    private void ensureCapacity(int rows) {
+        if (current.length >= rows) {
+            return;
+        }
+        int size = Math.max(rows, current.length * 2);
+        current = Arrays.copyOf(current, size);
+        for (int i = 0; i < size; i++) {
+            if (current[i] == null) {
+                current[i] = new long[FIELDS];
+            }
+        }
+        previous = new long[size][FIELDS];
+        present = Arrays.copyOf(present, size);
+        hasPrevious = false;
+    }
+
+    private void publish(int rows) {
+        CpuUsageDTO.CoreUsage total = compute(0, -1);
+        List<CpuUsageDTO.CoreUsage> cores = new ArrayList<>(rows - 1);
+        for (int row = 1; row < rows; row++) {
+            if (present[row]) {
+                cores.add(compute(row, row - 1));
+            }
+        }
+        long now = System.currentTimeMillis();
+        latest = new CpuUsageDTO(now, total, Collections.unmodifiableList(cores));
+
+        historyUsage[historyHead] = total.getUsage();
+        historyTime[historyHead] = now;
+        historyHead = (historyHead + 1) % HISTORY_SIZE;
+        historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+    }
+
+    private CpuUsageDTO.CoreUsage compute(int row, int cpu) {
+        long[] cur = current[row];
+        long[] prev = previous[row];
+        long totalDelta = 0;
+        for (int field = 0; field < FIELDS; field++) {
+            // 计数器回退（核心下线后重新上线）时按 0 处理
+            delta[field] = Math.max(0, cur[field] - prev[field]);
+            totalDelta += delta[field];
+        }
+        if (totalDelta == 0) {
+            return new CpuUsageDTO.CoreUsage(cpu, 0, 0, 0, 0, 0);
+        }
+        double scale = 100.0 / totalDelta;
+        return new CpuUsageDTO.CoreUsage(cpu,
+                round((totalDelta - delta[IDLE] - delta[IOWAIT]) * scale),
+                round((delta[USER] + delta[NICE]) * scale),
+                round((delta[SYSTEM] + delta[IRQ] + delta[SOFTIRQ]) * scale),
+                round(delta[IOWAIT] * scale),
+                round(delta[STEAL] * scale));
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 忽略关闭失败
+            }
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.dockpilot.service;
+
+import com.dockpilot.model.DirectorySizeDTO;
+import com.dockpilot.utils.HostPaths;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 目录大小统计（类似 du）
+ * <p>
+ * 用 ForkJoin 并行遍历目录树，不跟随符号链接，多个硬链接指向的同一文件（dev + inode）只计一次。
+ * 每个目录缓存其直接包含的文件统计和目录修改时间，再次统计时只需 stat 各级目录，
+ * 修改时间未变的目录直接复用缓存；目录内文件原地变大不会改变目录修改时间，因此缓存另设有效期。
+ * 统计过程中按固定间隔回调当前的累计值，供 WebSocket 推送部分结果。
+ */
+@Service
+public class DirectorySizeService {
+
+    /**
+     * 目录缓存有效期，超过后重新读取目录内容
+     */
+    private static final long NODE_MAX_AGE_MS = 10 * 60 * 1000L;
+
+    /**
+     * 最多缓存的目录数，统计过程中达到上限后不再缓存新目录
+     */
+    private static final int MAX_CACHED_NODES = 500000;
+
+    private static final long PROGRESS_INTERVAL_MS = 500;
+
+    /**
+     * 是否支持 unix 属性视图（一次 stat 同时取得大小、类型、硬链接数和 inode）
+     */
+    private static final boolean UNIX_VIEW = FileSystems.getDefault().supportedFileAttributeViews().contains("unix");
+
+    private final ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors() * 2, 16));
+
+    private final ScheduledExecutorService progressTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "dir-size-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 目录 -> 直接包含的文件统计
+     */
+    private final Map<Path, DirNode> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * 宿主机路径 -> 最近一次完整统计结果
+     */
+    private final Map<String, DirectorySizeDTO> results = new ConcurrentHashMap<>();
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+        progressTimer.shutdownNow();
+    }
+
+    /**
+     * 统计宿主机路径的大小
+     *
+     * @param hostPath 宿主机绝对路径
+     * @param progress 统计过程中的部分结果回调（done=false），可为 null
+     */
+    public DirectorySizeDTO calculate(String hostPath, Consumer<DirectorySizeDTO> progress) {
+        String normalized = Paths.get("/", hostPath).normalize().toString();
+        Path root = HostPaths.resolve(normalized);
+        long start = System.currentTimeMillis();
+        Scan scan = new Scan();
+
+        ScheduledFuture<?> ticker = null;
+        if (progress != null) {
+            ticker = progressTimer.scheduleWithFixedDelay(() -> progress.accept(scan.snapshot(normalized, false)),
+                    PROGRESS_INTERVAL_MS, PROGRESS_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+        DirectorySizeDTO result;
+        try {
+            Stat stat = stat(root);
+            if (stat.directory) {
+                pool.invoke(new WalkTask(root, scan));
+            } else if (stat.linkKey != null) {
+                scan.addLinked(stat.linkKey, stat.size);
+            } else {
+                scan.bytes.add(stat.size);
+                scan.files.increment();
+            }
+            result = scan.snapshot(normalized, true);
+        } catch (NoSuchFileException e) {
+            result = scan.snapshot(normalized, true);
+            result.setError("路径不存在");
+        } catch (IOException e) {
+            result = scan.snapshot(normalized, true);
+            result.setError(e.getMessage());
+        } finally {
+            if (ticker != null) {
+                ticker.cancel(false);
+            }
+        }
+        result.setDurationMs(System.currentTimeMillis() - start);
+        if (result.getError() == null) {
+            results.put(normalized, result);
+        }
+        if (nodes.size() >= MAX_CACHED_NODES) {
+            // 缓存已满：先淘汰过期目录，仍然是满的则清空，让之后的统计重新缓存
+            long now = System.currentTimeMillis();
+            nodes.values().removeIf(node -> now - node.scannedAt >= NODE_MAX_AGE_MS);
+            if (nodes.size() >= MAX_CACHED_NODES) {
+                nodes.clear();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 最近一次完整统计结果（不重新统计），没有时返回 null
+     */
+    public DirectorySizeDTO getCached(String hostPath) {
+        if (hostPath == null) {
+            return null;
+        }
+        return results.get(Paths.get("/", hostPath).normalize().toString());
+    }
+
+    /**
+     * 单次统计的累计值
+     */
+    private static class Scan {
+        final LongAdder bytes = new LongAdder();
+        final LongAdder files = new LongAdder();
+        final LongAdder dirs = new LongAdder();
+        final LongAdder reusedDirs = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        /**
+         * 本次统计中已计入的硬链接文件（dev:inode）
+         */
+        final Set<String> linkedInodes = ConcurrentHashMap.newKeySet();
+
+        void addLinked(String key, long size) {
+            if (linkedInodes.add(key)) {
+                bytes.add(size);
+                files.increment();
+            }
+        }
+
+        DirectorySizeDTO snapshot(String path, boolean done) {
+            DirectorySizeDTO dto = new DirectorySizeDTO();
+            dto.setPath(path);
+            dto.setBytes(bytes.sum());
+            dto.setFiles(files.sum());
+            dto.setDirs(dirs.sum());
+            dto.setReusedDirs(reusedDirs.sum());
+            dto.setErrors(errors.sum());
+            dto.setDone(done);
+            dto.setCalculatedAt(System.currentTimeMillis());
+            return dto;
+        }
+    }
+
+    /**
+     * 统计一个目录：复用或重新读取该目录的直接内容，再并行处理子目录
+     */
+    private class WalkTask extends RecursiveAction {
+        private final Path dir;
+        private final Scan scan;
+
+        WalkTask(Path dir, Scan scan) {
+            this.dir = dir;
+            this.scan = scan;
+        }
+
+        @Override
+        protected void compute() {
+            DirNode node;
+            try {
+                node = node(dir);
+            } catch (IOException e) {
+                scan.errors.increment();
+                return;
+            }
+            scan.dirs.increment();
+            scan.bytes.add(node.bytes);
+            scan.files.add(node.files);
+            node.linked.forEach(scan::addLinked);
+
+            if (node.subdirs.isEmpty()) {
+                return;
+            }
+            List<WalkTask> tasks = new ArrayList<>(node.subdirs.size());
+            for (Path subdir : node.subdirs) {
+                tasks.add(new WalkTask(subdir, scan));
+            }
+            invokeAll(tasks);
+        }
+
+        private DirNode node(Path path) throws IOException {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            long mtime = attrs.lastModifiedTime().toMillis();
+            DirNode cached = nodes.get(path);
+            if (cached != null && cached.mtime == mtime && System.currentTimeMillis() - cached.scannedAt < NODE_MAX_AGE_MS) {
+                scan.reusedDirs.increment();
+                return cached;
+            }
+
+            DirNode node = new DirNode(mtime);
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+                for (Path child : stream) {
+                    Stat stat;
+                    try {
+                        stat = stat(child);
+                    } catch (IOException e) {
+                        scan.errors.increment();
+                        continue;
+                    }
+                    if (stat.directory) {
+                        node.subdirs.add(child);
+                    } else if (stat.linkKey != null) {
+                        node.linked.put(stat.linkKey, stat.size);
+                    } else {
+                        // 符号链接计链接本身的大小，与 du 一致
+                        node.bytes += stat.size;
+                        node.files++;
+                    }
+                }
+            }
+            // 已缓存的目录原地更新，新目录只在未达到上限时缓存，保证统计过程中内存有界
+            if (cached != null || nodes.size() < MAX_CACHED_NODES) {
+                nodes.put(path, node);
+            }
+            return node;
+        }
+    }
+
+    /**
+     * 读取条目属性（不跟随符号链接），硬链接数大于 1 的普通文件带上 dev:inode 标识
+     */
+    private static Stat stat(Path path) throws IOException {
+        Stat stat = new Stat();
+        if (UNIX_VIEW) {
+            Map<String, Object> attrs = Files.readAttributes(path, "unix:isDirectory,isRegularFile,size,nlink,dev,ino",
+                    LinkOption.NOFOLLOW_LINKS);
+            stat.directory = Boolean.TRUE.equals(attrs.get("isDirectory"));
+            stat.size = stat.directory ? 0 : (Long) attrs.get("size");
+            Object nlink = attrs.get("nlink");
+            if (Boolean.TRUE.equals(attrs.get("isRegularFile")) && nlink instanceof Integer && (Integer) nlink > 1) {
+                stat.linkKey = attrs.get("dev") + ":" + attrs.get("ino");
+            }
+            return stat;
+        }
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        stat.directory = attrs.isDirectory();
+        stat.size = stat.directory ? 0 : attrs.size();
+        return stat;
+    }
+
+    private static class Stat {
+        boolean directory;
+        long size;
+        String linkKey;
+    }
+
+    /**
+     * 一个目录的直接内容统计
+     */
+    private static class DirNode {
+        final long mtime;
+        final long scannedAt = System.currentTimeMillis();
+        long bytes;
+        long files;
+        final List<Path> subdirs = new ArrayList<>();
+        /**
+         * 硬链接文件 dev:inode -> 大小，跨目录去重在汇总时完成
+         */
+        final Map<String, Long> linked = new HashMap<>();
+
+        DirNode(long mtime) {
+            this.mtime = mtime;
+        }
+    }
+}
@@ -0,0 +1,725 @@
+package com.dockpilot.service;
+
+import com.dockpilot.common.config.DownloadCacheConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 远程下载缓存
+ * <p>
+ * 按 URL 缓存配置包、应用模板等远程文件，所有下载共用一个 HttpClient：
+ * <ul>
+ *   <li>保存响应的 ETag / Last-Modified，再次下载时发送条件请求，304 直接使用本地副本</li>
+ *   <li>写入时计算 SHA-256；使用缓存前校验大小和修改时间，与记录不一致时才重新计算 SHA-256，损坏的副本会被丢弃并重新下载</li>
+ *   <li>首次下载边读边写入缓存，调用方可以流式处理而不必等下载完成</li>
+ *   <li>网络不可用时回退到已有的本地副本</li>
+ *   <li>总大小超过上限时按最近使用时间淘汰</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class DownloadCache {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 调用方未读完就关闭时，最多继续读取多少字节以完成缓存（如 tar 结尾的填充块）
+     */
+    private static final long DRAIN_LIMIT = 1024 * 1024;
+
+    /**
+     * 遗留的未完成下载文件保留时间
+     */
+    private static final long STALE_PART_AGE = 24 * 3600 * 1000L;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 每个缓存条目同时只允许一个下载或读取，没有使用者时移除
+     */
+    private final Map<String, EntryLock> locks = new ConcurrentHashMap<>();
+
+    @Autowired
+    private DownloadCacheConfig config;
+
+    @Value("${file.upload.path:uploads/}")
+    private String uploadBasePath;
+
+    /**
+     * 打开远程文件
+     * <p>
+     * 命中缓存时返回本地副本，否则边下载边写入缓存。返回的 {@link Download} 必须关闭。
+     *
+     * @param headers 额外请求头
+     * @param maxBytes 允许的最大字节数，超过时下载失败
+     * @param logger 日志输出，可为 null
+     */
+    public Download open(String url, Map<String, String> headers, long maxBytes, Consumer<String> logger) throws IOException {
+        Consumer<String> out = logger != null ? logger : message -> { };
+        if (!config.isEnabled()) {
+            HttpResponse<InputStream> response = send(url, headers, null);
+            if (response.statusCode() != 200) {
+                response.body().close();
+                return new Download(response.statusCode(), false, null, null, null);
+            }
+            checkContentLength(response, maxBytes);
+            return new Download(200, false, null, response.body(), null);
+        }
+
+        String key = sha256Hex(url.getBytes(StandardCharsets.UTF_8));
+        Lease lock = acquire(key);
+        boolean handedOff = false;
+        try {
+            Download download = openLocked(key, url, headers, maxBytes, out, lock);
+            handedOff = true;
+            return download;
+        } finally {
+            if (!handedOff) {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * 下载远程文件到本地并返回路径（{@link Download#getFile()}），适用于需要随机访问的文件（如 ZIP）
+     */
+    public Download fetch(String url, Map<String, String> headers, long maxBytes, Consumer<String> logger) throws IOException {
+        Download download = open(url, headers, maxBytes, logger);
+        if (!download.isSuccess() || download.getFile() != null) {
+            return download;
+        }
+
+        if (!config.isEnabled()) {
+            // 未启用缓存：下载到临时文件，关闭时删除
+            Path temp = Files.createTempFile("download-", ".tmp");
+            try (InputStream in = download.getInputStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                return new Download(200, false, temp, Files.newInputStream(temp), null, true);
+            } catch (IOException e) {
+                delete(temp);
+                throw e;
+            }
+        }
+
+        try (InputStream in = download.getInputStream()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (in.read(buffer) != -1) {
+                // 读取完整内容以写入缓存
+            }
+        }
+        return openCached(url, maxBytes);
+    }
+
+    /**
+     * 直接打开刚写入的缓存条目
+     */
+    private Download openCached(String url, long maxBytes) throws IOException {
+        String key = sha256Hex(url.getBytes(StandardCharsets.UTF_8));
+        Lease lock = acquire(key);
+        Path dir;
+        try {
+            dir = cacheDir();
+        } catch (IOException e) {
+            lock.release();
+            throw e;
+        }
+        Path dataFile = dir.resolve(key + ".bin");
+        Path metaFile = dir.resolve(key + ".json");
+        Entry entry = readEntry(metaFile, dataFile);
+        if (entry == null) {
+            lock.release();
+            throw new IOException("写入下载缓存失败");
+        }
+        try {
+            return fromCache(dataFile, metaFile, entry, maxBytes, lock);
+        } catch (IOException e) {
+            lock.release();
+            throw e;
+        }
+    }
+
+    private Download openLocked(String key, String url, Map<String, String> headers, long maxBytes,
+                                Consumer<String> logger, Lease lock) throws IOException {
+        Path dir = cacheDir();
+        Path dataFile = dir.resolve(key + ".bin");
+        Path metaFile = dir.resolve(key + ".json");
+        Entry entry = readEntry(metaFile, dataFile);
+
+        HttpResponse<InputStream> response;
+        try {
+            response = send(url, headers, entry);
+        } catch (IOException e) {
+            if (entry != null && verify(entry, dataFile, metaFile)) {
+                String reason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                logger.accept("⚠️ 下载失败（" + reason + "），使用本地缓存");
+                return fromCache(dataFile, metaFile, entry, maxBytes, lock);
+            }
+            throw e;
+        }
+
+        int status = response.statusCode();
+        if (status == 304 && entry != null) {
+            response.body().close();
+            if (verify(entry, dataFile, metaFile)) {
+                logger.accept("✅ 远程文件未变化，使用本地缓存");
+                return fromCache(dataFile, metaFile, entry, maxBytes, lock);
+            }
+            // 本地副本损坏：丢弃后重新完整下载
+            logger.accept("⚠️ 本地缓存校验失败，重新下载");
+            delete(dataFile, metaFile);
+            response = send(url, headers, null);
+            status = response.statusCode();
+        }
+
+        if (status != 200) {
+            response.body().close();
+            lock.release();
+            return new Download(status, false, null, null, null);
+        }
+        checkContentLength(response, maxBytes);
+
+        Entry fresh = new Entry();
+        fresh.setUrl(url);
+        fresh.setEtag(response.headers().firstValue("ETag").orElse(null));
+        fresh.setLastModified(response.headers().firstValue("Last-Modified").orElse(null));
+        Path part = dir.resolve(key + "-" + System.nanoTime() + ".part");
+        CachingInputStream caching = new CachingInputStream(response.body(), part, maxBytes,
+                completed -> commit(completed, fresh, part, dataFile, metaFile));
+        return new Download(200, false, null, caching, lock);
+    }
+
+    private Download fromCache(Path dataFile, Path metaFile, Entry entry, long maxBytes, Lease lock) throws IOException {
+        if (entry.getSize() > maxBytes) {
+            throw new IOException("文件过大，限制" + (maxBytes / 1024 / 1024) + "MB以内");
+        }
+        touch(metaFile);
+        return new Download(200, true, dataFile, Files.newInputStream(dataFile), lock);
+    }
+
+    private HttpResponse<InputStream> send(String url, Map<String, String> headers, Entry entry) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                // 只限制等待响应头的时间，响应体按流读取
+                .timeout(Duration.ofSeconds(60))
+                .GET();
+        if (headers != null) {
+            headers.forEach(builder::header);
+        }
+        if (entry != null) {
+            if (entry.getEtag() != null) {
+                builder.header("If-None-Match", entry.getEtag());
+            }
+            if (entry.getLastModified() != null) {
+                builder.header("If-Modified-Since", entry.getLastModified());
+            }
+        }
+        try {
+            return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("下载被中断");
+        }
+    }
+
+    private static void checkContentLength(HttpResponse<InputStream> response, long maxBytes) throws IOException {
+        long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+        if (length > maxBytes) {
+            response.body().close();
+            throw new IOException("文件过大，限制" + (maxBytes / 1024 / 1024) + "MB以内");
+        }
+    }
+
+    private void commit(CachingInputStream caching, Entry entry, Path part, Path dataFile, Path metaFile) {
+        try {
+            entry.setSize(caching.count);
+            entry.setSha256(toHex(caching.digest.digest()));
+            entry.setStoredAt(System.currentTimeMillis());
+            entry.setDataModified(Files.getLastModifiedTime(part).toMillis());
+            Files.move(part, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            writeEntry(metaFile, entry);
+            log.info("💾 已缓存下载文件: {} ({} 字节)", entry.getUrl(), entry.getSize());
+        } catch (IOException e) {
+            log.warn("写入下载缓存失败: {} - {}", entry.getUrl(), e.getMessage());
+            delete(part, dataFile, metaFile);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * 校验本地副本：大小不符视为损坏；大小和修改时间都与记录一致时直接使用，
+     * 否则重新计算 SHA-256，通过后更新记录的修改时间
+     */
+    private boolean verify(Entry entry, Path dataFile, Path metaFile) {
+        try {
+            if (entry.getSha256() == null || Files.size(dataFile) != entry.getSize()) {
+                return false;
+            }
+            long modified = Files.getLastModifiedTime(dataFile).toMillis();
+            if (entry.getDataModified() > 0 && entry.getDataModified() == modified) {
+                return true;
+            }
+            if (!entry.getSha256().equals(hashFile(dataFile))) {
+                return false;
+            }
+            entry.setDataModified(modified);
+            writeEntry(metaFile, entry);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    /**
+     * 写入元数据：先写临时文件再原子替换，避免读到写了一半的 JSON
+     */
+    private void writeEntry(Path metaFile, Entry entry) throws IOException {
+        Path temp = metaFile.resolveSibling(metaFile.getFileName() + "-" + System.nanoTime() + ".part");
+        try {
+            objectMapper.writeValue(temp.toFile(), entry);
+            Files.move(temp, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 获取缓存条目的锁，等待其他下载或读取结束
+     */
+    private Lease acquire(String key) throws IOException {
+        EntryLock lock = retain(key);
+        try {
+            lock.semaphore.acquire();
+        } catch (InterruptedException e) {
+            unretain(key, lock);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待下载缓存被中断");
+        }
+        return new Lease(key, lock);
+    }
+
+    /**
+     * 尝试获取缓存条目的锁，被占用时返回 null
+     */
+    private Lease tryAcquire(String key) {
+        EntryLock lock = retain(key);
+        if (!lock.semaphore.tryAcquire()) {
+            unretain(key, lock);
+            return null;
+        }
+        return new Lease(key, lock);
+    }
+
+    private EntryLock retain(String key) {
+        return locks.compute(key, (k, existing) -> {
+            EntryLock lock = existing != null ? existing : new EntryLock();
+            lock.users++;
+            return lock;
+        });
+    }
+
+    private void unretain(String key, EntryLock lock) {
+        locks.computeIfPresent(key, (k, existing) -> existing == lock && --existing.users == 0 ? null : existing);
+    }
+
+    /**
+     * 按最近使用时间淘汰，最近使用过或正在使用的条目不淘汰
+     */
+    private synchronized void evictIfNeeded() {
+        Path dir;
+        try {
+            dir = cacheDir();
+        } catch (IOException e) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<Path> metas = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(".json")) {
+                    metas.add(path);
+                } else if (name.endsWith(".bin")) {
+                    total += Files.size(path);
+                } else if (name.endsWith(".part") && now - Files.getLastModifiedTime(path).toMillis() > STALE_PART_AGE) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("扫描下载缓存失败: {}", e.getMessage());
+            return;
+        }
+        if (total <= config.getMaxSize()) {
+            return;
+        }
+
+        metas.sort(Comparator.comparingLong(DownloadCache::lastModified));
+        for (Path meta : metas) {
+            if (total <= config.getMaxSize()) {
+                break;
+            }
+            if (now - lastModified(meta) < config.getEvictionGracePeriod()) {
+                continue;
+            }
+            String key = meta.getFileName().toString().replace(".json", "");
+            Lease lock = tryAcquire(key);
+            if (lock == null) {
+                continue;
+            }
+            try {
+                Path data = dir.resolve(key + ".bin");
+                long size = Files.exists(data) ? Files.size(data) : 0;
+                delete(data, meta);
+                total -= size;
+                log.debug("淘汰下载缓存: {}", key);
+            } catch (IOException e) {
+                log.warn("淘汰下载缓存失败: {} - {}", key, e.getMessage());
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private Entry readEntry(Path metaFile, Path dataFile) {
+        if (!Files.exists(metaFile) || !Files.exists(dataFile)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(metaFile.toFile(), Entry.class);
+        } catch (IOException e) {
+            log.warn("读取下载缓存元数据失败: {}", metaFile);
+            return null;
+        }
+    }
+
+    private Path cacheDir() throws IOException {
+        Path dir = Paths.get(uploadBasePath, "download-cache");
+        Files.createDirectories(dir);
+        return dir;
+    }
+
+    private static void touch(Path path) {
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("更新缓存访问时间失败: {}", path);
+        }
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static void delete(Path... paths) {
+        for (Path path : paths) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("删除缓存文件失败: {}", path);
+            }
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256Hex(byte[] data) {
+        return toHex(newDigest().digest(data));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 一次下载的结果，使用完毕后必须关闭
+     */
+    public static class Download implements Closeable {
+        @Getter
+        private final int statusCode;
+        /**
+         * 是否直接使用了本地缓存（未重新下载内容）
+         */
+        @Getter
+        private final boolean fromCache;
+        /**
+         * 本地文件，仅 {@link #fetch} 或命中缓存时有值
+         */
+        @Getter
+        private final Path file;
+        private final InputStream stream;
+        private final Lease lock;
+        /**
+         * 文件为临时文件，关闭时删除
+         */
+        private final boolean temporary;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        Download(int statusCode, boolean fromCache, Path file, InputStream stream, Lease lock) {
+            this(statusCode, fromCache, file, stream, lock, false);
+        }
+
+        Download(int statusCode, boolean fromCache, Path file, InputStream stream, Lease lock, boolean temporary) {
+            this.statusCode = statusCode;
+            this.fromCache = fromCache;
+            this.file = file;
+            this.stream = stream;
+            this.lock = lock;
+            this.temporary = temporary;
+        }
+
+        public boolean isSuccess() {
+            return statusCode == 200 && stream != null;
+        }
+
+        /**
+         * 文件内容，关闭该流等同于关闭 Download
+         */
+        public InputStream getInputStream() {
+            return new FilterInputStream(stream) {
+                @Override
+                public void close() throws IOException {
+                    Download.this.close();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+            } finally {
+                if (lock != null) {
+                    lock.release();
+                }
+                if (temporary) {
+                    delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * 缓存条目的锁，users 为持有或等待该锁的调用数，由 locks 的 compute 保护
+     */
+    private static final class EntryLock {
+        private final Semaphore semaphore = new Semaphore(1);
+        private int users;
+    }
+
+    /**
+     * 已获取的缓存条目锁，释放后没有其他使用者时从 locks 中移除
+     */
+    final class Lease {
+        private final String key;
+        private final EntryLock lock;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(String key, EntryLock lock) {
+            this.key = key;
+            this.lock = lock;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                lock.semaphore.release();
+                unretain(key, lock);
+            }
+        }
+    }
+
+    /**
+     * 边读边写入缓存文件并计算 SHA-256，读到结尾后提交
+     */
+    private static class CachingInputStream extends FilterInputStream {
+        private final Path part;
+        private final OutputStream out;
+        private final MessageDigest digest = newDigest();
+        private final long maxBytes;
+        private final Consumer<CachingInputStream> onComplete;
+        private long count;
+        private boolean eof;
+        private boolean failed;
+
+        CachingInputStream(InputStream in, Path part, long maxBytes, Consumer<CachingInputStream> onComplete) throws IOException {
+            super(in);
+            this.part = part;
+            this.out = new BufferedOutputStream(Files.newOutputStream(part), BUFFER_SIZE);
+            this.maxBytes = maxBytes;
+            this.onComplete = onComplete;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int read = read(one, 0, 1);
+            return read == -1 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read;
+            try {
+                read = in.read(b, off, len);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+            if (read == -1) {
+                eof = true;
+                return -1;
+            }
+            count += read;
+            if (count > maxBytes) {
+                failed = true;
+                throw new IOException("文件过大，限制" + (maxBytes / 1024 / 1024) + "MB以内");
+            }
+            out.write(b, off, read);
+            digest.update(b, off, read);
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的数据也要写入缓存
+            byte[] buffer = new byte[(int) Math.min(BUFFER_SIZE, Math.max(n, 1))];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (!eof && !failed) {
+                    drain();
+                }
+            } finally {
+                try {
+                    in.close();
+                } finally {
+                    out.close();
+                    if (eof && !failed) {
+                        onComplete.accept(this);
+                    } else {
+                        Files.deleteIfExists(part);
+                    }
+                }
+            }
+        }
+
+        private void drain() {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long drained = 0;
+            try {
+                while (drained <= DRAIN_LIMIT) {
+                    int read = read(buffer, 0, buffer.length);
+                    if (read == -1) {
+                        return;
+                    }
+                    drained += read;
+                }
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+    }
+
+    /**
+     * 缓存条目元数据
+     */
+    @Data
+    public static class Entry {
+        private String url;
+        private String etag;
+        private String lastModified;
+        private String sha256;
+        private long size;
+        private long storedAt;
+        /**
+         * 写入时数据文件的修改时间，与当前一致时使用缓存前不再计算 SHA-256
+         */
+        private long dataModified;
+    }
+}
@@ -0,0 +1,597 @@
+package com.dockpilot.service;
+
+import com.dockpilot.common.config.ExportStoreConfig;
+import com.dockpilot.model.ExportManifest;
+import com.dockpilot.utils.ParallelGzipOutputStream;
+import com.dockpilot.utils.ProjectArchiveWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.compress.archivers.zip.ZipEncoding;
+import org.apache.commons.compress.archivers.zip.ZipEncodingHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 增量导出的内容寻址存储
+ * <p>
+ * 目录结构（位于 file.package.path/store 下）：
+ * <ul>
+ *   <li>chunks/ab/abcdef....gz：按内容分块后的数据块，文件名为原始内容的 SHA-256，内容是一个独立的 gzip 成员</li>
+ *   <li>manifests/项目标识哈希/任务ID.json：导出清单，记录每个文件引用的数据块</li>
+ * </ul>
+ * 同一项目再次导出时，大小和修改时间都没变的文件直接沿用上一份清单的数据块，不再读取；
+ * 变化的文件按内容定义分块（gear hash），只有新内容才会压缩写入。
+ * 生成配置包时数据块的 gzip 成员原样拼接，只有 tar 头需要重新压缩，因此导出耗时和新增磁盘占用都只与变化量相关。
+ * 不再被任何清单引用的数据块由每日的垃圾回收清理。
+ */
+@Slf4j
+@Service
+public class ExportChunkStore {
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int RECORD_SIZE = 512;
+    private static final ZipEncoding TAR_ENCODING = ZipEncodingHelper.getZipEncoding("UTF-8");
+
+    /**
+     * gear hash 查找表（固定种子，保证不同进程之间分块边界一致）
+     */
+    private static final long[] GEAR = new long[256];
+
+    static {
+        Random random = new Random(0x5EEDC0DEL);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    @Autowired
+    private ExportStoreConfig config;
+
+    @Autowired
+    @Qualifier("compressionExecutor")
+    private Executor compressionExecutor;
+
+    @Value("${file.package.path}")
+    private String packageStoragePath;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * 导出和拼装持有读锁，垃圾回收持有写锁，保证回收时不会删掉正在使用的数据块
+     */
+    private final ReentrantReadWriteLock gcLock = new ReentrantReadWriteLock();
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * 把配置目录写入存储并生成清单
+     *
+     * @param manifestId 清单ID（打包任务ID）
+     * @param projectKey 项目标识
+     * @param projectName 项目名称
+     * @param sources 每个服务需要打包的路径
+     * @param compression 压缩参数（级别、线程池、已压缩扩展名）
+     */
+    public ExportManifest ingest(String manifestId, String projectKey, String projectName,
+                                 Map<String, List<ProjectArchiveWriter.Source>> sources,
+                                 ProjectArchiveWriter.Compression compression) throws IOException {
+        gcLock.readLock().lock();
+        try {
+            Files.createDirectories(chunkDir());
+            Path projectDir = manifestDir().resolve(sha256Hex(projectKey.getBytes(StandardCharsets.UTF_8)).substring(0, 16));
+            Files.createDirectories(projectDir);
+
+            Map<String, ExportManifest.FileEntry> previous = previousFiles(projectDir);
+
+            ExportManifest manifest = new ExportManifest();
+            manifest.setId(manifestId);
+            manifest.setProjectKey(projectKey);
+            manifest.setProjectName(projectName);
+            manifest.setCreateTime(System.currentTimeMillis());
+
+            ChunkWriter writer = new ChunkWriter(compression);
+            for (Map.Entry<String, List<ProjectArchiveWriter.Source>> service : sources.entrySet()) {
+                ExportManifest.ServiceEntry serviceEntry = new ExportManifest.ServiceEntry();
+                serviceEntry.setName(service.getKey());
+                for (ProjectArchiveWriter.Source source : service.getValue()) {
+                    String prefix = service.getKey() + "/" + source.getName();
+                    ProjectArchiveWriter.walk(source.getPath(), new ProjectArchiveWriter.EntryVisitor() {
+                        @Override
+                        public void directory(Path dir, String relative, BasicFileAttributes attrs) {
+                            ExportManifest.FileEntry entry = new ExportManifest.FileEntry();
+                            entry.setPath(join(prefix, relative) + "/");
+                            entry.setType("dir");
+                            entry.setMtime(attrs.lastModifiedTime().toMillis());
+                            serviceEntry.getFiles().add(entry);
+                        }
+
+                        @Override
+                        public void file(Path file, String relative, BasicFileAttributes attrs) throws IOException {
+                            ExportManifest.FileEntry entry = new ExportManifest.FileEntry();
+                            entry.setPath(join(prefix, relative));
+                            entry.setType("file");
+                            entry.setMtime(attrs.lastModifiedTime().toMillis());
+                            entry.setSource(file.toAbsolutePath().toString());
+
+                            ExportManifest.FileEntry last = previous.get(entry.getSource());
+                            if (last != null && last.getChunks() != null
+                                    && last.getSize() == attrs.size() && last.getMtime() == entry.getMtime()
+                                    && chunksExist(last.getChunks())) {
+                                // 源文件未变化，直接引用上次的数据块
+                                entry.setSize(last.getSize());
+                                entry.setChunks(last.getChunks());
+                                manifest.setReusedBytes(manifest.getReusedBytes() + last.getSize());
+                            } else {
+                                writer.chunkFile(file, attrs.size(), entry);
+                            }
+                            manifest.setTotalBytes(manifest.getTotalBytes() + entry.getSize());
+                            serviceEntry.getFiles().add(entry);
+                        }
+
+                        @Override
+                        public void symlink(Path link, String relative, Path target) {
+                            ExportManifest.FileEntry entry = new ExportManifest.FileEntry();
+                            entry.setPath(join(prefix, relative));
+                            entry.setType("symlink");
+                            entry.setLinkName(target.toString());
+                            serviceEntry.getFiles().add(entry);
+                        }
+                    });
+                }
+                manifest.getServices().add(serviceEntry);
+            }
+            writer.await();
+            manifest.setStoredBytes(writer.storedBytes);
+
+            Path manifestFile = projectDir.resolve(manifestId + ".json");
+            Path tmp = projectDir.resolve(manifestId + ".json.tmp");
+            objectMapper.writeValue(tmp.toFile(), manifest);
+            Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            pruneManifests(projectDir);
+
+            log.info("📦 增量导出清单已生成: {} (共 {} 字节, 沿用 {} 字节, 新写入 {} 字节)",
+                    manifestId, manifest.getTotalBytes(), manifest.getReusedBytes(), manifest.getStoredBytes());
+            return manifest;
+        } finally {
+            gcLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 按清单拼装一个服务的 tar.gz 配置包，输出流不会被关闭
+     * <p>
+     * tar 头和补齐字节正常压缩，文件内容直接拼接数据块中已压缩好的 gzip 成员
+     */
+    public void writeTarGz(ExportManifest.ServiceEntry service, OutputStream out,
+                           ProjectArchiveWriter.Compression compression) throws IOException {
+        gcLock.readLock().lock();
+        try {
+            ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(out, compression.getExecutor(),
+                    compression.getLevel(), compression.getBlockSize(), compression.getParallelism() * 2);
+            for (ExportManifest.FileEntry entry : service.getFiles()) {
+                switch (entry.getType()) {
+                    case "dir":
+                        writeTarHeader(gzip, new TarArchiveEntry(entry.getPath()), entry, null);
+                        break;
+                    case "symlink":
+                        writeTarHeader(gzip, new TarArchiveEntry(entry.getPath(), TarConstants.LF_SYMLINK),
+                                entry, entry.getLinkName());
+                        break;
+                    default:
+                        TarArchiveEntry header = new TarArchiveEntry(entry.getPath());
+                        header.setSize(entry.getSize());
+                        writeTarHeader(gzip, header, entry, null);
+                        for (String hash : entry.getChunks()) {
+                            Path chunk = chunkPath(hash);
+                            if (!Files.exists(chunk)) {
+                                throw new IOException("数据块丢失: " + hash + " (" + entry.getPath() + ")");
+                            }
+                            try (InputStream in = Files.newInputStream(chunk)) {
+                                gzip.writeRawMember(in);
+                            }
+                        }
+                        padRecord(gzip, entry.getSize());
+                        break;
+                }
+            }
+            // tar 结束标记：两个全零记录
+            gzip.write(new byte[RECORD_SIZE * 2]);
+            gzip.finish();
+        } finally {
+            gcLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 每天清理未被任何清单引用的数据块和中断遗留的临时文件
+     */
+    @Scheduled(cron = "0 30 3 * * ?")
+    public void collectGarbage() {
+        Path chunks = chunkDir();
+        if (!Files.isDirectory(chunks)) {
+            return;
+        }
+        gcLock.writeLock().lock();
+        try {
+            Set<String> referenced = new HashSet<>();
+            for (Path manifestFile : listManifests(manifestDir())) {
+                ExportManifest manifest = readManifest(manifestFile);
+                if (manifest == null) {
+                    continue;
+                }
+                for (ExportManifest.ServiceEntry service : manifest.getServices()) {
+                    for (ExportManifest.FileEntry entry : service.getFiles()) {
+                        if (entry.getChunks() != null) {
+                            referenced.addAll(entry.getChunks());
+                        }
+                    }
+                }
+            }
+
+            long cutoff = System.currentTimeMillis() - config.getGcGracePeriod();
+            long[] removed = new long[2];
+            Files.walkFileTree(chunks, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String name = file.getFileName().toString();
+                    boolean orphan = name.endsWith(".tmp") || !referenced.contains(stripExtension(name));
+                    if (orphan && attrs.lastModifiedTime().toMillis() < cutoff) {
+                        Files.deleteIfExists(file);
+                        removed[0]++;
+                        removed[1] += attrs.size();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            log.info("🧹 导出存储垃圾回收完成: 引用数据块 {} 个, 删除 {} 个, 释放 {} 字节",
+                    referenced.size(), removed[0], removed[1]);
+        } catch (IOException e) {
+            log.warn("导出存储垃圾回收失败: {}", e.getMessage());
+        } finally {
+            gcLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 数据块写入器：内容定义分块、哈希，新数据块在压缩线程池中压缩落盘
+     */
+    private class ChunkWriter {
+        private final ProjectArchiveWriter.Compression compression;
+        private final int maxInFlight;
+        private final long mask;
+        private final Deque<CompletableFuture<Long>> inFlight = new ArrayDeque<>();
+        private final Set<String> pending = new HashSet<>();
+        private long storedBytes;
+
+        ChunkWriter(ProjectArchiveWriter.Compression compression) {
+            this.compression = compression;
+            this.maxInFlight = Math.max(1, compression.getParallelism() * 2);
+            this.mask = Integer.highestOneBit(Math.max(1, config.getAvgChunkSize())) - 1L;
+        }
+
+        /**
+         * 读取文件并按内容分块，结果写入 entry（size、chunks）
+         * 与 tar 打包一致，最多读取遍历时记录的 expectedSize 字节，读取期间变长的部分截断；
+         * 读取失败时保留已读取部分
+         */
+        void chunkFile(Path file, long expectedSize, ExportManifest.FileEntry entry) throws IOException {
+            int minSize = config.getMinChunkSize();
+            int maxSize = config.getMaxChunkSize();
+            int level = compression.shouldStore(file.getFileName().toString()) ? 0 : compression.getLevel();
+
+            List<String> hashes = new ArrayList<>();
+            long total = 0;
+            long remaining = expectedSize;
+            byte[] chunk = new byte[chunkCapacity(maxSize, expectedSize)];
+            int length = 0;
+            long hash = 0;
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[READ_BUFFER_SIZE];
+                while (remaining > 0) {
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read == -1) {
+                        break;
+                    }
+                    remaining -= read;
+                    for (int i = 0; i < read; i++) {
+                        byte b = buffer[i];
+                        chunk[length++] = b;
+                        hash = (hash << 1) + GEAR[b & 0xff];
+                        if ((length >= minSize && (hash & mask) == 0) || length == chunk.length) {
+                            hashes.add(store(chunk, length, level));
+                            total += length;
+                            // 读取上限为 expectedSize，剩余数据不会超过 expectedSize - total
+                            chunk = new byte[chunkCapacity(maxSize, expectedSize - total)];
+                            length = 0;
+                            hash = 0;
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("⚠️ 读取文件失败，保留已读取部分: {} - {}", file, e.getMessage());
+            }
+            if (length > 0) {
+                hashes.add(store(chunk, length, level));
+                total += length;
+            }
+            entry.setSize(total);
+            entry.setChunks(hashes);
+        }
+
+        /**
+         * 数据块缓冲大小：不超过最大块，小文件按剩余大小分配
+         */
+        private int chunkCapacity(int maxSize, long remaining) {
+            return (int) Math.max(1, Math.min(maxSize, remaining));
+        }
+
+        private String store(byte[] data, int length, int level) throws IOException {
+            String hash = sha256Hex(data, length);
+            Path target = chunkPath(hash);
+            if (pending.contains(hash) || Files.exists(target)) {
+                return hash;
+            }
+            pending.add(hash);
+            inFlight.addLast(CompletableFuture.supplyAsync(() -> {
+                try {
+                    Files.createDirectories(target.getParent());
+                    Path tmp = target.resolveSibling(target.getFileName() + "." + Thread.currentThread().getId() + ".tmp");
+                    Files.write(tmp, ParallelGzipOutputStream.compressMember(data, length, level));
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return (long) length;
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, compressionExecutor));
+            while (inFlight.size() > maxInFlight) {
+                storedBytes += join(inFlight.removeFirst());
+            }
+            return hash;
+        }
+
+        void await() throws IOException {
+            while (!inFlight.isEmpty()) {
+                storedBytes += join(inFlight.removeFirst());
+            }
+        }
+
+        private long join(CompletableFuture<Long> future) throws IOException {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                inFlight.forEach(f -> f.cancel(false));
+                inFlight.clear();
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw new IOException("写入数据块失败: " + cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /**
+     * 写 tar 头；路径超过 ustar 限制或包含非 ASCII 字符时先写 PAX 扩展头
+     */
+    private void writeTarHeader(OutputStream out, TarArchiveEntry header, ExportManifest.FileEntry entry,
+                                String linkName) throws IOException {
+        boolean paxPath = needsPax(entry.getPath());
+        boolean paxLink = linkName != null && needsPax(linkName);
+        if (paxPath || paxLink) {
+            StringBuilder records = new StringBuilder();
+            if (paxPath) {
+                appendPaxRecord(records, "path", entry.getPath());
+            }
+            if (paxLink) {
+                appendPaxRecord(records, "linkpath", linkName);
+            }
+            byte[] data = records.toString().getBytes(StandardCharsets.UTF_8);
+            TarArchiveEntry pax = new TarArchiveEntry("././@PaxHeader", TarConstants.LF_PAX_EXTENDED_HEADER_LC);
+            pax.setSize(data.length);
+            writeHeaderRecord(out, pax);
+            out.write(data);
+            padRecord(out, data.length);
+        }
+        if (linkName != null) {
+            header.setLinkName(linkName);
+        }
+        header.setModTime(entry.getMtime());
+        writeHeaderRecord(out, header);
+    }
+
+    private static void writeHeaderRecord(OutputStream out, TarArchiveEntry header) throws IOException {
+        byte[] record = new byte[RECORD_SIZE];
+        // starMode 下超过 8GB 的大小使用二进制编码
+        header.writeEntryHeader(record, TAR_ENCODING, true);
+        out.write(record);
+    }
+
+    private static boolean needsPax(String value) {
+        if (value.length() >= TarConstants.NAMELEN) {
+            return true;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7f) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * PAX 记录格式："长度 key=value\n"，长度包含自身的位数
+     */
+    private static void appendPaxRecord(StringBuilder records, String key, String value) {
+        int length = key.length() + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int total = length + String.valueOf(length).length();
+        while (total != length + String.valueOf(total).length()) {
+            total = length + String.valueOf(total).length();
+        }
+        records.append(total).append(' ').append(key).append('=').append(value).append('\n');
+    }
+
+    private static void padRecord(OutputStream out, long size) throws IOException {
+        int remainder = (int) (size % RECORD_SIZE);
+        if (remainder != 0) {
+            out.write(new byte[RECORD_SIZE - remainder]);
+        }
+    }
+
+    /**
+     * 读取项目目录下最新一份清单的文件索引（源路径 -> 条目）
+     */
+    private Map<String, ExportManifest.FileEntry> previousFiles(Path projectDir) {
+        Map<String, ExportManifest.FileEntry> result = new HashMap<>();
+        List<Path> manifests = listManifests(projectDir);
+        if (manifests.isEmpty()) {
+            return result;
+        }
+        ExportManifest latest = readManifest(manifests.get(0));
+        if (latest == null) {
+            return result;
+        }
+        for (ExportManifest.ServiceEntry service : latest.getServices()) {
+            for (ExportManifest.FileEntry entry : service.getFiles()) {
+                if (entry.getSource() != null) {
+                    result.put(entry.getSource(), entry);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 每个项目只保留最近的若干份清单
+     */
+    private void pruneManifests(Path projectDir) {
+        List<Path> manifests = listManifests(projectDir);
+        for (int i = Math.max(1, config.getRetainManifests()); i < manifests.size(); i++) {
+            try {
+                Files.deleteIfExists(manifests.get(i));
+            } catch (IOException e) {
+                log.warn("删除历史导出清单失败: {}", manifests.get(i));
+            }
+        }
+    }
+
+    /**
+     * 列出目录（含子目录）下的清单，按修改时间从新到旧排序
+     */
+    private List<Path> listManifests(Path dir) {
+        List<Path> result = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return result;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                if (Files.isDirectory(path)) {
+                    result.addAll(listManifests(path));
+                } else if (path.getFileName().toString().endsWith(".json")) {
+                    result.add(path);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取导出清单目录失败: {} - {}", dir, e.getMessage());
+        }
+        result.sort(Comparator.comparingLong(ExportChunkStore::lastModified).reversed());
+        return result;
+    }
+
+    private ExportManifest readManifest(Path file) {
+        try {
+            return objectMapper.readValue(file.toFile(), ExportManifest.class);
+        } catch (IOException e) {
+            log.warn("读取导出清单失败: {} - {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean chunksExist(List<String> hashes) {
+        for (String hash : hashes) {
+            if (!Files.exists(chunkPath(hash))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Path chunkDir() {
+        return Paths.get(packageStoragePath, "store", "chunks");
+    }
+
+    private Path manifestDir() {
+        return Paths.get(packageStoragePath, "store", "manifests");
+    }
+
+    private Path chunkPath(String hash) {
+        return chunkDir().resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+
+    private static long lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static String stripExtension(String name) {
+        int dot = name.indexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private static String join(String prefix, String relative) {
+        return relative.isEmpty() ? prefix : prefix + "/" + relative;
+    }
+
+    private static String sha256Hex(byte[] data) {
+        return sha256Hex(data, data.length);
+    }
+
+    private static String sha256Hex(byte[] data, int length) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data, 0, length);
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+}
@@ -0,0 +1,455 @@
+package com.dockpilot.service;
+
+import com.dockpilot.common.exception.BusinessException;
+import com.dockpilot.model.FileNode;
+import com.dockpilot.model.FileTreePage;
+import com.dockpilot.utils.HostPaths;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 宿主机文件浏览
+ * <p>
+ * 以 DirectoryStream 遍历目录，每个条目只读取一次 BasicFileAttributes；
+ * 排序、过滤、分页在服务端完成，分页使用基于排序键的游标，翻页期间目录变化不会导致重复或遗漏。
+ * 目录列表短期缓存，通过 WatchService 在目录变化时失效（同时校验目录修改时间兜底）。
+ */
+@Slf4j
+@Service
+public class FileTreeService {
+
+    /**
+     * 每页最大条目数
+     */
+    public static final int MAX_PAGE_SIZE = 500;
+
+    /**
+     * 列表缓存有效期
+     */
+    private static final long CACHE_TTL_MS = 10000;
+
+    /**
+     * 最多缓存的目录数（每个缓存目录占用一个监听）
+     */
+    private static final int MAX_CACHED_DIRS = 64;
+
+    /**
+     * 缓存的条目总数上限，按全部目录及其各排序视图合计
+     */
+    private static final int MAX_CACHED_ENTRIES = 200000;
+
+    /**
+     * 目录列表缓存，按访问顺序淘汰；读写均在 cache 上同步
+     */
+    private final LinkedHashMap<Path, Listing> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 当前缓存的条目总数，由 cache 上的锁保护
+     */
+    private long cachedEntries;
+
+    private final Map<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    @PostConstruct
+    public void init() {
+        try {
+            watchService = Paths.get("/").getFileSystem().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("文件监听不可用，目录列表缓存仅按有效期失效: {}", e.getMessage());
+            return;
+        }
+        Thread watcher = new Thread(this::watchLoop, "file-tree-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("关闭文件监听失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 分页列出目录
+     *
+     * @param path 宿主机路径（前端路径），如 /opt
+     * @param cursor 上一页返回的游标，首页为 null
+     * @param limit 每页条目数
+     * @param sort name / size / mtime
+     * @param order asc / desc
+     * @param type all / dir / file
+     * @param keyword 名称关键字（不区分大小写），可为空
+     * @param showHidden 是否包含以 . 开头的条目
+     */
+    public FileTreePage list(String path, String cursor, int limit, String sort, String order,
+                             String type, String keyword, boolean showHidden) throws IOException {
+        String sortKey = normalizeSort(sort);
+        boolean desc = "desc".equalsIgnoreCase(order);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        String frontendPath = normalizePath(path);
+        Path dir = resolve(frontendPath);
+
+        FileTreePage page = new FileTreePage();
+        page.setItems(new ArrayList<>());
+        Listing listing = listing(dir);
+        if (listing == null) {
+            return page;
+        }
+        page.setTotalEntries(listing.entries.size());
+
+        Comparator<Entry> comparator = comparator(sortKey, desc);
+        List<Entry> sorted = sortedView(dir, listing, sortKey + (desc ? ":desc" : ":asc"), comparator);
+
+        int start = 0;
+        if (cursor != null && !cursor.isEmpty()) {
+            Entry probe = decodeCursor(cursor, sortKey, desc);
+            int index = Collections.binarySearch(sorted, probe, comparator);
+            start = index >= 0 ? index + 1 : -index - 1;
+        }
+
+        String lowerKeyword = keyword == null || keyword.trim().isEmpty() ? null : keyword.trim().toLowerCase(Locale.ROOT);
+        Entry last = null;
+        for (int i = start; i < sorted.size(); i++) {
+            Entry entry = sorted.get(i);
+            if (!matches(entry, type, lowerKeyword, showHidden)) {
+                continue;
+            }
+            if (page.getItems().size() == pageSize) {
+                page.setHasMore(true);
+                break;
+            }
+            page.getItems().add(toNode(entry, frontendPath));
+            last = entry;
+        }
+        if (page.isHasMore()) {
+            page.setNextCursor(encodeCursor(last, sortKey, desc));
+        }
+        return page;
+    }
+
+    /**
+     * 获取目录列表：缓存未过期、未收到变更通知且目录修改时间未变时直接使用缓存
+     */
+    private Listing listing(Path dir) throws IOException {
+        BasicFileAttributes dirAttrs;
+        try {
+            dirAttrs = Files.readAttributes(dir, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (!dirAttrs.isDirectory()) {
+            throw new NotDirectoryException(dir.toString());
+        }
+        long dirMtime = dirAttrs.lastModifiedTime().toMillis();
+
+        Listing cached = cacheGet(dir);
+        if (cached != null && System.currentTimeMillis() - cached.loadedAt < CACHE_TTL_MS && cached.dirMtime == dirMtime) {
+            return cached;
+        }
+
+        // 先注册监听再读取，避免读取期间的变化被漏掉
+        watch(dir);
+        List<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream) {
+                entries.add(readEntry(child));
+            }
+        }
+        Listing listing = new Listing(entries, dirMtime);
+        if (entries.size() <= MAX_CACHED_ENTRIES) {
+            cachePut(dir, listing);
+        } else {
+            cacheRemove(dir);
+            unwatch(dir);
+        }
+        return listing;
+    }
+
+    /**
+     * 获取排序后的视图；视图计入缓存条目总数，放不下时只用于本次请求
+     */
+    private List<Entry> sortedView(Path dir, Listing listing, String key, Comparator<Entry> comparator) {
+        List<Entry> view = listing.sorted.get(key);
+        if (view != null) {
+            return view;
+        }
+        List<Entry> copy = new ArrayList<>(listing.entries);
+        copy.sort(comparator);
+        synchronized (cache) {
+            view = listing.sorted.get(key);
+            if (view != null) {
+                return view;
+            }
+            if (cache.get(dir) == listing && listing.weight + copy.size() <= MAX_CACHED_ENTRIES) {
+                listing.sorted.put(key, copy);
+                listing.weight += copy.size();
+                cachedEntries += copy.size();
+                trimCache();
+            }
+        }
+        return copy;
+    }
+
+    private Listing cacheGet(Path dir) {
+        synchronized (cache) {
+            return cache.get(dir);
+        }
+    }
+
+    private void cachePut(Path dir, Listing listing) {
+        synchronized (cache) {
+            Listing previous = cache.put(dir, listing);
+            if (previous != null) {
+                cachedEntries -= previous.weight;
+            }
+            listing.weight = listing.entries.size();
+            cachedEntries += listing.weight;
+            trimCache();
+        }
+    }
+
+    private void cacheRemove(Path dir) {
+        synchronized (cache) {
+            Listing previous = cache.remove(dir);
+            if (previous != null) {
+                cachedEntries -= previous.weight;
+            }
+        }
+    }
+
+    /**
+     * 按最久未访问淘汰，直到目录数和条目总数都不超过上限；调用方持有 cache 锁
+     */
+    private void trimCache() {
+        Iterator<Map.Entry<Path, Listing>> it = cache.entrySet().iterator();
+        while ((cache.size() > MAX_CACHED_DIRS || cachedEntries > MAX_CACHED_ENTRIES) && it.hasNext()) {
+            Map.Entry<Path, Listing> eldest = it.next();
+            it.remove();
+            cachedEntries -= eldest.getValue().weight;
+            unwatch(eldest.getKey());
+        }
+    }
+
+    private static Entry readEntry(Path child) {
+        Entry entry = new Entry();
+        entry.name = child.getFileName().toString();
+        BasicFileAttributes attrs;
+        try {
+            // 跟随符号链接，指向目录的链接按目录显示
+            attrs = Files.readAttributes(child, BasicFileAttributes.class);
+        } catch (IOException e) {
+            try {
+                // 失效的符号链接
+                attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (IOException ignored) {
+                return entry;
+            }
+        }
+        entry.directory = attrs.isDirectory();
+        entry.size = attrs.isDirectory() ? 0 : attrs.size();
+        entry.mtime = attrs.lastModifiedTime().toMillis();
+        return entry;
+    }
+
+    private void watch(Path dir) {
+        if (watchService == null || watchKeys.containsKey(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(dir, key);
+        } catch (IOException | ClosedWatchServiceException e) {
+            // inotify 数量达到上限等情况下退化为按有效期和目录修改时间失效
+            log.debug("监听目录失败: {} - {}", dir, e.getMessage());
+        }
+    }
+
+    private void unwatch(Path dir) {
+        WatchKey key = watchKeys.remove(dir);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = (Path) key.watchable();
+            key.pollEvents();
+            cacheRemove(dir);
+            // 下次读取时重新注册
+            unwatch(dir);
+        }
+    }
+
+    private static boolean matches(Entry entry, String type, String keyword, boolean showHidden) {
+        if (!showHidden && entry.name.startsWith(".")) {
+            return false;
+        }
+        if ("dir".equalsIgnoreCase(type) && !entry.directory) {
+            return false;
+        }
+        if ("file".equalsIgnoreCase(type) && entry.directory) {
+            return false;
+        }
+        return keyword == null || entry.name.toLowerCase(Locale.ROOT).contains(keyword);
+    }
+
+    /**
+     * 目录在前，然后按排序字段，最后按名称保证顺序唯一
+     */
+    private static Comparator<Entry> comparator(String sort, boolean desc) {
+        Comparator<Entry> bySort;
+        if ("size".equals(sort)) {
+            bySort = Comparator.comparingLong(entry -> entry.size);
+        } else if ("mtime".equals(sort)) {
+            bySort = Comparator.comparingLong(entry -> entry.mtime);
+        } else {
+            bySort = Comparator.comparing(entry -> entry.name, String.CASE_INSENSITIVE_ORDER);
+        }
+        if (desc) {
+            bySort = bySort.reversed();
+        }
+        return Comparator.<Entry, Boolean>comparing(entry -> !entry.directory)
+                .thenComparing(bySort)
+                .thenComparing(entry -> entry.name);
+    }
+
+    private static String normalizeSort(String sort) {
+        if ("size".equalsIgnoreCase(sort)) {
+            return "size";
+        }
+        if ("mtime".equalsIgnoreCase(sort)) {
+            return "mtime";
+        }
+        return "name";
+    }
+
+    /**
+     * 游标记录上一页最后一个条目的排序键，以及生成它时使用的排序方式
+     */
+    private static String encodeCursor(Entry entry, String sort, boolean desc) {
+        String raw = sort + "\n" + (desc ? "desc" : "asc") + "\n" + (entry.directory ? 1 : 0) + "\n"
+                + entry.size + "\n" + entry.mtime + "\n" + entry.name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Entry decodeCursor(String cursor, String sort, boolean desc) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\n", 6);
+            if (parts.length != 6 || !parts[0].equals(sort) || !parts[1].equals(desc ? "desc" : "asc")) {
+                throw new BusinessException("游标与排序方式不匹配");
+            }
+            Entry entry = new Entry();
+            entry.directory = "1".equals(parts[2]);
+            entry.size = Long.parseLong(parts[3]);
+            entry.mtime = Long.parseLong(parts[4]);
+            entry.name = parts[5];
+            return entry;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("无效的游标");
+        }
+    }
+
+    private static String normalizePath(String path) {
+        if (path == null || path.trim().isEmpty()) {
+            return "/";
+        }
+        Path normalized = Paths.get("/", path.trim()).normalize();
+        return normalized.toString();
+    }
+
+    /**
+     * 前端路径映射到宿主机挂载目录
+     */
+    private static Path resolve(String frontendPath) {
+        Path root = Paths.get(HostPaths.HOST_ROOT);
+        Path dir = "/".equals(frontendPath) ? root : root.resolve(frontendPath.substring(1)).normalize();
+        if (!dir.startsWith(root)) {
+            throw new BusinessException("非法路径: " + frontendPath);
+        }
+        return dir;
+    }
+
+    private static FileNode toNode(Entry entry, String parent) {
+        FileNode node = new FileNode();
+        node.setName(entry.name);
+        node.setPath("/".equals(parent) ? "/" + entry.name : parent + "/" + entry.name);
+        node.setDirectory(entry.directory);
+        node.setSize(entry.size);
+        node.setLastModified(entry.mtime);
+        // 初始化为空列表，表示未加载子节点
+        node.setChildren(new ArrayList<>());
+        return node;
+    }
+
+    /**
+     * 目录中的一个条目
+     */
+    private static class Entry {
+        String name;
+        boolean directory;
+        long size;
+        long mtime;
+    }
+
+    /**
+     * 一次目录读取的结果，按排序方式缓存排序后的视图
+     */
+    private static class Listing {
+        final List<Entry> entries;
+        final long dirMtime;
+        final long loadedAt = System.currentTimeMillis();
+        final Map<String, List<Entry>> sorted = new ConcurrentHashMap<>();
+        /**
+         * 计入缓存的条目数（条目 + 已缓存的排序视图），由 cache 上的锁保护
+         */
+        int weight;
+
+        Listing(List<Entry> entries, long dirMtime) {
+            this.entries = entries;
+            this.dirMtime = dirMtime;
+        }
+    }
+}
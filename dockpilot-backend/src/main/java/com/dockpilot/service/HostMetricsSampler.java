@@ -0,0 +1,172 @@
+package com.dockpilot.service;
+
+import com.dockpilot.api.DockerService;
+import com.dockpilot.model.DiskUsageDTO;
+import com.dockpilot.model.HostNetworkDTO;
+import com.dockpilot.model.NetworkRateDTO;
+import com.dockpilot.model.SystemStatusDTO;
+import com.dockpilot.utils.HostDetector;
+import com.dockpilot.utils.LogUtil;
+import com.dockpilot.utils.SystemInfoUtil;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+
+/**
+ * 宿主机指标采样器
+ * <p>
+ * 静态信息（内核、系统、CPU型号、核心数、Docker版本）启动时采集一次；
+ * 动态信息（CPU、内存、磁盘、网络）按固定间隔从 /proc 和 statvfs 读取（网络速率取自 NetworkRateTracker），
+ * Docker 资源计数按较慢的间隔刷新。每次采样生成新的快照并整体替换，
+ * 读取方拿到的始终是一份完整且不再变化的快照，不会看到写了一半的数据。
+ */
+@Slf4j
+@Service
+public class HostMetricsSampler {
+
+    @Autowired
+    private DockerService dockerService;
+
+    @Autowired
+    private CpuUsageTracker cpuUsageTracker;
+
+    @Autowired
+    private NetworkRateTracker networkRateTracker;
+
+    @Autowired
+    private StorageMetricsService storageMetricsService;
+
+    @Autowired
+    private HostDetector hostDetector;
+
+    // 静态信息
+    private String hostname;
+    private String os;
+    private String kernel;
+    private int cpuCores;
+    private String cpuModel;
+    private volatile String dockerVersion = "未知";
+
+    // Docker 资源计数，由 refreshDockerCounts 更新
+    private volatile DockerCounts dockerCounts = new DockerCounts(0, 0, 0, 0);
+
+    /**
+     * 当前快照，采样线程整体替换，读取方直接返回
+     */
+    private volatile SystemStatusDTO snapshot;
+
+    @PostConstruct
+    public void init() {
+        hostname = SystemInfoUtil.getHostname();
+        os = SystemInfoUtil.getOsInfo();
+        kernel = SystemInfoUtil.getKernelVersion();
+        cpuCores = SystemInfoUtil.getCpuCores();
+        cpuModel = SystemInfoUtil.getCpuModel();
+        // 首次采样只建立CPU计数的基准，使用率从下一次采样开始有效
+        sample();
+    }
+
+    /**
+     * 获取最新的系统状态快照
+     */
+    public SystemStatusDTO getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 采样动态指标
+     */
+    @Scheduled(fixedDelay = 2000, initialDelay = 2000)
+    public void sample() {
+        try {
+            cpuUsageTracker.sample();
+            SystemInfoUtil.MemoryInfo memoryInfo = SystemInfoUtil.getMemoryInfo();
+            SystemInfoUtil.DiskInfo diskInfo = getDiskInfo();
+            HostNetworkDTO network = hostDetector.getNetwork();
+            NetworkRateDTO networkRate = networkRateTracker.getTotal();
+            DockerCounts counts = dockerCounts;
+
+            snapshot = SystemStatusDTO.builder()
+                    .hostname(hostname)
+                    .os(os)
+                    .kernel(kernel)
+                    .uptime(SystemInfoUtil.getUptime())
+                    .cpuCores(cpuCores)
+                    .cpuModel(cpuModel)
+                    .cpuUsage(cpuUsageTracker.getTotalUsage())
+                    .memoryTotal(memoryInfo.getTotal())
+                    .memoryUsed(memoryInfo.getUsed())
+                    .memoryUsage(memoryInfo.getUsagePercent())
+                    .diskUsage(diskInfo.getUsagePercent())
+                    .diskFree(diskInfo.getFreeSpace())
+                    .ipAddress(network.getPrimaryIp() != null ? network.getPrimaryIp() : "未知")
+                    .gateway(network.getDefaultGateway() != null ? network.getDefaultGateway() : "未知")
+                    .networkDownloadSpeed(SystemInfoUtil.formatNetworkSpeed(networkRate.getRxRate()))
+                    .networkUploadSpeed(SystemInfoUtil.formatNetworkSpeed(networkRate.getTxRate()))
+                    .networkDownloadSpeedRaw(networkRate.getRxRate())
+                    .networkUploadSpeedRaw(networkRate.getTxRate())
+                    .runningContainers(counts.running)
+                    .totalContainers(counts.containers)
+                    .totalImages(counts.images)
+                    .totalNetworks(counts.networks)
+                    .dockerVersion(dockerVersion)
+                    .build();
+        } catch (Exception e) {
+            LogUtil.logSysError("采样系统指标失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 磁盘信息优先使用宿主机根文件系统，未挂载宿主机根目录时使用当前进程的根文件系统
+     */
+    private SystemInfoUtil.DiskInfo getDiskInfo() {
+        DiskUsageDTO hostRoot = storageMetricsService.getHostRoot();
+        if (hostRoot == null) {
+            return SystemInfoUtil.getDiskInfo();
+        }
+        return new SystemInfoUtil.DiskInfo((int) Math.ceil(hostRoot.getUsagePercent()) + "%",
+                SystemInfoUtil.formatBytes(hostRoot.getFree()));
+    }
+
+    /**
+     * 刷新 Docker 资源计数，列表查询代价较高，间隔比动态指标长
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void refreshDockerCounts() {
+        try {
+            List<Container> containers = dockerService.listContainers();
+            int running = (int) containers.stream().filter(c -> "running".equals(c.getState())).count();
+            dockerCounts = new DockerCounts(running, containers.size(),
+                    dockerService.listImages().size(), dockerService.listNetworks().size());
+
+            // Docker 版本只需获取一次，启动时 Docker 不可用则在这里补上
+            if ("未知".equals(dockerVersion)) {
+                dockerVersion = dockerService.getDockerVersion();
+            }
+        } catch (Exception e) {
+            log.debug("刷新Docker资源计数失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Docker 资源计数
+     */
+    private static class DockerCounts {
+        private final int running;
+        private final int containers;
+        private final int images;
+        private final int networks;
+
+        DockerCounts(int running, int containers, int images, int networks) {
+            this.running = running;
+            this.containers = containers;
+            this.images = images;
+            this.networks = networks;
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.dockpilot.service;
+
+import com.dockpilot.dto.IconInfo;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图标索引
+ * <p>
+ * 名称 -> 文件的哈希表（O(1) 解析），词项有序表（前缀搜索）和三元组倒排表（模糊搜索）。
+ * 同名图标出现在多个目录时按路径排序取第一个，与其余文件一起保留，删除后自动切换。
+ * 读多写少，用读写锁保护。
+ */
+class IconIndex {
+
+    private static final Comparator<IconInfo> DISPLAY_ORDER = Comparator
+            .comparing(IconInfo::getDisplayName, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(IconInfo::getName);
+
+    /**
+     * 模糊匹配的最低相似度（Dice 系数）
+     */
+    private static final double MIN_SIMILARITY = 0.5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 名称 -> 同名的全部文件
+     */
+    private final Map<String, NavigableMap<Path, IconInfo>> byName = new HashMap<>();
+
+    /**
+     * 文件 -> 名称
+     */
+    private final Map<Path, String> byPath = new HashMap<>();
+
+    /**
+     * 小写词项（名称、显示名称及其中的单词）-> 名称
+     */
+    private final TreeMap<String, Set<String>> terms = new TreeMap<>();
+
+    /**
+     * 三元组 -> 名称
+     */
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+
+    /**
+     * 名称 -> 三元组数量
+     */
+    private final Map<String, Integer> trigramCounts = new HashMap<>();
+
+    /**
+     * 名称 -> 规范化的名称和显示名称，用于包含匹配和前缀分级
+     */
+    private final Map<String, String[]> texts = new HashMap<>();
+
+    /**
+     * 按显示名称排序的全部图标，变化后首次读取时重建
+     */
+    private volatile List<IconInfo> sorted;
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return byName.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    IconInfo get(String name) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Path, IconInfo> files = byName.get(name);
+            return files == null ? null : files.firstEntry().getValue();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    Path resolve(String name) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Path, IconInfo> files = byName.get(name);
+            return files == null ? null : files.firstKey();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 添加或更新图标文件
+     */
+    void put(Path path, IconInfo info) {
+        lock.writeLock().lock();
+        try {
+            String previous = byPath.put(path, info.getName());
+            if (previous != null && !previous.equals(info.getName())) {
+                removeFile(previous, path);
+            }
+            NavigableMap<Path, IconInfo> files = byName.get(info.getName());
+            if (files == null) {
+                files = new TreeMap<>();
+                byName.put(info.getName(), files);
+                addTerms(info);
+            }
+            files.put(path, info);
+            sorted = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除文件，或目录下的全部文件
+     *
+     * @return 移除的文件数
+     */
+    int remove(Path path) {
+        lock.writeLock().lock();
+        try {
+            String name = byPath.remove(path);
+            if (name != null) {
+                // 单个文件
+                removeFile(name, path);
+                sorted = null;
+                return 1;
+            }
+            int removed = 0;
+            Iterator<Map.Entry<Path, String>> it = byPath.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Path, String> entry = it.next();
+                if (entry.getKey().startsWith(path)) {
+                    it.remove();
+                    removeFile(entry.getValue(), entry.getKey());
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                sorted = null;
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 用完整扫描结果替换索引
+     */
+    void replaceAll(Map<Path, IconInfo> files) {
+        lock.writeLock().lock();
+        try {
+            byName.clear();
+            byPath.clear();
+            terms.clear();
+            trigrams.clear();
+            trigramCounts.clear();
+            texts.clear();
+            sorted = null;
+            files.forEach((path, info) -> {
+                byPath.put(path, info.getName());
+                byName.computeIfAbsent(info.getName(), name -> {
+                    addTerms(info);
+                    return new TreeMap<>();
+                }).put(path, info);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 按显示名称排序的全部图标
+     */
+    List<IconInfo> all() {
+        List<IconInfo> snapshot = sorted;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        lock.readLock().lock();
+        try {
+            List<IconInfo> list = new ArrayList<>(byName.size());
+            for (NavigableMap<Path, IconInfo> files : byName.values()) {
+                list.add(files.firstEntry().getValue());
+            }
+            list.sort(DISPLAY_ORDER);
+            snapshot = Collections.unmodifiableList(list);
+            sorted = snapshot;
+            return snapshot;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索图标，结果按相关度排序：
+     * 名称完全匹配 > 名称/显示名称前缀 > 单词前缀 > 包含 > 三元组模糊匹配
+     */
+    List<IconInfo> search(String query) {
+        String q = normalize(query);
+        if (q.isEmpty()) {
+            return all();
+        }
+        Map<String, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            // 前缀：词项有序表上的区间查询
+            for (Map.Entry<String, Set<String>> entry : terms.subMap(q, true, q + Character.MAX_VALUE, true).entrySet()) {
+                for (String name : entry.getValue()) {
+                    String[] text = texts.get(name);
+                    double score;
+                    if (text[0].equals(q)) {
+                        score = 1000;
+                    } else if (text[0].startsWith(q) || text[1].startsWith(q)) {
+                        score = 800;
+                    } else {
+                        score = 600;
+                    }
+                    // 同一档内名称越短越接近查询
+                    scores.merge(name, score - name.length() * 0.001, Math::max);
+                }
+            }
+
+            if (q.length() < 3) {
+                // 查询太短没有三元组，直接按包含匹配
+                for (String name : byName.keySet()) {
+                    if (!scores.containsKey(name) && contains(name, q)) {
+                        scores.put(name, 400.0);
+                    }
+                }
+            } else {
+                // 三元组：统计每个候选与查询共有的三元组数
+                Set<String> queryTrigrams = trigramsOf(q);
+                Map<String, Integer> common = new HashMap<>();
+                for (String trigram : queryTrigrams) {
+                    Set<String> names = trigrams.get(trigram);
+                    if (names != null) {
+                        for (String name : names) {
+                            common.merge(name, 1, Integer::sum);
+                        }
+                    }
+                }
+                for (Map.Entry<String, Integer> entry : common.entrySet()) {
+                    String name = entry.getKey();
+                    if (scores.containsKey(name)) {
+                        continue;
+                    }
+                    if (contains(name, q)) {
+                        scores.put(name, 400.0);
+                        continue;
+                    }
+                    double similarity = 2.0 * entry.getValue() / (queryTrigrams.size() + trigramCounts.get(name));
+                    if (similarity >= MIN_SIMILARITY) {
+                        scores.put(name, 300 * similarity);
+                    }
+                }
+            }
+
+            List<IconInfo> result = new ArrayList<>(scores.size());
+            for (String name : scores.keySet()) {
+                result.add(byName.get(name).firstEntry().getValue());
+            }
+            result.sort(Comparator.<IconInfo>comparingDouble(icon -> -scores.get(icon.getName()))
+                    .thenComparing(DISPLAY_ORDER));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeFile(String name, Path path) {
+        NavigableMap<Path, IconInfo> files = byName.get(name);
+        if (files == null) {
+            return;
+        }
+        IconInfo removed = files.remove(path);
+        if (files.isEmpty()) {
+            byName.remove(name);
+            removeTerms(removed);
+        }
+    }
+
+    private boolean contains(String name, String q) {
+        String[] text = texts.get(name);
+        return text[0].contains(q) || text[1].contains(q);
+    }
+
+    private void addTerms(IconInfo info) {
+        String name = info.getName();
+        for (String term : termsOf(info)) {
+            terms.computeIfAbsent(term, t -> new HashSet<>()).add(name);
+        }
+        Set<String> nameTrigrams = trigramsOf(normalize(name));
+        for (String trigram : nameTrigrams) {
+            trigrams.computeIfAbsent(trigram, t -> new HashSet<>()).add(name);
+        }
+        trigramCounts.put(name, nameTrigrams.size());
+        texts.put(name, new String[]{normalize(name), normalize(info.getDisplayName())});
+    }
+
+    private void removeTerms(IconInfo info) {
+        String name = info.getName();
+        for (String term : termsOf(info)) {
+            removeFrom(terms, term, name);
+        }
+        for (String trigram : trigramsOf(normalize(name))) {
+            removeFrom(trigrams, trigram, name);
+        }
+        trigramCounts.remove(name);
+        texts.remove(name);
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String name) {
+        Set<String> names = index.get(key);
+        if (names != null) {
+            names.remove(name);
+            if (names.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> termsOf(IconInfo info) {
+        Set<String> result = new HashSet<>();
+        String name = normalize(info.getName());
+        String display = normalize(info.getDisplayName());
+        result.add(name);
+        result.add(display);
+        for (String word : (name + " " + display).split(" ")) {
+            if (!word.isEmpty()) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 两端补空格后的三元组，首尾字符也能参与匹配
+     */
+    private static Set<String> trigramsOf(String text) {
+        String padded = " " + text + " ";
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * 小写，分隔符统一为单个空格
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[\\s_\\-.]+", " ").trim();
+    }
+}
@@ -2,6 +2,7 @@ package com.dockpilot.service;
 
 import com.dockpilot.dto.IconInfo;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
@@ -10,15 +11,24 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -29,66 +39,191 @@ public class IconService {
     @Value("${app.upload.path:uploads}")
     private String uploadPath;
 
-    // 缓存所有图标信息
-    private final Map<String, IconInfo> iconCache = new ConcurrentHashMap<>();
+    @Autowired
+    private StreamingUploadService streamingUploadService;
+
+    // 图标索引：启动时扫描一次，之后由目录监听增量更新
+    private final IconIndex iconIndex = new IconIndex();
+
+    // 未找到的图标名称 -> 过期时间，避免无效图标地址反复查找
+    private final Map<String, Long> missingIcons = new ConcurrentHashMap<>();
+
+    private final Map<WatchKey, Path> watchKeys = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    // 目录监听不可用时，未命中触发重新扫描的最近时间
+    private volatile long lastMissRescan;
+
+    // 未命中缓存有效期和最大条目数
+    private static final long MISS_TTL_MS = 5 * 60 * 1000L;
+    private static final int MAX_MISSING_ICONS = 10000;
+
+    // 目录监听不可用时，未命中触发重新扫描的最小间隔
+    private static final long MISS_RESCAN_INTERVAL_MS = 60 * 1000L;
     
     // 支持的图片格式
     private static final Set<String> SUPPORTED_EXTENSIONS = Set.of(".png", ".svg", ".jpg", ".jpeg", ".webp", ".ico");
 
+    // 上传图标按文件头识别的格式
+    private static final Set<StreamingUploadService.FileKind> ICON_KINDS = EnumSet.of(
+            StreamingUploadService.FileKind.PNG, StreamingUploadService.FileKind.SVG,
+            StreamingUploadService.FileKind.JPEG, StreamingUploadService.FileKind.WEBP,
+            StreamingUploadService.FileKind.ICO);
+
+    // 上传图标大小限制 (2MB)
+    private static final long MAX_ICON_SIZE = 2 * 1024 * 1024;
+
     @PostConstruct
     public void init() {
+        Path iconBaseDir = iconBaseDir();
+        try {
+            Files.createDirectories(iconBaseDir);
+            watchService = iconBaseDir.getFileSystem().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("图标目录监听不可用，新增图标需手动刷新: {}", e.getMessage());
+        }
         refreshIconCache();
+        if (watchService != null) {
+            Thread watcher = new Thread(this::watchLoop, "icon-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.debug("关闭图标目录监听失败: {}", e.getMessage());
+            }
+        }
     }
 
     /**
-     * 刷新图标缓存
+     * 刷新图标缓存（完整重新扫描并重建索引）
      */
     public int refreshIconCache() {
-        iconCache.clear();
-        int totalCount = 0;
-
-        Path iconBaseDir = Paths.get(uploadPath, "icon");
+        Path iconBaseDir = iconBaseDir();
         
         if (!Files.exists(iconBaseDir)) {
             log.warn("图标目录不存在: {}", iconBaseDir);
+            iconIndex.replaceAll(Collections.emptyMap());
             return 0;
         }
 
         try {
             // 递归扫描整个icon目录
-            totalCount = scanIconsRecursively(iconBaseDir);
-            log.info("图标缓存刷新完成，共缓存 {} 个图标", totalCount);
-            
+            Map<Path, IconInfo> icons = scanIconsRecursively(iconBaseDir);
+            iconIndex.replaceAll(icons);
+            missingIcons.clear();
+            log.info("图标缓存刷新完成，共缓存 {} 个图标", iconIndex.size());
+            return iconIndex.size();
         } catch (Exception e) {
             log.error("刷新图标缓存失败", e);
+            return iconIndex.size();
         }
-
-        return totalCount;
     }
 
     /**
-     * 递归扫描目录中的图标文件
+     * 递归扫描目录中的图标文件，同时监听扫描到的每个目录
      */
-    private int scanIconsRecursively(Path directory) throws IOException {
-        int count = 0;
-        
+    private Map<Path, IconInfo> scanIconsRecursively(Path directory) throws IOException {
+        Map<Path, IconInfo> icons = new HashMap<>();
         try {
-            List<Path> allPaths = Files.walk(directory)
-                    .filter(Files::isRegularFile)
-                    .filter(this::isIconFile)
-                    .collect(Collectors.toList());
-
-            for (Path iconFile : allPaths) {
-                IconInfo iconInfo = createIconInfo(iconFile);
-                iconCache.put(iconInfo.getName(), iconInfo);
-                count++;
-            }
+            Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    watch(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile() && isIconFile(file)) {
+                        icons.put(file, createIconInfo(file, attrs.size()));
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    log.debug("读取图标文件失败: {} - {}", file, e.getMessage());
+                    return FileVisitResult.CONTINUE;
+                }
+            });
         } catch (IOException e) {
             log.error("递归扫描目录失败: {}", directory, e);
             throw e;
         }
+        return icons;
+    }
 
-        return count;
+    /**
+     * 加入索引，同时清除该名称的未命中记录
+     */
+    private void indexIcon(Path iconFile, IconInfo iconInfo) {
+        iconIndex.put(iconFile.toAbsolutePath().normalize(), iconInfo);
+        missingIcons.remove(iconInfo.getName());
+    }
+
+    private void watch(Path dir) {
+        if (watchService == null || watchKeys.containsValue(dir)) {
+            return;
+        }
+        try {
+            WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            watchKeys.put(key, dir);
+        } catch (IOException | ClosedWatchServiceException e) {
+            log.warn("监听图标目录失败: {} - {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * 处理目录变化：新增/修改的图标加入索引，删除的文件或目录移出索引，新目录扫描后继续监听
+     */
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path dir = watchKeys.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                    log.info("图标目录事件溢出，重新扫描");
+                    refreshIconCache();
+                    continue;
+                }
+                Path child = dir.resolve((Path) event.context());
+                try {
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                        iconIndex.remove(child);
+                    } else if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                            scanIconsRecursively(child).forEach(this::indexIcon);
+                        }
+                    } else if (Files.isRegularFile(child) && isIconFile(child)) {
+                        indexIcon(child, createIconInfo(child));
+                    }
+                } catch (IOException | RuntimeException e) {
+                    log.warn("处理图标目录变化失败: {} - {}", child, e.getMessage());
+                }
+            }
+            if (!key.reset()) {
+                // 目录已删除
+                watchKeys.remove(key);
+            }
+        }
+    }
+
+    private Path iconBaseDir() {
+        return Paths.get(uploadPath, "icon").toAbsolutePath().normalize();
     }
 
     /**
@@ -96,101 +231,85 @@ public class IconService {
      */
     private boolean isIconFile(Path path) {
         String fileName = path.getFileName().toString().toLowerCase();
-        return SUPPORTED_EXTENSIONS.stream().anyMatch(fileName::endsWith);
+        // 跳过上传中的临时文件等隐藏文件
+        return !fileName.startsWith(".") && SUPPORTED_EXTENSIONS.stream().anyMatch(fileName::endsWith);
     }
 
     /**
      * 创建图标信息对象
      */
     private IconInfo createIconInfo(Path iconFile) {
+        try {
+            return createIconInfo(iconFile, Files.size(iconFile));
+        } catch (IOException e) {
+            log.warn("获取文件大小失败: {}", iconFile, e);
+            return createIconInfo(iconFile, 0L);
+        }
+    }
+
+    private IconInfo createIconInfo(Path iconFile, long fileSize) {
         String fileName = iconFile.getFileName().toString();
         String nameWithoutExt = getFileNameWithoutExtension(fileName);
         String displayName = formatDisplayName(nameWithoutExt);
         String extension = getFileExtension(fileName);
         
-        try {
-            long fileSize = Files.size(iconFile);
-            
-            return IconInfo.builder()
-                    .name(nameWithoutExt)
-                    .displayName(displayName)
-                    .type("icon") // 统一类型
-                    .url("/api/icons/" + nameWithoutExt)
-                    .fileSize(fileSize)
-                    .extension(extension)
-                    .build();
-        } catch (IOException e) {
-            log.warn("获取文件大小失败: {}", iconFile, e);
-            return IconInfo.builder()
-                    .name(nameWithoutExt)
-                    .displayName(displayName)
-                    .type("icon")
-                    .url("/api/icons/" + nameWithoutExt)
-                    .fileSize(0L)
-                    .extension(extension)
-                    .build();
-        }
+        return IconInfo.builder()
+                .name(nameWithoutExt)
+                .displayName(displayName)
+                .type("icon") // 统一类型
+                .url("/api/icons/" + nameWithoutExt)
+                .fileSize(fileSize)
+                .extension(extension)
+                .build();
     }
 
     /**
-     * 获取图标列表
+     * 获取图标列表，按相关度排序（无搜索词时按显示名称排序）
      */
     public List<IconInfo> getIconList(String search, String type) {
-        return iconCache.values().stream()
-                .filter(icon -> search == null || search.trim().isEmpty() || 
-                        icon.getDisplayName().toLowerCase().contains(search.toLowerCase()) ||
-                        icon.getName().toLowerCase().contains(search.toLowerCase()))
-                .sorted(Comparator.comparing(IconInfo::getDisplayName))
-                .collect(Collectors.toList());
+        return iconIndex.search(search);
     }
 
     /**
      * 获取图标资源文件
      */
     public Resource getIconResource(String iconName) {
-        // 先从缓存中查找图标信息
-        IconInfo iconInfo = iconCache.get(iconName);
-        if (iconInfo != null) {
-            // 在整个icon目录中查找文件
-            Path iconPath = findIconFileRecursively(iconName);
-            if (iconPath != null && Files.exists(iconPath)) {
+        Path iconPath = iconIndex.resolve(iconName);
+        if (iconPath != null) {
+            // 有目录监听时索引与磁盘一致，无需再检查文件
+            if (watchService != null || Files.isRegularFile(iconPath)) {
+                return new FileSystemResource(iconPath);
+            }
+            // 文件已被删除但还没收到事件
+            iconIndex.remove(iconPath);
+            iconPath = iconIndex.resolve(iconName);
+            if (iconPath != null) {
                 return new FileSystemResource(iconPath);
             }
         }
 
-        // 缓存中没有，直接在目录中查找
-        Path iconPath = findIconFileRecursively(iconName);
-        if (iconPath != null && Files.exists(iconPath)) {
-            return new FileSystemResource(iconPath);
+        // 未命中：近期已确认不存在的名称直接返回
+        Long expiresAt = missingIcons.get(iconName);
+        long now = System.currentTimeMillis();
+        if (expiresAt != null && expiresAt > now) {
+            return null;
         }
 
-        return null;
-    }
-
-    /**
-     * 在整个icon目录中递归查找图标文件
-     */
-    private Path findIconFileRecursively(String iconName) {
-        Path iconBaseDir = Paths.get(uploadPath, "icon");
-        
-        if (!Files.exists(iconBaseDir)) {
-            return null;
+        // 没有目录监听时索引可能滞后，限频重新扫描一次
+        if (watchService == null && now - lastMissRescan > MISS_RESCAN_INTERVAL_MS) {
+            lastMissRescan = now;
+            refreshIconCache();
+            iconPath = iconIndex.resolve(iconName);
+            if (iconPath != null) {
+                return new FileSystemResource(iconPath);
+            }
         }
 
-        try {
-            return Files.walk(iconBaseDir)
-                    .filter(Files::isRegularFile)
-                    .filter(path -> {
-                        String fileName = path.getFileName().toString();
-                        String nameWithoutExt = getFileNameWithoutExtension(fileName);
-                        return iconName.equals(nameWithoutExt);
-                    })
-                    .findFirst()
-                    .orElse(null);
-        } catch (IOException e) {
-            log.error("查找图标文件失败: {}", iconName, e);
-            return null;
+        if (missingIcons.size() >= MAX_MISSING_ICONS) {
+            missingIcons.clear();
         }
+        missingIcons.put(iconName, now + MISS_TTL_MS);
+        return null;
     }
 
     /**
@@ -216,16 +335,10 @@ public class IconService {
     public MediaType getMediaType(String iconName) {
         String extension = "";
         
-        // 从缓存中获取扩展名
-        IconInfo iconInfo = iconCache.get(iconName);
+        // 从索引中获取扩展名
+        IconInfo iconInfo = iconIndex.get(iconName);
         if (iconInfo != null) {
             extension = iconInfo.getExtension();
-        } else {
-            // 直接从文件查找扩展名
-            Path iconPath = findIconFileRecursively(iconName);
-            if (iconPath != null) {
-                extension = getFileExtension(iconPath.getFileName().toString());
-            }
         }
 
         switch (extension.toLowerCase()) {
@@ -271,50 +384,40 @@ public class IconService {
     }
 
     /**
-     * 上传单个图标文件
+     * 保存上传的单个图标文件（流式写入 custom 目录，内容与已有图标相同时直接返回已有图标）
      */
-    public IconInfo uploadIcon(MultipartFile file) throws IOException {
-        // 验证文件
-        validateIconFile(file);
+    public IconInfo uploadIcon(String fileName, InputStream in) throws IOException {
+        // 验证文件名
+        if (fileName == null || !isIconFileName(fileName)) {
+            throw new IllegalArgumentException("不支持的文件格式，请上传 PNG、JPG、SVG、ICO 格式的图片");
+        }
         
-        // 确保custom目录存在
-        Path customDir = Paths.get(uploadPath, "icon", "custom");
-        Files.createDirectories(customDir);
+        Path iconBaseDir = Paths.get(uploadPath, "icon");
+        Path customDir = iconBaseDir.resolve("custom");
         
         // 生成安全的文件名
-        String safeFileName = generateSafeFileName(file.getOriginalFilename(), customDir);
-        Path targetPath = customDir.resolve(safeFileName);
+        String safeFileName = generateSafeFileName(fileName, customDir);
+        StreamingUploadService.FileKind expected = StreamingUploadService.FileKind.fromExtension(safeFileName);
         
-        // 保存文件
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(inputStream, targetPath, StandardCopyOption.REPLACE_EXISTING);
-        }
+        // 按文件头校验格式，超过 2MB 时中止写入
+        StreamingUploadService.StoredFile stored = streamingUploadService.store(in, customDir, iconBaseDir,
+                MAX_ICON_SIZE, ICON_KINDS, kind -> {
+                    if (kind != expected) {
+                        throw new IllegalArgumentException("文件内容与扩展名不符: " + fileName);
+                    }
+                    return safeFileName;
+                }, true);
         
-        // 创建图标信息并加入缓存
-        IconInfo iconInfo = createIconInfo(targetPath);
-        iconCache.put(iconInfo.getName(), iconInfo);
+        // 创建图标信息并加入索引
+        IconInfo iconInfo = createIconInfo(stored.getPath());
+        indexIcon(stored.getPath(), iconInfo);
         
-        log.info("成功上传图标: {}", safeFileName);
-        return iconInfo;
-    }
-    
-    /**
-     * 上传多个图标文件
-     */
-    public List<IconInfo> uploadIcons(MultipartFile[] files) throws IOException {
-        List<IconInfo> uploadedIcons = new ArrayList<>();
-        
-        for (MultipartFile file : files) {
-            try {
-                IconInfo iconInfo = uploadIcon(file);
-                uploadedIcons.add(iconInfo);
-            } catch (Exception e) {
-                log.error("上传文件失败: {}", file.getOriginalFilename(), e);
-                // 继续处理其他文件，不中断整个过程
-            }
+        if (stored.isDeduplicated()) {
+            log.info("上传的图标与已有图标 {} 内容相同，未重复保存", stored.getFileName());
+        } else {
+            log.info("成功上传图标: {}", safeFileName);
         }
-        
-        return uploadedIcons;
+        return iconInfo;
     }
     
     /**
@@ -350,9 +453,9 @@ public class IconService {
                         // 保存文件
                         Files.copy(zis, targetPath, StandardCopyOption.REPLACE_EXISTING);
                         
-                        // 创建图标信息并加入缓存
+                        // 创建图标信息并加入索引
                         IconInfo iconInfo = createIconInfo(targetPath);
-                        iconCache.put(iconInfo.getName(), iconInfo);
+                        indexIcon(targetPath, iconInfo);
                         uploadedIcons.add(iconInfo);
                         
                         log.debug("从ZIP中提取图标: {}", safeFileName);
@@ -368,25 +471,6 @@ public class IconService {
         return uploadedIcons;
     }
     
-    /**
-     * 验证图标文件
-     */
-    private void validateIconFile(MultipartFile file) {
-        if (file.isEmpty()) {
-            throw new IllegalArgumentException("文件不能为空");
-        }
-        
-        String fileName = file.getOriginalFilename();
-        if (fileName == null || !isIconFileName(fileName)) {
-            throw new IllegalArgumentException("不支持的文件格式，请上传 PNG、JPG、SVG、ICO 格式的图片");
-        }
-        
-        // 限制文件大小 (2MB)
-        if (file.getSize() > 2 * 1024 * 1024) {
-            throw new IllegalArgumentException("文件大小不能超过2MB");
-        }
-    }
-    
     /**
      * 判断是否为图标文件名
      */
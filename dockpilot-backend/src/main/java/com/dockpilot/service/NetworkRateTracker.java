@@ -0,0 +1,348 @@
+package com.dockpilot.service;
+
+import com.dockpilot.api.DockerService;
+import com.dockpilot.model.NetworkRateDTO;
+import com.dockpilot.model.NetworkRateSnapshotDTO;
+import com.dockpilot.utils.HostPaths;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 宿主机网络速率统计
+ * <p>
+ * 按固定间隔读取宿主机网络命名空间的 /proc/net/dev，为每个网卡保留上一次的计数器，
+ * 处理 32 位计数器回绕和网卡重建导致的计数器归零，计算瞬时速率和指数平滑速率。
+ * 虚拟网卡根据 /sys/devices/virtual/net 判断，整机速率只汇总物理网卡；
+ * veth 网卡通过容器内网卡的 iflink 找到对端，把流量归属到对应容器。
+ * 所有调用方读取同一份快照，互不影响。
+ */
+@Slf4j
+@Service
+public class NetworkRateTracker {
+
+    /**
+     * 平滑速率的时间常数（秒）
+     */
+    private static final double SMOOTHING_SECONDS = 10.0;
+
+    /**
+     * veth 归属关系的最长有效期，veth 集合变化时会提前刷新
+     */
+    private static final long VETH_MAPPING_TTL = 5 * 60 * 1000;
+
+    @Autowired
+    private DockerService dockerService;
+
+    /**
+     * 网卡名称 -> 计数器，只在采样线程中访问
+     */
+    private final Map<String, InterfaceCounter> counters = new HashMap<>();
+
+    /**
+     * veth 网卡名称 -> 容器ID
+     */
+    private Map<String, String> vethOwners = Collections.emptyMap();
+    private Map<String, String> containerNames = Collections.emptyMap();
+    private Set<String> mappedVeths = Collections.emptySet();
+    private long vethMappingRefreshedAt;
+
+    private long lastSampleNanos;
+
+    private volatile NetworkRateSnapshotDTO snapshot = new NetworkRateSnapshotDTO(0, emptyTotal(),
+            Collections.emptyList(), Collections.emptyList());
+
+    /**
+     * 最新的网络速率快照
+     */
+    public NetworkRateSnapshotDTO getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 物理网卡汇总速率
+     */
+    public NetworkRateDTO getTotal() {
+        return snapshot.getTotal();
+    }
+
+    @Scheduled(fixedDelay = 2000)
+    public synchronized void sample() {
+        Map<String, long[]> current;
+        try {
+            current = readNetDev();
+        } catch (IOException e) {
+            log.debug("读取网络计数失败: {}", e.getMessage());
+            return;
+        }
+        long now = System.nanoTime();
+        double seconds = lastSampleNanos == 0 ? 0 : (now - lastSampleNanos) / 1_000_000_000.0;
+        lastSampleNanos = now;
+
+        // 移除已消失的网卡
+        counters.keySet().retainAll(current.keySet());
+
+        Set<String> veths = new HashSet<>();
+        for (Map.Entry<String, long[]> entry : current.entrySet()) {
+            String name = entry.getKey();
+            InterfaceCounter counter = counters.computeIfAbsent(name, InterfaceCounter::new);
+            counter.update(entry.getValue()[0], entry.getValue()[1], seconds);
+            if (name.startsWith("veth")) {
+                veths.add(name);
+            }
+        }
+
+        refreshVethOwnersIfNeeded(veths);
+        publish();
+    }
+
+    private void publish() {
+        List<NetworkRateDTO> interfaces = new ArrayList<>(counters.size());
+        Map<String, NetworkRateDTO> containers = new LinkedHashMap<>();
+        NetworkRateDTO total = emptyTotal();
+
+        for (InterfaceCounter counter : counters.values()) {
+            String containerId = vethOwners.get(counter.name);
+            interfaces.add(NetworkRateDTO.builder()
+                    .name(counter.name)
+                    .containerId(containerId)
+                    .virtual(counter.virtual)
+                    .rxRate(counter.rxRate)
+                    .txRate(counter.txRate)
+                    .rxRateAvg(counter.rxRateAvg)
+                    .txRateAvg(counter.txRateAvg)
+                    .rxBytes(counter.rxBytes)
+                    .txBytes(counter.txBytes)
+                    .build());
+
+            if (!counter.virtual) {
+                accumulate(total, counter, false);
+            }
+            if (containerId != null) {
+                NetworkRateDTO container = containers.computeIfAbsent(containerId, id -> NetworkRateDTO.builder()
+                        .name(containerNames.getOrDefault(id, id))
+                        .containerId(id)
+                        .virtual(true)
+                        .build());
+                // veth 在宿主机侧的发送即容器的接收
+                accumulate(container, counter, true);
+            }
+        }
+
+        interfaces.sort((a, b) -> a.getName().compareTo(b.getName()));
+        List<NetworkRateDTO> containerRates = new ArrayList<>(containers.values());
+        containerRates.sort((a, b) -> Double.compare(b.getRxRateAvg() + b.getTxRateAvg(), a.getRxRateAvg() + a.getTxRateAvg()));
+        snapshot = new NetworkRateSnapshotDTO(System.currentTimeMillis(), total,
+                Collections.unmodifiableList(interfaces), Collections.unmodifiableList(containerRates));
+    }
+
+    private static void accumulate(NetworkRateDTO target, InterfaceCounter counter, boolean swap) {
+        target.setRxRate(target.getRxRate() + (swap ? counter.txRate : counter.rxRate));
+        target.setTxRate(target.getTxRate() + (swap ? counter.rxRate : counter.txRate));
+        target.setRxRateAvg(target.getRxRateAvg() + (swap ? counter.txRateAvg : counter.rxRateAvg));
+        target.setTxRateAvg(target.getTxRateAvg() + (swap ? counter.rxRateAvg : counter.txRateAvg));
+        target.setRxBytes(target.getRxBytes() + (swap ? counter.txBytes : counter.rxBytes));
+        target.setTxBytes(target.getTxBytes() + (swap ? counter.rxBytes : counter.txBytes));
+    }
+
+    private static NetworkRateDTO emptyTotal() {
+        return NetworkRateDTO.builder().name("total").build();
+    }
+
+    /**
+     * 读取宿主机网络命名空间的网卡计数
+     * /proc/net 指向读取进程自己的命名空间，挂载了宿主机根目录时通过宿主机 1 号进程读取
+     *
+     * @return 网卡名称 -> [接收字节数, 发送字节数]
+     */
+    private Map<String, long[]> readNetDev() throws IOException {
+        Path netDev = HostPaths.proc("1/net/dev");
+        if (!Files.isReadable(netDev)) {
+            netDev = Paths.get("/proc/net/dev");
+        }
+        Map<String, long[]> result = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(netDev)) {
+            reader.readLine(); // 跳过头部
+            reader.readLine(); // 跳过分割线
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = line.substring(0, colon).trim();
+                String[] parts = line.substring(colon + 1).trim().split("\\s+");
+                if (parts.length < 9) {
+                    continue;
+                }
+                try {
+                    // 接收字节数（第1列）和发送字节数（第9列）
+                    result.put(name, new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[8])});
+                } catch (NumberFormatException e) {
+                    // 忽略解析错误的行
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * veth 集合变化或超过有效期时重新建立 veth -> 容器 的归属关系
+     */
+    private void refreshVethOwnersIfNeeded(Set<String> veths) {
+        long now = System.currentTimeMillis();
+        if (veths.equals(mappedVeths) && now - vethMappingRefreshedAt < VETH_MAPPING_TTL) {
+            return;
+        }
+        mappedVeths = veths;
+        vethMappingRefreshedAt = now;
+        if (veths.isEmpty()) {
+            vethOwners = Collections.emptyMap();
+            return;
+        }
+
+        try {
+            // 宿主机侧 veth 的 ifindex -> 网卡名称
+            Map<Integer, String> vethByIndex = new HashMap<>();
+            for (String veth : veths) {
+                Integer index = readInt(HostPaths.sys("class/net/" + veth + "/ifindex"));
+                if (index != null) {
+                    vethByIndex.put(index, veth);
+                }
+            }
+
+            Map<String, String> owners = new HashMap<>();
+            Map<String, String> names = new HashMap<>();
+            for (Container container : dockerService.listContainers()) {
+                if (!"running".equals(container.getState())) {
+                    continue;
+                }
+                names.put(container.getId(), containerName(container));
+                InspectContainerResponse inspect = dockerService.inspectContainerCmd(container.getId());
+                Long pid = inspect.getState() != null ? inspect.getState().getPidLong() : null;
+                if (pid == null || pid <= 0) {
+                    continue;
+                }
+                // 容器内网卡的 iflink 即宿主机侧 veth 的 ifindex
+                Path netDir = HostPaths.proc(pid + "/root/sys/class/net");
+                if (!Files.isDirectory(netDir)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(netDir)) {
+                    for (Path iface : stream) {
+                        if ("lo".equals(iface.getFileName().toString())) {
+                            continue;
+                        }
+                        Integer peer = readInt(iface.resolve("iflink"));
+                        String veth = peer != null ? vethByIndex.get(peer) : null;
+                        if (veth != null) {
+                            owners.put(veth, container.getId());
+                        }
+                    }
+                }
+            }
+            vethOwners = owners;
+            containerNames = names;
+        } catch (Exception e) {
+            log.debug("建立 veth 与容器的对应关系失败: {}", e.getMessage());
+        }
+    }
+
+    private static String containerName(Container container) {
+        String[] names = container.getNames();
+        if (names == null || names.length == 0) {
+            return container.getId().substring(0, Math.min(12, container.getId().length()));
+        }
+        return names[0].startsWith("/") ? names[0].substring(1) : names[0];
+    }
+
+    private static Integer readInt(Path file) {
+        try {
+            return Integer.parseInt(Files.readString(file).trim());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * 判断是否为虚拟网卡：sysfs 可用时以 /sys/devices/virtual/net 为准，否则按名称前缀判断
+     */
+    private static boolean isVirtual(String name) {
+        Path virtualDir = HostPaths.sys("devices/virtual/net");
+        if (Files.isDirectory(virtualDir)) {
+            return Files.exists(virtualDir.resolve(name));
+        }
+        return name.equals("lo") || name.startsWith("docker") || name.startsWith("br-")
+                || name.startsWith("veth") || name.startsWith("virbr") || name.startsWith("tun")
+                || name.startsWith("tap");
+    }
+
+    /**
+     * 单个网卡的计数器和速率
+     */
+    private static class InterfaceCounter {
+        private final String name;
+        private final boolean virtual;
+        private boolean initialized;
+        private long rxBytes;
+        private long txBytes;
+        private double rxRate;
+        private double txRate;
+        private double rxRateAvg;
+        private double txRateAvg;
+
+        InterfaceCounter(String name) {
+            this.name = name;
+            this.virtual = isVirtual(name);
+        }
+
+        void update(long rx, long tx, double seconds) {
+            if (initialized && seconds > 0) {
+                rxRate = counterDelta(rx, rxBytes) / seconds;
+                txRate = counterDelta(tx, txBytes) / seconds;
+                if (rxRateAvg == 0 && txRateAvg == 0) {
+                    rxRateAvg = rxRate;
+                    txRateAvg = txRate;
+                } else {
+                    double alpha = 1 - Math.exp(-seconds / SMOOTHING_SECONDS);
+                    rxRateAvg += alpha * (rxRate - rxRateAvg);
+                    txRateAvg += alpha * (txRate - txRateAvg);
+                }
+            }
+            rxBytes = rx;
+            txBytes = tx;
+            initialized = true;
+        }
+
+        /**
+         * 计数器差值：接近 32 位上限时视为回绕，否则视为网卡重建后从 0 开始计数
+         */
+        private static long counterDelta(long current, long previous) {
+            if (current >= previous) {
+                return current - previous;
+            }
+            if (previous > 0xC0000000L && previous <= 0xFFFFFFFFL) {
+                return current + (1L << 32) - previous;
+            }
+            return current;
+        }
+    }
+}
@@ -0,0 +1,548 @@
+package com.dockpilot.service;
+
+import com.dockpilot.api.DockerService;
+import com.dockpilot.common.event.DockerContainerEvent;
+import com.dockpilot.common.exception.BusinessException;
+import com.dockpilot.model.PortCheckResultDTO;
+import com.dockpilot.model.PortConflictDTO;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerPort;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.InternetProtocol;
+import com.github.dockerjava.api.model.Ports;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * 端口分配索引
+ * <p>
+ * 在内存中维护宿主机端口的占用情况：容器发布的端口（启动时全量构建，之后跟随容器事件增量更新）、
+ * 宿主机监听端口（来自 PortCheckService）以及安装任务的临时保留。
+ * 创建容器和安装应用前在这里一次性检查全部端口，冲突时给出最近的空闲端口，
+ * 多服务应用安装期间保留其端口，避免并行安装互相抢占。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortAllocationService {
+
+    /**
+     * 保留的最长有效期，安装任务异常退出没有释放时到期自动失效
+     */
+    private static final long RESERVATION_TTL = 60 * 60 * 1000L;
+
+    /**
+     * 查找建议端口时一次评估的候选数量
+     */
+    private static final int SUGGEST_CANDIDATES = 64;
+
+    /**
+     * 单条映射中端口范围允许的最大端口数
+     */
+    private static final int MAX_RANGE_PORTS = 1024;
+
+    private final DockerService dockerService;
+    private final PortCheckService portCheckService;
+
+    /**
+     * 容器发布的宿主机端口 -> 容器名称
+     */
+    private final Map<Integer, String> containerPorts = new HashMap<>();
+
+    /**
+     * 容器ID -> 该容器发布的宿主机端口
+     */
+    private final Map<String, List<Integer>> portsByContainer = new HashMap<>();
+
+    /**
+     * 宿主机端口 -> 保留记录
+     */
+    private final Map<Integer, Reservation> reservations = new HashMap<>();
+
+    private boolean indexBuilt;
+
+    /**
+     * 检查应用 YAML 中所有服务的端口映射
+     *
+     * @param yamlContent 应用 YAML（${KEY} 占位符按 x-meta 中的环境变量替换）
+     */
+    public PortCheckResultDTO checkYaml(String yamlContent) {
+        return check(extractHostPorts(yamlContent), null);
+    }
+
+    /**
+     * 检查一组端口
+     *
+     * @param requested        宿主机端口 -> 请求该端口的服务（可重复的端口请用 YAML 检查）
+     * @param reservationToken 调用方自己的保留，为 null 表示没有
+     */
+    public synchronized PortCheckResultDTO check(Map<Integer, List<String>> requested, String reservationToken) {
+        ensureIndex();
+        List<Integer> ports = new ArrayList<>(requested.keySet());
+        Map<Integer, Boolean> hostAvailable = portCheckService.checkMultiplePorts(toArray(ports));
+
+        List<PortConflictDTO> conflicts = new ArrayList<>();
+        Set<Integer> taken = new TreeSet<>(ports);
+        for (Map.Entry<Integer, List<String>> entry : requested.entrySet()) {
+            int port = entry.getKey();
+            List<String> services = entry.getValue();
+            String occupiedBy = findOwner(port, reservationToken, Boolean.TRUE.equals(hostAvailable.get(port)));
+            if (occupiedBy == null && services.size() > 1) {
+                occupiedBy = "同一应用内重复: " + String.join(", ", services);
+            }
+            if (occupiedBy == null) {
+                continue;
+            }
+            // 同一应用内重复时第一个服务保留原端口
+            List<String> conflicting = occupiedBy.startsWith("同一应用内重复") ? services.subList(1, services.size()) : services;
+            for (String service : conflicting) {
+                Integer suggested = suggestOne(port, taken, reservationToken);
+                if (suggested != null) {
+                    taken.add(suggested);
+                }
+                conflicts.add(PortConflictDTO.builder()
+                        .service(service)
+                        .port(port)
+                        .occupiedBy(occupiedBy)
+                        .suggestedPort(suggested)
+                        .build());
+            }
+        }
+        return new PortCheckResultDTO(conflicts.isEmpty(), ports, conflicts);
+    }
+
+    /**
+     * 查找离指定端口最近的空闲端口
+     *
+     * @param near  参考端口
+     * @param count 需要的数量
+     */
+    public synchronized List<Integer> suggestFreePorts(int near, int count) {
+        ensureIndex();
+        List<Integer> result = new ArrayList<>(count);
+        Set<Integer> taken = new TreeSet<>();
+        taken.add(near);
+        for (int i = 0; i < count; i++) {
+            Integer port = suggestOne(near, taken, null);
+            if (port == null) {
+                break;
+            }
+            taken.add(port);
+            result.add(port);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * 检查并保留应用 YAML 中的全部端口，有冲突时不保留任何端口
+     *
+     * @param owner       保留方（应用名称），用于冲突提示
+     * @param yamlContent 应用 YAML
+     * @return 保留凭证，创建容器时传入，释放时使用；应用没有端口映射时返回 null
+     * @throws BusinessException 存在端口冲突
+     */
+    public synchronized String reserveYaml(String owner, String yamlContent) {
+        Map<Integer, List<String>> requested = extractHostPorts(yamlContent);
+        if (requested.isEmpty()) {
+            return null;
+        }
+        PortCheckResultDTO result = check(requested, null);
+        if (!result.isAvailable()) {
+            throw new BusinessException(describeConflicts(result.getConflicts()));
+        }
+        String token = UUID.randomUUID().toString();
+        long expiresAt = System.currentTimeMillis() + RESERVATION_TTL;
+        for (Integer port : requested.keySet()) {
+            reservations.put(port, new Reservation(token, owner, expiresAt));
+        }
+        log.info("为 {} 保留端口: {}", owner, requested.keySet());
+        return token;
+    }
+
+    /**
+     * 释放保留
+     */
+    public synchronized void release(String token) {
+        if (token == null) {
+            return;
+        }
+        reservations.values().removeIf(reservation -> reservation.token.equals(token));
+    }
+
+    /**
+     * 创建容器前检查端口映射，冲突时抛出带建议端口的异常
+     * 索引跟随事件异步更新，刚删除的容器可能还在索引里（如更新容器时先删后建），
+     * 因此发现冲突后先同步刷新一次再确认
+     *
+     * @param bindings         端口映射
+     * @param reservationToken 安装任务的保留凭证，可为 null
+     * @throws BusinessException 存在端口冲突
+     */
+    public void verifyBindings(Ports bindings, String reservationToken) {
+        Map<Integer, List<String>> requested = new LinkedHashMap<>();
+        if (bindings != null) {
+            for (Map.Entry<ExposedPort, Ports.Binding[]> entry : bindings.getBindings().entrySet()) {
+                if (entry.getValue() == null || entry.getKey().getProtocol() == InternetProtocol.UDP) {
+                    continue;
+                }
+                for (Ports.Binding binding : entry.getValue()) {
+                    List<Integer> hostPorts = parsePorts(binding.getHostPortSpec());
+                    if (hostPorts != null) {
+                        for (Integer hostPort : hostPorts) {
+                            requested.computeIfAbsent(hostPort, k -> new ArrayList<>()).add(String.valueOf(entry.getKey().getPort()));
+                        }
+                    }
+                }
+            }
+        }
+        if (requested.isEmpty()) {
+            return;
+        }
+
+        PortCheckResultDTO result = check(requested, reservationToken);
+        if (result.isAvailable()) {
+            return;
+        }
+        synchronized (this) {
+            rebuild();
+            portCheckService.invalidate();
+        }
+        result = check(requested, reservationToken);
+        if (!result.isAvailable()) {
+            throw new BusinessException(describeConflicts(result.getConflicts()));
+        }
+    }
+
+    /**
+     * 容器启停、删除时增量更新索引
+     */
+    @EventListener
+    public void onContainerEvent(DockerContainerEvent event) {
+        String action = event.getAction();
+        if (action == null) {
+            return;
+        }
+        switch (action) {
+            case "start":
+                portCheckService.invalidate();
+                indexContainer(event.getContainerId());
+                break;
+            case "die":
+            case "stop":
+            case "destroy":
+                portCheckService.invalidate();
+                removeContainer(event.getContainerId());
+                break;
+            case "rename":
+                indexContainer(event.getContainerId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 定期全量重建，弥补事件监听中断期间遗漏的变化，并清理过期保留
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 30000)
+    public synchronized void rebuild() {
+        try {
+            Map<Integer, String> ports = new HashMap<>();
+            Map<String, List<Integer>> byContainer = new HashMap<>();
+            for (Container container : dockerService.listContainers()) {
+                List<Integer> published = publishedPorts(container.getPorts());
+                if (!published.isEmpty()) {
+                    String name = containerName(container.getNames(), container.getId());
+                    published.forEach(port -> ports.put(port, name));
+                    byContainer.put(container.getId(), published);
+                }
+            }
+            containerPorts.clear();
+            containerPorts.putAll(ports);
+            portsByContainer.clear();
+            portsByContainer.putAll(byContainer);
+            indexBuilt = true;
+        } catch (Exception e) {
+            log.warn("构建端口索引失败: {}", e.getMessage());
+        }
+        long now = System.currentTimeMillis();
+        reservations.values().removeIf(reservation -> reservation.expiresAt < now);
+    }
+
+    private void ensureIndex() {
+        if (!indexBuilt) {
+            rebuild();
+        }
+    }
+
+    private void indexContainer(String containerId) {
+        try {
+            InspectContainerResponse inspect = dockerService.inspectContainerCmd(containerId);
+            List<Integer> published = new ArrayList<>();
+            if (inspect.getNetworkSettings() != null && inspect.getNetworkSettings().getPorts() != null) {
+                for (Map.Entry<ExposedPort, Ports.Binding[]> entry : inspect.getNetworkSettings().getPorts().getBindings().entrySet()) {
+                    if (entry.getValue() == null || entry.getKey().getProtocol() == InternetProtocol.UDP) {
+                        continue;
+                    }
+                    for (Ports.Binding binding : entry.getValue()) {
+                        List<Integer> ports = parsePorts(binding.getHostPortSpec());
+                        if (ports == null) {
+                            continue;
+                        }
+                        for (Integer port : ports) {
+                            if (!published.contains(port)) {
+                                published.add(port);
+                            }
+                        }
+                    }
+                }
+            }
+            String name = inspect.getName() != null ? inspect.getName().replaceFirst("/", "") : containerId;
+            synchronized (this) {
+                removeContainer(containerId);
+                if (!published.isEmpty()) {
+                    published.forEach(port -> containerPorts.put(port, name));
+                    portsByContainer.put(containerId, published);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("更新容器端口索引失败: {}, {}", containerId, e.getMessage());
+        }
+    }
+
+    private synchronized void removeContainer(String containerId) {
+        List<Integer> ports = portsByContainer.remove(containerId);
+        if (ports != null) {
+            ports.forEach(containerPorts::remove);
+        }
+    }
+
+    /**
+     * 端口的占用方，未占用返回 null
+     */
+    private String findOwner(int port, String reservationToken, boolean hostAvailable) {
+        Reservation reservation = reservations.get(port);
+        if (reservation != null && reservation.expiresAt >= System.currentTimeMillis()
+                && !reservation.token.equals(reservationToken)) {
+            return "安装中的应用: " + reservation.owner;
+        }
+        String container = containerPorts.get(port);
+        if (container != null) {
+            return "容器: " + container;
+        }
+        if (!hostAvailable) {
+            return reservation != null && reservation.token.equals(reservationToken) ? null : "宿主机进程";
+        }
+        return null;
+    }
+
+    /**
+     * 在参考端口两侧交替查找最近的空闲端口，1024 以上的端口不建议特权端口
+     */
+    private Integer suggestOne(int near, Set<Integer> taken, String reservationToken) {
+        int min = near >= 1024 ? 1024 : 1;
+        List<Integer> candidates = new ArrayList<>(SUGGEST_CANDIDATES);
+        for (int distance = 1; candidates.size() < SUGGEST_CANDIDATES && (near + distance <= 65535 || near - distance >= min); distance++) {
+            addCandidate(candidates, near + distance, min, taken, reservationToken);
+            addCandidate(candidates, near - distance, min, taken, reservationToken);
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Map<Integer, Boolean> available = portCheckService.checkMultiplePorts(toArray(candidates));
+        for (Integer candidate : candidates) {
+            if (Boolean.TRUE.equals(available.get(candidate))) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private void addCandidate(List<Integer> candidates, int port, int min, Set<Integer> taken, String reservationToken) {
+        if (port < min || port > 65535 || taken.contains(port) || containerPorts.containsKey(port)) {
+            return;
+        }
+        Reservation reservation = reservations.get(port);
+        if (reservation != null && reservation.expiresAt >= System.currentTimeMillis()
+                && !reservation.token.equals(reservationToken)) {
+            return;
+        }
+        candidates.add(port);
+    }
+
+    /**
+     * 从应用 YAML 中提取所有服务的宿主机 TCP 端口
+     * 支持 "8080:80"、"127.0.0.1:8080:80"、"8080:80/tcp" 和端口范围 "8000-8010:8000-8010"，
+     * 只写容器端口的条目不占用宿主机端口
+     *
+     * @return 宿主机端口 -> 请求该端口的服务列表
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Integer, List<String>> extractHostPorts(String yamlContent) {
+        Map<Integer, List<String>> result = new LinkedHashMap<>();
+        Map<String, Object> config;
+        try {
+            config = new Yaml().load(yamlContent);
+        } catch (Exception e) {
+            throw new BusinessException("YAML格式错误: " + e.getMessage());
+        }
+        if (config == null || !(config.get("services") instanceof Map)) {
+            return result;
+        }
+        Map<String, String> envVars = extractEnvVars(config);
+
+        Map<String, Object> services = (Map<String, Object>) config.get("services");
+        for (Map.Entry<String, Object> entry : services.entrySet()) {
+            if (!(entry.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> service = (Map<String, Object>) entry.getValue();
+            if ("host".equals(service.get("network_mode")) || !(service.get("ports") instanceof List)) {
+                continue;
+            }
+            for (Object portObj : (List<Object>) service.get("ports")) {
+                String mapping = replaceEnvPlaceholders(String.valueOf(portObj), envVars);
+                if (mapping.endsWith("/udp")) {
+                    continue;
+                }
+                int slash = mapping.indexOf('/');
+                String[] parts = (slash >= 0 ? mapping.substring(0, slash) : mapping).split(":");
+                if (parts.length < 2) {
+                    continue;
+                }
+                List<Integer> hostPorts = parsePorts(parts[parts.length - 2]);
+                if (hostPorts == null) {
+                    throw new BusinessException("服务 " + entry.getKey() + " 的端口映射无效: " + mapping);
+                }
+                for (Integer hostPort : hostPorts) {
+                    result.computeIfAbsent(hostPort, k -> new ArrayList<>()).add(entry.getKey());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * x-meta 中的环境变量（envVars 或 env，值可以是字符串或 {value: ...}），与安装流程的替换规则一致
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> extractEnvVars(Map<String, Object> config) {
+        Map<String, String> envVars = new HashMap<>();
+        if (!(config.get("x-meta") instanceof Map)) {
+            return envVars;
+        }
+        Map<String, Object> meta = (Map<String, Object>) config.get("x-meta");
+        Object envConfig = meta.containsKey("envVars") ? meta.get("envVars") : meta.get("env");
+        if (!(envConfig instanceof Map)) {
+            return envVars;
+        }
+        for (Map.Entry<String, Object> entry : ((Map<String, Object>) envConfig).entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                value = ((Map<String, Object>) value).getOrDefault("value", "");
+            }
+            envVars.put(entry.getKey(), String.valueOf(value));
+        }
+        return envVars;
+    }
+
+    private static String replaceEnvPlaceholders(String text, Map<String, String> envVars) {
+        String result = text;
+        for (Map.Entry<String, String> entry : envVars.entrySet()) {
+            result = result.replace("${" + entry.getKey() + "}", entry.getValue());
+        }
+        return result;
+    }
+
+    private static List<Integer> publishedPorts(ContainerPort[] ports) {
+        if (ports == null) {
+            return Collections.emptyList();
+        }
+        List<Integer> result = new ArrayList<>(ports.length);
+        for (ContainerPort port : ports) {
+            if (port.getPublicPort() != null && !"udp".equalsIgnoreCase(port.getType())
+                    && !result.contains(port.getPublicPort())) {
+                result.add(port.getPublicPort());
+            }
+        }
+        return result;
+    }
+
+    private static String containerName(String[] names, String id) {
+        if (names == null || names.length == 0) {
+            return id.substring(0, Math.min(12, id.length()));
+        }
+        return names[0].startsWith("/") ? names[0].substring(1) : names[0];
+    }
+
+    /**
+     * 解析宿主机端口，端口范围（8000-8010）展开为其中的每个端口
+     * 空值、非法值或超过 MAX_RANGE_PORTS 个端口的范围返回 null
+     */
+    private static List<Integer> parsePorts(String spec) {
+        if (spec == null || spec.trim().isEmpty()) {
+            return null;
+        }
+        String value = spec.trim();
+        int dash = value.indexOf('-');
+        Integer first = parsePort(dash > 0 ? value.substring(0, dash) : value);
+        Integer last = dash > 0 ? parsePort(value.substring(dash + 1)) : first;
+        if (first == null || last == null || last < first || last - first >= MAX_RANGE_PORTS) {
+            return null;
+        }
+        List<Integer> ports = new ArrayList<>(last - first + 1);
+        for (int port = first; port <= last; port++) {
+            ports.add(port);
+        }
+        return ports;
+    }
+
+    private static Integer parsePort(String value) {
+        try {
+            int port = Integer.parseInt(value.trim());
+            return port > 0 && port <= 65535 ? port : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int[] toArray(List<Integer> ports) {
+        return ports.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String describeConflicts(List<PortConflictDTO> conflicts) {
+        return "端口冲突: " + conflicts.stream()
+                .map(c -> c.getService() + " 的端口 " + c.getPort() + " 已被" + c.getOccupiedBy() + " 占用"
+                        + (c.getSuggestedPort() != null ? "，可改用 " + c.getSuggestedPort() : ""))
+                .collect(Collectors.joining("；"));
+    }
+
+    private static final class Reservation {
+        private final String token;
+        private final String owner;
+        private final long expiresAt;
+
+        private Reservation(String token, String owner, long expiresAt) {
+            this.token = token;
+            this.owner = owner;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
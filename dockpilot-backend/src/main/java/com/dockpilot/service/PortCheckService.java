@@ -1,29 +1,73 @@
 package com.dockpilot.service;
 
+import com.dockpilot.api.DockerService;
 import com.dockpilot.utils.HostDetector;
+import com.dockpilot.utils.HostPaths;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerPort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 /**
- * 端口检测服务 - 使用nc命令
- * 检测宿主机端口是否被占用
+ * 端口检测服务
+ * 检测宿主机端口是否被占用：
+ * <ol>
+ *     <li>一次读取宿主机 /proc/net/tcp、tcp6 中处于 LISTEN 状态的端口</li>
+ *     <li>合并所有容器在 Docker 中发布的端口（关闭 userland-proxy 时宿主机上没有监听套接字）</li>
+ *     <li>读不到宿主机网络命名空间时，回退为并行的非阻塞 connect 探测，全局限制并发连接数</li>
+ * </ol>
+ * 占用情况按很短的有效期缓存，批量检测和范围查找只做内存查询。
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PortCheckService {
-    
+
+    /**
+     * 占用快照的有效期
+     */
+    private static final long SNAPSHOT_TTL = 2000;
+
+    /**
+     * 回退探测：单个连接的超时和全局最大并发连接数
+     */
+    private static final int PROBE_TIMEOUT_MS = 1000;
+    private static final int PROBE_MAX_CONCURRENCY = 128;
+
+    /**
+     * /proc/net/tcp 中 LISTEN 状态的编码
+     */
+    private static final String TCP_LISTEN = "0A";
+
     private final HostDetector hostDetector;
-    
+    private final DockerService dockerService;
+
+    private final Semaphore probePermits = new Semaphore(PROBE_MAX_CONCURRENCY);
+
+    private volatile BitSet occupiedSnapshot;
+    private volatile long snapshotAt;
+
     /**
-     * 检测指定端口是否可用 - 使用nc命令
-     * @param port 端口号system/favicon
+     * 检测指定端口是否可用
+     * @param port 端口号
      * @return true=可用, false=被占用
      */
     public boolean isPortAvailable(int port) {
@@ -31,52 +75,39 @@ public class PortCheckService {
             log.warn("无效的端口号: {}", port);
             return false;
         }
-        
-        String hostIP = hostDetector.getHostIP();
-        log.info("使用nc检测端口 {} 可用性，宿主机IP: {}", port, hostIP);
-        
-        try {
-            // 构建nc命令：nc -z -v -w3 host port
-            ProcessBuilder pb = new ProcessBuilder("nc", "-z", "-v", "-w3", hostIP, String.valueOf(port));
-            pb.redirectErrorStream(true);
-            
-            Process process = pb.start();
-            boolean finished = process.waitFor(5, java.util.concurrent.TimeUnit.SECONDS);
-            
-            if (!finished) {
-                process.destroyForcibly();
-                log.debug("nc命令超时 - {}:{}", hostIP, port);
-                return true; // 超时认为端口可用
-            }
-            
-            int exitCode = process.exitValue();
-            // nc退出码: 0=成功连接(端口被占用), 非0=连接失败(端口可用)
-            boolean available = (exitCode != 0);
-            
-            log.info("nc检测结果 - {}:{} = {}", hostIP, port, available ? "可用" : "被占用");
-            return available;
-            
-        } catch (Exception e) {
-            log.warn("nc命令执行失败 - {}:{}: {}", hostIP, port, e.getMessage());
-            return true; // nc不可用时，保守判断为端口可用
-        }
+        return checkMultiplePorts(new int[]{port}).get(port);
     }
-    
+
     /**
      * 批量检测端口可用性
      * @param ports 端口数组
      * @return 端口可用性映射
      */
     public Map<Integer, Boolean> checkMultiplePorts(int[] ports) {
-        Map<Integer, Boolean> result = new HashMap<>();
-        
+        Map<Integer, Boolean> result = new LinkedHashMap<>();
+        BitSet occupied = getOccupiedPorts();
+        if (occupied != null) {
+            for (int port : ports) {
+                result.put(port, isValidPort(port) && !occupied.get(port));
+            }
+            return result;
+        }
+
+        List<Integer> toProbe = new ArrayList<>(ports.length);
         for (int port : ports) {
-            result.put(port, isPortAvailable(port));
+            if (isValidPort(port)) {
+                toProbe.add(port);
+            } else {
+                result.put(port, false);
+            }
+        }
+        BitSet listening = probeListening(toProbe);
+        for (int port : toProbe) {
+            result.put(port, !listening.get(port));
         }
-        
         return result;
     }
-    
+
     /**
      * 查找指定范围内的可用端口
      * @param startPort 起始端口
@@ -88,15 +119,286 @@ public class PortCheckService {
         if (startPort > endPort || count <= 0) {
             return new int[0];
         }
-        
-        List<Integer> availablePorts = new ArrayList<>();
-        
-        for (int port = startPort; port <= endPort && availablePorts.size() < count; port++) {
-            if (isPortAvailable(port)) {
+        startPort = Math.max(1, startPort);
+        endPort = Math.min(65535, endPort);
+
+        List<Integer> availablePorts = new ArrayList<>(count);
+        BitSet occupied = getOccupiedPorts();
+        if (occupied != null) {
+            for (int port = occupied.nextClearBit(startPort);
+                 port <= endPort && availablePorts.size() < count;
+                 port = occupied.nextClearBit(port + 1)) {
                 availablePorts.add(port);
             }
+        } else {
+            // 回退探测时按批探测，找够数量就停止
+            int batchSize = Math.max(count * 4, 256);
+            for (int from = startPort; from <= endPort && availablePorts.size() < count; from += batchSize) {
+                List<Integer> batch = new ArrayList<>(batchSize);
+                for (int port = from; port <= Math.min(endPort, from + batchSize - 1); port++) {
+                    batch.add(port);
+                }
+                BitSet listening = probeListening(batch);
+                for (int port : batch) {
+                    if (!listening.get(port) && availablePorts.size() < count) {
+                        availablePorts.add(port);
+                    }
+                }
+            }
         }
-        
         return availablePorts.stream().mapToInt(Integer::intValue).toArray();
     }
-} 
\ No newline at end of file
+
+    /**
+     * 宿主机上被占用的 TCP 端口（监听中的端口 + 容器发布的端口）
+     *
+     * @return 以端口号为下标的位图；无法读取宿主机网络命名空间时返回 null
+     */
+    public BitSet getOccupiedPorts() {
+        BitSet snapshot = occupiedSnapshot;
+        if (snapshot != null && System.currentTimeMillis() - snapshotAt < SNAPSHOT_TTL) {
+            return snapshot;
+        }
+        synchronized (this) {
+            if (occupiedSnapshot != null && System.currentTimeMillis() - snapshotAt < SNAPSHOT_TTL) {
+                return occupiedSnapshot;
+            }
+            BitSet occupied = readListeningPorts();
+            if (occupied == null) {
+                return null;
+            }
+            addContainerPorts(occupied);
+            occupiedSnapshot = occupied;
+            snapshotAt = System.currentTimeMillis();
+            return occupied;
+        }
+    }
+
+    /**
+     * 使缓存的占用快照失效（容器启停、端口变化后调用）
+     */
+    public void invalidate() {
+        snapshotAt = 0;
+    }
+
+    /**
+     * 读取宿主机网络命名空间中所有 LISTEN 状态的 TCP 端口
+     * /proc/net 指向读取进程所在的网络命名空间，挂载了宿主机根目录时通过宿主机 1 号进程读取；
+     * 没有挂载且运行在容器内时读到的是容器自己的网络，不可信
+     */
+    private BitSet readListeningPorts() {
+        Path tcp;
+        Path tcp6;
+        if (HostPaths.isHostMounted()) {
+            tcp = HostPaths.proc("1/net/tcp");
+            tcp6 = HostPaths.proc("1/net/tcp6");
+        } else if (!Files.exists(Paths.get("/.dockerenv"))) {
+            tcp = Paths.get("/proc/net/tcp");
+            tcp6 = Paths.get("/proc/net/tcp6");
+        } else {
+            return null;
+        }
+        if (!Files.isReadable(tcp)) {
+            return null;
+        }
+
+        BitSet occupied = new BitSet(65536);
+        try {
+            parseProcNetTcp(tcp, occupied);
+            if (Files.isReadable(tcp6)) {
+                parseProcNetTcp(tcp6, occupied);
+            }
+            return occupied;
+        } catch (IOException e) {
+            log.warn("读取宿主机监听端口失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 解析 /proc/net/tcp 格式：sl local_address rem_address st ...
+     * local_address 形如 0100007F:1F90（十六进制地址:端口）
+     */
+    private static void parseProcNetTcp(Path file, BitSet occupied) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine(); // 表头
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 4 || !TCP_LISTEN.equals(parts[3])) {
+                    continue;
+                }
+                int colon = parts[1].lastIndexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                try {
+                    occupied.set(Integer.parseInt(parts[1].substring(colon + 1), 16));
+                } catch (NumberFormatException ignored) {
+                    // 格式异常的行直接跳过
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并所有容器（包括已停止的，启动时仍会占用）发布的 TCP 端口
+     */
+    private void addContainerPorts(BitSet occupied) {
+        try {
+            for (Container container : dockerService.listContainers()) {
+                ContainerPort[] ports = container.getPorts();
+                if (ports == null) {
+                    continue;
+                }
+                for (ContainerPort port : ports) {
+                    if (port.getPublicPort() != null && !"udp".equalsIgnoreCase(port.getType())) {
+                        occupied.set(port.getPublicPort());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.debug("获取容器端口绑定失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 并行探测端口是否有进程监听
+     * 所有请求共享同一个并发上限，连接成功视为占用，拒绝或超时视为可用
+     *
+     * @return 有监听的端口位图
+     */
+    private BitSet probeListening(List<Integer> ports) {
+        BitSet listening = new BitSet(65536);
+        if (ports.isEmpty()) {
+            return listening;
+        }
+        String hostIP = hostDetector.getHostIP();
+        long started = System.currentTimeMillis();
+        Iterator<Integer> pending = ports.iterator();
+
+        try (Selector selector = Selector.open()) {
+            try {
+                probeLoop(selector, hostIP, pending, listening);
+            } finally {
+                // 中断或异常退出时关闭剩余连接并归还许可
+                for (SelectionKey key : selector.keys()) {
+                    if (key.isValid()) {
+                        finishProbe(key);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("端口探测失败: {}", e.getMessage());
+        }
+
+        log.debug("探测 {} 个端口完成，宿主机IP: {}，耗时 {}ms", ports.size(), hostIP, System.currentTimeMillis() - started);
+        return listening;
+    }
+
+    private void probeLoop(Selector selector, String hostIP, Iterator<Integer> pending, BitSet listening)
+            throws IOException, InterruptedException {
+        int inFlight = 0;
+        while (pending.hasNext() || inFlight > 0) {
+            // 没有进行中的连接时阻塞等待许可，否则只取当前可用的许可
+            while (pending.hasNext()) {
+                if (inFlight == 0) {
+                    probePermits.acquire();
+                } else if (!probePermits.tryAcquire()) {
+                    break;
+                }
+                int port = pending.next();
+                if (startProbe(selector, hostIP, port, listening)) {
+                    inFlight++;
+                } else {
+                    probePermits.release();
+                }
+            }
+            if (inFlight == 0) {
+                continue;
+            }
+
+            selector.select(50);
+            Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+            while (selected.hasNext()) {
+                SelectionKey key = selected.next();
+                selected.remove();
+                Probe probe = (Probe) key.attachment();
+                try {
+                    if (((SocketChannel) key.channel()).finishConnect()) {
+                        listening.set(probe.port);
+                    } else {
+                        continue;
+                    }
+                } catch (IOException e) {
+                    // 连接被拒绝：端口可用
+                }
+                finishProbe(key);
+                inFlight--;
+            }
+
+            long now = System.currentTimeMillis();
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid() && ((Probe) key.attachment()).deadline <= now) {
+                    // 超时（多为防火墙丢包），按可用处理
+                    finishProbe(key);
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    /**
+     * 发起一个非阻塞连接
+     *
+     * @return 是否仍在连接中（需要等待 OP_CONNECT）
+     */
+    private boolean startProbe(Selector selector, String hostIP, int port, BitSet listening) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            if (channel.connect(new InetSocketAddress(hostIP, port))) {
+                listening.set(port);
+                channel.close();
+                return false;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, new Probe(port, System.currentTimeMillis() + PROBE_TIMEOUT_MS));
+            return true;
+        } catch (IOException e) {
+            closeQuietly(channel);
+            return false;
+        }
+    }
+
+    private void finishProbe(SelectionKey key) {
+        key.cancel();
+        closeQuietly((SocketChannel) key.channel());
+        probePermits.release();
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 忽略关闭失败
+            }
+        }
+    }
+
+    private static boolean isValidPort(int port) {
+        return port > 0 && port <= 65535;
+    }
+
+    private static final class Probe {
+        private final int port;
+        private final long deadline;
+
+        private Probe(int port, long deadline) {
+            this.port = port;
+            this.deadline = deadline;
+        }
+    }
+}
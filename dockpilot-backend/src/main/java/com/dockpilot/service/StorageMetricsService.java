@@ -0,0 +1,293 @@
+package com.dockpilot.service;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.dockpilot.api.DockerClientWrapper;
+import com.dockpilot.common.config.AppConfig;
+import com.dockpilot.model.DiskUsageDTO;
+import com.dockpilot.model.DockerDiskUsageDTO;
+import com.dockpilot.model.StorageMetricsDTO;
+import com.dockpilot.utils.HostPaths;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 宿主机存储统计
+ * <p>
+ * 从宿主机的挂载表枚举真实文件系统，按挂载点读取容量（statvfs），
+ * 并单独给出 Docker 数据根目录和系统设置中 Docker 运行目录所在的文件系统。
+ * docker system df 开销较大，按较长的间隔刷新并缓存。
+ */
+@Slf4j
+@Service
+public class StorageMetricsService {
+
+    /**
+     * 不统计的伪文件系统和叠加文件系统
+     */
+    private static final Set<String> IGNORED_FS_TYPES = new HashSet<>(Arrays.asList(
+            "proc", "sysfs", "tmpfs", "devtmpfs", "devpts", "cgroup", "cgroup2", "overlay", "squashfs",
+            "nsfs", "mqueue", "debugfs", "tracefs", "securityfs", "pstore", "bpf", "autofs", "hugetlbfs",
+            "configfs", "fusectl", "binfmt_misc", "ramfs", "rpc_pipefs", "efivarfs", "selinuxfs",
+            "fuse.lxcfs", "nfsd", "shm", "aufs", "iso9660"));
+
+    @Autowired
+    private DockerClientWrapper dockerClientWrapper;
+
+    @Autowired
+    private AppConfig appConfig;
+
+    private volatile String dockerRootDir;
+
+    private volatile DockerDiskUsageDTO dockerDiskUsage;
+
+    private volatile StorageMetricsDTO snapshot = new StorageMetricsDTO(0, Collections.emptyList(),
+            null, null, null, null, null);
+
+    /**
+     * 最新的存储统计
+     */
+    public StorageMetricsDTO getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * 宿主机根文件系统的容量，尚无数据时返回 null
+     */
+    public DiskUsageDTO getHostRoot() {
+        return findMount(snapshot.getMounts(), "/");
+    }
+
+    /**
+     * 刷新挂载点容量
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void sample() {
+        try {
+            List<DiskUsageDTO> mounts = readMounts();
+            String rootDir = dockerRootDir;
+            String baseDir = appConfig.isDockerBaseDirConfigured() ? appConfig.getDockerBaseDir().trim() : null;
+            snapshot = new StorageMetricsDTO(System.currentTimeMillis(),
+                    Collections.unmodifiableList(mounts),
+                    rootDir, findMount(mounts, rootDir),
+                    baseDir, findMount(mounts, baseDir),
+                    dockerDiskUsage);
+        } catch (Exception e) {
+            log.debug("采样存储信息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 刷新 Docker 数据目录和磁盘占用
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 15000)
+    public void refreshDockerDiskUsage() {
+        try {
+            if (dockerRootDir == null) {
+                dockerRootDir = dockerClientWrapper.getDockerRootDir();
+            }
+            dockerDiskUsage = parseSystemDf(dockerClientWrapper.getSystemDf());
+            sample();
+        } catch (Exception e) {
+            log.warn("获取Docker磁盘占用失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 读取宿主机挂载表并统计容量，同一设备只保留挂载点最短的一个（其余多为 bind mount）
+     * /proc/mounts 指向读取进程自己的挂载命名空间，挂载了宿主机根目录时通过宿主机 1 号进程读取
+     */
+    private List<DiskUsageDTO> readMounts() throws IOException {
+        Path mountsFile = HostPaths.proc("1/mounts");
+        if (!Files.isReadable(mountsFile)) {
+            mountsFile = Paths.get("/proc/mounts");
+        }
+
+        Map<String, String[]> byDevice = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(mountsFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // device mountPoint fsType options dump pass
+                String[] parts = line.split(" ");
+                if (parts.length < 3 || IGNORED_FS_TYPES.contains(parts[2])) {
+                    continue;
+                }
+                String device = parts[0];
+                String mountPoint = unescape(parts[1]);
+                String[] existing = byDevice.get(device);
+                if (existing == null || mountPoint.length() < existing[1].length()) {
+                    byDevice.put(device, new String[]{device, mountPoint, parts[2]});
+                }
+            }
+        }
+
+        List<DiskUsageDTO> result = new ArrayList<>(byDevice.size());
+        for (String[] mount : byDevice.values()) {
+            DiskUsageDTO usage = statFileSystem(mount[0], mount[1], mount[2]);
+            if (usage != null) {
+                result.add(usage);
+            }
+        }
+        result.sort((a, b) -> a.getMountPoint().compareTo(b.getMountPoint()));
+        return result;
+    }
+
+    private DiskUsageDTO statFileSystem(String device, String mountPoint, String fsType) {
+        try {
+            FileStore store = Files.getFileStore(HostPaths.resolve(mountPoint));
+            // 宿主机的子挂载没有传播进容器时，解析到的是上层文件系统，不能当作该挂载点的容量
+            if (!"/".equals(mountPoint) && !device.equals(store.name())) {
+                return null;
+            }
+            long total = store.getTotalSpace();
+            if (total <= 0) {
+                return null;
+            }
+            long free = store.getUsableSpace();
+            long used = total - store.getUnallocatedSpace();
+            long base = used + free;
+            double percent = base > 0 ? Math.round(used * 10000.0 / base) / 100.0 : 0;
+            return DiskUsageDTO.builder()
+                    .mountPoint(mountPoint)
+                    .device(device)
+                    .fsType(fsType)
+                    .total(total)
+                    .used(used)
+                    .free(free)
+                    .usagePercent(percent)
+                    .build();
+        } catch (Exception e) {
+            // 挂载点不可访问（如宿主机根目录未挂载进来）
+            return null;
+        }
+    }
+
+    /**
+     * 按最长前缀找出路径所在的挂载点
+     */
+    private static DiskUsageDTO findMount(List<DiskUsageDTO> mounts, String path) {
+        if (path == null || mounts == null) {
+            return null;
+        }
+        DiskUsageDTO best = null;
+        for (DiskUsageDTO mount : mounts) {
+            String mountPoint = mount.getMountPoint();
+            boolean contains = path.equals(mountPoint) || "/".equals(mountPoint)
+                    || path.startsWith(mountPoint.endsWith("/") ? mountPoint : mountPoint + "/");
+            if (contains && (best == null || mountPoint.length() > best.getMountPoint().length())) {
+                best = mount;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 挂载表中的空格、制表符等以八进制转义（如 \040）
+     */
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 3 < value.length()) {
+                try {
+                    sb.append((char) Integer.parseInt(value.substring(i + 1, i + 4), 8));
+                    i += 3;
+                    continue;
+                } catch (NumberFormatException ignored) {
+                    // 不是八进制转义，按原样保留
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 解析 /system/df 的返回，可回收空间的计算方式与 docker system df 一致
+     */
+    private static DockerDiskUsageDTO parseSystemDf(JSONObject df) {
+        DockerDiskUsageDTO.Category images = new DockerDiskUsageDTO.Category();
+        for (JSONObject image : items(df, "Images")) {
+            images.setCount(images.getCount() + 1);
+            if (image.getIntValue("Containers") > 0) {
+                images.setActive(images.getActive() + 1);
+            } else {
+                images.setReclaimable(images.getReclaimable() + image.getLongValue("Size") - Math.max(0, image.getLongValue("SharedSize")));
+            }
+        }
+        images.setSize(df.getLongValue("LayersSize"));
+
+        DockerDiskUsageDTO.Category containers = new DockerDiskUsageDTO.Category();
+        for (JSONObject container : items(df, "Containers")) {
+            long size = container.getLongValue("SizeRw");
+            containers.setCount(containers.getCount() + 1);
+            containers.setSize(containers.getSize() + size);
+            if ("running".equals(container.getString("State"))) {
+                containers.setActive(containers.getActive() + 1);
+            } else {
+                containers.setReclaimable(containers.getReclaimable() + size);
+            }
+        }
+
+        DockerDiskUsageDTO.Category volumes = new DockerDiskUsageDTO.Category();
+        for (JSONObject volume : items(df, "Volumes")) {
+            JSONObject usage = volume.getJSONObject("UsageData");
+            long size = usage != null ? Math.max(0, usage.getLongValue("Size")) : 0;
+            volumes.setCount(volumes.getCount() + 1);
+            volumes.setSize(volumes.getSize() + size);
+            if (usage != null && usage.getIntValue("RefCount") > 0) {
+                volumes.setActive(volumes.getActive() + 1);
+            } else {
+                volumes.setReclaimable(volumes.getReclaimable() + size);
+            }
+        }
+
+        DockerDiskUsageDTO.Category buildCache = new DockerDiskUsageDTO.Category();
+        for (JSONObject cache : items(df, "BuildCache")) {
+            long size = cache.getLongValue("Size");
+            buildCache.setCount(buildCache.getCount() + 1);
+            if (!cache.getBooleanValue("Shared")) {
+                buildCache.setSize(buildCache.getSize() + size);
+            }
+            if (cache.getBooleanValue("InUse")) {
+                buildCache.setActive(buildCache.getActive() + 1);
+            } else if (!cache.getBooleanValue("Shared")) {
+                buildCache.setReclaimable(buildCache.getReclaimable() + size);
+            }
+        }
+
+        return new DockerDiskUsageDTO(System.currentTimeMillis(), images, containers, volumes, buildCache);
+    }
+
+    private static List<JSONObject> items(JSONObject df, String key) {
+        JSONArray array = df.getJSONArray(key);
+        if (array == null) {
+            return Collections.emptyList();
+        }
+        List<JSONObject> result = new ArrayList<>(array.size());
+        for (int i = 0; i < array.size(); i++) {
+            result.add(array.getJSONObject(i));
+        }
+        return result;
+    }
+}
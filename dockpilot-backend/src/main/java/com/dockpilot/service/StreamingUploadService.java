@@ -0,0 +1,546 @@
+package com.dockpilot.service;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletFileUpload;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 流式文件上传
+ * <p>
+ * 直接从请求体逐个读取 multipart 文件字段（不经过 Spring/Tomcat 的整包缓存），
+ * 按文件头识别真实格式、边写边限制大小，不符合要求时在读完前就拒绝。
+ * 文件写入目标目录下的临时文件，同时计算 SHA-256，完成后原子改名；
+ * 目标目录树中已有相同内容的文件时直接返回已有文件，不重复保存。
+ */
+@Slf4j
+@Service
+public class StreamingUploadService {
+
+    /**
+     * 识别文件格式读取的文件头长度（SVG 需要查找 &lt;svg 标签）
+     */
+    private static final int HEADER_SIZE = 512;
+
+    /**
+     * 目录大小索引的有效期，过期后重新扫描
+     */
+    private static final long INDEX_MAX_AGE_MS = 60 * 1000L;
+
+    /**
+     * 按文件头识别的上传文件格式
+     */
+    public enum FileKind {
+        PNG(".png", "image/png"),
+        JPEG(".jpg", "image/jpeg"),
+        GIF(".gif", "image/gif"),
+        WEBP(".webp", "image/webp"),
+        ICO(".ico", "image/x-icon"),
+        SVG(".svg", "image/svg+xml"),
+        ZIP(".zip", "application/zip");
+
+        @Getter
+        private final String extension;
+
+        @Getter
+        private final String contentType;
+
+        FileKind(String extension, String contentType) {
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+
+        /**
+         * 扩展名对应的格式，未知扩展名返回 null
+         */
+        public static FileKind fromExtension(String fileName) {
+            if (fileName == null) {
+                return null;
+            }
+            String lower = fileName.toLowerCase();
+            if (lower.endsWith(".jpeg")) {
+                return JPEG;
+            }
+            for (FileKind kind : values()) {
+                if (lower.endsWith(kind.extension)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 单个文件字段的处理逻辑
+     */
+    @FunctionalInterface
+    public interface FilePartHandler {
+        void handle(String fileName, InputStream in) throws IOException;
+    }
+
+    /**
+     * 根目录 -> 文件大小 -> 文件列表，用于快速找出可能重复的文件
+     */
+    private final Map<Path, SizeIndex> sizeIndexes = new ConcurrentHashMap<>();
+
+    /**
+     * 文件 -> 已计算的 SHA-256（大小和修改时间不变时有效）
+     */
+    private final Map<Path, HashEntry> hashCache = new ConcurrentHashMap<>();
+
+    /**
+     * 逐个处理请求中指定字段的文件
+     *
+     * @param request        multipart 请求
+     * @param fieldName      文件字段名
+     * @param maxRequestSize 请求体上限，Content-Length 超过时不读取直接拒绝
+     * @param maxFiles       最多文件数
+     * @return 处理的文件数
+     */
+    public int forEachFile(HttpServletRequest request, String fieldName, long maxRequestSize, int maxFiles,
+                           FilePartHandler handler) throws IOException {
+        if (!ServletFileUpload.isMultipartContent(request)) {
+            throw new IllegalArgumentException("请使用 multipart/form-data 上传文件");
+        }
+        ServletFileUpload upload = new ServletFileUpload();
+        upload.setSizeMax(maxRequestSize);
+        upload.setHeaderEncoding(StandardCharsets.UTF_8.name());
+
+        int count = 0;
+        try {
+            FileItemIterator iterator = upload.getItemIterator(request);
+            while (iterator.hasNext()) {
+                FileItemStream item = iterator.next();
+                if (item.isFormField() || !fieldName.equals(item.getFieldName())
+                        || item.getName() == null || item.getName().isEmpty()) {
+                    continue;
+                }
+                if (++count > maxFiles) {
+                    throw new IllegalArgumentException("单次最多上传 " + maxFiles + " 个文件");
+                }
+                try (InputStream in = item.openStream()) {
+                    handler.handle(baseName(item.getName()), in);
+                }
+            }
+        } catch (SizeException e) {
+            throw new IllegalArgumentException("上传内容超过大小限制（" + formatSize(e.getPermittedSize()) + "）");
+        } catch (FileUploadException e) {
+            throw new IllegalArgumentException("上传请求格式错误: " + e.getMessage());
+        } catch (IOException e) {
+            // 未声明 Content-Length 的请求在读取过程中才超过上限
+            if (e.getCause() instanceof SizeException) {
+                throw new IllegalArgumentException("上传内容超过大小限制（"
+                        + formatSize(((SizeException) e.getCause()).getPermittedSize()) + "）");
+            }
+            throw e;
+        }
+        if (count == 0) {
+            throw new IllegalArgumentException("未找到上传文件");
+        }
+        return count;
+    }
+
+    /**
+     * 包装上传流：读取前检查文件头格式，读取中限制大小并计算 SHA-256
+     *
+     * @param allowed 允许的格式，文件头不符合时抛出 IllegalArgumentException
+     */
+    public CheckedInputStream check(InputStream in, long maxSize, Set<FileKind> allowed) throws IOException {
+        return new CheckedInputStream(in, maxSize, allowed);
+    }
+
+    /**
+     * 保存上传文件
+     *
+     * @param in         上传流
+     * @param targetDir  保存目录
+     * @param dedupRoot  查找相同内容的目录树，为 null 时不去重
+     * @param maxSize    文件大小上限
+     * @param allowed    允许的格式
+     * @param nameFn     根据识别出的格式生成最终文件名，可抛出 IllegalArgumentException 拒绝
+     * @param replace    同名文件是否覆盖，否则自动追加序号
+     */
+    public StoredFile store(InputStream in, Path targetDir, Path dedupRoot, long maxSize, Set<FileKind> allowed,
+                            Function<FileKind, String> nameFn, boolean replace) throws IOException {
+        CheckedInputStream checked = check(in, maxSize, allowed);
+        String fileName = nameFn.apply(checked.getKind());
+        Files.createDirectories(targetDir);
+
+        // 临时文件与目标在同一目录，完成后原子改名
+        Path part = targetDir.resolve("." + UUID.randomUUID() + ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(part, StandardOpenOption.CREATE_NEW)) {
+                checked.transferTo(out);
+            }
+            if (checked.getSize() == 0) {
+                throw new IllegalArgumentException("文件不能为空");
+            }
+            String sha256 = checked.getSha256();
+
+            Path duplicate = dedupRoot == null ? null : findDuplicate(dedupRoot, checked.getSize(), sha256);
+            if (duplicate != null) {
+                Files.deleteIfExists(part);
+                log.info("♻️ 上传内容与已有文件相同，复用: {}", duplicate);
+                return new StoredFile(duplicate, checked.getKind(), checked.getSize(), sha256, true);
+            }
+
+            Path target = replace ? targetDir.resolve(fileName) : uniqueTarget(targetDir, fileName);
+            try {
+                Files.move(part, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            remember(dedupRoot, target, checked.getSize(), sha256);
+            return new StoredFile(target, checked.getKind(), checked.getSize(), sha256, false);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    /**
+     * 在目录树中查找大小和 SHA-256 都相同的文件
+     */
+    private Path findDuplicate(Path root, long size, String sha256) {
+        SizeIndex index = sizeIndex(root);
+        List<Path> candidates;
+        synchronized (index) {
+            List<Path> paths = index.bySize.get(size);
+            candidates = paths == null ? List.of() : new ArrayList<>(paths);
+        }
+        for (Path candidate : candidates) {
+            try {
+                if (Files.isRegularFile(candidate) && Files.size(candidate) == size && sha256.equals(hash(candidate))) {
+                    return candidate;
+                }
+            } catch (IOException e) {
+                log.debug("计算文件摘要失败: {}", candidate, e);
+            }
+        }
+        return null;
+    }
+
+    private SizeIndex sizeIndex(Path root) {
+        Path key = root.toAbsolutePath().normalize();
+        SizeIndex index = sizeIndexes.get(key);
+        if (index != null && System.currentTimeMillis() - index.builtAt < INDEX_MAX_AGE_MS) {
+            return index;
+        }
+        SizeIndex rebuilt = new SizeIndex();
+        if (Files.isDirectory(key)) {
+            try (Stream<Path> stream = Files.walk(key)) {
+                stream.forEach(path -> {
+                    String name = path.getFileName().toString();
+                    if (name.startsWith(".")) {
+                        return;
+                    }
+                    try {
+                        if (Files.isRegularFile(path)) {
+                            rebuilt.bySize.computeIfAbsent(Files.size(path), s -> new ArrayList<>()).add(path);
+                        }
+                    } catch (IOException ignored) {
+                        // 扫描期间被删除的文件
+                    }
+                });
+            } catch (IOException | RuntimeException e) {
+                log.warn("扫描上传目录失败: {}", key, e);
+            }
+        }
+        sizeIndexes.put(key, rebuilt);
+        return rebuilt;
+    }
+
+    private void remember(Path root, Path file, long size, String sha256) {
+        if (root == null) {
+            return;
+        }
+        SizeIndex index = sizeIndex(root);
+        synchronized (index) {
+            List<Path> paths = index.bySize.computeIfAbsent(size, s -> new ArrayList<>());
+            if (!paths.contains(file)) {
+                paths.add(file);
+            }
+        }
+        try {
+            hashCache.put(file, new HashEntry(size, Files.getLastModifiedTime(file).toMillis(), sha256));
+        } catch (IOException ignored) {
+            // 下次比较时重新计算
+        }
+    }
+
+    private String hash(Path file) throws IOException {
+        long size = Files.size(file);
+        long mtime = Files.getLastModifiedTime(file).toMillis();
+        HashEntry cached = hashCache.get(file);
+        if (cached != null && cached.size == size && cached.mtime == mtime) {
+            return cached.sha256;
+        }
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        }
+        String sha256 = hex(digest.digest());
+        hashCache.put(file, new HashEntry(size, mtime, sha256));
+        return sha256;
+    }
+
+    private static Path uniqueTarget(Path dir, String fileName) {
+        Path target = dir.resolve(fileName);
+        int dot = fileName.lastIndexOf('.');
+        String base = dot > 0 ? fileName.substring(0, dot) : fileName;
+        String ext = dot > 0 ? fileName.substring(dot) : "";
+        for (int i = 1; Files.exists(target); i++) {
+            target = dir.resolve(base + "_" + i + ext);
+        }
+        return target;
+    }
+
+    /**
+     * 去掉浏览器可能带上的客户端路径
+     */
+    private static String baseName(String name) {
+        int slash = Math.max(name.lastIndexOf('/'), name.lastIndexOf('\\'));
+        return slash >= 0 ? name.substring(slash + 1) : name;
+    }
+
+    private static String formatSize(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return (bytes / 1024 / 1024) + "MB";
+        }
+        if (bytes >= 1024) {
+            return (bytes / 1024) + "KB";
+        }
+        return bytes + "B";
+    }
+
+    /**
+     * 按文件头识别格式，无法识别时返回 null
+     */
+    static FileKind detect(byte[] header, int length) {
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G')) {
+            return FileKind.PNG;
+        }
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return FileKind.JPEG;
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8')) {
+            return FileKind.GIF;
+        }
+        if (startsWith(header, length, 'R', 'I', 'F', 'F') && length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return FileKind.WEBP;
+        }
+        if (startsWith(header, length, 0x00, 0x00, 0x01, 0x00)) {
+            return FileKind.ICO;
+        }
+        if (startsWith(header, length, 'P', 'K', 0x03, 0x04) || startsWith(header, length, 'P', 'K', 0x05, 0x06)) {
+            return FileKind.ZIP;
+        }
+        // SVG 是文本：去掉 BOM 和空白后以 < 开头，且文件头中出现 <svg
+        String text = new String(header, 0, length, StandardCharsets.UTF_8).replace("\uFEFF", "").trim();
+        if (text.startsWith("<") && text.toLowerCase().contains("<svg")) {
+            return FileKind.SVG;
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] data, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 已检查格式的上传流，读取时累计大小并计算 SHA-256
+     */
+    public static class CheckedInputStream extends FilterInputStream {
+        private final byte[] header;
+        private final int headerLength;
+        private final long maxSize;
+        private final MessageDigest digest = sha256();
+        @Getter
+        private final FileKind kind;
+        private int headerPos;
+        @Getter
+        private long size;
+        private String sha256;
+
+        CheckedInputStream(InputStream in, long maxSize, Set<FileKind> allowed) throws IOException {
+            super(in);
+            this.maxSize = maxSize;
+            this.header = in.readNBytes(HEADER_SIZE);
+            this.headerLength = header.length;
+            this.kind = detect(header, headerLength);
+            if (kind == null || !allowed.contains(kind)) {
+                throw new IllegalArgumentException(headerLength == 0 ? "文件不能为空" : "文件内容不是支持的格式");
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n;
+            if (headerPos < headerLength) {
+                n = Math.min(len, headerLength - headerPos);
+                System.arraycopy(header, headerPos, b, off, n);
+                headerPos += n;
+            } else {
+                n = in.read(b, off, len);
+                if (n == -1) {
+                    return -1;
+                }
+            }
+            size += n;
+            if (size > maxSize) {
+                throw new IllegalArgumentException("文件大小不能超过" + formatSize(maxSize));
+            }
+            digest.update(b, off, n);
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read == -1) {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return headerPos < headerLength ? headerLength - headerPos : in.available();
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        /**
+         * 读完剩余内容（使摘要覆盖整个文件）
+         */
+        public void drain() throws IOException {
+            byte[] buffer = new byte[8192];
+            while (read(buffer, 0, buffer.length) != -1) {
+                // 丢弃
+            }
+        }
+
+        /**
+         * 已读取内容的 SHA-256，应在读完后调用
+         */
+        public String getSha256() {
+            if (sha256 == null) {
+                sha256 = hex(digest.digest());
+            }
+            return sha256;
+        }
+    }
+
+    /**
+     * 保存结果
+     */
+    @Getter
+    public static class StoredFile {
+        private final Path path;
+        private final FileKind kind;
+        private final long size;
+        private final String sha256;
+        /**
+         * 是否复用了已有的相同文件
+         */
+        private final boolean deduplicated;
+
+        StoredFile(Path path, FileKind kind, long size, String sha256, boolean deduplicated) {
+            this.path = path;
+            this.kind = kind;
+            this.size = size;
+            this.sha256 = sha256;
+            this.deduplicated = deduplicated;
+        }
+
+        public String getFileName() {
+            return path.getFileName().toString();
+        }
+    }
+
+    private static class SizeIndex {
+        final long builtAt = System.currentTimeMillis();
+        final Map<Long, List<Path>> bySize = new HashMap<>();
+    }
+
+    private static class HashEntry {
+        final long size;
+        final long mtime;
+        final String sha256;
+
+        HashEntry(long size, long mtime, String sha256) {
+            this.size = size;
+            this.mtime = mtime;
+            this.sha256 = sha256;
+        }
+    }
+}
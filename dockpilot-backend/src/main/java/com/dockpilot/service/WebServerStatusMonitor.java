@@ -0,0 +1,437 @@
+package com.dockpilot.service;
+
+import com.dockpilot.common.config.WebServerMonitorConfig;
+import com.dockpilot.mapper.WebServerMapper;
+import com.dockpilot.model.MessageType;
+import com.dockpilot.model.entity.WebServer;
+import com.dockpilot.model.vo.WebServerStatusVO;
+import com.dockpilot.model.vo.WebServerVO;
+import com.dockpilot.websocket.sender.WebSocketMessageSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Web服务可达性检测
+ * <p>
+ * 导航卡片的内网/外网地址按 URL 去重后共用一个异步 HttpClient 探测：先发 HEAD，
+ * 服务端不支持 HEAD 时改用 GET（只读响应头）。在途请求数受信号量限制，
+ * 一个请求结束立即发出下一个，不占用定时任务线程。
+ * 正常的地址按 healthyInterval 检测，异常的地址从 failingInterval 开始退避重试。
+ * 结果保存在内存状态表中，由 /web-servers 接口附加到卡片上，状态变化时通过 WebSocket 推送。
+ */
+@Slf4j
+@Service
+public class WebServerStatusMonitor {
+
+    /**
+     * 目标列表的最长缓存时间，卡片增删改时会立即失效
+     */
+    private static final long TARGET_RELOAD_INTERVAL = 30000;
+
+    @Autowired
+    private WebServerMapper webServerMapper;
+
+    @Autowired
+    private WebServerMonitorConfig config;
+
+    @Autowired
+    private WebSocketMessageSender messageSender;
+
+    private HttpClient httpClient;
+    private Semaphore permits;
+
+    /**
+     * URL -> 检测状态
+     */
+    private final Map<String, ProbeState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 等待发出的探测
+     */
+    private final Queue<ProbeState> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 本周期内可达性或状态码发生变化的 URL
+     */
+    private final Set<String> changedUrls = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Web服务ID -> [内网地址, 外网地址]（已规范化）
+     */
+    private volatile Map<String, String[]> targets = new HashMap<>();
+    private volatile long targetsLoadedAt;
+
+    @PostConstruct
+    public void init() {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(config.getTimeout()))
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (config.isInsecureTls()) {
+            builder.sslContext(trustAllContext());
+        }
+        httpClient = builder.build();
+        permits = new Semaphore(Math.max(1, config.getConcurrency()));
+    }
+
+    /**
+     * 卡片增删改后调用，下一个周期重新加载目标并检测新地址
+     */
+    public void invalidateTargets() {
+        targetsLoadedAt = 0;
+    }
+
+    /**
+     * 获取所有卡片的状态
+     */
+    public List<WebServerStatusVO> getAllStatus() {
+        List<WebServerStatusVO> result = new ArrayList<>();
+        targets.forEach((id, urls) -> result.add(toStatus(id, urls)));
+        return result;
+    }
+
+    /**
+     * 把检测结果附加到卡片上
+     */
+    public List<WebServerVO> attach(List<WebServerVO> servers) {
+        if (servers != null) {
+            servers.forEach(this::attach);
+        }
+        return servers;
+    }
+
+    /**
+     * 把检测结果附加到单个卡片上
+     */
+    public WebServerVO attach(WebServerVO server) {
+        if (server != null) {
+            server.setStatus(toStatus(server.getId(),
+                    new String[]{normalize(server.getInternalUrl()), normalize(server.getExternalUrl())}));
+        }
+        return server;
+    }
+
+    /**
+     * 调度：把到期的地址放入队列并发出探测，再推送上一周期的变化
+     */
+    @Scheduled(fixedDelay = 1000, initialDelay = 5000)
+    public void tick() {
+        if (!config.isEnabled()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - targetsLoadedAt > TARGET_RELOAD_INTERVAL) {
+            reloadTargets(now);
+        }
+        for (ProbeState state : states.values()) {
+            if (now >= state.nextCheckAt && state.queued.compareAndSet(false, true)) {
+                pending.add(state);
+            }
+        }
+        drain();
+        pushChanges();
+    }
+
+    private void reloadTargets(long now) {
+        try {
+            Map<String, String[]> latest = new HashMap<>();
+            Set<String> urls = new HashSet<>();
+            for (WebServer server : webServerMapper.selectAll()) {
+                String[] pair = {normalize(server.getInternalUrl()), normalize(server.getExternalUrl())};
+                latest.put(server.getId(), pair);
+                for (String url : pair) {
+                    if (url != null) {
+                        urls.add(url);
+                        states.computeIfAbsent(url, ProbeState::new);
+                    }
+                }
+            }
+            states.keySet().retainAll(urls);
+            targets = latest;
+            targetsLoadedAt = now;
+        } catch (Exception e) {
+            log.warn("加载Web服务列表失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在并发上限内尽量发出排队中的探测，每个探测结束后会再次调用
+     */
+    private void drain() {
+        while (!pending.isEmpty() && permits.tryAcquire()) {
+            ProbeState state = pending.poll();
+            if (state == null) {
+                permits.release();
+                return;
+            }
+            probe(state).whenComplete((ignored, error) -> {
+                permits.release();
+                drain();
+            });
+        }
+    }
+
+    private CompletableFuture<Void> probe(ProbeState state) {
+        long[] started = {System.nanoTime()};
+        URI uri;
+        CompletableFuture<HttpResponse<InputStream>> request;
+        try {
+            uri = URI.create(state.url);
+            HttpRequest head = newRequest(uri).method("HEAD", HttpRequest.BodyPublishers.noBody()).build();
+            request = httpClient.sendAsync(head, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (RuntimeException e) {
+            record(state, 0, null, e);
+            return CompletableFuture.completedFuture(null);
+        }
+        return request
+                .thenCompose(response -> {
+                    if (!needsGetFallback(response.statusCode())) {
+                        return CompletableFuture.completedFuture(response);
+                    }
+                    closeQuietly(response.body());
+                    started[0] = System.nanoTime();
+                    return httpClient.sendAsync(newRequest(uri).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+                })
+                .handle((response, error) -> {
+                    record(state, (System.nanoTime() - started[0]) / 1_000_000, response, error);
+                    return null;
+                });
+    }
+
+    private HttpRequest.Builder newRequest(URI uri) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMillis(config.getTimeout()))
+                .header("User-Agent", "DockPilot-Monitor");
+    }
+
+    /**
+     * 部分服务不支持 HEAD，返回 400/404/405/501 时用 GET 再确认一次
+     */
+    private static boolean needsGetFallback(int statusCode) {
+        return statusCode == 400 || statusCode == 404 || statusCode == 405 || statusCode == 501;
+    }
+
+    private void record(ProbeState state, long latencyMs, HttpResponse<InputStream> response, Throwable error) {
+        long now = System.currentTimeMillis();
+        WebServerStatusVO.UrlStatus status;
+        if (response != null) {
+            // 只需要响应头，body 直接关闭
+            closeQuietly(response.body());
+            int code = response.statusCode();
+            status = new WebServerStatusVO.UrlStatus(state.url, code < 500, code, latencyMs,
+                    tlsExpiry(response), null, now);
+        } else {
+            status = new WebServerStatusVO.UrlStatus(state.url, false, null, null, null, describe(error), now);
+        }
+
+        WebServerStatusVO.UrlStatus previous = state.status;
+        if (previous == null || previous.isUp() != status.isUp()
+                || !Objects.equals(previous.getStatusCode(), status.getStatusCode())) {
+            changedUrls.add(state.url);
+        }
+        state.status = status;
+        if (status.isUp()) {
+            state.failures = 0;
+            state.nextCheckAt = now + config.getHealthyInterval();
+        } else {
+            state.failures++;
+            long backoff = config.getFailingInterval() << Math.min(state.failures - 1, 10);
+            state.nextCheckAt = now + Math.min(backoff, config.getHealthyInterval());
+        }
+        state.queued.set(false);
+    }
+
+    private void pushChanges() {
+        if (changedUrls.isEmpty()) {
+            return;
+        }
+        Set<String> changed = new HashSet<>(changedUrls);
+        changedUrls.removeAll(changed);
+        List<WebServerStatusVO> updates = new ArrayList<>();
+        targets.forEach((id, urls) -> {
+            if (changed.contains(urls[0]) || changed.contains(urls[1])) {
+                updates.add(toStatus(id, urls));
+            }
+        });
+        if (!updates.isEmpty()) {
+            messageSender.broadcastToAll(MessageType.WEB_SERVER_STATUS, updates);
+        }
+    }
+
+    private WebServerStatusVO toStatus(String id, String[] urls) {
+        return new WebServerStatusVO(id, statusOf(urls[0]), statusOf(urls[1]));
+    }
+
+    private WebServerStatusVO.UrlStatus statusOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        ProbeState state = states.get(url);
+        return state != null ? state.status : null;
+    }
+
+    private static Long tlsExpiry(HttpResponse<?> response) {
+        SSLSession session = response.sslSession().orElse(null);
+        if (session == null) {
+            return null;
+        }
+        try {
+            Certificate[] chain = session.getPeerCertificates();
+            if (chain.length > 0 && chain[0] instanceof X509Certificate) {
+                return ((X509Certificate) chain[0]).getNotAfter().getTime();
+            }
+        } catch (SSLPeerUnverifiedException e) {
+            // 没有对端证书
+        }
+        return null;
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof HttpConnectTimeoutException) {
+            return "连接超时";
+        }
+        if (cause instanceof HttpTimeoutException) {
+            return "响应超时";
+        }
+        if (cause instanceof ConnectException) {
+            return "连接被拒绝";
+        }
+        String message = cause != null ? cause.getMessage() : null;
+        return message != null ? message : (cause != null ? cause.getClass().getSimpleName() : "未知错误");
+    }
+
+    /**
+     * 规范化卡片地址，缺少协议时按 http 处理，无法解析的地址返回 null（不检测）
+     */
+    private static String normalize(String url) {
+        if (url == null || url.trim().isEmpty()) {
+            return null;
+        }
+        String value = url.trim();
+        if (!value.contains("://")) {
+            value = "http://" + value;
+        }
+        try {
+            URI uri = URI.create(value);
+            String scheme = uri.getScheme();
+            if (uri.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+                return null;
+            }
+            return value;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        if (body == null) {
+            return;
+        }
+        try {
+            body.close();
+        } catch (IOException ignored) {
+            // 关闭失败不影响检测结果
+        }
+    }
+
+    private static SSLContext trustAllContext() {
+        try {
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, new TrustManager[]{new TrustAllManager()}, new SecureRandom());
+            return context;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化探测用 SSLContext 失败", e);
+        }
+    }
+
+    /**
+     * 单个地址的检测状态
+     */
+    private static final class ProbeState {
+        private final String url;
+        private final AtomicBoolean queued = new AtomicBoolean(false);
+        private volatile WebServerStatusVO.UrlStatus status;
+        private volatile long nextCheckAt;
+        private volatile int failures;
+
+        private ProbeState(String url) {
+            this.url = url;
+        }
+    }
+
+    /**
+     * 探测只关心可达性，不校验证书链和主机名
+     */
+    private static final class TrustAllManager extends X509ExtendedTrustManager {
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) {
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) {
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return new X509Certificate[0];
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.dockpilot.service.docker;
+
+import com.dockpilot.api.DockerClientWrapper;
+import com.dockpilot.model.ContainerResourceStatsDTO;
+import com.dockpilot.model.ResourceUsageDTO;
+import com.dockpilot.utils.DockerStatsConverter;
+import com.dockpilot.utils.HostPaths;
+import com.github.dockerjava.api.model.Container;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 基于 cgroup v2 的容器资源批量采集器
+ * <p>
+ * 一次遍历宿主机 cgroup 目录（通过 /mnt/host/sys/fs/cgroup），读取所有运行中容器的
+ * cpu.stat、memory.current、io.stat 和 *.pressure，与上一次采集的计数差值计算速率。
+ * 同时支持 systemd（system.slice/docker-&lt;id&gt;.scope）和 cgroupfs（docker/&lt;id&gt;）两种驱动布局；
+ * 宿主机不是 cgroup v2 或目录不可见时回退到 Docker API：在后台以有限并发获取一次性（--no-stream）样本，
+ * 不占用 ContainerStatsHub 的 stats 流配额。
+ */
+@Slf4j
+@Service
+public class CgroupStatsCollector {
+
+    /**
+     * 两次采集的最小间隔，间隔内的请求直接返回上次结果，保证所有调用方看到一致的速率
+     */
+    private static final long MIN_COLLECT_INTERVAL = 500;
+
+    /**
+     * 容器名称缓存有效期
+     */
+    private static final long NAME_CACHE_TTL = 30000;
+
+    /**
+     * 回退采集的并发数，每个一次性 stats 请求约占用一个 Docker API 连接 1~2 秒
+     */
+    private static final int FALLBACK_CONCURRENCY = 4;
+
+    private static final Pattern SYSTEMD_SCOPE = Pattern.compile("docker-([0-9a-f]{64})\\.scope");
+    private static final Pattern CONTAINER_ID = Pattern.compile("[0-9a-f]{64}");
+
+    @Autowired
+    private DockerClientWrapper dockerClientWrapper;
+
+    /**
+     * 回退采集的样本，容器ID -> 最近一次的一次性样本
+     */
+    private final Map<String, ResourceUsageDTO> fallbackSamples = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean fallbackRefreshing = new AtomicBoolean();
+
+    private ExecutorService fallbackExecutor;
+
+    /**
+     * 上一次采集的累计计数，容器ID -> 计数
+     */
+    private final Map<String, CgroupCounters> previousCounters = new HashMap<>();
+
+    private volatile List<ContainerResourceStatsDTO> lastResult = Collections.emptyList();
+    private long lastCollectAt;
+
+    private Map<String, String> containerNames = Collections.emptyMap();
+    private long namesLoadedAt;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger counter = new AtomicInteger();
+        fallbackExecutor = Executors.newFixedThreadPool(FALLBACK_CONCURRENCY, r -> {
+            Thread thread = new Thread(r, "container-stats-fallback-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fallbackExecutor.shutdownNow();
+    }
+
+    /**
+     * 采集所有运行中容器的资源占用，按 CPU 使用率降序
+     *
+     * @return 资源占用列表（只读）
+     */
+    public synchronized List<ContainerResourceStatsDTO> collectAll() {
+        long now = System.currentTimeMillis();
+        if (now - lastCollectAt < MIN_COLLECT_INTERVAL) {
+            return lastResult;
+        }
+
+        Map<String, Path> cgroups = discoverContainerCgroups();
+        List<ContainerResourceStatsDTO> result = cgroups.isEmpty()
+                ? collectFromDockerApi()
+                : collectFromCgroups(cgroups);
+
+        result.sort(Comparator.comparing(ContainerResourceStatsDTO::getCpuPercent,
+                Comparator.nullsLast(Comparator.reverseOrder())));
+        lastResult = Collections.unmodifiableList(result);
+        lastCollectAt = now;
+        return lastResult;
+    }
+
+    /**
+     * 最近一次采集的结果，不触发采集（供指标导出等只读场景使用）
+     */
+    public List<ContainerResourceStatsDTO> getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * 定时采集，保证没有页面打开时 getLastResult 也有较新的数据；
+     * 只在 cgroup 可用时执行，回退路径只在页面请求时按需采集
+     */
+    @Scheduled(fixedDelay = 15000, initialDelay = 15000)
+    public void scheduledCollect() {
+        if (!isCgroupAvailable()) {
+            return;
+        }
+        try {
+            collectAll();
+        } catch (Exception e) {
+            log.debug("定时采集容器资源失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 是否可以通过 cgroup v2 采集
+     */
+    public boolean isCgroupAvailable() {
+        return Files.exists(HostPaths.sys("fs/cgroup/cgroup.controllers"));
+    }
+
+    /**
+     * 扫描宿主机 cgroup 目录，找出所有 Docker 容器的 cgroup
+     *
+     * @return 容器ID -> cgroup 目录
+     */
+    private Map<String, Path> discoverContainerCgroups() {
+        Map<String, Path> result = new HashMap<>();
+        if (!isCgroupAvailable()) {
+            return result;
+        }
+        Path root = HostPaths.sys("fs/cgroup");
+
+        // systemd 驱动：/sys/fs/cgroup/system.slice/docker-<id>.scope
+        scanDirectory(root.resolve("system.slice"), "docker-*.scope", path -> {
+            Matcher matcher = SYSTEMD_SCOPE.matcher(path.getFileName().toString());
+            if (matcher.matches()) {
+                result.put(matcher.group(1), path);
+            }
+        });
+
+        // cgroupfs 驱动：/sys/fs/cgroup/docker/<id>
+        scanDirectory(root.resolve("docker"), "*", path -> {
+            String name = path.getFileName().toString();
+            if (CONTAINER_ID.matcher(name).matches()) {
+                result.put(name, path);
+            }
+        });
+        return result;
+    }
+
+    private void scanDirectory(Path dir, String glob, Consumer<Path> consumer) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+            for (Path path : stream) {
+                consumer.accept(path);
+            }
+        } catch (IOException e) {
+            log.debug("扫描cgroup目录失败: {}, {}", dir, e.getMessage());
+        }
+    }
+
+    private List<ContainerResourceStatsDTO> collectFromCgroups(Map<String, Path> cgroups) {
+        List<ContainerResourceStatsDTO> result = new ArrayList<>(cgroups.size());
+        Map<String, String> names = resolveNames(cgroups.keySet());
+        long sampledAt = System.nanoTime();
+
+        for (Map.Entry<String, Path> entry : cgroups.entrySet()) {
+            String containerId = entry.getKey();
+            Path dir = entry.getValue();
+            try {
+                CgroupCounters current = readCounters(dir, sampledAt);
+                CgroupCounters previous = previousCounters.put(containerId, current);
+
+                ContainerResourceStatsDTO dto = new ContainerResourceStatsDTO();
+                dto.setContainerId(containerId);
+                dto.setName(names.get(containerId));
+                dto.setMemoryUsage(readSingleValue(dir.resolve("memory.current")));
+                dto.setCpuPressure(readPressureAvg10(dir.resolve("cpu.pressure")));
+                dto.setMemoryPressure(readPressureAvg10(dir.resolve("memory.pressure")));
+                dto.setIoPressure(readPressureAvg10(dir.resolve("io.pressure")));
+                dto.setSource("cgroup");
+
+                if (previous != null && current.sampledAt > previous.sampledAt) {
+                    double elapsedSeconds = (current.sampledAt - previous.sampledAt) / 1_000_000_000d;
+                    double cpuSeconds = Math.max(0, current.cpuUsageUsec - previous.cpuUsageUsec) / 1_000_000d;
+                    dto.setCpuPercent(cpuSeconds / elapsedSeconds * 100.0);
+                    dto.setIoReadRate(Math.max(0, current.ioReadBytes - previous.ioReadBytes) / elapsedSeconds);
+                    dto.setIoWriteRate(Math.max(0, current.ioWriteBytes - previous.ioWriteBytes) / elapsedSeconds);
+                }
+                result.add(dto);
+            } catch (NoSuchFileException e) {
+                // 容器在采集过程中退出
+                previousCounters.remove(containerId);
+            } catch (IOException e) {
+                log.debug("读取容器cgroup失败: {}, {}", containerId, e.getMessage());
+            }
+        }
+
+        // 清理已退出容器的历史计数
+        previousCounters.keySet().retainAll(cgroups.keySet());
+        return result;
+    }
+
+    /**
+     * cgroup 不可用时回退到 Docker API
+     * 返回上一轮后台采集的样本，不阻塞等待；首次访问的容器在后台采集完成后才有数据
+     */
+    private List<ContainerResourceStatsDTO> collectFromDockerApi() {
+        List<ContainerResourceStatsDTO> result = new ArrayList<>();
+        List<String> running = new ArrayList<>();
+        for (Container container : dockerClientWrapper.listContainers()) {
+            if (!"running".equals(container.getState())) {
+                continue;
+            }
+            running.add(container.getId());
+            ContainerResourceStatsDTO dto = new ContainerResourceStatsDTO();
+            dto.setContainerId(container.getId());
+            dto.setName(primaryName(container));
+            dto.setSource("docker");
+            ResourceUsageDTO usage = fallbackSamples.get(container.getId());
+            if (usage != null) {
+                dto.setCpuPercent(usage.getCpuPercent());
+                dto.setMemoryUsage(usage.getMemoryUsage());
+            }
+            result.add(dto);
+        }
+        fallbackSamples.keySet().retainAll(running);
+        refreshFallbackSamples(running);
+        return result;
+    }
+
+    /**
+     * 在后台以有限并发获取各容器的一次性样本，同一时间只进行一轮
+     */
+    private void refreshFallbackSamples(List<String> containerIds) {
+        if (containerIds.isEmpty() || !fallbackRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture<?>[] tasks = containerIds.stream()
+                .map(id -> CompletableFuture.runAsync(() -> {
+                    try {
+                        fallbackSamples.put(id, DockerStatsConverter.convert(dockerClientWrapper.getContainerStatsOnce(id)));
+                    } catch (Exception e) {
+                        log.debug("回退采集容器stats失败: {}, {}", id, e.getMessage());
+                    }
+                }, fallbackExecutor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).whenComplete((r, e) -> fallbackRefreshing.set(false));
+    }
+
+    /**
+     * 获取容器名称，出现未知容器时刷新缓存
+     */
+    private Map<String, String> resolveNames(Set<String> containerIds) {
+        long now = System.currentTimeMillis();
+        boolean expired = now - namesLoadedAt > NAME_CACHE_TTL;
+        boolean unknown = !containerNames.keySet().containsAll(containerIds) && now - namesLoadedAt > MIN_COLLECT_INTERVAL * 10;
+        if (expired || unknown) {
+            try {
+                Map<String, String> names = new HashMap<>();
+                for (Container container : dockerClientWrapper.listContainers()) {
+                    names.put(container.getId(), primaryName(container));
+                }
+                containerNames = names;
+            } catch (Exception e) {
+                log.debug("刷新容器名称失败: {}", e.getMessage());
+            }
+            namesLoadedAt = now;
+        }
+        return containerNames;
+    }
+
+    private String primaryName(Container container) {
+        String[] names = container.getNames();
+        if (names == null || names.length == 0) {
+            return container.getId().substring(0, 12);
+        }
+        return names[0].startsWith("/") ? names[0].substring(1) : names[0];
+    }
+
+    private CgroupCounters readCounters(Path dir, long sampledAt) throws IOException {
+        CgroupCounters counters = new CgroupCounters(sampledAt);
+        try (BufferedReader reader = Files.newBufferedReader(dir.resolve("cpu.stat"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("usage_usec ")) {
+                    counters.cpuUsageUsec = Long.parseLong(line.substring(11).trim());
+                    break;
+                }
+            }
+        }
+
+        Path ioStat = dir.resolve("io.stat");
+        if (Files.exists(ioStat)) {
+            // 每行一个设备：8:0 rbytes=1 wbytes=2 rios=3 wios=4 dbytes=0 dios=0
+            try (BufferedReader reader = Files.newBufferedReader(ioStat)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    for (String field : line.split(" ")) {
+                        if (field.startsWith("rbytes=")) {
+                            counters.ioReadBytes += Long.parseLong(field.substring(7));
+                        } else if (field.startsWith("wbytes=")) {
+                            counters.ioWriteBytes += Long.parseLong(field.substring(7));
+                        }
+                    }
+                }
+            }
+        }
+        return counters;
+    }
+
+    private Long readSingleValue(Path file) {
+        try {
+            String value = new String(Files.readAllBytes(file)).trim();
+            return "max".equals(value) ? null : Long.parseLong(value);
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取 PSI 文件中 some 行的 avg10
+     * 格式：some avg10=0.00 avg60=0.00 avg300=0.00 total=0
+     */
+    private Double readPressureAvg10(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine();
+            if (line == null || !line.startsWith("some ")) {
+                return null;
+            }
+            int start = line.indexOf("avg10=");
+            if (start < 0) {
+                return null;
+            }
+            start += 6;
+            int end = line.indexOf(' ', start);
+            return Double.parseDouble(end < 0 ? line.substring(start) : line.substring(start, end));
+        } catch (IOException | NumberFormatException e) {
+            // 内核未开启 PSI 时文件不存在
+            return null;
+        }
+    }
+
+    /**
+     * cgroup 累计计数
+     */
+    private static final class CgroupCounters {
+        private final long sampledAt;
+        private long cpuUsageUsec;
+        private long ioReadBytes;
+        private long ioWriteBytes;
+
+        private CgroupCounters(long sampledAt) {
+            this.sampledAt = sampledAt;
+        }
+    }
+}
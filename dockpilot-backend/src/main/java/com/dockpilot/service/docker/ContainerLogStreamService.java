@@ -0,0 +1,336 @@
+package com.dockpilot.service.docker;
+
+import com.dockpilot.api.DockerClientWrapper;
+import com.dockpilot.common.config.ContainerLogConfig;
+import com.dockpilot.common.event.WebSocketSessionClosedEvent;
+import com.dockpilot.model.ContainerLogLine;
+import com.dockpilot.model.ContainerLogQuery;
+import com.dockpilot.model.MessageType;
+import com.dockpilot.websocket.manager.WebSocketSessionManager;
+import com.dockpilot.websocket.sender.WebSocketMessageSender;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Frame;
+import com.github.dockerjava.api.model.StreamType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 容器日志流服务
+ * <p>
+ * 通过 logContainerCmd 以流的方式读取日志，按 stdout/stderr 拆分成行后写入有界缓冲，
+ * 由统一的定时任务按批推送给 WebSocket 会话，缓冲满时丢弃最旧的行并在下一批中告知丢弃数量。
+ * 会话关闭、客户端停止或容器日志结束时关闭对应的流。
+ */
+@Slf4j
+@Service
+public class ContainerLogStreamService {
+
+    @Autowired
+    private DockerClientWrapper dockerClientWrapper;
+
+    @Autowired
+    private WebSocketMessageSender messageSender;
+
+    @Autowired
+    private WebSocketSessionManager sessionManager;
+
+    @Autowired
+    private ContainerLogConfig logConfig;
+
+    /**
+     * 单行最大字节数，超过时强制断行，避免无换行的输出撑大缓冲
+     */
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    /**
+     * 流ID -> 日志流
+     */
+    private final Map<String, LogStream> streams = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "container-log-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAll, logConfig.getFlushInterval(),
+                logConfig.getFlushInterval(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 开始跟踪容器日志，日志以 CONTAINER_LOGS_BATCH 消息推送到会话
+     *
+     * @param query     日志查询参数
+     * @param sessionId WebSocket会话ID
+     * @return 流ID，用于停止跟踪
+     */
+    public String follow(ContainerLogQuery query, String sessionId) {
+        if (streams.size() >= logConfig.getMaxStreams()) {
+            throw new IllegalStateException("同时跟踪的日志流已达上限: " + logConfig.getMaxStreams());
+        }
+        String streamId = UUID.randomUUID().toString();
+        LogStream stream = new LogStream(streamId, query.getContainerId(), sessionId, logConfig.getBufferLines());
+        streams.put(streamId, stream);
+        try {
+            dockerClientWrapper.streamContainerLogs(query, stream);
+        } catch (RuntimeException e) {
+            streams.remove(streamId);
+            throw e;
+        }
+        log.info("📜 开始跟踪容器日志: {} (流: {})", query.getContainerId(), streamId);
+        return streamId;
+    }
+
+    /**
+     * 停止跟踪，只允许创建该流的会话停止
+     *
+     * @param streamId  流ID
+     * @param sessionId WebSocket会话ID
+     */
+    public void stop(String streamId, String sessionId) {
+        LogStream stream = streams.get(streamId);
+        if (stream != null && stream.sessionId.equals(sessionId)) {
+            streams.remove(streamId);
+            stream.close();
+            log.info("📜 停止跟踪容器日志: {} (流: {})", stream.containerId, streamId);
+        }
+    }
+
+    /**
+     * 会话关闭时停止该会话的全部日志流
+     */
+    @EventListener
+    public void onSessionClosed(WebSocketSessionClosedEvent event) {
+        for (LogStream stream : streams.values()) {
+            stop(stream.streamId, event.getSessionId());
+        }
+    }
+
+    /**
+     * 一次性读取容器日志，最多保留缓冲上限的最后若干行
+     *
+     * @param query 日志查询参数（忽略 follow）
+     * @return 按行拼接的日志文本
+     */
+    public String readLogs(ContainerLogQuery query) {
+        query.setFollow(false);
+        LogStream stream = new LogStream(null, query.getContainerId(), null, logConfig.getBufferLines());
+        try {
+            dockerClientWrapper.streamContainerLogs(query, stream).awaitCompletion();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("获取容器日志被中断", e);
+        } finally {
+            stream.close();
+        }
+        List<ContainerLogLine> lines = stream.drain(Integer.MAX_VALUE);
+        StringBuilder sb = new StringBuilder();
+        for (ContainerLogLine line : lines) {
+            sb.append(line.getText()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 当前活跃的日志流数量
+     */
+    public int getActiveStreamCount() {
+        return streams.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+        streams.values().forEach(LogStream::close);
+        streams.clear();
+    }
+
+    private void flushAll() {
+        for (LogStream stream : streams.values()) {
+            try {
+                flush(stream);
+            } catch (Exception e) {
+                log.warn("推送容器日志失败: {}", stream.streamId, e);
+            }
+        }
+    }
+
+    private void flush(LogStream stream) {
+        boolean finished = stream.finished;
+        List<ContainerLogLine> lines = stream.drain(logConfig.getMaxLinesPerBatch());
+        long dropped = stream.takeDropped();
+        boolean complete = finished && stream.isEmpty();
+        if (lines.isEmpty() && dropped == 0 && !complete) {
+            return;
+        }
+
+        Map<String, Object> data = new HashMap<>();
+        data.put("streamId", stream.streamId);
+        data.put("containerId", stream.containerId);
+        data.put("lines", lines);
+        data.put("dropped", dropped);
+        data.put("finished", complete);
+        int sent = messageSender.sendToSessions(Collections.singletonList(stream.sessionId),
+                MessageType.CONTAINER_LOGS_BATCH, data);
+
+        if (sent == 0) {
+            // 单次发送失败只丢弃这一批，计入下一批的 dropped；会话已断开时才停止跟踪
+            stream.addDropped(lines.size() + dropped);
+            if (sessionManager.getSession(stream.sessionId) == null) {
+                complete = true;
+            }
+        }
+        if (complete) {
+            streams.remove(stream.streamId);
+            stream.close();
+        }
+    }
+
+    /**
+     * 单个容器日志流：拆行、缓冲
+     */
+    private static class LogStream extends ResultCallback.Adapter<Frame> {
+
+        private final String streamId;
+        private final String containerId;
+        private final String sessionId;
+        private final int capacity;
+
+        private final ArrayDeque<ContainerLogLine> buffer = new ArrayDeque<>();
+        private final ByteArrayOutputStream stdoutPartial = new ByteArrayOutputStream();
+        private final ByteArrayOutputStream stderrPartial = new ByteArrayOutputStream();
+        private long dropped;
+
+        private volatile boolean finished;
+
+        LogStream(String streamId, String containerId, String sessionId, int capacity) {
+            this.streamId = streamId;
+            this.containerId = containerId;
+            this.sessionId = sessionId;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void onNext(Frame frame) {
+            boolean stderr = frame.getStreamType() == StreamType.STDERR;
+            ByteArrayOutputStream partial = stderr ? stderrPartial : stdoutPartial;
+            String stream = stderr ? "stderr" : "stdout";
+            byte[] payload = frame.getPayload();
+            synchronized (this) {
+                int start = 0;
+                for (int i = 0; i < payload.length; i++) {
+                    if (payload[i] == '\n') {
+                        partial.write(payload, start, i - start);
+                        append(stream, partial);
+                        start = i + 1;
+                    } else if (partial.size() + i - start >= MAX_LINE_BYTES && !isUtf8Continuation(payload[i])) {
+                        // 在字符边界断行（最多多保留一个字符的后续字节），避免切断多字节 UTF-8 字符
+                        partial.write(payload, start, i - start);
+                        append(stream, partial);
+                        start = i;
+                    }
+                }
+                partial.write(payload, start, payload.length - start);
+            }
+        }
+
+        private static boolean isUtf8Continuation(byte b) {
+            return (b & 0xC0) == 0x80;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            log.warn("容器日志流异常: {} - {}", containerId, throwable.getMessage());
+            flushPartial();
+            finished = true;
+            // 交给父类记录错误，一次性读取时 awaitCompletion 会抛出
+            super.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            flushPartial();
+            finished = true;
+            super.onComplete();
+        }
+
+        private void flushPartial() {
+            synchronized (this) {
+                // 末尾没有换行的残留内容也作为一行输出
+                if (stdoutPartial.size() > 0) {
+                    append("stdout", stdoutPartial);
+                }
+                if (stderrPartial.size() > 0) {
+                    append("stderr", stderrPartial);
+                }
+            }
+        }
+
+        private void append(String stream, ByteArrayOutputStream partial) {
+            int length = partial.size();
+            String text = new String(partial.toByteArray(), 0, length, StandardCharsets.UTF_8);
+            if (length > 0 && text.charAt(text.length() - 1) == '\r') {
+                text = text.substring(0, text.length() - 1);
+            }
+            partial.reset();
+            if (buffer.size() >= capacity) {
+                buffer.pollFirst();
+                dropped++;
+            }
+            buffer.addLast(new ContainerLogLine(stream, text));
+        }
+
+        synchronized List<ContainerLogLine> drain(int max) {
+            int count = Math.min(max, buffer.size());
+            List<ContainerLogLine> lines = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                lines.add(buffer.pollFirst());
+            }
+            return lines;
+        }
+
+        synchronized void addDropped(long count) {
+            dropped += count;
+        }
+
+        synchronized long takeDropped() {
+            long value = dropped;
+            dropped = 0;
+            return value;
+        }
+
+        synchronized boolean isEmpty() {
+            return buffer.isEmpty();
+        }
+
+        @Override
+        public void close() {
+            try {
+                super.close();
+            } catch (Exception e) {
+                log.debug("关闭容器日志流失败: {}", containerId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package com.dockpilot.service.docker;
+
+import com.dockpilot.api.DockerClientWrapper;
+import com.dockpilot.common.config.ContainerStatsConfig;
+import com.dockpilot.common.event.DockerContainerEvent;
+import com.dockpilot.common.event.WebSocketSessionClosedEvent;
+import com.dockpilot.model.ContainerStatsSubscription;
+import com.dockpilot.model.MessageType;
+import com.dockpilot.model.ResourceUsageDTO;
+import com.dockpilot.utils.DockerStatsConverter;
+import com.dockpilot.websocket.sender.WebSocketMessageSender;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.model.Statistics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 容器实时监控中心
+ * <p>
+ * 每个被关注的容器只保持一个 statsCmd 流，所有 WebSocket 订阅者和 CONTAINER_STATS 轮询共享该流：
+ * 样本经 DockerStatsConverter 转换后缓存为最新值，按配置的间隔推送给订阅者；
+ * 最后一个订阅者离开（或轮询空闲超时）后关闭流。
+ * 容器停止时流随之结束，订阅关系保留，收到容器 start 事件后重新建立流。
+ * 流数量达到上限时优先淘汰最久未轮询的无订阅者流，仍无空位的容器不建立流。
+ */
+@Slf4j
+@Service
+public class ContainerStatsHub {
+
+    @Autowired
+    private DockerClientWrapper dockerClientWrapper;
+
+    @Autowired
+    private WebSocketMessageSender messageSender;
+
+    @Autowired
+    private ContainerStatsConfig statsConfig;
+
+    /**
+     * 容器ID -> stats 流
+     */
+    private final Map<String, StatsStream> streams = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅容器的实时监控数据
+     *
+     * @param containerId 容器ID
+     * @param sessionId   WebSocket会话ID
+     * @return 订阅后的流，流数量达到上限时为 null
+     */
+    private StatsStream subscribe(String containerId, String sessionId) {
+        while (true) {
+            StatsStream stream = acquire(containerId);
+            if (stream == null) {
+                return null;
+            }
+            stream.subscribers.add(sessionId);
+            // 加入期间流被空闲清理移除时重新获取
+            if (streams.get(containerId) == stream) {
+                stream.start();
+                return stream;
+            }
+            stream.subscribers.remove(sessionId);
+        }
+    }
+
+    /**
+     * 取消订阅，最后一个订阅者离开且近期无轮询时关闭流
+     *
+     * @param containerId 容器ID
+     * @param sessionId   WebSocket会话ID
+     */
+    public void unsubscribe(String containerId, String sessionId) {
+        streams.computeIfPresent(containerId, (id, stream) -> {
+            stream.subscribers.remove(sessionId);
+            return closeIfIdle(stream, System.currentTimeMillis()) ? null : stream;
+        });
+    }
+
+    /**
+     * 会话关闭时清理该会话的全部订阅
+     */
+    @EventListener
+    public void onSessionClosed(WebSocketSessionClosedEvent event) {
+        for (String containerId : streams.keySet()) {
+            unsubscribe(containerId, event.getSessionId());
+        }
+    }
+
+    /**
+     * 容器重新启动（含 docker restart）后为仍有订阅者的容器重建流
+     */
+    @EventListener
+    public void onContainerEvent(DockerContainerEvent event) {
+        if (!"start".equals(event.getAction()) || event.getContainerId() == null) {
+            return;
+        }
+        StatsStream stream = streams.get(event.getContainerId());
+        if (stream != null && !stream.subscribers.isEmpty()) {
+            stream.start();
+        }
+    }
+
+    /**
+     * 获取容器已缓存的最新监控数据（轮询方式），不等待
+     * 没有现成的流时建立一个，数据在后续调用或订阅推送中可用
+     *
+     * @param containerId 容器ID
+     * @return 最新样本，尚未采集到或流数量达到上限时返回 null
+     */
+    public ResourceUsageDTO getLatest(String containerId) {
+        StatsStream stream = acquire(containerId);
+        if (stream == null) {
+            return null;
+        }
+        stream.lastPolledAt = System.currentTimeMillis();
+        stream.start();
+        return stream.latest;
+    }
+
+    /**
+     * 获取各容器当前的订阅者数量（用于诊断）
+     */
+    public Map<String, Integer> getSubscriberCounts() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        streams.forEach((id, stream) -> result.put(id, stream.subscribers.size()));
+        return result;
+    }
+
+    /**
+     * 批量订阅，超出流数量上限的容器记入 capped，不影响其余容器
+     */
+    public ContainerStatsSubscription subscribeAll(Collection<String> containerIds, String sessionId) {
+        ContainerStatsSubscription result = new ContainerStatsSubscription();
+        for (String containerId : containerIds) {
+            StatsStream stream = subscribe(containerId, sessionId);
+            if (stream == null) {
+                result.getCapped().add(containerId);
+            } else {
+                result.getStats().put(containerId, stream.latest);
+            }
+        }
+        if (!result.getCapped().isEmpty()) {
+            log.warn("⚠️ stats 流数量已达上限 {}，{} 个容器未能订阅", statsConfig.getMaxStreams(), result.getCapped().size());
+        }
+        return result;
+    }
+
+    /**
+     * 获取当前保持的 stats 流数量
+     */
+    public int getActiveStreamCount() {
+        return streams.size();
+    }
+
+    /**
+     * 定期关闭无人使用的流
+     */
+    @Scheduled(fixedDelay = 10000)
+    public void evictIdleStreams() {
+        long now = System.currentTimeMillis();
+        for (String containerId : streams.keySet()) {
+            streams.computeIfPresent(containerId, (id, stream) -> closeIfIdle(stream, now) ? null : stream);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streams.values().forEach(StatsStream::close);
+        streams.clear();
+    }
+
+    /**
+     * 获取（必要时登记）容器的流，此时尚未连接 Docker，由调用方在表外调用 start
+     *
+     * @return 流数量达到上限且无可淘汰的流时返回 null
+     */
+    private StatsStream acquire(String containerId) {
+        StatsStream stream = streams.get(containerId);
+        if (stream != null) {
+            return stream;
+        }
+        if (streams.size() >= statsConfig.getMaxStreams() && !evictLeastRecentlyPolled()) {
+            return null;
+        }
+        StatsStream created = new StatsStream(containerId);
+        stream = streams.putIfAbsent(containerId, created);
+        return stream != null ? stream : created;
+    }
+
+    /**
+     * 淘汰最久未轮询的无订阅者流
+     *
+     * @return 是否腾出了位置
+     */
+    private boolean evictLeastRecentlyPolled() {
+        StatsStream candidate = null;
+        for (StatsStream stream : streams.values()) {
+            if (stream.subscribers.isEmpty() && (candidate == null || stream.lastPolledAt < candidate.lastPolledAt)) {
+                candidate = stream;
+            }
+        }
+        if (candidate == null) {
+            return false;
+        }
+        StatsStream victim = candidate;
+        boolean[] evicted = new boolean[1];
+        streams.computeIfPresent(victim.containerId, (id, stream) -> {
+            if (stream != victim || !stream.subscribers.isEmpty()) {
+                return stream;
+            }
+            stream.close();
+            evicted[0] = true;
+            return null;
+        });
+        if (evicted[0]) {
+            log.debug("stats 流数量达到上限，淘汰轮询流: {}", victim.containerId);
+        }
+        return evicted[0];
+    }
+
+    private boolean closeIfIdle(StatsStream stream, long now) {
+        if (stream.closed) {
+            return true;
+        }
+        if (!stream.subscribers.isEmpty() || now - stream.lastPolledAt < statsConfig.getIdleTimeout()) {
+            return false;
+        }
+        stream.close();
+        log.debug("已关闭容器 stats 流: {}", stream.containerId);
+        return true;
+    }
+
+    private void publish(StatsStream stream, ResourceUsageDTO usage) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("containerId", stream.containerId);
+        data.put("stats", usage);
+        messageSender.sendToSessions(stream.subscribers, MessageType.CONTAINER_STATS_UPDATE, data);
+    }
+
+    /**
+     * 流已结束（容器停止），通知订阅者，容器再次启动后恢复推送
+     */
+    private void publishEnded(StatsStream stream) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("containerId", stream.containerId);
+        data.put("stats", null);
+        data.put("ended", true);
+        messageSender.sendToSessions(stream.subscribers, MessageType.CONTAINER_STATS_UPDATE, data);
+    }
+
+    /**
+     * 单个容器的监控状态：订阅者、最新样本，以及当前的 Docker stats 连接（容器停止时为空）
+     */
+    private final class StatsStream {
+
+        private final String containerId;
+        private final Set<String> subscribers = ConcurrentHashMap.newKeySet();
+
+        private volatile ResourceUsageDTO latest;
+        private volatile long lastPolledAt = System.currentTimeMillis();
+        private volatile boolean closed;
+        private StatsCallback callback;
+
+        private StatsStream(String containerId) {
+            this.containerId = containerId;
+        }
+
+        /**
+         * 尚未连接时建立 Docker stats 连接
+         */
+        private synchronized void start() {
+            if (closed || callback != null) {
+                return;
+            }
+            StatsCallback created = new StatsCallback(this);
+            callback = created;
+            try {
+                dockerClientWrapper.streamContainerStats(containerId, created);
+                log.debug("已建立容器 stats 流: {}", containerId);
+            } catch (RuntimeException e) {
+                callback = null;
+                log.debug("建立容器 stats 流失败: {}, {}", containerId, e.getMessage());
+            }
+        }
+
+        /**
+         * 连接结束：无订阅者时移除，否则保留订阅等待容器重新启动
+         */
+        private void ended(StatsCallback ended) {
+            synchronized (this) {
+                if (callback != ended) {
+                    return;
+                }
+                callback = null;
+            }
+            latest = null;
+            if (closed) {
+                return;
+            }
+            streams.computeIfPresent(containerId, (id, stream) -> {
+                if (stream != this || !subscribers.isEmpty()) {
+                    return stream;
+                }
+                closed = true;
+                return null;
+            });
+            if (!closed) {
+                publishEnded(this);
+            }
+        }
+
+        private synchronized void close() {
+            closed = true;
+            if (callback != null) {
+                callback.close();
+                callback = null;
+            }
+        }
+    }
+
+    /**
+     * 一次 Docker stats 连接，onNext 由 docker-java 的单个读取线程顺序回调
+     */
+    private final class StatsCallback extends ResultCallback.Adapter<Statistics> {
+
+        private final StatsStream stream;
+        private volatile boolean closed;
+        private long lastPushAt;
+
+        private StatsCallback(StatsStream stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public void onNext(Statistics statistics) {
+            ResourceUsageDTO usage = DockerStatsConverter.convert(statistics);
+            stream.latest = usage;
+
+            long now = System.currentTimeMillis();
+            if (!stream.subscribers.isEmpty() && now - lastPushAt >= statsConfig.getPushInterval()) {
+                lastPushAt = now;
+                publish(stream, usage);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!closed) {
+                log.debug("容器 stats 流异常结束: {}, {}", stream.containerId, throwable.getMessage());
+            }
+            finish();
+        }
+
+        @Override
+        public void onComplete() {
+            finish();
+        }
+
+        private void finish() {
+            close();
+            stream.ended(this);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                super.close();
+            } catch (Exception e) {
+                log.debug("关闭容器 stats 流失败: {}", stream.containerId, e);
+            }
+        }
+    }
+
+}
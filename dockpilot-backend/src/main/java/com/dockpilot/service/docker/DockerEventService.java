@@ -2,6 +2,8 @@ package com.dockpilot.service.docker;
 
 import com.dockpilot.api.DockerService;
 import com.dockpilot.common.config.DockerEventsConfig;
+import com.dockpilot.common.event.DockerContainerEvent;
+import com.dockpilot.common.event.DockerNetworkEvent;
 import com.dockpilot.mapper.ContainerInfoMapper;
 import com.dockpilot.model.ContainerInfo;
 import com.dockpilot.utils.LogUtil;
@@ -10,11 +12,13 @@ import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.EventsCmd;
 import com.github.dockerjava.api.model.Container;
 import com.github.dockerjava.api.model.Event;
+import com.github.dockerjava.api.model.EventType;
 import com.github.dockerjava.core.command.EventsResultCallback;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PreDestroy;
@@ -49,6 +53,9 @@ public class DockerEventService implements ApplicationRunner {
     @Autowired
     private WebSocketMessageSender messageSender;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     private EventsResultCallback eventsCallback;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private CompletableFuture<Void> eventListenerFuture;
@@ -102,9 +109,9 @@ public class DockerEventService implements ApplicationRunner {
                         }
                     };
 
-                    // 只监听容器事件
+                    // 监听容器和网络事件
                     EventsCmd eventsCmd = dockerClient.eventsCmd()
-                            .withEventTypeFilter("container");
+                            .withEventTypeFilter("container", "network");
                     
                     eventsCmd.exec(eventsCallback);
                     
@@ -122,6 +129,10 @@ public class DockerEventService implements ApplicationRunner {
      * 处理Docker事件
      */
     private void handleDockerEvent(Event event) {
+        if (event.getType() == EventType.NETWORK) {
+            handleNetworkEvent(event);
+            return;
+        }
         try {
             String eventType = event.getAction();
             String containerId = event.getId();
@@ -168,6 +179,9 @@ public class DockerEventService implements ApplicationRunner {
                     break;
             }
             
+            // 转发给订阅容器变化的组件（端口索引等）
+            eventPublisher.publishEvent(new DockerContainerEvent(eventType, containerId));
+
             // 推送容器列表更新通知
             notifyContainerListUpdate();
             
@@ -176,6 +190,22 @@ public class DockerEventService implements ApplicationRunner {
         }
     }
 
+    /**
+     * 处理网络事件，只转发给订阅方（拓扑图等），不写数据库也不通知前端
+     */
+    private void handleNetworkEvent(Event event) {
+        try {
+            String containerId = null;
+            if (event.getActor() != null && event.getActor().getAttributes() != null) {
+                containerId = event.getActor().getAttributes().get("container");
+            }
+            log.debug("🔔 Docker Network Event: {} - {} ({})", event.getAction(), event.getId(), containerId);
+            eventPublisher.publishEvent(new DockerNetworkEvent(event.getAction(), event.getId(), containerId));
+        } catch (Exception e) {
+            log.error("处理Docker网络事件失败: {}", event, e);
+        }
+    }
+
     /**
      * 🔥 新增：处理容器die事件，分析退出码
      */
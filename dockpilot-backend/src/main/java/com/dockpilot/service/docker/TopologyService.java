@@ -0,0 +1,418 @@
+package com.dockpilot.service.docker;
+
+import com.dockpilot.api.DockerService;
+import com.dockpilot.common.event.DockerContainerEvent;
+import com.dockpilot.common.event.DockerNetworkEvent;
+import com.dockpilot.common.event.WebSocketSessionClosedEvent;
+import com.dockpilot.model.MessageType;
+import com.dockpilot.model.TopologyDTO;
+import com.dockpilot.websocket.sender.WebSocketMessageSender;
+import com.github.dockerjava.api.command.InspectContainerResponse;
+import com.github.dockerjava.api.model.Container;
+import com.github.dockerjava.api.model.ContainerNetwork;
+import com.github.dockerjava.api.model.ContainerPort;
+import com.github.dockerjava.api.model.ExposedPort;
+import com.github.dockerjava.api.model.Network;
+import com.github.dockerjava.api.model.Ports;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 容器-网络拓扑图
+ * <p>
+ * 在内存中维护容器、网络以及两者之间的连接（IP、别名、MAC），
+ * 由容器事件和网络 connect/disconnect 事件增量更新：每个事件最多 inspect 一个容器或网络，
+ * 另有低频的全量重建兜底。每次变化生成新的不可变快照，查询和订阅推送都直接使用快照，不访问 Docker。
+ */
+@Slf4j
+@Service
+public class TopologyService {
+
+    /**
+     * 需要重新 inspect 容器的事件，其余容器事件（exec、attach、health_status 等）不影响拓扑
+     */
+    private static final Set<String> CONTAINER_REFRESH_ACTIONS = new HashSet<>(
+            Arrays.asList("create", "start", "restart", "rename", "die", "stop", "pause", "unpause"));
+
+    private static final long BUILD_RETRY_INTERVAL = 10000;
+
+    @Autowired
+    private DockerService dockerService;
+
+    @Autowired
+    private WebSocketMessageSender messageSender;
+
+    /**
+     * 容器ID -> 容器节点
+     */
+    private final Map<String, TopologyDTO.ContainerNode> containers = new HashMap<>();
+
+    /**
+     * 网络ID -> 网络节点
+     */
+    private final Map<String, TopologyDTO.NetworkNode> networks = new HashMap<>();
+
+    /**
+     * 容器ID -> (网络ID -> 连接)
+     */
+    private final Map<String, Map<String, TopologyDTO.Link>> links = new HashMap<>();
+
+    /**
+     * 订阅拓扑变化的会话
+     */
+    private final Set<String> subscribers = ConcurrentHashMap.newKeySet();
+
+    private volatile TopologyDTO snapshot = new TopologyDTO(0, Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+    private volatile boolean pendingPush;
+
+    /**
+     * 是否已完成过一次全量构建，之前的快照为空图，不能按事件增量更新
+     */
+    private volatile boolean built;
+
+    /**
+     * 上次全量构建的开始时间，构建失败后首次访问触发的重试间隔不小于 BUILD_RETRY_INTERVAL
+     */
+    private volatile long lastBuildAt;
+
+    /**
+     * 启动完成后立即全量构建一次
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * 获取当前拓扑快照
+     */
+    public TopologyDTO getTopology() {
+        ensureBuilt();
+        return snapshot;
+    }
+
+    /**
+     * 订阅拓扑变化
+     *
+     * @param sessionId WebSocket会话ID
+     * @return 当前快照
+     */
+    public TopologyDTO subscribe(String sessionId) {
+        subscribers.add(sessionId);
+        ensureBuilt();
+        return snapshot;
+    }
+
+    /**
+     * 取消订阅
+     */
+    public void unsubscribe(String sessionId) {
+        subscribers.remove(sessionId);
+    }
+
+    @EventListener
+    public void onSessionClosed(WebSocketSessionClosedEvent event) {
+        subscribers.remove(event.getSessionId());
+    }
+
+    @EventListener
+    public synchronized void onContainerEvent(DockerContainerEvent event) {
+        if (!built) {
+            rebuild();
+            return;
+        }
+        String action = event.getAction();
+        String containerId = event.getContainerId();
+        if (action == null || containerId == null) {
+            return;
+        }
+        if ("destroy".equals(action)) {
+            boolean changed = containers.remove(containerId) != null;
+            changed |= links.remove(containerId) != null;
+            if (changed) {
+                publish();
+            }
+        } else if (CONTAINER_REFRESH_ACTIONS.contains(action)) {
+            refreshContainer(containerId);
+            publish();
+        }
+    }
+
+    @EventListener
+    public synchronized void onNetworkEvent(DockerNetworkEvent event) {
+        if (!built) {
+            rebuild();
+            return;
+        }
+        String action = event.getAction();
+        String networkId = event.getNetworkId();
+        if (action == null || networkId == null) {
+            return;
+        }
+        switch (action) {
+            case "connect":
+                if (event.getContainerId() != null) {
+                    if (!networks.containsKey(networkId)) {
+                        refreshNetwork(networkId);
+                    }
+                    refreshContainer(event.getContainerId());
+                }
+                break;
+            case "disconnect":
+                if (event.getContainerId() != null) {
+                    Map<String, TopologyDTO.Link> byNetwork = links.get(event.getContainerId());
+                    if (byNetwork != null) {
+                        byNetwork.remove(networkId);
+                    }
+                }
+                break;
+            case "create":
+                refreshNetwork(networkId);
+                break;
+            case "destroy":
+            case "remove":
+                networks.remove(networkId);
+                for (Map<String, TopologyDTO.Link> byNetwork : links.values()) {
+                    byNetwork.remove(networkId);
+                }
+                break;
+            default:
+                return;
+        }
+        publish();
+    }
+
+    /**
+     * 尚未构建成功时（启动时 Docker 不可用等）在首次访问时构建
+     */
+    private void ensureBuilt() {
+        if (!built && System.currentTimeMillis() - lastBuildAt >= BUILD_RETRY_INTERVAL) {
+            synchronized (this) {
+                if (!built && System.currentTimeMillis() - lastBuildAt >= BUILD_RETRY_INTERVAL) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    /**
+     * 全量重建（兜底，防止事件流中断期间漏掉变化）
+     * 容器列表接口不返回网络别名，已知容器沿用之前 inspect 得到的别名，只有新出现的容器才会 inspect
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+    public synchronized void rebuild() {
+        lastBuildAt = System.currentTimeMillis();
+        try {
+            Map<String, TopologyDTO.NetworkNode> latestNetworks = new HashMap<>();
+            for (Network network : dockerService.listNetworks()) {
+                latestNetworks.put(network.getId(), toNetworkNode(network));
+            }
+            networks.clear();
+            networks.putAll(latestNetworks);
+
+            Set<String> seen = new HashSet<>();
+            for (Container container : dockerService.listContainers()) {
+                seen.add(container.getId());
+                Map<String, TopologyDTO.Link> known = links.get(container.getId());
+                if (!containers.containsKey(container.getId()) || known == null) {
+                    refreshContainer(container.getId());
+                    continue;
+                }
+                containers.put(container.getId(), toContainerNode(container));
+                links.put(container.getId(), toLinks(container, known));
+            }
+            containers.keySet().retainAll(seen);
+            links.keySet().retainAll(seen);
+            built = true;
+            publish();
+            log.debug("拓扑图重建完成: {} 个容器, {} 个网络", containers.size(), networks.size());
+        } catch (Exception e) {
+            log.warn("重建拓扑图失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 合并推送：多个事件在一个周期内只推送一次最新快照
+     */
+    @Scheduled(fixedDelay = 500)
+    public void pushUpdates() {
+        if (!pendingPush) {
+            return;
+        }
+        pendingPush = false;
+        if (!subscribers.isEmpty()) {
+            messageSender.sendToSessions(subscribers, MessageType.NETWORK_TOPOLOGY_UPDATE, snapshot);
+        }
+    }
+
+    private void refreshContainer(String containerId) {
+        InspectContainerResponse info;
+        try {
+            info = dockerService.inspectContainerCmd(containerId);
+        } catch (Exception e) {
+            log.debug("获取容器信息失败，跳过拓扑更新: {} - {}", containerId, e.getMessage());
+            return;
+        }
+
+        List<String> ports = new ArrayList<>();
+        if (info.getNetworkSettings() != null && info.getNetworkSettings().getPorts() != null) {
+            for (Map.Entry<ExposedPort, Ports.Binding[]> entry : info.getNetworkSettings().getPorts().getBindings().entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                for (Ports.Binding binding : entry.getValue()) {
+                    String port = binding.getHostPortSpec() + "->" + entry.getKey().getPort() + "/" + entry.getKey().getProtocol();
+                    if (!ports.contains(port)) {
+                        ports.add(port);
+                    }
+                }
+            }
+        }
+        Collections.sort(ports);
+
+        String name = info.getName() != null ? info.getName().replaceFirst("/", "") : containerId;
+        containers.put(containerId, TopologyDTO.ContainerNode.builder()
+                .id(containerId)
+                .name(name)
+                .image(info.getConfig() != null ? info.getConfig().getImage() : null)
+                .state(info.getState() != null ? info.getState().getStatus() : null)
+                .ports(ports)
+                .build());
+
+        Map<String, TopologyDTO.Link> byNetwork = new LinkedHashMap<>();
+        if (info.getNetworkSettings() != null && info.getNetworkSettings().getNetworks() != null) {
+            for (ContainerNetwork network : info.getNetworkSettings().getNetworks().values()) {
+                if (network.getNetworkID() != null) {
+                    byNetwork.put(network.getNetworkID(), toLink(containerId, network, network.getAliases()));
+                }
+            }
+        }
+        links.put(containerId, byNetwork);
+    }
+
+    private void refreshNetwork(String networkId) {
+        try {
+            networks.put(networkId, toNetworkNode(dockerService.inspectNetwork(networkId)));
+        } catch (Exception e) {
+            log.debug("获取网络信息失败，跳过拓扑更新: {} - {}", networkId, e.getMessage());
+        }
+    }
+
+    private static TopologyDTO.NetworkNode toNetworkNode(Network network) {
+        List<String> subnets = new ArrayList<>();
+        if (network.getIpam() != null && network.getIpam().getConfig() != null) {
+            for (Network.Ipam.Config config : network.getIpam().getConfig()) {
+                if (config.getSubnet() != null) {
+                    subnets.add(config.getSubnet());
+                }
+            }
+        }
+        return TopologyDTO.NetworkNode.builder()
+                .id(network.getId())
+                .name(network.getName())
+                .driver(network.getDriver())
+                .scope(network.getScope())
+                .subnets(subnets)
+                .build();
+    }
+
+    private static TopologyDTO.ContainerNode toContainerNode(Container container) {
+        List<String> ports = new ArrayList<>();
+        if (container.getPorts() != null) {
+            for (ContainerPort port : container.getPorts()) {
+                if (port.getPublicPort() == null) {
+                    continue;
+                }
+                String mapping = port.getPublicPort() + "->" + port.getPrivatePort() + "/" + port.getType();
+                if (!ports.contains(mapping)) {
+                    ports.add(mapping);
+                }
+            }
+        }
+        Collections.sort(ports);
+        String name = container.getNames() != null && container.getNames().length > 0
+                ? container.getNames()[0].replaceFirst("/", "") : container.getId();
+        return TopologyDTO.ContainerNode.builder()
+                .id(container.getId())
+                .name(name)
+                .image(container.getImage())
+                .state(container.getState())
+                .ports(ports)
+                .build();
+    }
+
+    private static Map<String, TopologyDTO.Link> toLinks(Container container, Map<String, TopologyDTO.Link> known) {
+        Map<String, TopologyDTO.Link> byNetwork = new LinkedHashMap<>();
+        if (container.getNetworkSettings() == null || container.getNetworkSettings().getNetworks() == null) {
+            return byNetwork;
+        }
+        for (ContainerNetwork network : container.getNetworkSettings().getNetworks().values()) {
+            String networkId = network.getNetworkID();
+            if (networkId == null) {
+                continue;
+            }
+            TopologyDTO.Link previous = known.get(networkId);
+            List<String> aliases = network.getAliases() != null ? network.getAliases()
+                    : previous != null ? previous.getAliases() : null;
+            byNetwork.put(networkId, toLink(container.getId(), network, aliases));
+        }
+        return byNetwork;
+    }
+
+    private static TopologyDTO.Link toLink(String containerId, ContainerNetwork network, List<String> aliases) {
+        return TopologyDTO.Link.builder()
+                .containerId(containerId)
+                .networkId(network.getNetworkID())
+                .ipv4Address(emptyToNull(network.getIpAddress()))
+                .ipv6Address(emptyToNull(network.getGlobalIPv6Address()))
+                .macAddress(emptyToNull(network.getMacAddress()))
+                .aliases(aliases != null ? new ArrayList<>(aliases) : Collections.emptyList())
+                .build();
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 根据当前索引生成快照，内容没有变化时不递增版本
+     */
+    private void publish() {
+        List<TopologyDTO.ContainerNode> containerNodes = new ArrayList<>(containers.values());
+        containerNodes.sort(Comparator.comparing(TopologyDTO.ContainerNode::getName, Comparator.nullsLast(String::compareTo)));
+        List<TopologyDTO.NetworkNode> networkNodes = new ArrayList<>(networks.values());
+        networkNodes.sort(Comparator.comparing(TopologyDTO.NetworkNode::getName, Comparator.nullsLast(String::compareTo)));
+        List<TopologyDTO.Link> linkList = new ArrayList<>();
+        for (Map<String, TopologyDTO.Link> byNetwork : links.values()) {
+            linkList.addAll(byNetwork.values());
+        }
+        linkList.sort(Comparator.comparing(TopologyDTO.Link::getContainerId).thenComparing(TopologyDTO.Link::getNetworkId));
+
+        TopologyDTO current = snapshot;
+        if (containerNodes.equals(current.getContainers()) && networkNodes.equals(current.getNetworks())
+                && linkList.equals(current.getLinks())) {
+            return;
+        }
+        snapshot = new TopologyDTO(current.getVersion() + 1,
+                Collections.unmodifiableList(containerNodes),
+                Collections.unmodifiableList(networkNodes),
+                Collections.unmodifiableList(linkList));
+        pendingPush = true;
+    }
+}
@@ -5,6 +5,7 @@ import com.dockpilot.common.exception.BusinessException;
 import com.dockpilot.common.exception.DockerErrorResolver;
 import com.dockpilot.common.exception.DockerOperationException;
 import com.dockpilot.model.*;
+import com.dockpilot.service.PortAllocationService;
 import com.dockpilot.service.http.ContainerInfoService;
 import com.dockpilot.service.http.ContainerService;
 import com.dockpilot.service.http.ContainerSyncService;
@@ -47,6 +48,9 @@ public class ContainerServiceImpl implements ContainerService {
     @Autowired
     private com.dockpilot.common.config.AppConfig appConfig;
 
+    @Autowired
+    private PortAllocationService portAllocationService;
+
     /**
      * 获取容器列表
      *
@@ -534,6 +538,11 @@ public class ContainerServiceImpl implements ContainerService {
         String containerId = null;
         boolean dockerContainerCreated = false;
 
+        // 创建前检查端口冲突，避免等到 Docker 拒绝时才发现（host 网络不做端口映射）
+        if (!"host".equals(request.getNetworkMode())) {
+            portAllocationService.verifyBindings(request.getPortBindings(), request.getPortReservation());
+        }
+
         try {
             // 🚀 新增：在创建容器前自动创建挂载目录
             log.info("📁 开始检查和创建挂载目录...");
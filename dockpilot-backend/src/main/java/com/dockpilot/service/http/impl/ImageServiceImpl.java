@@ -3,6 +3,7 @@ package com.dockpilot.service.http.impl;
 import com.dockpilot.api.DockerService;
 import com.dockpilot.common.config.AppConfig;
 import com.dockpilot.common.exception.BusinessException;
+import com.dockpilot.common.metrics.AppMetrics;
 import com.dockpilot.mapper.ImageStatusMapper;
 import com.dockpilot.model.*;
 import com.dockpilot.service.http.ImageService;
@@ -60,6 +61,8 @@ public class ImageServiceImpl implements ImageService {
     private ContainerSyncService containerSyncService;
     @Autowired
     private ProxyHttpClientService proxyHttpClientService;
+    @Autowired
+    private AppMetrics appMetrics;
 
     // 🎯 缓存相关字段
     private final Map<String, CachedImageInfo> remoteImageCache = new ConcurrentHashMap<>();
@@ -269,6 +272,7 @@ public class ImageServiceImpl implements ImageService {
     @Override
     public void checkAllImagesStatus() {
         LogUtil.logSysInfo("开始定时检查所有镜像更新状态...");
+        long runStart = System.nanoTime();
         try {
             // 获取Docker中真实存在的镜像
             List<Image> dockerImages = dockerService.listImages();
@@ -303,7 +307,15 @@ public class ImageServiceImpl implements ImageService {
                     Long id = record.getId();
 
                     // 获取远程镜像创建时间进行比较
-                    String remoteCreateTime = getRemoteImageCreateTime(name, tag);
+                    long checkStart = System.nanoTime();
+                    String remoteCreateTime;
+                    try {
+                        remoteCreateTime = getRemoteImageCreateTime(name, tag);
+                        appMetrics.recordImageCheck(System.nanoTime() - checkStart, false);
+                    } catch (Exception e) {
+                        appMetrics.recordImageCheck(System.nanoTime() - checkStart, true);
+                        throw e;
+                    }
                     Instant localInstant = parseToInstant(storedLocalCreateTime);
                     Instant remoteInstant = parseToInstant(remoteCreateTime);
 
@@ -326,6 +338,8 @@ public class ImageServiceImpl implements ImageService {
             }
         } catch (Exception e) {
             LogUtil.logSysError("检查镜像更新状态失败: " + e.getMessage());
+        } finally {
+            appMetrics.recordImageCheckRun(System.nanoTime() - runStart);
         }
     }
 
@@ -1109,6 +1123,7 @@ public class ImageServiceImpl implements ImageService {
 
         // 尝试插入或更新
         imageStatusMapper.insertOrUpdate(status);
+        appMetrics.pullStarted(imageName + ":" + tag);
         LogUtil.logSysInfo("开始拉取镜像，记录状态: " + imageName + ":" + tag);
     }
 
@@ -1172,6 +1187,7 @@ public class ImageServiceImpl implements ImageService {
                 java.time.Instant.now().toString()
         );
 
+        appMetrics.pullFinished(imageName + ":" + tag);
         existing.setPulling(false);
         existing.setProgress(progressJson);
         existing.setImageId(imageId);
@@ -1210,6 +1226,7 @@ public class ImageServiceImpl implements ImageService {
                 userFriendlyError.replace("\"", "\\\""), java.time.Instant.now().toString()
         );
 
+        appMetrics.pullFinished(imageName + ":" + tag);
         existing.setPulling(false);
         existing.setProgress(progressJson);
         imageStatusMapper.update(existing);
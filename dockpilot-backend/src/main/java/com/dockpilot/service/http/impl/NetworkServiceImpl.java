@@ -5,6 +5,7 @@ import com.dockpilot.model.IPAMConfigFlatDTO;
 import com.dockpilot.model.NetworkContainerDTO;
 import com.dockpilot.model.NetworkInfoDTO;
 import com.dockpilot.service.http.NetworkService;
+import com.dockpilot.utils.HostDetector;
 import com.dockpilot.utils.NetworkUtil;
 import com.github.dockerjava.api.model.Network;
 import org.springframework.stereotype.Service;
@@ -30,6 +31,9 @@ public class NetworkServiceImpl implements NetworkService {
     @Resource
     private DockerService dockerService;
 
+    @Resource
+    private HostDetector hostDetector;
+
     @Override
     public List<NetworkInfoDTO> listNetworks() {
         List<Network> networks = dockerService.listNetworks();
@@ -60,7 +64,7 @@ public class NetworkServiceImpl implements NetworkService {
 
                 // 如果是host模式，使用宿主机网络信息
                 if ("host".equals(network.getDriver())) {
-                    dto.setIpamConfig(NetworkUtil.getHostNetworkInfo());
+                    dto.setIpamConfig(NetworkUtil.getHostNetworkInfo(hostDetector.getNetwork()));
                 } else {
                     // IPAMConfig 转换
                     List<Network.Ipam.Config> config = ipam.getConfig();
@@ -102,7 +106,7 @@ public class NetworkServiceImpl implements NetworkService {
 
             // 如果是host模式，使用宿主机网络信息
             if ("host".equals(network.getDriver())) {
-                dto.setIpamConfig(NetworkUtil.getHostNetworkInfo());
+                dto.setIpamConfig(NetworkUtil.getHostNetworkInfo(hostDetector.getNetwork()));
             } else {
                 // IPAMConfig 转换
                 List<Network.Ipam.Config> config = ipam.getConfig();
@@ -116,7 +120,7 @@ public class NetworkServiceImpl implements NetworkService {
         if (network.getContainers() != null) {
             // 如果是host模式，获取宿主机网络信息
             NetworkContainerDTO hostConfig = "host".equals(network.getDriver()) ?
-                    NetworkUtil.getHostContainerNetworkConfig() : null;
+                    NetworkUtil.getHostContainerNetworkConfig(hostDetector.getNetwork()) : null;
 
             for (Map.Entry<String, Network.ContainerNetworkConfig> entry : network.getContainers().entrySet()) {
                 NetworkContainerDTO containerDTO = new NetworkContainerDTO();
@@ -7,6 +7,7 @@ import com.dockpilot.model.entity.WebServer;
 import com.dockpilot.model.entity.Category;
 import com.dockpilot.model.vo.WebServerVO;
 import com.dockpilot.model.vo.CategoryVO;
+import com.dockpilot.service.WebServerStatusMonitor;
 import com.dockpilot.service.http.WebServerService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
@@ -29,10 +30,13 @@ public class WebServerServiceImpl implements WebServerService {
 
     private final WebServerMapper webServerMapper;
     private final CategoryMapper categoryMapper;
+    private final WebServerStatusMonitor statusMonitor;
 
-    public WebServerServiceImpl(WebServerMapper webServerMapper, CategoryMapper categoryMapper) {
+    public WebServerServiceImpl(WebServerMapper webServerMapper, CategoryMapper categoryMapper,
+                                WebServerStatusMonitor statusMonitor) {
         this.webServerMapper = webServerMapper;
         this.categoryMapper = categoryMapper;
+        this.statusMonitor = statusMonitor;
     }
 
     @Override
@@ -42,6 +46,7 @@ public class WebServerServiceImpl implements WebServerService {
         BeanUtils.copyProperties(dto, entity);
         entity.setId(UUID.randomUUID().toString());
         webServerMapper.insert(entity);
+        statusMonitor.invalidateTargets();
         return entity.getId();
     }
 
@@ -49,6 +54,7 @@ public class WebServerServiceImpl implements WebServerService {
     @Transactional
     public void delete(String id) {
         webServerMapper.deleteById(id);
+        statusMonitor.invalidateTargets();
     }
 
     @Override
@@ -61,6 +67,7 @@ public class WebServerServiceImpl implements WebServerService {
         dto.setId(id);
         BeanUtils.copyProperties(dto, entity);
         webServerMapper.update(entity);
+        statusMonitor.invalidateTargets();
     }
 
     @Override
@@ -71,22 +78,22 @@ public class WebServerServiceImpl implements WebServerService {
         }
         WebServerVO vo = new WebServerVO();
         BeanUtils.copyProperties(entity, vo);
-        return vo;
+        return statusMonitor.attach(vo);
     }
 
     @Override
     public List<WebServerVO> listAll() {
-        return webServerMapper.selectAllWithCategory();
+        return statusMonitor.attach(webServerMapper.selectAllWithCategory());
     }
 
     @Override
     public List<WebServerVO> listByCategoryId(Integer categoryId) {
-        return webServerMapper.selectByCategoryIdWithCategory(categoryId);
+        return statusMonitor.attach(webServerMapper.selectByCategoryIdWithCategory(categoryId));
     }
 
     @Override
     public List<WebServerVO> listByCategoryName(String categoryName) {
-        return webServerMapper.selectByCategoryNameWithCategory(categoryName);
+        return statusMonitor.attach(webServerMapper.selectByCategoryNameWithCategory(categoryName));
     }
 
     @Override
@@ -136,7 +143,7 @@ public class WebServerServiceImpl implements WebServerService {
 
     @Override
     public List<WebServerVO> getFavorites() {
-        return webServerMapper.selectFavorites();
+        return statusMonitor.attach(webServerMapper.selectFavorites());
     }
 
     @Override
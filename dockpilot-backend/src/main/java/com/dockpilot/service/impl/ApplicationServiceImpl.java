@@ -12,6 +12,7 @@ import com.dockpilot.model.application.vo.ApplicationVO;
 import com.dockpilot.service.ApplicationService;
 import com.dockpilot.api.DockerService;
 import com.dockpilot.utils.ComposeGenerator;
+import com.dockpilot.utils.HostDetector;
 import com.dockpilot.utils.YamlApplicationParser;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -39,6 +40,7 @@ public class ApplicationServiceImpl implements ApplicationService {
     private final ApplicationMapper applicationMapper;
     private final DockerService dockerService;
     private final ComposeGenerator composeGenerator;
+    private final HostDetector hostDetector;
 
     @Override
     public List<ApplicationVO> getApplications(String category, String keyword) {
@@ -375,7 +377,7 @@ public class ApplicationServiceImpl implements ApplicationService {
                 if (env.getName().contains("PORT") && envVars.containsKey(env.getName())) {
                     ApplicationDeployResult.AccessUrl accessUrl = new ApplicationDeployResult.AccessUrl();
                     accessUrl.setName(env.getName().replace("_PORT", "") + " 服务");
-                    accessUrl.setUrl("http://localhost:" + envVars.get(env.getName()));
+                    accessUrl.setUrl("http://" + hostDetector.getHostIP() + ":" + envVars.get(env.getName()));
                     accessUrl.setDescription("服务访问地址");
                     accessUrls.add(accessUrl);
                 }
@@ -1,16 +1,23 @@
 package com.dockpilot.service.websocket;
 
 import com.dockpilot.api.DockerService;
+import com.dockpilot.common.annotation.HandlesMessage;
+import com.dockpilot.common.exception.BusinessException;
 import com.dockpilot.model.ContainerCreateRequest;
 import com.dockpilot.model.MessageType;
 import com.dockpilot.model.application.ApplicationParseResult;
 import com.dockpilot.model.application.dto.ApplicationDeployResult;
 import com.dockpilot.service.ApplicationService;
+import com.dockpilot.service.ConfigPackageImporter;
+import com.dockpilot.service.DownloadCache;
+import com.dockpilot.service.PortAllocationService;
 import com.dockpilot.service.http.ContainerService;
 import com.dockpilot.utils.ErrorMessageExtractor;
+import com.dockpilot.utils.HostDetector;
 import com.dockpilot.utils.WebSocketUtils;
 import com.dockpilot.utils.YamlApplicationParser;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.model.payload.AppInstallPayload;
 import com.dockpilot.websocket.sender.WebSocketMessageSender;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,6 +38,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Slf4j
 @Service
+@HandlesMessage(MessageType.APP_INSTALL)
 public class ApplicationWebSocketService implements BaseService {
 
     @Value("${file.upload.path:uploads/}")
@@ -49,11 +57,19 @@ public class ApplicationWebSocketService implements BaseService {
     private DockerService dockerService;
     @Autowired
     private WebSocketMessageSender messageSender;
+    @Autowired
+    private PortAllocationService portAllocationService;
+    @Autowired
+    private HostDetector hostDetector;
+    @Autowired
+    private ConfigPackageImporter configPackageImporter;
+    @Autowired
+    private DownloadCache downloadCache;
     
 
     @Override
     public void handle(WebSocketSession session, DockerWebSocketMessage message) {
-        MessageType type = MessageType.valueOf(message.getType());
+        MessageType type = message.messageType();
         String taskId = message.getTaskId();
 
         log.info("处理应用WebSocket消息: {}, 任务ID: {}", type, taskId);
@@ -78,12 +94,11 @@ public class ApplicationWebSocketService implements BaseService {
      * 处理应用安装请求
      */
     private void handleAppInstall(WebSocketSession session, DockerWebSocketMessage message, String taskId) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        
         // 解析安装参数
-        Long appId = Long.valueOf(data.get("appId").toString());
-        String appName = (String) data.get("appName");
-        String yamlContent = (String) data.get("yamlContent");
+        AppInstallPayload payload = message.bindData(AppInstallPayload.class);
+        Long appId = payload.getAppId();
+        String appName = payload.getAppName();
+        String yamlContent = payload.getYamlContent();
 
         log.info("开始安装应用: appId={}, appName={}, taskId={}", appId, appName, taskId);
 
@@ -133,6 +148,8 @@ public class ApplicationWebSocketService implements BaseService {
         
         // 🔧 记录已创建的容器ID，用于失败回滚
         List<String> createdContainerIds = new ArrayList<>();
+        // 安装期间保留的端口，结束时释放
+        String portReservation = null;
         
         try {
             // 步骤1: 验证YAML格式 (0-5%)
@@ -153,6 +170,15 @@ public class ApplicationWebSocketService implements BaseService {
             ApplicationParseResult parseResult = YamlApplicationParser.parseYaml(yamlContent);
             callback.onLog("✅ YAML配置解析完成");
         callback.onLog("检测到 " + parseResult.getServices().size() + " 个服务待安装");
+
+            // 一次检查并保留全部服务的端口，冲突时在拉取镜像前就失败
+            callback.onLog("🔍 检查端口占用...");
+            try {
+                portReservation = portAllocationService.reserveYaml(appName, yamlContent);
+            } catch (BusinessException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+            callback.onLog("✅ 端口检查通过");
         
             // 步骤3: 检查并拉取镜像 (15-30%)
             callback.onProgress(20);
@@ -177,7 +203,7 @@ public class ApplicationWebSocketService implements BaseService {
                 
                 try {
                     // 🔧 串行创建：一个接一个
-                    String containerId = createServiceFromYaml(service, yamlContent, appName, callback);
+                    String containerId = createServiceFromYaml(service, yamlContent, appName, portReservation, callback);
                 
                 if (containerId != null) {
                         createdContainerIds.add(containerId);
@@ -221,6 +247,8 @@ public class ApplicationWebSocketService implements BaseService {
             
             // 重新抛出异常
             throw e;
+        } finally {
+            portAllocationService.release(portReservation);
         }
     }
 
@@ -228,7 +256,7 @@ public class ApplicationWebSocketService implements BaseService {
      * 🆕 从YAML配置创建单个服务容器 - 完整实现
      */
     private String createServiceFromYaml(ApplicationParseResult.ServiceInfo service, String yamlContent,
-                                       String appName, InstallCallback callback) throws Exception {
+                                       String appName, String portReservation, InstallCallback callback) throws Exception {
         try {
             callback.onLog("📋 解析服务配置: " + service.getName());
             
@@ -240,6 +268,7 @@ public class ApplicationWebSocketService implements BaseService {
             
             // 创建容器请求对象
             ContainerCreateRequest request = new ContainerCreateRequest();
+            request.setPortReservation(portReservation);
             
             // 基础配置
             request.setImage(service.getImage());
@@ -440,12 +469,12 @@ public class ApplicationWebSocketService implements BaseService {
                 return WebSocketUtils.getClientIp(session);
             }
             
-            // 如果无法获取，使用备用方案
-            return "localhost";
+            // 如果无法获取，使用检测到的宿主机地址
+            return hostDetector.getHostIP();
             
         } catch (Exception e) {
             log.warn("获取客户端IP失败: {}", e.getMessage());
-            return "localhost";
+            return hostDetector.getHostIP();
         }
     }
 
@@ -865,19 +894,15 @@ public class ApplicationWebSocketService implements BaseService {
         callback.onLog("📦 检测到网络配置包: " + configUrl);
         
         try {
-            // 下载配置包
-            String packagePath = downloadConfigPackage(configUrl, serviceName, callback);
-            if (packagePath == null) {
-                callback.onLog("⚠️ 配置包下载失败，将创建空目录");
-                return;
+            // 边下载边解压，直接写入目标目录
+            try (java.io.InputStream in = openConfigPackage(configUrl, callback)) {
+                if (in == null) {
+                    callback.onLog("⚠️ 配置包下载失败，将创建空目录");
+                    return;
+                }
+                importConfigPackage(in, serviceName, volumeMappings, callback);
             }
             
-            // 解压配置包
-            extractConfigPackage(packagePath, serviceName, volumeMappings, callback);
-            
-            // 清理临时文件
-            deleteTemporaryFile(packagePath);
-            
             callback.onLog("✅ 配置包部署完成: " + serviceName);
             
         } catch (Exception e) {
@@ -905,7 +930,9 @@ public class ApplicationWebSocketService implements BaseService {
             }
             
             // 直接解压本地配置包（复用现有解压逻辑）
-            extractConfigPackage(localPackagePath, serviceName, volumeMappings, callback);
+            try (java.io.InputStream in = java.nio.file.Files.newInputStream(java.nio.file.Paths.get(localPackagePath))) {
+                importConfigPackage(in, serviceName, volumeMappings, callback);
+            }
             
             callback.onLog("✅ 本地配置包部署完成: " + serviceName);
             
@@ -916,34 +943,22 @@ public class ApplicationWebSocketService implements BaseService {
     }
     
     /**
-     * 下载配置包到临时文件
+     * 打开配置包下载流（不落地临时文件，未变化时直接读取本地缓存），失败时返回 null
      */
-    private String downloadConfigPackage(String configUrl, String serviceName, InstallCallback callback) {
+    private java.io.InputStream openConfigPackage(String configUrl, InstallCallback callback) {
         try {
             callback.onLog("⬇️ 正在下载配置包...");
             
-            // 创建临时文件
-            String tempFile = "/tmp/config-download-" + serviceName + "-" + System.currentTimeMillis() + ".tar.gz";
-            
-            // 使用Java原生HTTP客户端下载
-            java.net.http.HttpClient client = java.net.http.HttpClient.newBuilder()
-                .connectTimeout(java.time.Duration.ofSeconds(30))
-                .build();
+            DownloadCache.Download download = downloadCache.open(configUrl, null, Long.MAX_VALUE, callback::onLog);
             
-            java.net.http.HttpRequest request = java.net.http.HttpRequest.newBuilder()
-                .uri(java.net.URI.create(configUrl))
-                .timeout(java.time.Duration.ofSeconds(120))
-                .GET()
-                .build();
-            
-            java.net.http.HttpResponse<java.nio.file.Path> response = client.send(request, 
-                java.net.http.HttpResponse.BodyHandlers.ofFile(java.nio.file.Paths.get(tempFile)));
-            
-            if (response.statusCode() == 200) {
-                callback.onLog("✅ 配置包下载成功");
-                return tempFile;
+            if (download.isSuccess()) {
+                if (!download.isFromCache()) {
+                    callback.onLog("✅ 开始接收配置包");
+                }
+                return download.getInputStream();
             } else {
-                callback.onLog("❌ 配置包下载失败: HTTP " + response.statusCode());
+                callback.onLog("❌ 配置包下载失败: HTTP " + download.getStatusCode());
+                download.close();
                 return null;
             }
             
@@ -954,74 +969,11 @@ public class ApplicationWebSocketService implements BaseService {
     }
     
     /**
-     * 解压并部署配置包
+     * 流式解压配置包，按卷挂载直接写入宿主机目录
      */
-    private void extractConfigPackage(String packagePath, String serviceName, 
-                                    List<String> volumeMappings, InstallCallback callback) throws Exception {
-        callback.onLog("📂 正在解压配置包...");
-        
-        // 创建临时解压目录
-        String tempExtractDir = "/tmp/config-extract-" + serviceName + "-" + System.currentTimeMillis();
-        java.nio.file.Files.createDirectories(java.nio.file.Paths.get(tempExtractDir));
-        
-        try {
-            // 解压tar.gz文件
-            extractTarGzFile(packagePath, tempExtractDir, callback);
-            
-            // 根据volumeMappings将解压的内容复制到目标目录
-            deployExtractedConfig(tempExtractDir, serviceName, volumeMappings, callback);
-            
-        } finally {
-            // 清理临时解压目录
-            deleteTemporaryDirectory(tempExtractDir);
-        }
-    }
-    
-    /**
-     * 解压tar.gz文件
-     */
-    private void extractTarGzFile(String packagePath, String extractDir, InstallCallback callback) throws Exception {
-        try (java.io.FileInputStream fis = new java.io.FileInputStream(packagePath);
-             java.io.BufferedInputStream bis = new java.io.BufferedInputStream(fis);
-             java.util.zip.GZIPInputStream gzis = new java.util.zip.GZIPInputStream(bis);
-             org.apache.commons.compress.archivers.tar.TarArchiveInputStream tais = 
-                     new org.apache.commons.compress.archivers.tar.TarArchiveInputStream(gzis)) {
-            
-            org.apache.commons.compress.archivers.tar.TarArchiveEntry entry;
-            while ((entry = tais.getNextTarEntry()) != null) {
-                if (entry.isDirectory()) {
-                    continue;
-                }
-                
-                String entryPath = extractDir + "/" + entry.getName();
-                java.nio.file.Path targetPath = java.nio.file.Paths.get(entryPath);
-                
-                // 创建父目录
-                java.nio.file.Files.createDirectories(targetPath.getParent());
-                
-                // 写入文件
-                try (java.io.FileOutputStream fos = new java.io.FileOutputStream(targetPath.toFile())) {
-                    byte[] buffer = new byte[8192];
-                    int len;
-                    while ((len = tais.read(buffer)) != -1) {
-                        fos.write(buffer, 0, len);
-                    }
-                }
-                
-                callback.onLog("解压文件: " + entry.getName());
-            }
-        }
-    }
-    
-    /**
-     * 部署解压的配置到目标目录
-     */
-    private void deployExtractedConfig(String extractDir, String serviceName, 
-                                     List<String> volumeMappings, InstallCallback callback) throws Exception {
-        
+    private void importConfigPackage(java.io.InputStream in, String serviceName, 
+                                   List<String> volumeMappings, InstallCallback callback) throws Exception {
         callback.onLog("🔍 开始部署配置包到目标目录...");
-        callback.onLog("📂 解压目录: " + extractDir);
-        callback.onLog("🔧 服务名: " + serviceName);
         callback.onLog("📋 卷挂载配置数量: " + (volumeMappings != null ? volumeMappings.size() : 0));
         
         if (volumeMappings == null || volumeMappings.isEmpty()) {
@@ -1029,99 +981,38 @@ public class ApplicationWebSocketService implements BaseService {
             return;
         }
         
-        // 列出解压目录的内容
-        try {
-            java.nio.file.Path extractPath = java.nio.file.Paths.get(extractDir);
-            if (java.nio.file.Files.exists(extractPath)) {
-                callback.onLog("📁 解压目录内容:");
-                java.nio.file.Files.list(extractPath).forEach(path -> {
-                    try {
-                        callback.onLog("  - " + path.getFileName() + " (" + 
-                                     (java.nio.file.Files.isDirectory(path) ? "目录" : "文件") + ")");
-                    } catch (Exception e) {
-                        callback.onLog("  - " + path.getFileName() + " (检查失败)");
-                    }
-                });
-            } else {
-                callback.onLog("❌ 解压目录不存在: " + extractDir);
-                return;
-            }
-        } catch (Exception e) {
-            callback.onLog("⚠️ 无法列出解压目录内容: " + e.getMessage());
-        }
-        
+        // 🔧 从宿主机路径推导配置包中的目录名（与打包逻辑保持一致）
+        Map<String, List<java.nio.file.Path>> targets = new HashMap<>();
         for (String volumeMapping : volumeMappings) {
-            callback.onLog("🔄 处理卷挂载: " + volumeMapping);
-            
             String[] parts = volumeMapping.split(":");
-            if (parts.length >= 2) {
-                String hostPath = parts[0].trim();
-                String containerPath = parts[1].trim();
-                
-                callback.onLog("📍 宿主机路径: " + hostPath);
-                callback.onLog("📍 容器路径: " + containerPath);
-                
-                // 🔧 从宿主机路径推导配置包中的目录名（与打包逻辑保持一致）
-                String hostDirName = getLastPathSegment(hostPath);
-                callback.onLog("📂 推导的目录名: " + hostDirName);
-                
-                // 🔥 先尝试在服务名目录下查找（标准结构）
-                String sourceDir = extractDir + "/" + serviceName + "/" + hostDirName;
-                callback.onLog("🔍 尝试标准路径: " + sourceDir);
-                
-                // 🔄 如果服务名目录下找不到，再尝试直接查找（兼容性）
-                if (!java.nio.file.Files.exists(java.nio.file.Paths.get(sourceDir))) {
-                    sourceDir = extractDir + "/" + hostDirName;
-                    callback.onLog("🔍 标准路径未找到，尝试兼容路径: " + sourceDir);
-                }
-                
-                // 检查配置包中是否有对应的目录
-                if (java.nio.file.Files.exists(java.nio.file.Paths.get(sourceDir))) {
-                    callback.onLog("✅ 找到配置源目录: " + sourceDir);
-                    
-                    // 获取宿主机实际路径
-                    String actualHostPath = getActualHostPath(hostPath, callback);
-                    callback.onLog("🎯 目标宿主机路径: " + actualHostPath);
-                    
-                    // 确保目标目录存在
-                    java.nio.file.Path targetPath = java.nio.file.Paths.get(actualHostPath);
-                    if (!java.nio.file.Files.exists(targetPath)) {
-                        java.nio.file.Files.createDirectories(targetPath);
-                        callback.onLog("📁 创建目标目录: " + actualHostPath);
-                    } else {
-                        callback.onLog("📁 目标目录已存在: " + actualHostPath);
-                    }
-                    
-                    // 复制配置包内容到宿主机目录
-                    copyDirectory(sourceDir, actualHostPath, callback);
-                    
-                    callback.onLog("✅ 配置包部署成功: " + containerPath + " -> " + actualHostPath);
-                } else {
-                    callback.onLog("⚠️ 配置包中未找到对应目录: " + hostDirName);
-                    callback.onLog("❌ 源目录不存在: " + sourceDir);
-                    
-                    // 列出可能的目录结构帮助调试
-                    try {
-                        java.nio.file.Path extractPath = java.nio.file.Paths.get(extractDir);
-                        callback.onLog("🔍 可用的目录结构:");
-                        java.nio.file.Files.walk(extractPath, 2)
-                                .filter(java.nio.file.Files::isDirectory)
-                                .forEach(path -> callback.onLog("  📁 " + extractPath.relativize(path)));
-                    } catch (Exception e) {
-                        callback.onLog("⚠️ 无法列出目录结构: " + e.getMessage());
-                    }
-                    
-                    // 确保宿主机目录存在（创建空目录）
-                    String actualHostPath = getActualHostPath(hostPath, callback);
-                    java.nio.file.Files.createDirectories(java.nio.file.Paths.get(actualHostPath));
-                    callback.onLog("📁 创建空目录: " + actualHostPath);
-                }
-            } else {
+            if (parts.length < 2) {
                 callback.onLog("⚠️ 无效的卷挂载格式: " + volumeMapping);
+                continue;
             }
+            String hostPath = parts[0].trim();
+            String hostDirName = getLastPathSegment(hostPath);
+            String actualHostPath = getActualHostPath(hostPath, callback);
+            callback.onLog("📍 " + hostDirName + " -> " + actualHostPath + " (容器路径: " + parts[1].trim() + ")");
+            targets.computeIfAbsent(hostDirName, key -> new ArrayList<>()).add(java.nio.file.Paths.get(actualHostPath));
+        }
+        if (targets.isEmpty()) {
+            return;
         }
         
-        callback.onLog("✅ 配置包部署完成");
+        callback.onLog("📂 正在解压配置包...");
+        ConfigPackageImporter.ImportResult result = configPackageImporter.importTarGz(in, serviceName, targets, callback::onLog);
+        
+        // 配置包中没有对应目录的挂载只保留空目录
+        for (String dirName : targets.keySet()) {
+            if (!result.getMatchedDirs().contains(dirName)) {
+                callback.onLog("⚠️ 配置包中未找到对应目录: " + dirName + "，已创建空目录");
+            }
+        }
+        if (result.getSkipped().get() > 0 || result.getErrors().get() > 0) {
+            callback.onLog("⚠️ 跳过 " + result.getSkipped().get() + " 个条目，" + result.getErrors().get() + " 个写入失败");
+        } else {
+            callback.onLog("✅ 所有文件写入成功");
+        }
     }
     
     /**
@@ -1136,94 +1027,4 @@ public class ApplicationWebSocketService implements BaseService {
         int lastSlash = normalized.lastIndexOf('/');
         return lastSlash >= 0 ? normalized.substring(lastSlash + 1) : normalized;
     }
-    
-    /**
-     * 复制目录内容
-     */
-    private void copyDirectory(String sourceDir, String targetDir, InstallCallback callback) throws Exception {
-        java.nio.file.Path sourcePath = java.nio.file.Paths.get(sourceDir);
-        java.nio.file.Path targetPath = java.nio.file.Paths.get(targetDir);
-        
-        callback.onLog("📋 开始复制目录内容:");
-        callback.onLog("  源目录: " + sourceDir);
-        callback.onLog("  目标目录: " + targetDir);
-        
-        // 确保目标目录存在
-        java.nio.file.Files.createDirectories(targetPath);
-        callback.onLog("📁 确保目标目录存在: " + targetDir);
-        
-        // 统计复制文件数量
-        java.util.concurrent.atomic.AtomicInteger fileCount = new java.util.concurrent.atomic.AtomicInteger(0);
-        java.util.concurrent.atomic.AtomicInteger dirCount = new java.util.concurrent.atomic.AtomicInteger(0);
-        java.util.concurrent.atomic.AtomicInteger errorCount = new java.util.concurrent.atomic.AtomicInteger(0);
-        
-        // 递归复制
-        java.nio.file.Files.walk(sourcePath)
-            .forEach(source -> {
-                try {
-                    java.nio.file.Path destination = targetPath.resolve(sourcePath.relativize(source));
-                    if (java.nio.file.Files.isDirectory(source)) {
-                        if (!source.equals(sourcePath)) { // 跳过根目录
-                            java.nio.file.Files.createDirectories(destination);
-                            callback.onLog("📁 创建目录: " + sourcePath.relativize(source));
-                            dirCount.incrementAndGet();
-                        }
-                    } else {
-                        java.nio.file.Files.copy(source, destination, 
-                            java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                        callback.onLog("📄 复制文件: " + sourcePath.relativize(source) + 
-                                     " (" + java.nio.file.Files.size(source) + " 字节)");
-                        fileCount.incrementAndGet();
-                    }
-                } catch (Exception e) {
-                    callback.onLog("❌ 复制失败: " + source + " -> " + e.getMessage());
-                    errorCount.incrementAndGet();
-                }
-            });
-        
-        callback.onLog("📊 复制统计:");
-        callback.onLog("  📄 文件数量: " + fileCount.get());
-        callback.onLog("  📁 目录数量: " + dirCount.get());
-        callback.onLog("  ❌ 错误数量: " + errorCount.get());
-        
-        if (errorCount.get() > 0) {
-            callback.onLog("⚠️ 有 " + errorCount.get() + " 个文件复制失败");
-        } else {
-            callback.onLog("✅ 所有文件复制成功");
-        }
-        
-        callback.onLog("📁 复制目录完成: " + sourceDir + " -> " + targetDir);
-    }
-    
-    /**
-     * 删除临时文件
-     */
-    private void deleteTemporaryFile(String filePath) {
-        try {
-            if (filePath != null) {
-                java.nio.file.Files.deleteIfExists(java.nio.file.Paths.get(filePath));
-            }
-        } catch (Exception e) {
-            log.warn("删除临时文件失败: {}", filePath, e);
-        }
-    }
-    
-    /**
-     * 删除临时目录
-     */
-    private void deleteTemporaryDirectory(String dirPath) {
-        try {
-            if (dirPath != null) {
-                java.nio.file.Path path = java.nio.file.Paths.get(dirPath);
-                if (java.nio.file.Files.exists(path)) {
-                    java.nio.file.Files.walk(path)
-                        .sorted(java.util.Comparator.reverseOrder())
-                        .map(java.nio.file.Path::toFile)
-                        .forEach(java.io.File::delete);
-                }
-            }
-        } catch (Exception e) {
-            log.warn("删除临时目录失败: {}", dirPath, e);
-        }
-    }
-} 
\ No newline at end of file
+}
@@ -2,10 +2,15 @@ package com.dockpilot.service.websocket;
 
 import com.alibaba.fastjson.JSON;
 import com.dockpilot.api.DockerService;
+import com.dockpilot.common.annotation.HandlesMessage;
 import com.dockpilot.model.ContainerCreateRequest;
 import com.dockpilot.model.ContainerInfo;
+import com.dockpilot.model.ContainerLogQuery;
 import com.dockpilot.model.JsonContainerRequest;
 import com.dockpilot.model.MessageType;
+import com.dockpilot.service.docker.CgroupStatsCollector;
+import com.dockpilot.service.docker.ContainerLogStreamService;
+import com.dockpilot.service.docker.ContainerStatsHub;
 import com.dockpilot.service.http.ContainerInfoService;
 import com.dockpilot.service.http.ContainerService;
 import com.dockpilot.service.http.ContainerSyncService;
@@ -15,6 +20,8 @@ import com.dockpilot.utils.ErrorMessageExtractor;
 import com.dockpilot.utils.JsonContainerRequestToContainerCreateRequestConverter;
 import com.dockpilot.utils.MessageCallback;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.model.payload.ContainerPayload;
+import com.dockpilot.websocket.model.payload.NetworkPayload;
 import com.dockpilot.websocket.sender.WebSocketMessageSender;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -24,6 +31,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
@@ -34,6 +44,27 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 @Service
 @Tag(name = "容器 WebSocket 服务", description = "处理容器相关的 WebSocket 消息")
+@HandlesMessage({
+        MessageType.CONTAINER_LIST,
+        MessageType.CONTAINER_DETAIL,
+        MessageType.CONTAINER_START,
+        MessageType.CONTAINER_STOP,
+        MessageType.CONTAINER_RESTART,
+        MessageType.CONTAINER_DELETE,
+        MessageType.CONTAINER_UPDATE,
+        MessageType.CONTAINER_CREATE,
+        MessageType.CONTAINER_LOGS,
+        MessageType.CONTAINER_LOGS_FOLLOW,
+        MessageType.CONTAINER_LOGS_STOP,
+        MessageType.CONTAINER_STATS,
+        MessageType.CONTAINER_STATS_SUBSCRIBE,
+        MessageType.CONTAINER_STATS_UNSUBSCRIBE,
+        MessageType.CONTAINER_STATS_OVERVIEW,
+        MessageType.CONTAINER_STATE_CHANGE,
+        MessageType.CONTAINER_JSON_CONFIG,
+        MessageType.CONTAINER_UPDATE_INFO,
+        MessageType.CONTAINER_CLEANUP_DUPLICATES
+})
 public class ContainerWebSocketService implements BaseService {
 
     @Autowired
@@ -54,6 +85,15 @@ public class ContainerWebSocketService implements BaseService {
     @Autowired
     private ContainerSyncService containerSyncService;
 
+    @Autowired
+    private ContainerStatsHub containerStatsHub;
+
+    @Autowired
+    private CgroupStatsCollector cgroupStatsCollector;
+
+    @Autowired
+    private ContainerLogStreamService containerLogStreamService;
+
     /**
      * 处理WebSocket消息的主入口方法
      *
@@ -73,7 +113,12 @@ public class ContainerWebSocketService implements BaseService {
                     "- CONTAINER_UPDATE: 更新容器\n" +
                     "- CONTAINER_CREATE: 创建容器\n" +
                     "- CONTAINER_LOGS: 获取容器日志\n" +
+                    "- CONTAINER_LOGS_FOLLOW: 持续跟踪容器日志\n" +
+                    "- CONTAINER_LOGS_STOP: 停止跟踪容器日志\n" +
                     "- CONTAINER_STATS: 获取容器状态\n" +
+                    "- CONTAINER_STATS_SUBSCRIBE: 订阅容器实时监控\n" +
+                    "- CONTAINER_STATS_UNSUBSCRIBE: 取消订阅容器实时监控\n" +
+                    "- CONTAINER_STATS_OVERVIEW: 所有容器资源占用概览\n" +
                     "- CONTAINER_STATE_CHANGE: 容器状态变更\n" +
                     "- CONTAINER_JSON_CONFIG: 获取容器配置\n" +
                     "- NETWORK_DETAIL: 获取网络详情\n" +
@@ -84,7 +129,7 @@ public class ContainerWebSocketService implements BaseService {
             @Parameter(description = "WebSocket会话") WebSocketSession session,
             @Parameter(description = "接收到的消息") DockerWebSocketMessage message
     ) {
-        MessageType type = MessageType.valueOf(message.getType());
+        MessageType type = message.messageType();
         String taskId = message.getTaskId();
 
         try {
@@ -155,9 +200,24 @@ public class ContainerWebSocketService implements BaseService {
                 case CONTAINER_LOGS:           // 获取容器日志
                     result = handleContainerLogs(message);
                     break;
+                case CONTAINER_LOGS_FOLLOW:    // 持续跟踪容器日志
+                    result = handleContainerLogsFollow(session, message);
+                    break;
+                case CONTAINER_LOGS_STOP:      // 停止跟踪容器日志
+                    containerLogStreamService.stop(message.bindData(ContainerPayload.class).getStreamId(), session.getId());
+                    break;
                 case CONTAINER_STATS:          // 获取容器状态
                     result = handleContainerStats(message);
                     break;
+                case CONTAINER_STATS_SUBSCRIBE:    // 订阅容器实时监控
+                    result = handleContainerStatsSubscribe(session, message);
+                    break;
+                case CONTAINER_STATS_UNSUBSCRIBE:  // 取消订阅容器实时监控
+                    handleContainerStatsUnsubscribe(session, message);
+                    break;
+                case CONTAINER_STATS_OVERVIEW:     // 所有容器资源占用概览
+                    result = cgroupStatsCollector.collectAll();
+                    break;
                 case CONTAINER_STATE_CHANGE:   // 容器状态变更
                     result = handleContainerStateChange(message);
                     break;
@@ -205,8 +265,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 容器详情信息
      */
     private Object handleContainerDetail(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
         return containerService.getContainerConfig(containerId);
     }
 
@@ -217,8 +276,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 启动操作结果
      */
     private void handleContainerStart(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
         containerService.startContainer(containerId);
     }
 
@@ -229,8 +287,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 停止操作结果
      */
     private void handleContainerStop(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
         containerService.stopContainer(containerId);
     }
 
@@ -241,8 +298,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 重启操作结果
      */
     private void handleContainerRestart(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
         containerService.restartContainer(containerId);
     }
 
@@ -253,8 +309,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 删除操作结果
      */
     private void handleContainerDelete(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
         containerService.removeContainer(containerId);
     }
 
@@ -265,15 +320,13 @@ public class ContainerWebSocketService implements BaseService {
      * @return 更新操作结果
      */
     private CompletableFuture<String> handleContainerUpdate(DockerWebSocketMessage message, MessageCallback callback) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
-        boolean onlyContainerId = data.containsKey("containerId") && data.size() == 1;
-        if (onlyContainerId) {
-            return containerService.updateContainerImage(containerId, callback);
+        ContainerPayload payload = message.bindData(ContainerPayload.class);
+        // 未携带配置时仅更新镜像
+        if (payload.getConfig() == null) {
+            return containerService.updateContainerImage(payload.getContainerId(), callback);
         }
-        JsonContainerRequest json = JSON.parseObject(JSON.toJSONString(data.get("config")), JsonContainerRequest.class);
-        ContainerCreateRequest request = JsonContainerRequestToContainerCreateRequestConverter.convert(json);
-        return containerService.updateContainer(containerId, request, callback);
+        ContainerCreateRequest request = JsonContainerRequestToContainerCreateRequestConverter.convert(payload.getConfig());
+        return containerService.updateContainer(payload.getContainerId(), request, callback);
     }
 
     /**
@@ -283,8 +336,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 创建操作结果
      */
     private Object handleContainerCreate(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        JsonContainerRequest json = JSON.parseObject(JSON.toJSONString(data), JsonContainerRequest.class);
+        JsonContainerRequest json = message.bindData(JsonContainerRequest.class);
         ContainerCreateRequest request = JsonContainerRequestToContainerCreateRequestConverter.convert(json);
         return containerService.createContainer(request);
     }
@@ -296,9 +348,26 @@ public class ContainerWebSocketService implements BaseService {
      * @return 容器日志
      */
     private Object handleContainerLogs(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
-        return containerService.getContainerLogs(containerId, 100, false, false);
+        return containerLogStreamService.readLogs(message.bindData(ContainerLogQuery.class));
+    }
+
+    /**
+     * 处理持续跟踪容器日志的请求
+     * 立即返回流ID，日志随后以 CONTAINER_LOGS_BATCH 消息批量推送
+     *
+     * @param session WebSocket会话
+     * @param message WebSocket消息
+     * @return 包含流ID的结果
+     */
+    private Object handleContainerLogsFollow(WebSocketSession session, DockerWebSocketMessage message) {
+        ContainerLogQuery query = message.bindData(ContainerLogQuery.class);
+        if (query.getFollow() == null) {
+            query.setFollow(true);
+        }
+        String streamId = containerLogStreamService.follow(query, session.getId());
+        Map<String, Object> result = new HashMap<>();
+        result.put("streamId", streamId);
+        return result;
     }
 
     /**
@@ -308,9 +377,43 @@ public class ContainerWebSocketService implements BaseService {
      * @return 容器状态信息
      */
     private Object handleContainerStats(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
-        return containerService.getContainerStats(containerId);
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
+        return containerStatsHub.getLatest(containerId);
+    }
+
+    /**
+     * 处理订阅容器实时监控的请求
+     * 订阅后按配置的间隔推送 CONTAINER_STATS_UPDATE 消息
+     *
+     * @param session WebSocket会话
+     * @param message WebSocket消息
+     * @return 各容器当前已有的最新样本
+     */
+    private Object handleContainerStatsSubscribe(WebSocketSession session, DockerWebSocketMessage message) {
+        return containerStatsHub.subscribeAll(resolveContainerIds(message), session.getId());
+    }
+
+    /**
+     * 处理取消订阅容器实时监控的请求
+     *
+     * @param session WebSocket会话
+     * @param message WebSocket消息
+     */
+    private void handleContainerStatsUnsubscribe(WebSocketSession session, DockerWebSocketMessage message) {
+        for (String containerId : resolveContainerIds(message)) {
+            containerStatsHub.unsubscribe(containerId, session.getId());
+        }
+    }
+
+    /**
+     * 从消息中取出容器ID列表，兼容单个 containerId
+     */
+    private List<String> resolveContainerIds(DockerWebSocketMessage message) {
+        ContainerPayload payload = message.bindData(ContainerPayload.class);
+        if (payload.getContainerIds() != null) {
+            return payload.getContainerIds();
+        }
+        return payload.getContainerId() != null ? Collections.singletonList(payload.getContainerId()) : Collections.emptyList();
     }
 
     /**
@@ -331,8 +434,7 @@ public class ContainerWebSocketService implements BaseService {
      * @return 容器配置信息
      */
     private Object handleContainerJsonConfig(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
+        String containerId = message.bindData(ContainerPayload.class).getContainerId();
         String jsonConfig = dockerService.generateJsonFromContainerId(containerId);
         return JSON.parseObject(jsonConfig);
     }
@@ -344,9 +446,8 @@ public class ContainerWebSocketService implements BaseService {
      * @return 网络详情信息
      */
     private Object handleNetworkDetail(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String networkId = (String) data.get("networkId");
-        return networkService.getNetworkDetail(networkId);
+        NetworkPayload payload = message.bindData(NetworkPayload.class);
+        return networkService.getNetworkDetail(payload.getNetworkId());
     }
 
     /**
@@ -356,10 +457,10 @@ public class ContainerWebSocketService implements BaseService {
      * @return 更新操作结果
      */
     private Object handleUpdateContainerInfo(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String containerId = (String) data.get("containerId");
-        String webUrl = (String) data.get("webUrl");
-        String iconUrl = (String) data.get("iconUrl");
+        ContainerPayload payload = message.bindData(ContainerPayload.class);
+        String containerId = payload.getContainerId();
+        String webUrl = payload.getWebUrl();
+        String iconUrl = payload.getIconUrl();
 
         // 获取现有的容器信息
         ContainerInfo containerInfo = containerInfoService.getContainerInfoByContainerId(containerId);
@@ -0,0 +1,70 @@
+package com.dockpilot.service.websocket;
+
+import com.dockpilot.common.annotation.HandlesMessage;
+import com.dockpilot.model.DirectorySizeDTO;
+import com.dockpilot.model.MessageType;
+import com.dockpilot.service.DirectorySizeService;
+import com.dockpilot.utils.ErrorMessageExtractor;
+import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.model.payload.DirectorySizePayload;
+import com.dockpilot.websocket.sender.WebSocketMessageSender;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 目录大小统计服务
+ * 统计在后台执行，过程中以 DIRECTORY_SIZE_PROGRESS 推送各路径的部分结果，全部完成后返回结果列表
+ */
+@Slf4j
+@Service
+@HandlesMessage(MessageType.DIRECTORY_SIZE)
+public class DirectorySizeWebSocketService implements BaseService {
+
+    /**
+     * 单次请求最多统计的路径数
+     */
+    private static final int MAX_PATHS = 50;
+
+    @Autowired
+    private DirectorySizeService directorySizeService;
+
+    @Autowired
+    private WebSocketMessageSender messageSender;
+
+    @Override
+    public void handle(WebSocketSession session, DockerWebSocketMessage message) {
+        String taskId = message.getTaskId();
+        DirectorySizePayload payload = message.bindData(DirectorySizePayload.class);
+        List<String> paths = payload == null ? null : payload.getPaths();
+        if (paths == null || paths.isEmpty()) {
+            messageSender.sendError(session, taskId, "统计路径不能为空");
+            return;
+        }
+        if (paths.size() > MAX_PATHS) {
+            messageSender.sendError(session, taskId, "单次最多统计 " + MAX_PATHS + " 个路径");
+            return;
+        }
+
+        CompletableFuture.runAsync(() -> {
+            try {
+                List<DirectorySizeDTO> results = new ArrayList<>(paths.size());
+                for (String path : paths) {
+                    DirectorySizeDTO result = directorySizeService.calculate(path,
+                            partial -> messageSender.sendMessage(session, MessageType.DIRECTORY_SIZE_PROGRESS, taskId, partial));
+                    results.add(result);
+                    log.debug("📊 目录大小统计完成: {} = {} 字节, 耗时 {}ms", path, result.getBytes(), result.getDurationMs());
+                }
+                messageSender.sendComplete(session, taskId, results);
+            } catch (Exception e) {
+                log.error("统计目录大小失败: {}", paths, e);
+                messageSender.sendError(session, taskId, ErrorMessageExtractor.extractUserFriendlyError(e));
+            }
+        });
+    }
+}
@@ -1,10 +1,12 @@
 package com.dockpilot.service.websocket;
 
+import com.dockpilot.common.annotation.HandlesMessage;
 import com.dockpilot.model.MessageType;
 import com.dockpilot.service.http.ImageService;
 import com.dockpilot.utils.ErrorMessageExtractor;
 import com.dockpilot.utils.MessageCallback;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.model.payload.ImagePayload;
 import com.dockpilot.websocket.sender.WebSocketMessageSender;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,7 +17,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
 import javax.annotation.Resource;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -25,6 +26,17 @@ import java.util.concurrent.CompletableFuture;
 @Slf4j
 @Service
 @Tag(name = "镜像 WebSocket 服务", description = "处理镜像相关的 WebSocket 消息")
+@HandlesMessage({
+        MessageType.IMAGE_LIST,
+        MessageType.IMAGE_DETAIL,
+        MessageType.IMAGE_DELETE,
+        MessageType.IMAGE_UPDATE,
+        MessageType.IMAGE_BATCH_UPDATE,
+        MessageType.PULL_IMAGE,
+        MessageType.CANCEL_PULL,
+        MessageType.IMAGE_CANCEL_PULL,
+        MessageType.IMAGE_CHECK_UPDATES
+})
 public class ImageWebSocketService implements BaseService {
 
     @Resource
@@ -55,7 +67,7 @@ public class ImageWebSocketService implements BaseService {
             @Parameter(description = "WebSocket会话") WebSocketSession session,
             @Parameter(description = "接收到的消息") DockerWebSocketMessage message
     ) {
-        MessageType type = MessageType.valueOf(message.getType());
+        MessageType type = message.messageType();
         String taskId = message.getTaskId();
 
         try {
@@ -78,21 +90,18 @@ public class ImageWebSocketService implements BaseService {
                     result = handleImageBatchUpdate(message);
                     break;
                 case PULL_IMAGE:
+                    String imageName = message.bindData(ImagePayload.class).getImageName();
                     // 创建回调对象
                     MessageCallback callback = new MessageCallback() {
                         @Override
                         public void onProgress(int progress) {
                             // 🔧 修复：在进度消息中包含镜像名称
-                            Map<String, Object> data = (Map<String, Object>) message.getData();
-                            String imageName = (String) data.get("imageName");
                             messageSender.sendProgressWithImageName(session, taskId, progress, imageName);
                         }
 
                         @Override
                         public void onLog(String log) {
                             // 🔧 修复：在日志消息中包含镜像名称
-                            Map<String, Object> data = (Map<String, Object>) message.getData();
-                            String imageName = (String) data.get("imageName");
                             messageSender.sendLogWithImageName(session, taskId, log, imageName);
                         }
 
@@ -153,9 +162,8 @@ public class ImageWebSocketService implements BaseService {
      * @return 镜像详情信息
      */
     private Object handleImageDetail(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String imageId = (String) data.get("imageId");
-        return imageService.getImageDetail(imageId);
+        ImagePayload payload = message.bindData(ImagePayload.class);
+        return imageService.getImageDetail(payload.getImageId());
     }
 
     /**
@@ -165,10 +173,9 @@ public class ImageWebSocketService implements BaseService {
      * @return 删除操作结果
      */
     private Object handleImageDelete(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String imageId = (String) data.get("imageId");
-        boolean removeStatus = !data.containsKey("removeStatus") || (boolean) data.get("removeStatus");
-        imageService.removeImage(imageId, removeStatus);
+        ImagePayload payload = message.bindData(ImagePayload.class);
+        boolean removeStatus = payload.getRemoveStatus() == null || payload.getRemoveStatus();
+        imageService.removeImage(payload.getImageId(), removeStatus);
         return null;
     }
 
@@ -179,10 +186,8 @@ public class ImageWebSocketService implements BaseService {
      * @return 更新操作结果
      */
     private Object handleImageUpdate(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String image = (String) data.get("image");
-        String tag = (String) data.get("tag");
-        return imageService.updateImage(image, tag);
+        ImagePayload payload = message.bindData(ImagePayload.class);
+        return imageService.updateImage(payload.getImage(), payload.getTag());
     }
 
     /**
@@ -202,8 +207,7 @@ public class ImageWebSocketService implements BaseService {
      * @param message WebSocket消息
      */
     private CompletableFuture<Void> handlePullImage(DockerWebSocketMessage message, MessageCallback callback) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String fullImageName = (String) data.get("imageName");
+        String fullImageName = message.bindData(ImagePayload.class).getImageName();
 
         // 拆解 imageName 为 repo 和 tag
         String repo, tag;
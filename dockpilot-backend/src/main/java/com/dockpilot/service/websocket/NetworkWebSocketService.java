@@ -1,9 +1,12 @@
 package com.dockpilot.service.websocket;
 
+import com.dockpilot.common.annotation.HandlesMessage;
 import com.dockpilot.model.MessageType;
+import com.dockpilot.service.docker.TopologyService;
 import com.dockpilot.service.http.NetworkService;
 import com.dockpilot.utils.ErrorMessageExtractor;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.model.payload.NetworkPayload;
 import com.dockpilot.websocket.sender.WebSocketMessageSender;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,8 +16,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.util.Map;
-
 /**
  * 网络服务
  * 处理所有网络相关的消息
@@ -22,6 +23,15 @@ import java.util.Map;
 @Slf4j
 @Service
 @Tag(name = "网络 WebSocket 服务", description = "处理网络相关的 WebSocket 消息")
+@HandlesMessage({
+        MessageType.NETWORK_LIST,
+        MessageType.NETWORK_DETAIL,
+        MessageType.NETWORK_CREATE,
+        MessageType.NETWORK_DELETE,
+        MessageType.NETWORK_TOPOLOGY,
+        MessageType.NETWORK_TOPOLOGY_SUBSCRIBE,
+        MessageType.NETWORK_TOPOLOGY_UNSUBSCRIBE
+})
 public class NetworkWebSocketService implements BaseService {
 
     @Autowired
@@ -30,6 +40,9 @@ public class NetworkWebSocketService implements BaseService {
     @Autowired
     private WebSocketMessageSender messageSender;
 
+    @Autowired
+    private TopologyService topologyService;
+
     /**
      * 处理WebSocket消息的主入口方法
      *
@@ -43,13 +56,16 @@ public class NetworkWebSocketService implements BaseService {
                     "- NETWORK_LIST: 获取网络列表\n" +
                     "- NETWORK_DETAIL: 获取网络详情\n" +
                     "- NETWORK_CREATE: 创建网络\n" +
-                    "- NETWORK_DELETE: 删除网络"
+                    "- NETWORK_DELETE: 删除网络\n" +
+                    "- NETWORK_TOPOLOGY: 获取容器-网络拓扑图\n" +
+                    "- NETWORK_TOPOLOGY_SUBSCRIBE: 订阅拓扑图变化\n" +
+                    "- NETWORK_TOPOLOGY_UNSUBSCRIBE: 取消订阅拓扑图变化"
     )
     public void handle(
             @Parameter(description = "WebSocket会话") WebSocketSession session,
             @Parameter(description = "接收到的消息") DockerWebSocketMessage message
     ) {
-        MessageType type = MessageType.valueOf(message.getType());
+        MessageType type = message.messageType();
         String taskId = message.getTaskId();
 
         try {
@@ -68,6 +84,15 @@ public class NetworkWebSocketService implements BaseService {
                 case NETWORK_DELETE:         // 删除网络
                     result = handleNetworkDelete(message);
                     break;
+                case NETWORK_TOPOLOGY:       // 获取拓扑图
+                    result = topologyService.getTopology();
+                    break;
+                case NETWORK_TOPOLOGY_SUBSCRIBE:   // 订阅拓扑图变化
+                    result = topologyService.subscribe(session.getId());
+                    break;
+                case NETWORK_TOPOLOGY_UNSUBSCRIBE: // 取消订阅拓扑图变化
+                    topologyService.unsubscribe(session.getId());
+                    break;
                 default:
                     log.warn("未知的网络消息类型: {}", type);
             }
@@ -97,9 +122,8 @@ public class NetworkWebSocketService implements BaseService {
      * @return 网络详情信息
      */
     private Object handleNetworkDetail(DockerWebSocketMessage message) {
-        Map<String, Object> data = (Map<String, Object>) message.getData();
-        String networkId = (String) data.get("networkId");
-        return networkService.getNetworkDetail(networkId);
+        NetworkPayload payload = message.bindData(NetworkPayload.class);
+        return networkService.getNetworkDetail(payload.getNetworkId());
     }
 
     /**
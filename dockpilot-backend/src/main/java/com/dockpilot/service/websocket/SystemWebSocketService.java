@@ -1,5 +1,6 @@
 package com.dockpilot.service.websocket;
 
+import com.dockpilot.common.annotation.HandlesMessage;
 import com.dockpilot.model.MessageType;
 import com.dockpilot.model.SystemStatusDTO;
 import com.dockpilot.service.http.SystemStatusService;
@@ -15,6 +16,7 @@ import org.springframework.web.socket.WebSocketSession;
  * 处理系统状态相关的WebSocket消息
  */
 @Service
+@HandlesMessage(MessageType.SYSTEM_STATUS)
 public class SystemWebSocketService implements BaseService {
 
     @Autowired
@@ -25,7 +27,7 @@ public class SystemWebSocketService implements BaseService {
 
     @Override
     public void handle(WebSocketSession session, DockerWebSocketMessage message) {
-        MessageType type = MessageType.valueOf(message.getType());
+        MessageType type = message.messageType();
         String taskId = message.getTaskId();
 
 //        LogUtil.logSysInfo("处理系统WebSocket消息: " + type);
@@ -7,8 +7,6 @@ import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
-import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
 
 import java.io.FileWriter;
 import java.io.IOException;
@@ -44,6 +42,9 @@ public class ComposeGenerator {
     @Autowired
     private com.dockpilot.common.config.AppConfig appConfig;
 
+    @Autowired
+    private com.dockpilot.service.DirectorySizeService directorySizeService;
+
     // 🔥 新增：Docker专用路径模式
     private static final Set<String> DOCKER_SPECIFIC_PATTERNS = Set.of(
         "/config", "/configuration", "/settings",
@@ -1163,368 +1164,70 @@ public class ComposeGenerator {
     }
     
     /**
-     * 🔥 新增：生成配置包
-     * 
-     * @param containerIds 容器ID列表
-     * @param outputDir 输出目录
-     * @return 配置包信息 Map<服务名, 包文件名>
-     */
-    public Map<String, String> generateConfigPackages(List<String> containerIds, String outputDir) {
-        return generateConfigPackages(containerIds, outputDir, null);
-    }
-    
-    /**
-     * 🔥 新增：生成配置包（支持用户选择的路径）
-     * 
+     * 🔥 解析需要打包的配置目录（支持用户选择的路径）
+     * <p>
+     * 每个容器只 inspect 一次，只返回宿主机上实际存在的路径；
+     * 打包由 {@link ProjectArchiveWriter} 直接从这些路径流式写入，不再复制到临时目录
+     *
      * @param containerIds 容器ID列表
-     * @param outputDir 输出目录
-     * @param selectedPaths 用户选择的路径列表，格式：hostPath:containerPath
-     * @return 配置包信息 Map<服务名, 包文件名>
-     */
-    public Map<String, String> generateConfigPackages(List<String> containerIds, String outputDir, List<String> selectedPaths) {
-        Map<String, String> packageInfo = new HashMap<>();
-        
-        try {
-            String dockerBaseDir = getDockerBaseDir();
-            
-            // 获取容器详细信息
-            List<InspectContainerResponse> containers = dockerService.listContainers().stream()
-                    .filter(container -> containerIds.contains(container.getId()))
-                    .map(container -> dockerService.inspectContainerCmd(container.getId()))
-                    .collect(Collectors.toList());
-            
-            for (InspectContainerResponse container : containers) {
-                String serviceName = getServiceName(container);
-                
-                // 检查服务是否有配置需要打包
-                if (hasConfigurationToPackage(serviceName, dockerBaseDir, selectedPaths)) {
-                    // 创建配置包到指定目录
-                    String packageFileName = serviceName + ".tar.gz";
-                    String packagePath = outputDir + "/" + packageFileName;
-                    
-                    boolean success = createServiceConfigPackage(serviceName, container, dockerBaseDir, packagePath, selectedPaths);
-                    
-                    if (success) {
-                        packageInfo.put(serviceName, packageFileName);
-                        log.info("服务 {} 配置包创建成功: {}", serviceName, packageFileName);
-                    } else {
-                        log.info("服务 {} 无配置内容需要打包", serviceName);
-                    }
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("生成配置包失败: {}", e.getMessage());
-        }
-        
-        return packageInfo;
-    }
-    
-    /**
-     * 检查服务是否有配置需要打包
-     */
-    private boolean hasConfigurationToPackage(String serviceName, String dockerBaseDir) {
-        return hasConfigurationToPackage(serviceName, dockerBaseDir, null);
-    }
-    
-    /**
-     * 检查服务是否有配置需要打包（支持用户选择的路径）
+     * @param selectedPaths 用户选择的路径列表，格式：hostPath:containerPath；为空时打包 Docker 专用路径
+     * @return Map<服务名, 需要打包的路径>，按容器顺序排列，无内容的服务不出现
      */
-    private boolean hasConfigurationToPackage(String serviceName, String dockerBaseDir, List<String> selectedPaths) {
-        try {
-            // 获取容器信息
-            List<InspectContainerResponse> containers = dockerService.listContainers().stream()
-                    .filter(container -> {
-                        // 先获取容器详细信息，再比较服务名
-                        InspectContainerResponse inspected = dockerService.inspectContainerCmd(container.getId());
-                        return serviceName.equals(getServiceName(inspected));
-                    })
-                    .map(container -> dockerService.inspectContainerCmd(container.getId()))
-                    .collect(Collectors.toList());
-            
-            if (containers.isEmpty()) {
-                log.info("❌ 未找到服务对应的容器: {}", serviceName);
-                return false;
+    public Map<String, List<ProjectArchiveWriter.Source>> resolveConfigSources(List<String> containerIds, List<String> selectedPaths) {
+        Map<String, List<ProjectArchiveWriter.Source>> result = new LinkedHashMap<>();
+        boolean hasSelection = selectedPaths != null && !selectedPaths.isEmpty();
+
+        log.info("运行环境: {}", isProductionEnvironment() ? "生产环境(容器)" : "开发环境(本地)");
+
+        for (String containerId : containerIds) {
+            InspectContainerResponse container;
+            try {
+                container = dockerService.inspectContainerCmd(containerId);
+            } catch (Exception e) {
+                log.warn("获取容器信息失败，跳过配置打包: {} - {}", containerId, e.getMessage());
+                continue;
             }
-            
-            InspectContainerResponse container = containers.get(0);
-            
-            // 如果有用户选择的路径，检查该服务是否在选择列表中
-            if (selectedPaths != null && !selectedPaths.isEmpty()) {
-                if (container.getMounts() != null) {
-                    for (InspectContainerResponse.Mount mount : container.getMounts()) {
-                        String pathId = mount.getSource() + ":" + mount.getDestination().getPath();
-                        if (selectedPaths.contains(pathId)) {
-                            log.info("✅ 服务 {} 有用户选择的路径需要打包", serviceName);
-                            return true;
-                        }
-                    }
-                }
-                log.info("❌ 服务 {} 无用户选择的路径", serviceName);
-                return false;
+            String serviceName = getServiceName(container);
+            if (container.getMounts() == null) {
+                continue;
             }
-            
-            // 如果没有用户选择，使用原有逻辑检查Docker专用路径
-            if (container.getHostConfig() != null && container.getHostConfig().getBinds() != null) {
-                com.github.dockerjava.api.model.Bind[] binds = container.getHostConfig().getBinds();
-                int dockerSpecificCount = 0;
-                
-                for (com.github.dockerjava.api.model.Bind bind : binds) {
-                    String containerPath = bind.getVolume().getPath();
-                    if (isDockerSpecific(containerPath)) {
-                        dockerSpecificCount++;
-                        log.info("发现Docker专用路径: {} -> {}", bind.getPath(), containerPath);
-                    }
+
+            List<ProjectArchiveWriter.Source> sources = new ArrayList<>();
+            for (InspectContainerResponse.Mount mount : container.getMounts()) {
+                if (mount.getSource() == null || mount.getDestination() == null) {
+                    continue;
                 }
-                
-                if (dockerSpecificCount > 0) {
-                    log.info("✅ 服务 {} 有 {} 个Docker专用路径映射，准备打包", serviceName, dockerSpecificCount);
-                    return true;
+                String hostPath = mount.getSource();
+                String containerPath = mount.getDestination().getPath();
+                String pathId = hostPath + ":" + containerPath;
+
+                // 如果有用户选择，只处理选中的路径；否则只处理Docker专用路径
+                if (hasSelection ? !selectedPaths.contains(pathId) : !isDockerSpecific(containerPath)) {
+                    log.info("ℹ️ 路径无需打包，跳过: {} -> {}", hostPath, containerPath);
+                    continue;
                 }
-            }
-            
-            log.info("❌ 服务 {} 无配置需要打包", serviceName);
-            return false;
-            
-        } catch (Exception e) {
-            log.warn("检查服务配置失败: {}", serviceName, e);
-            return false;
-        }
-    }
-    
-    /**
-     * 创建服务配置包（支持用户选择的路径）
-     */
-    private boolean createServiceConfigPackage(String serviceName, InspectContainerResponse container, 
-                                             String dockerBaseDir, String outputPath, List<String> selectedPaths) {
-        try {
-            // 创建临时打包目录，添加服务名前缀
-            String tempPackageDir = "/tmp/temp-package-" + serviceName + "-" + System.currentTimeMillis();
-            String servicePackageDir = tempPackageDir + "/" + serviceName;
-            java.nio.file.Files.createDirectories(java.nio.file.Paths.get(servicePackageDir));
-            
-            boolean hasContent = false;
-            
-            log.info("运行环境: {}", isProductionEnvironment() ? "生产环境(容器)" : "开发环境(本地)");
-            
-            if (container.getMounts() != null) {
-                for (InspectContainerResponse.Mount mount : container.getMounts()) {
-                    String hostPath = mount.getSource();
-                    String containerPath = mount.getDestination().getPath();
-                    String pathId = hostPath + ":" + containerPath;
-                    
-                    log.info("检查卷映射: {} -> {}", hostPath, containerPath);
-                    
-                    // 如果有用户选择，只处理选中的路径
-                    if (selectedPaths != null && !selectedPaths.isEmpty()) {
-                        if (!selectedPaths.contains(pathId)) {
-                            log.info("ℹ️ 路径未被用户选择，跳过: {} -> {}", hostPath, containerPath);
-                            continue;
-                        }
-                    } else {
-                        // 如果没有用户选择，使用原有逻辑只处理Docker专用路径
-                        if (!isDockerSpecific(containerPath)) {
-                            log.info("ℹ️ 非Docker专用路径，跳过打包: {} -> {}", hostPath, containerPath);
-                            continue;
-                        }
-                    }
-                    
-                    // 🔥 根据运行环境选择正确的路径访问方式
-                    String sourcePath = getActualFilePath(hostPath);
-                    
-                    log.info("实际访问路径: {}", sourcePath);
-                    
-                    // 检查源路径是否存在
-                    if (java.nio.file.Files.exists(java.nio.file.Paths.get(sourcePath))) {
-                        // 🔥 移除空目录检查 - 即使是空目录也要打包
-                        // 按宿主机的目录结构组织，提取最后一层目录名
-                        String[] pathParts = hostPath.split("/");
-                        String lastDirName = pathParts[pathParts.length - 1];
-                        String targetPath = servicePackageDir + "/" + lastDirName;
-                        
-                        // 🔥 确保目标目录存在
-                        java.nio.file.Files.createDirectories(java.nio.file.Paths.get(targetPath));
-                        
-                        // 复制目录内容（包括空目录）
-                        copyDirectoryContents(sourcePath, targetPath);
-                        hasContent = true;
-                        log.info("✅ 已打包路径: {} -> {} (宿主机: {})", 
-                                containerPath, lastDirName, hostPath);
-                    } else {
-                        log.info("⚠️ 路径不存在，跳过: {}", sourcePath);
-                    }
+
+                // 🔥 根据运行环境选择正确的路径访问方式
+                java.nio.file.Path sourcePath = java.nio.file.Paths.get(getActualFilePath(hostPath));
+                if (!java.nio.file.Files.exists(sourcePath)) {
+                    log.info("⚠️ 路径不存在，跳过: {}", sourcePath);
+                    continue;
                 }
+
+                // 按宿主机的目录结构组织，提取最后一层目录名
+                String[] pathParts = hostPath.split("/");
+                String lastDirName = pathParts[pathParts.length - 1];
+                sources.add(new ProjectArchiveWriter.Source(sourcePath, lastDirName));
+                log.info("✅ 待打包路径: {} -> {} (宿主机: {})", containerPath, lastDirName, hostPath);
             }
-            
-            if (!hasContent) {
-                // 清理临时目录
-                deleteDirectory(tempPackageDir);
+
+            if (sources.isEmpty()) {
                 log.info("❌ 服务 {} 无配置内容需要打包", serviceName);
-                return false;
-            }
-            
-            // 创建 tar.gz 包
-            createTarGzPackage(tempPackageDir, outputPath);
-            
-            // 清理临时目录
-            deleteDirectory(tempPackageDir);
-            
-            log.info("✅ 服务 {} 配置包创建成功: {}", serviceName, outputPath);
-            return true;
-            
-        } catch (Exception e) {
-            log.error("创建服务配置包失败: {}", serviceName, e);
-            return false;
-        }
-    }
-    
-    /**
-     * 复制目录内容
-     */
-    private void copyDirectoryContents(String sourcePath, String targetPath) throws Exception {
-        java.nio.file.Path source = java.nio.file.Paths.get(sourcePath);
-        java.nio.file.Path target = java.nio.file.Paths.get(targetPath);
-        
-        java.nio.file.Files.createDirectories(target.getParent());
-        
-        if (java.nio.file.Files.isDirectory(source)) {
-            java.nio.file.Files.walkFileTree(source, new java.nio.file.SimpleFileVisitor<java.nio.file.Path>() {
-                @Override
-                public java.nio.file.FileVisitResult preVisitDirectory(java.nio.file.Path dir, java.nio.file.attribute.BasicFileAttributes attrs) 
-                        throws java.io.IOException {
-                    java.nio.file.Path targetDir = target.resolve(source.relativize(dir));
-                    java.nio.file.Files.createDirectories(targetDir);
-                    return java.nio.file.FileVisitResult.CONTINUE;
-                }
-                
-                @Override
-                public java.nio.file.FileVisitResult visitFile(java.nio.file.Path file, java.nio.file.attribute.BasicFileAttributes attrs) 
-                        throws java.io.IOException {
-                    try {
-                        // 🔥 简化策略：只通过文件名判断是否为特殊文件
-                        String fileName = file.getFileName().toString().toLowerCase();
-                        
-                        // 只跳过明确的特殊文件（通过文件名判断）
-                        if (fileName.contains("socket") || 
-                            fileName.contains("pipe") || 
-                            fileName.contains("fifo") ||
-                            fileName.endsWith(".sock")) {
-                            log.info("⚠️ 跳过特殊文件 (套接字/管道): {}", file);
-                            return java.nio.file.FileVisitResult.CONTINUE;
-                        }
-                        
-                        // 🔥 直接尝试复制，不做其他检查
-                        java.nio.file.Path targetFile = target.resolve(source.relativize(file));
-                        java.nio.file.Files.copy(file, targetFile, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                        
-                    } catch (java.nio.file.FileSystemException e) {
-                        // 🔥 只有真正的文件系统异常才记录并跳过
-                        if (e.getMessage() != null && 
-                            (e.getMessage().contains("No such device or address") ||
-                             e.getMessage().contains("Operation not supported") ||
-                             e.getMessage().contains("Is a directory"))) {
-                            log.warn("⚠️ 跳过文件系统特殊文件: {} - {}", file, e.getMessage());
-                        } else {
-                            // 其他文件系统错误，记录但继续
-                            log.warn("⚠️ 复制文件时遇到问题，跳过: {} - {}", file, e.getMessage());
-                        }
-                    } catch (Exception e) {
-                        // 🔥 其他异常也记录但不中断整个流程
-                        log.warn("⚠️ 复制文件时出现异常，跳过: {} - {}", file, e.getMessage());
-                    }
-                    
-                    return java.nio.file.FileVisitResult.CONTINUE;
-                }
-                
-                @Override
-                public java.nio.file.FileVisitResult visitFileFailed(java.nio.file.Path file, java.io.IOException exc) {
-                    // 🔥 访问失败时记录但继续
-                    log.warn("⚠️ 访问文件失败，跳过: {} - {}", file, exc.getMessage());
-                    return java.nio.file.FileVisitResult.CONTINUE;
-                }
-            });
-        } else {
-            // 🔥 单个文件直接复制，不做检查
-            try {
-                java.nio.file.Files.copy(source, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-            } catch (java.nio.file.FileSystemException e) {
-                if (e.getMessage() != null && e.getMessage().contains("No such device or address")) {
-                    log.warn("⚠️ 跳过特殊文件类型: {} - {}", source, e.getMessage());
-                    return; // 不抛出异常，优雅跳过
-                }
-                throw e; // 其他异常继续抛出
-            }
-        }
-    }
-    
-    /**
-     * 创建tar.gz包
-     */
-    private void createTarGzPackage(String sourceDir, String outputPath) throws Exception {
-        try (java.io.FileOutputStream fos = new java.io.FileOutputStream(outputPath);
-             java.io.BufferedOutputStream bos = new java.io.BufferedOutputStream(fos);
-             java.util.zip.GZIPOutputStream gzos = new java.util.zip.GZIPOutputStream(bos);
-             org.apache.commons.compress.archivers.tar.TarArchiveOutputStream taos = 
-                     new org.apache.commons.compress.archivers.tar.TarArchiveOutputStream(gzos)) {
-            
-            // 🔥 设置长文件名支持，解决文件名超过100字节的问题
-            taos.setLongFileMode(org.apache.commons.compress.archivers.tar.TarArchiveOutputStream.LONGFILE_POSIX);
-            
-            java.nio.file.Path sourcePath = java.nio.file.Paths.get(sourceDir);
-            java.nio.file.Files.walk(sourcePath)
-                .filter(path -> !java.nio.file.Files.isDirectory(path))
-                .forEach(path -> {
-                    try {
-                        String entryName = sourcePath.relativize(path).toString();
-                        
-                        // 🔥 添加文件名长度检查和处理
-                        if (entryName.length() > 255) {
-                            // 对于超过255字符的文件名，截断并添加时间戳保证唯一性
-                            String extension = "";
-                            int lastDotIndex = entryName.lastIndexOf('.');
-                            if (lastDotIndex > 0) {
-                                extension = entryName.substring(lastDotIndex);
-                            }
-                            String baseName = entryName.substring(0, Math.min(200, entryName.length()));
-                            entryName = baseName + "_" + System.currentTimeMillis() + extension;
-                            log.warn("⚠️ 文件名过长，已截断: 原名={} 字符，新名={}", 
-                                sourcePath.relativize(path).toString().length(), entryName);
-                        }
-                        
-                        org.apache.commons.compress.archivers.tar.TarArchiveEntry tarEntry = 
-                                new org.apache.commons.compress.archivers.tar.TarArchiveEntry(path.toFile(), entryName);
-                        taos.putArchiveEntry(tarEntry);
-                        java.nio.file.Files.copy(path, taos);
-                        taos.closeArchiveEntry();
-                        
-                    } catch (Exception e) {
-                        // 🔥 改进错误处理，记录但不中断整个打包过程
-                        log.error("❌ 添加文件到tar包失败，跳过此文件: {} - {}", path, e.getMessage());
-                        // 不抛出异常，继续处理其他文件
-                    }
-                });
-        }
-    }
-    
-    /**
-     * 删除目录
-     */
-    private void deleteDirectory(String dirPath) {
-        try {
-            java.nio.file.Path path = java.nio.file.Paths.get(dirPath);
-            if (java.nio.file.Files.exists(path)) {
-                if (java.nio.file.Files.isDirectory(path)) {
-                    java.nio.file.Files.walk(path)
-                        .sorted(java.util.Comparator.reverseOrder())
-                        .map(java.nio.file.Path::toFile)
-                        .forEach(java.io.File::delete);
-                } else {
-                    java.nio.file.Files.delete(path);
-                }
+            } else {
+                result.put(serviceName, sources);
             }
-        } catch (Exception e) {
-            log.warn("删除目录失败: {}", dirPath, e);
         }
+        return result;
     }
 
     /**
@@ -1571,6 +1274,12 @@ public class ComposeGenerator {
                         mapping.setSystemPath(isSystemPath(hostPath));
                         mapping.setDescription(generatePathDescription(hostPath, containerPath));
                         mapping.setRecommended(!isSystemPath(hostPath));  // 非系统路径默认推荐
+                        // 只取已有的统计结果，不在这里触发遍历
+                        com.dockpilot.model.DirectorySizeDTO size = directorySizeService.getCached(hostPath);
+                        if (size != null) {
+                            mapping.setSizeBytes(size.getBytes());
+                            mapping.setSizeCalculatedAt(size.getCalculatedAt());
+                        }
                         
                         pathMappings.add(mapping);
                         
@@ -1,295 +1,367 @@
 package com.dockpilot.utils;
 
+import com.dockpilot.common.event.DockerNetworkEvent;
+import com.dockpilot.model.HostInterfaceDTO;
+import com.dockpilot.model.HostNetworkDTO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
- * 宿主机地址检测工具
- * 自动检测容器访问宿主机的最佳IP地址
+ * 宿主机网络检测
+ * <p>
+ * 直接读取宿主机的 procfs/sysfs（/proc/net/route、fib_trie、if_inet6 和 /sys/class/net）构建网络快照，
+ * 不启动任何外部进程。快照在启动时生成一次，之后按固定间隔重新读取比较，
+ * 只有网卡、地址或默认路由发生变化时才替换；Docker 网络创建/删除时或调用 refresh() 会立即刷新。
+ * 端口探测、网络列表中的 host 网络和安装结果中的宿主机地址都使用同一份快照。
  */
 @Slf4j
 @Component
 public class HostDetector {
-    
-    private String hostIP;
-    private List<String> candidateIPs = new ArrayList<>();
-    
+
+    /**
+     * 宿主机网络不可见时的兜底地址（Docker 默认网桥网关）
+     */
+    private static final String DEFAULT_HOST_IP = "172.17.0.1";
+
+    private volatile HostNetworkDTO network = new HostNetworkDTO(null, null, null, Collections.emptyList());
+    private volatile String hostIP = DEFAULT_HOST_IP;
+    private volatile List<String> candidateIPs = Collections.emptyList();
+
     @PostConstruct
     public void detectHostIP() {
-        this.hostIP = detectHostAddress();
+        apply(readNetwork());
         log.info("宿主机地址检测完成: {} (候选地址: {})", this.hostIP, candidateIPs);
     }
-    
-    private String detectHostAddress() {
-        // 检测候选地址
-        candidateIPs.clear();
-        
-        // 1. 优先获取宿主机真实网络IP（通过挂载的/mnt/host访问宿主机网络信息）
-        List<String> hostRealIPs = getHostRealNetworkIPs();
-        candidateIPs.addAll(hostRealIPs);
-        
-        // 2. 检查Docker特殊地址（备用）
-        candidateIPs.add("host.docker.internal");
-        candidateIPs.add("gateway.docker.internal");
-        
-        // 3. 检查默认网关（从路由表获取）
-        String gatewayIP = getDefaultGateway();
-        if (gatewayIP != null) {
-            candidateIPs.add(gatewayIP);
-        }
-        
-        // 4. 添加常见Docker网桥地址（最后备用）
-        candidateIPs.add("172.17.0.1");
-        candidateIPs.add("172.18.0.1");
-        candidateIPs.add("172.19.0.1");
-        
-        // 5. 添加本地地址（兜底）
-        candidateIPs.add("127.0.0.1");
-        candidateIPs.add("localhost");
-        
-        // 直接返回第一个真实的宿主机IP，无需连通性测试
-        for (String candidate : candidateIPs) {
-            if (isRealHostIP(candidate)) {
-                log.info("✅ 选择宿主机真实IP: {} (局域网可访问)", candidate);
-                return candidate;
-            }
+
+    /**
+     * 获取检测到的宿主机IP
+     */
+    public String getHostIP() {
+        return hostIP;
+    }
+
+    /**
+     * 获取所有候选IP地址
+     */
+    public List<String> getCandidateIPs() {
+        return new ArrayList<>(candidateIPs);
+    }
+
+    /**
+     * 获取宿主机网络快照
+     */
+    public HostNetworkDTO getNetwork() {
+        return network;
+    }
+
+    /**
+     * 重新检测宿主机地址（用于故障恢复）
+     */
+    public void refresh() {
+        String oldIP = this.hostIP;
+        apply(readNetwork());
+        if (!oldIP.equals(this.hostIP)) {
+            log.info("宿主机地址已更新: {} -> {}", oldIP, this.hostIP);
         }
-        
-        // 如果没有真实IP，回退到连通性测试
-        for (String candidate : candidateIPs) {
-            if (testConnectivity(candidate)) {
-                log.info("✅ 选择宿主机地址: {} (连通性测试通过)", candidate);
-                return candidate;
-            }
+    }
+
+    /**
+     * 定时检查网络是否变化（读取几个 procfs 小文件，代价很低）
+     */
+    @Scheduled(fixedDelay = 10000, initialDelay = 10000)
+    public void pollChanges() {
+        HostNetworkDTO latest = readNetwork();
+        if (!latest.equals(network)) {
+            String oldIP = hostIP;
+            apply(latest);
+            log.info("宿主机网络发生变化，已刷新: 默认网卡={}, 地址 {} -> {}", latest.getDefaultInterface(), oldIP, hostIP);
         }
-        
-        // 如果都不通，使用默认地址
-        String defaultIP = "172.17.0.1";
-        log.warn("⚠️ 所有候选地址连通性测试都失败，使用默认地址: {}", defaultIP);
-        return defaultIP;
     }
-    
+
     /**
-     * 获取宿主机真实网络IP地址
-     * 通过读取宿主机的网络接口信息（DockPilot容器挂载了/mnt/host）
+     * Docker 创建或删除网络会增删宿主机上的网桥，立即刷新而不是等下一次轮询
      */
-    private List<String> getHostRealNetworkIPs() {
-        List<String> hostIPs = new ArrayList<>();
-        
-        try {
-            // 通过读取宿主机的网络接口信息
-            // DockPilot容器通常挂载了 -v /:/mnt/host
-            ProcessBuilder pb = new ProcessBuilder("cat", "/mnt/host/proc/net/route");
-            Process process = pb.start();
-            
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                reader.readLine(); // 跳过标题行
-                
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split("\\s+");
-                    if (parts.length >= 8 && "00000000".equals(parts[1])) { // 默认路由
-                        String gatewayHex = parts[2];
-                        if (gatewayHex.length() == 8) {
-                            // 将十六进制网关地址转换为IP
-                            String gatewayIP = hexToIP(gatewayHex);
-                            if (gatewayIP != null) {
-                                // 根据网关推测宿主机IP段，获取宿主机IP
-                                List<String> possibleIPs = getHostIPsFromGateway(gatewayIP);
-                                hostIPs.addAll(possibleIPs);
-                            }
-                        }
-                    }
-                }
-            }
-            
-            process.waitFor();
-        } catch (Exception e) {
-            log.debug("读取宿主机网络信息失败: {}", e.getMessage());
+    @EventListener
+    public void onNetworkEvent(DockerNetworkEvent event) {
+        if ("create".equals(event.getAction()) || "destroy".equals(event.getAction())) {
+            refresh();
         }
-        
-        // 备用方法：通过hostname命令获取
-        try {
-            ProcessBuilder pb2 = new ProcessBuilder("sh", "-c", "chroot /mnt/host hostname -I");
-            Process process2 = pb2.start();
-            
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process2.getInputStream()))) {
-                String line = reader.readLine();
-                if (line != null && !line.trim().isEmpty()) {
-                    String[] ips = line.trim().split("\\s+");
-                    for (String ip : ips) {
-                        if (isRealHostIP(ip.trim())) {
-                            hostIPs.add(ip.trim());
-                            log.debug("通过hostname获取到宿主机IP: {}", ip.trim());
-                        }
-                    }
+    }
+
+    private void apply(HostNetworkDTO latest) {
+        List<String> candidates = new ArrayList<>();
+        if (latest.getPrimaryIp() != null) {
+            candidates.add(latest.getPrimaryIp());
+        }
+        for (HostInterfaceDTO iface : latest.getInterfaces()) {
+            if (iface.isVirtual() || !iface.isUp()) {
+                continue;
+            }
+            for (String cidr : iface.getIpv4Addresses()) {
+                String ip = stripPrefix(cidr);
+                if (!candidates.contains(ip)) {
+                    candidates.add(ip);
                 }
             }
-            
-            process2.waitFor();
-        } catch (Exception e) {
-            log.debug("通过hostname获取宿主机IP失败: {}", e.getMessage());
         }
-        
-        log.debug("检测到宿主机真实IP: {}", hostIPs);
-        return hostIPs;
+        if (latest.getDefaultGateway() != null && !candidates.contains(latest.getDefaultGateway())) {
+            candidates.add(latest.getDefaultGateway());
+        }
+        candidates.add("127.0.0.1");
+
+        String ip = latest.getPrimaryIp();
+        if (ip == null) {
+            String gateway = SystemInfoUtil.getDefaultGateway();
+            ip = gateway != null ? gateway : DEFAULT_HOST_IP;
+            log.debug("未检测到宿主机主IP，使用: {}", ip);
+        }
+
+        this.network = latest;
+        this.candidateIPs = Collections.unmodifiableList(candidates);
+        this.hostIP = ip;
     }
-    
+
     /**
-     * 将十六进制IP转换为点分十进制
+     * 读取网络快照
+     * 挂载了宿主机根目录时读取宿主机 1 号进程所在的网络命名空间；
+     * 运行在容器内且没有挂载时只能看到容器自己的网络，此时主IP取容器的默认网关（即宿主机在网桥上的地址）
      */
-    private String hexToIP(String hex) {
-        try {
-            if (hex.length() != 8) return null;
-            
-            int ip = Integer.parseUnsignedInt(hex, 16);
-            return String.format("%d.%d.%d.%d", 
-                (ip & 0xFF), 
-                (ip >> 8) & 0xFF, 
-                (ip >> 16) & 0xFF, 
-                (ip >> 24) & 0xFF);
-        } catch (Exception e) {
-            return null;
+    private HostNetworkDTO readNetwork() {
+        boolean hostMounted = HostPaths.isHostMounted();
+        boolean hostVisible = hostMounted || !Files.exists(Paths.get("/.dockerenv"));
+        Path netDir = hostMounted ? HostPaths.proc("1/net") : Paths.get("/proc/net");
+
+        List<Route> routes = readRoutes(netDir.resolve("route"));
+        Map<String, List<String>> ipv4 = readIpv4Addresses(netDir.resolve("fib_trie"), routes);
+        Map<String, List<String>> ipv6 = readIpv6Addresses(netDir.resolve("if_inet6"));
+
+        Route defaultRoute = null;
+        for (Route route : routes) {
+            if (route.destination == 0 && route.mask == 0 && route.gateway != 0
+                    && (defaultRoute == null || route.metric < defaultRoute.metric)) {
+                defaultRoute = route;
+            }
         }
+
+        Set<String> names = new TreeSet<>(listInterfaceNames());
+        names.addAll(ipv4.keySet());
+        names.addAll(ipv6.keySet());
+        List<HostInterfaceDTO> interfaces = new ArrayList<>(names.size());
+        for (String name : names) {
+            interfaces.add(HostInterfaceDTO.builder()
+                    .name(name)
+                    .macAddress(readSysValue("class/net/" + name + "/address"))
+                    .up(isUp(name))
+                    .virtual("lo".equals(name) || Files.exists(HostPaths.sys("devices/virtual/net/" + name)))
+                    .ipv4Addresses(ipv4.getOrDefault(name, Collections.emptyList()))
+                    .ipv6Addresses(ipv6.getOrDefault(name, Collections.emptyList()))
+                    .build());
+        }
+
+        String defaultInterface = defaultRoute != null ? defaultRoute.iface : null;
+        String defaultGateway = defaultRoute != null ? toIp(defaultRoute.gateway) : null;
+        String primaryIp = null;
+        if (hostVisible) {
+            List<String> addresses = defaultInterface != null ? ipv4.get(defaultInterface) : null;
+            if (addresses != null && !addresses.isEmpty()) {
+                primaryIp = stripPrefix(addresses.get(0));
+            }
+        } else {
+            primaryIp = defaultGateway;
+        }
+        return new HostNetworkDTO(defaultInterface, defaultGateway, primaryIp, Collections.unmodifiableList(interfaces));
     }
-    
+
     /**
-     * 根据网关IP推测可能的宿主机IP
+     * 解析 /proc/net/route：Iface Destination Gateway Flags RefCnt Use Metric Mask ...
+     * 地址和掩码为小端序十六进制
      */
-    private List<String> getHostIPsFromGateway(String gatewayIP) {
-        List<String> possibleIPs = new ArrayList<>();
-        
-        try {
-            String[] parts = gatewayIP.split("\\.");
-            if (parts.length == 4) {
-                String subnet = parts[0] + "." + parts[1] + "." + parts[2] + ".";
-                
-                // 常见的宿主机IP（路由器通常是.1，宿主机可能是.2-.254）
-                for (int i = 2; i <= 254; i++) {
-                    if (i != Integer.parseInt(parts[3])) { // 跳过网关本身
-                        possibleIPs.add(subnet + i);
-                        if (possibleIPs.size() >= 10) break; // 限制数量
-                    }
+    private static List<Route> readRoutes(Path file) {
+        List<Route> routes = new ArrayList<>();
+        if (!Files.isReadable(file)) {
+            return routes;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line = reader.readLine(); // 跳过标题行
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 8) {
+                    continue;
+                }
+                try {
+                    routes.add(new Route(parts[0],
+                            Integer.parseUnsignedInt(parts[1], 16),
+                            Integer.parseUnsignedInt(parts[2], 16),
+                            Integer.parseInt(parts[6]),
+                            Integer.parseUnsignedInt(parts[7], 16)));
+                } catch (NumberFormatException ignored) {
+                    // 格式异常的行直接跳过
                 }
             }
-        } catch (Exception e) {
-            log.debug("根据网关推测宿主机IP失败: {}", e.getMessage());
+        } catch (IOException e) {
+            log.debug("读取路由表失败: {}", e.getMessage());
         }
-        
-        return possibleIPs;
+        return routes;
     }
-    
+
     /**
-     * 判断是否为真实的宿主机IP（局域网私有IP）
+     * 从 fib_trie 中取出本机地址（紧跟 "/32 host LOCAL" 的叶子），再按直连路由归属到网卡
      */
-    private boolean isRealHostIP(String ip) {
-        if (ip == null || ip.trim().isEmpty()) return false;
-        
-        try {
-            String[] parts = ip.trim().split("\\.");
-            if (parts.length != 4) return false;
-            
-            int first = Integer.parseInt(parts[0]);
-            int second = Integer.parseInt(parts[1]);
-            
-            // 私有IP地址段
-            // 192.168.0.0/16
-            if (first == 192 && second == 168) return true;
-            
-            // 10.0.0.0/8  
-            if (first == 10) return true;
-            
-            // 172.16.0.0/12
-            if (first == 172 && second >= 16 && second <= 31) return true;
-            
-            // 排除Docker内部网络
-            if (first == 172 && second == 17) return false; // Docker默认网桥
-            if (first == 172 && second >= 18 && second <= 23) return false; // Docker常见网络
-            
-            return false;
-        } catch (Exception e) {
-            return false;
+    private static Map<String, List<String>> readIpv4Addresses(Path file, List<Route> routes) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        if (!Files.isReadable(file)) {
+            return result;
         }
+        Set<String> locals = new LinkedHashSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            String lastLeaf = null;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (trimmed.startsWith("|-- ")) {
+                    lastLeaf = trimmed.substring(4).trim();
+                } else if (trimmed.startsWith("/32 host LOCAL") && lastLeaf != null) {
+                    locals.add(lastLeaf);
+                }
+            }
+        } catch (IOException e) {
+            log.debug("读取 fib_trie 失败: {}", e.getMessage());
+            return result;
+        }
+
+        for (String ip : locals) {
+            int address = toLittleEndian(ip);
+            Route best = null;
+            for (Route route : routes) {
+                if (route.gateway == 0 && route.mask != 0 && (address & route.mask) == route.destination
+                        && (best == null || Integer.bitCount(route.mask) > Integer.bitCount(best.mask))) {
+                    best = route;
+                }
+            }
+            if (best != null) {
+                result.computeIfAbsent(best.iface, k -> new ArrayList<>()).add(ip + "/" + Integer.bitCount(best.mask));
+            } else if (ip.startsWith("127.")) {
+                result.computeIfAbsent("lo", k -> new ArrayList<>()).add(ip + "/8");
+            }
+        }
+        return result;
     }
-    
+
     /**
-     * 从路由表获取默认网关
+     * 解析 /proc/net/if_inet6：地址 索引 前缀长度 作用域 标志 网卡名
      */
-    private String getDefaultGateway() {
-        try {
-            ProcessBuilder pb = new ProcessBuilder("route", "-n");
-            Process process = pb.start();
-            
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (line.startsWith("0.0.0.0")) {
-                        String[] parts = line.split("\\s+");
-                        if (parts.length >= 2) {
-                            String gateway = parts[1];
-                            log.debug("从路由表获取默认网关: {}", gateway);
-                            return gateway;
-                        }
-                    }
+    private static Map<String, List<String>> readIpv6Addresses(Path file) {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        if (!Files.isReadable(file)) {
+            return result;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 6 || parts[0].length() != 32) {
+                    continue;
+                }
+                byte[] bytes = new byte[16];
+                for (int i = 0; i < 16; i++) {
+                    bytes[i] = (byte) Integer.parseInt(parts[0].substring(i * 2, i * 2 + 2), 16);
                 }
+                String address = InetAddress.getByAddress(bytes).getHostAddress();
+                result.computeIfAbsent(parts[5], k -> new ArrayList<>())
+                        .add(address + "/" + Integer.parseInt(parts[2], 16));
             }
-            
-            process.waitFor();
-        } catch (Exception e) {
-            log.debug("获取默认网关失败: {}", e.getMessage());
+        } catch (IOException | NumberFormatException e) {
+            log.debug("读取 if_inet6 失败: {}", e.getMessage());
         }
-        
-        return null;
+        return result;
     }
-    
-    /**
-     * 测试地址连通性
-     */
-    private boolean testConnectivity(String address) {
-        try {
-            // 尝试连接常见的服务端口（SSH）
-            try (Socket socket = new Socket()) {
-                socket.connect(new InetSocketAddress(address, 22), 2000);
-                log.debug("✅ {} 连通性测试通过 (SSH端口)", address);
-                return true;
+
+    private static List<String> listInterfaceNames() {
+        List<String> names = new ArrayList<>();
+        Path dir = HostPaths.sys("class/net");
+        if (!Files.isDirectory(dir)) {
+            return names;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                names.add(path.getFileName().toString());
             }
-        } catch (Exception e) {
-            log.debug("❌ {} 连通性测试失败: {}", address, e.getMessage());
+        } catch (IOException e) {
+            log.debug("读取网卡列表失败: {}", e.getMessage());
         }
-        
-        return false;
+        return names;
     }
-    
-    /**
-     * 获取检测到的宿主机IP
-     */
-    public String getHostIP() {
-        return hostIP;
+
+    private static boolean isUp(String name) {
+        String state = readSysValue("class/net/" + name + "/operstate");
+        // 回环和部分虚拟网卡的 operstate 为 unknown
+        return "up".equals(state) || "unknown".equals(state);
     }
-    
-    /**
-     * 获取所有候选IP地址
-     */
-    public List<String> getCandidateIPs() {
-        return new ArrayList<>(candidateIPs);
+
+    private static String readSysValue(String relative) {
+        try {
+            return new String(Files.readAllBytes(HostPaths.sys(relative))).trim();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String toIp(int value) {
+        return (value & 0xFF) + "." + ((value >> 8) & 0xFF) + "." + ((value >> 16) & 0xFF) + "." + ((value >>> 24) & 0xFF);
+    }
+
+    private static int toLittleEndian(String ip) {
+        String[] parts = ip.split("\\.");
+        if (parts.length != 4) {
+            return 0;
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (Integer.parseInt(parts[i]) & 0xFF) << (8 * i);
+        }
+        return value;
+    }
+
+    private static String stripPrefix(String cidr) {
+        int slash = cidr.indexOf('/');
+        return slash < 0 ? cidr : cidr.substring(0, slash);
     }
-    
+
     /**
-     * 重新检测宿主机地址（用于故障恢复）
+     * 路由表条目
      */
-    public void refresh() {
-        String oldIP = this.hostIP;
-        this.hostIP = detectHostAddress();
-        if (!oldIP.equals(this.hostIP)) {
-            log.info("宿主机地址已更新: {} -> {}", oldIP, this.hostIP);
+    private static final class Route {
+        private final String iface;
+        private final int destination;
+        private final int gateway;
+        private final int metric;
+        private final int mask;
+
+        private Route(String iface, int destination, int gateway, int metric, int mask) {
+            this.iface = iface;
+            this.destination = destination;
+            this.gateway = gateway;
+            this.metric = metric;
+            this.mask = mask;
         }
     }
-} 
\ No newline at end of file
+}
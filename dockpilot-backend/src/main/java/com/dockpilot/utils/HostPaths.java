@@ -0,0 +1,56 @@
+package com.dockpilot.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 宿主机文件路径工具
+ * DockPilot 容器通常以 -v /:/mnt/host 挂载宿主机根目录，
+ * 存在挂载时通过 /mnt/host 读取宿主机的 /proc、/sys 等，否则（本地开发）直接读取本机路径
+ */
+@UtilityClass
+public class HostPaths {
+
+    /**
+     * 宿主机根目录在容器内的挂载点
+     */
+    public static final String HOST_ROOT = "/mnt/host";
+
+    /**
+     * 是否挂载了宿主机根目录
+     */
+    public boolean isHostMounted() {
+        return Files.isDirectory(Paths.get(HOST_ROOT, "proc"));
+    }
+
+    /**
+     * 将宿主机绝对路径解析为当前进程可访问的路径
+     *
+     * @param hostPath 宿主机绝对路径，如 /proc/stat
+     * @return 挂载存在时为 /mnt/host/proc/stat，否则为原路径
+     */
+    public Path resolve(String hostPath) {
+        return isHostMounted() ? Paths.get(HOST_ROOT, hostPath) : Paths.get(hostPath);
+    }
+
+    /**
+     * 宿主机 procfs 下的文件
+     *
+     * @param relative 相对 /proc 的路径，如 stat、net/dev
+     */
+    public Path proc(String relative) {
+        return resolve("/proc/" + relative);
+    }
+
+    /**
+     * 宿主机 sysfs 下的文件
+     *
+     * @param relative 相对 /sys 的路径，如 fs/cgroup
+     */
+    public Path sys(String relative) {
+        return resolve("/sys/" + relative);
+    }
+}
@@ -1,14 +1,11 @@
 package com.dockpilot.utils;
 
+import com.dockpilot.model.HostInterfaceDTO;
+import com.dockpilot.model.HostNetworkDTO;
 import com.dockpilot.model.IPAMConfigFlatDTO;
 import com.dockpilot.model.NetworkContainerDTO;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.InterfaceAddress;
-import java.net.NetworkInterface;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
 
 public class NetworkUtil {
@@ -16,36 +13,20 @@ public class NetworkUtil {
     /**
      * 获取宿主机的网络配置信息
      *
-     * @return 网络配置列表，只包含合法的IPv4配置
+     * @param network HostDetector 缓存的宿主机网络快照
+     * @return 网络配置列表，只包含默认路由所在网卡的合法IPv4配置
      */
-    public static List<IPAMConfigFlatDTO> getHostNetworkInfo() {
+    public static List<IPAMConfigFlatDTO> getHostNetworkInfo(HostNetworkDTO network) {
         List<IPAMConfigFlatDTO> hostNetworkInfo = new ArrayList<>();
-        try {
-            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            while (interfaces.hasMoreElements()) {
-                NetworkInterface nif = interfaces.nextElement();
-                // 跳过回环接口、未启用的接口和虚拟接口
-                if (nif.isLoopback() || !nif.isUp() || nif.isVirtual() || nif.isPointToPoint()) {
-                    continue;
-                }
-
-                for (InterfaceAddress addr : nif.getInterfaceAddresses()) {
-                    if (addr.getAddress() instanceof java.net.Inet4Address) {
-                        String subnet = addr.getAddress().getHostAddress() + "/" + addr.getNetworkPrefixLength();
-                        String gateway = getDefaultGateway(nif.getName(), true);
-
-                        // 验证网关地址是否合法
-                        if (isValidIPv4Gateway(gateway)) {
-                            IPAMConfigFlatDTO config = new IPAMConfigFlatDTO();
-                            config.setSubnet(subnet);
-                            config.setGateway(gateway);
-                            hostNetworkInfo.add(config);
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        HostInterfaceDTO iface = findDefaultInterface(network);
+        if (iface == null || !isValidIPv4Gateway(network.getDefaultGateway())) {
+            return hostNetworkInfo;
+        }
+        for (String subnet : iface.getIpv4Addresses()) {
+            IPAMConfigFlatDTO config = new IPAMConfigFlatDTO();
+            config.setSubnet(subnet);
+            config.setGateway(network.getDefaultGateway());
+            hostNetworkInfo.add(config);
         }
         return hostNetworkInfo;
     }
@@ -53,50 +34,38 @@ public class NetworkUtil {
     /**
      * 获取宿主机的网络配置信息
      *
+     * @param network HostDetector 缓存的宿主机网络快照
      * @return 宿主机的网络配置
      */
-    public static NetworkContainerDTO getHostContainerNetworkConfig() {
+    public static NetworkContainerDTO getHostContainerNetworkConfig(HostNetworkDTO network) {
         NetworkContainerDTO config = new NetworkContainerDTO();
-        try {
-            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            while (interfaces.hasMoreElements()) {
-                NetworkInterface nif = interfaces.nextElement();
-                // 跳过回环接口、未启用的接口和虚拟接口
-                if (nif.isLoopback() || !nif.isUp() || nif.isVirtual() || nif.isPointToPoint()) {
-                    continue;
-                }
-
-                for (InterfaceAddress addr : nif.getInterfaceAddresses()) {
-                    if (addr.getAddress() instanceof java.net.Inet4Address) {
-                        String gateway = getDefaultGateway(nif.getName(), true);
-                        if (isValidIPv4Gateway(gateway)) {
-                            config.setId("host");
-                            config.setEndpointId("host");
-                            config.setMacAddress(nif.getHardwareAddress() != null ?
-                                    formatMacAddress(nif.getHardwareAddress()) : "N/A");
-                            config.setIpv4Address(addr.getAddress().getHostAddress());
-                            config.setIpv6Address("N/A");
-                            config.setName("宿主机");
-                            return config;
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+        HostInterfaceDTO iface = findDefaultInterface(network);
+        if (iface == null || iface.getIpv4Addresses().isEmpty() || !isValidIPv4Gateway(network.getDefaultGateway())) {
+            return config;
         }
+        String address = iface.getIpv4Addresses().get(0);
+        config.setId("host");
+        config.setEndpointId("host");
+        config.setMacAddress(iface.getMacAddress() != null ? iface.getMacAddress() : "N/A");
+        config.setIpv4Address(address.substring(0, address.indexOf('/') < 0 ? address.length() : address.indexOf('/')));
+        config.setIpv6Address("N/A");
+        config.setName("宿主机");
         return config;
     }
 
     /**
-     * 将字节数组格式的MAC地址转换为字符串格式
+     * 查找默认路由所在的网卡（跳过未启用的网卡）
      */
-    private static String formatMacAddress(byte[] mac) {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < mac.length; i++) {
-            sb.append(String.format("%02x%s", mac[i], (i < mac.length - 1) ? ":" : ""));
+    private static HostInterfaceDTO findDefaultInterface(HostNetworkDTO network) {
+        if (network == null || network.getDefaultInterface() == null) {
+            return null;
         }
-        return sb.toString();
+        for (HostInterfaceDTO iface : network.getInterfaces()) {
+            if (iface.getName().equals(network.getDefaultInterface()) && iface.isUp()) {
+                return iface;
+            }
+        }
+        return null;
     }
 
     /**
@@ -110,11 +79,6 @@ public class NetworkUtil {
             return false;
         }
 
-        // 检查是否以link#开头
-        if (gateway.startsWith("link#")) {
-            return false;
-        }
-
         // 验证是否是合法的IPv4地址
         try {
             String[] parts = gateway.split("\\.");
@@ -133,62 +97,4 @@ public class NetworkUtil {
             return false;
         }
     }
-
-    /**
-     * 获取指定网络接口的默认网关
-     *
-     * @param interfaceName 网络接口名称
-     * @param isIPv4        是否是IPv4
-     * @return 网关地址
-     */
-    private static String getDefaultGateway(String interfaceName, boolean isIPv4) {
-        String os = System.getProperty("os.name").toLowerCase();
-        try {
-            Process process;
-            if (os.contains("linux")) {
-                process = Runtime.getRuntime().exec("ip route show default");
-            } else if (os.contains("mac")) {
-                process = Runtime.getRuntime().exec("netstat -nr | grep default");
-            } else if (os.contains("windows")) {
-                process = Runtime.getRuntime().exec("route print");
-            } else {
-                return null;
-            }
-
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    if (os.contains("linux")) {
-                        if (line.contains("default") && line.contains(interfaceName)) {
-                            String[] parts = line.trim().split("\\s+");
-                            for (int i = 0; i < parts.length; i++) {
-                                if (parts[i].equals("via")) {
-                                    return parts[i + 1];
-                                }
-                            }
-                        }
-                    } else if (os.contains("mac")) {
-                        if (line.contains("default") && line.contains(interfaceName)) {
-                            String[] parts = line.trim().split("\\s+");
-                            if (parts.length > 1) {
-                                return parts[1];
-                            }
-                        }
-                    } else if (os.contains("windows")) {
-                        if (line.contains("0.0.0.0") && line.contains(interfaceName)) {
-                            String[] parts = line.trim().split("\\s+");
-                            for (int i = 0; i < parts.length; i++) {
-                                if (parts[i].equals("0.0.0.0")) {
-                                    return parts[i + 2];
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,239 @@
+package com.dockpilot.utils;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 多线程 gzip 输出流
+ * <p>
+ * 输入按固定大小切块，每块在线程池中独立压缩为一个完整的 gzip 成员（header + deflate + CRC32/ISIZE），
+ * 再按顺序写出。多成员 gzip 符合 RFC 1952，gzip / pigz / tar -z / GZIPInputStream 都能直接解压。
+ * <ul>
+ *   <li>同时在途的块数有上限，内存占用约为 blockSize × maxInFlight × 2</li>
+ *   <li>{@link #setLevel(int)} 会先结束当前块，之后的数据使用新级别（用于已压缩文件直接存储）</li>
+ *   <li>executor 为 null 时在当前线程顺序压缩</li>
+ * </ul>
+ * 关闭时会关闭底层输出流。
+ */
+public class ParallelGzipOutputStream extends FilterOutputStream {
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 3
+    };
+
+    private final Executor executor;
+    private final int blockSize;
+    private final int maxInFlight;
+    private final Deque<CompletableFuture<byte[]>> inFlight = new ArrayDeque<>();
+
+    private byte[] buffer;
+    private int count;
+    private int level;
+    private boolean wroteMember;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out, Executor executor, int level, int blockSize, int maxInFlight) {
+        super(out);
+        this.executor = executor;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.buffer = new byte[blockSize];
+    }
+
+    /**
+     * 切换后续数据的压缩级别（0 表示只存储不压缩）
+     */
+    public void setLevel(int level) throws IOException {
+        if (this.level == level) {
+            return;
+        }
+        submitBlock();
+        this.level = level;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        buffer[count++] = (byte) b;
+        if (count == blockSize) {
+            submitBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, buffer, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize) {
+                submitBlock();
+            }
+        }
+    }
+
+    /**
+     * 结束当前块，把一个已经压缩好的完整 gzip 成员原样写入（用于复用已存储的数据块，免去重新压缩）
+     */
+    public void writeRawMember(InputStream member) throws IOException {
+        ensureOpen();
+        submitBlock();
+        drain(0);
+        byte[] copyBuffer = new byte[64 * 1024];
+        int read;
+        while ((read = member.read(copyBuffer)) != -1) {
+            out.write(copyBuffer, 0, read);
+        }
+        wroteMember = true;
+    }
+
+    /**
+     * 结束当前块并等待所有块写出
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        submitBlock();
+        drain(0);
+        out.flush();
+    }
+
+    /**
+     * 写完所有数据但不关闭底层流
+     */
+    public void finish() throws IOException {
+        ensureOpen();
+        submitBlock();
+        drain(0);
+        if (!wroteMember) {
+            // 空输入也要输出一个合法的 gzip 成员
+            out.write(compressMember(new byte[0], 0, level));
+        }
+        closed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            out.close();
+            return;
+        }
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        if (count == 0) {
+            return;
+        }
+        byte[] block = buffer;
+        int length = count;
+        int blockLevel = level;
+        buffer = new byte[blockSize];
+        count = 0;
+
+        if (executor == null) {
+            writeMember(compressMember(block, length, blockLevel));
+            return;
+        }
+        inFlight.addLast(CompletableFuture.supplyAsync(() -> compressMember(block, length, blockLevel), executor));
+        drain(maxInFlight - 1);
+    }
+
+    /**
+     * 按提交顺序写出已压缩的块，直到在途块数不超过 limit
+     */
+    private void drain(int limit) throws IOException {
+        while (inFlight.size() > limit) {
+            CompletableFuture<byte[]> head = inFlight.removeFirst();
+            try {
+                writeMember(head.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancelAll();
+                throw new InterruptedIOException("压缩被中断");
+            } catch (ExecutionException e) {
+                cancelAll();
+                throw new IOException("压缩数据块失败: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+    }
+
+    private void writeMember(byte[] member) throws IOException {
+        out.write(member);
+        wroteMember = true;
+    }
+
+    private void cancelAll() {
+        inFlight.forEach(future -> future.cancel(false));
+        inFlight.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("输出流已关闭");
+        }
+    }
+
+    /**
+     * 把一块数据压缩成一个独立的 gzip 成员
+     */
+    public static byte[] compressMember(byte[] data, int length, int level) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            // 存储级别下输出会比输入略大，预留余量
+            byte[] result = new byte[GZIP_HEADER.length + length + (length >> 8) + 64 + 8];
+            System.arraycopy(GZIP_HEADER, 0, result, 0, GZIP_HEADER.length);
+            int pos = GZIP_HEADER.length;
+            while (!deflater.finished()) {
+                if (pos == result.length - 8) {
+                    result = Arrays.copyOf(result, result.length * 2);
+                }
+                pos += deflater.deflate(result, pos, result.length - 8 - pos);
+            }
+            if (result.length - pos < 8) {
+                result = Arrays.copyOf(result, pos + 8);
+            }
+            pos = writeIntLE(result, pos, (int) crc.getValue());
+            pos = writeIntLE(result, pos, length);
+            return pos == result.length ? result : Arrays.copyOf(result, pos);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static int writeIntLE(byte[] buf, int pos, int value) {
+        buf[pos] = (byte) value;
+        buf[pos + 1] = (byte) (value >> 8);
+        buf[pos + 2] = (byte) (value >> 16);
+        buf[pos + 3] = (byte) (value >> 24);
+        return pos + 4;
+    }
+}
@@ -0,0 +1,427 @@
+package com.dockpilot.utils;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 项目导出包写入器
+ * <p>
+ * 直接从宿主机路径读取配置目录，一次性写入一个 ZIP（输出到 HTTP 响应或单个文件），中间不产生任何临时拷贝：
+ * <ul>
+ *   <li>NESTED：每个服务一个 {@code <服务名>.tar.gz} 条目，边生成边写入 ZIP（条目不再二次压缩）</li>
+ *   <li>FLAT：配置文件直接作为 {@code <服务名>/<目录名>/...} 条目写入 ZIP</li>
+ * </ul>
+ * tar.gz 使用 {@link ParallelGzipOutputStream} 多线程分块压缩；图片、视频、压缩包等已压缩文件直接存储。
+ * 套接字、管道、设备文件会被跳过；单个文件读取失败只记录日志，不中断整个导出。
+ */
+@Slf4j
+public class ProjectArchiveWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 小于该大小的已压缩文件仍按默认级别处理，避免频繁切换级别产生大量很小的 gzip 成员
+     */
+    private static final long STORE_THRESHOLD = 64 * 1024;
+
+    /**
+     * 配置包文件扩展名
+     */
+    public static final String CONFIG_PACKAGE_EXTENSION = ".tar.gz";
+
+    /**
+     * 导出包结构
+     */
+    public enum Layout {
+        /**
+         * ZIP 内每个服务一个 tar.gz（与原有导出格式一致）
+         */
+        NESTED,
+        /**
+         * ZIP 内直接展开目录
+         */
+        FLAT;
+
+        public static Layout of(String value) {
+            return "flat".equalsIgnoreCase(value) ? FLAT : NESTED;
+        }
+    }
+
+    /**
+     * 压缩参数
+     */
+    @Getter
+    @Builder
+    public static class Compression {
+        /**
+         * 压缩级别：0-9，0 表示只打包不压缩
+         */
+        @Builder.Default
+        private final int level = Deflater.DEFAULT_COMPRESSION;
+        /**
+         * 并行压缩线程池，为 null 时在当前线程压缩
+         */
+        private final Executor executor;
+        /**
+         * 同时在途的压缩块数
+         */
+        @Builder.Default
+        private final int parallelism = 1;
+        @Builder.Default
+        private final int blockSize = 1024 * 1024;
+        /**
+         * 直接存储不压缩的扩展名（小写，不含点）
+         */
+        @Builder.Default
+        private final Set<String> storeExtensions = Collections.emptySet();
+
+        /**
+         * 文件是否已是压缩格式
+         */
+        public boolean shouldStore(String fileName) {
+            int dot = fileName.lastIndexOf('.');
+            return dot >= 0 && storeExtensions.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+        }
+
+    }
+
+    /**
+     * 一个需要导出的宿主机目录（或文件）
+     */
+    @Getter
+    public static class Source {
+        /**
+         * 实际可访问的路径（生产环境为 /mnt/host 下的路径）
+         */
+        private final Path path;
+        /**
+         * 在包内使用的名称（宿主机路径的最后一级）
+         */
+        private final String name;
+
+        public Source(Path path, String name) {
+            this.path = path;
+            this.name = name;
+        }
+    }
+
+    private final ZipOutputStream zip;
+    private final Layout layout;
+    private final Compression compression;
+    private final int zipLevel;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    public ProjectArchiveWriter(OutputStream out, Layout layout) {
+        this(out, layout, Compression.builder().build());
+    }
+
+    public ProjectArchiveWriter(OutputStream out, Layout layout, Compression compression) {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.layout = layout;
+        this.compression = compression;
+        // ZIP 条目只能用 deflate，级别超出范围时按默认级别处理
+        int level = compression.getLevel();
+        this.zipLevel = level >= Deflater.NO_COMPRESSION && level <= Deflater.BEST_COMPRESSION
+                ? level : Deflater.DEFAULT_COMPRESSION;
+    }
+
+    /**
+     * 写入文本文件（docker-compose.yml、README.md 等）
+     */
+    public void addText(String name, String content) throws IOException {
+        zip.setLevel(zipLevel);
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * 写入一个服务的配置目录
+     *
+     * @return 包内的名称（NESTED 为配置包文件名，FLAT 为目录名）
+     */
+    public String addService(String serviceName, List<Source> sources) throws IOException {
+        if (layout == Layout.NESTED) {
+            String entryName = serviceName + CONFIG_PACKAGE_EXTENSION;
+            // 配置包本身已压缩，ZIP 条目只做存储级别的 deflate
+            zip.setLevel(Deflater.NO_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(entryName));
+            writeTar(zip, serviceName, sources, compression);
+            zip.closeEntry();
+            return entryName;
+        }
+
+        for (Source source : sources) {
+            String prefix = serviceName + "/" + source.getName();
+            walk(source.getPath(), new EntryVisitor() {
+                @Override
+                public void directory(Path dir, String relative, BasicFileAttributes attrs) throws IOException {
+                    ZipEntry entry = new ZipEntry(join(prefix, relative) + "/");
+                    entry.setLastModifiedTime(attrs.lastModifiedTime());
+                    zip.putNextEntry(entry);
+                    zip.closeEntry();
+                }
+
+                @Override
+                public void file(Path file, String relative, BasicFileAttributes attrs) throws IOException {
+                    ZipEntry entry = new ZipEntry(join(prefix, relative));
+                    entry.setLastModifiedTime(attrs.lastModifiedTime());
+                    zip.setLevel(compression.shouldStore(file.getFileName().toString()) ? Deflater.NO_COMPRESSION : zipLevel);
+                    zip.putNextEntry(entry);
+                    try (InputStream in = Files.newInputStream(file)) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1) {
+                            zip.write(buffer, 0, read);
+                        }
+                    } catch (IOException e) {
+                        log.warn("⚠️ 读取文件失败，已写入部分内容: {} - {}", file, e.getMessage());
+                    }
+                    zip.closeEntry();
+                }
+
+                @Override
+                public void symlink(Path link, String relative, Path target) {
+                    log.info("ℹ️ ZIP 不保存符号链接，跳过: {} -> {}", link, target);
+                }
+            });
+        }
+        return serviceName + "/";
+    }
+
+    /**
+     * 写入一个已经压缩好的条目（如由数据块拼装的配置包），条目内容不再二次压缩
+     */
+    public void addStoredEntry(String name, EntryContent content) throws IOException {
+        zip.setLevel(Deflater.NO_COMPRESSION);
+        zip.putNextEntry(new ZipEntry(name));
+        content.writeTo(new NonClosingOutputStream(zip));
+        zip.closeEntry();
+    }
+
+    /**
+     * 写完 ZIP 目录区，但不关闭底层输出流（HTTP 响应由容器负责关闭）
+     */
+    public void finish() throws IOException {
+        zip.finish();
+        zip.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+
+    /**
+     * 把服务的配置目录写成 tar.gz（默认压缩参数），包内结构为 {@code <服务名>/<目录名>/...}
+     * 输出流不会被关闭
+     */
+    public static void writeTarGz(OutputStream out, String serviceName, List<Source> sources) throws IOException {
+        writeTar(out, serviceName, sources, Compression.builder().build());
+    }
+
+    /**
+     * 按指定压缩参数把服务的配置目录写成 tar.gz，输出流不会被关闭
+     */
+    public static void writeTar(OutputStream out, String serviceName, List<Source> sources,
+                                Compression compression) throws IOException {
+        OutputStream target = new NonClosingOutputStream(out);
+        ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(target, compression.getExecutor(),
+                compression.getLevel(), compression.getBlockSize(), compression.getParallelism() * 2);
+        int defaultLevel = compression.getLevel();
+
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(gzip)) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+            tar.setAddPaxHeadersForNonAsciiNames(true);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (Source source : sources) {
+                String prefix = serviceName + "/" + source.getName();
+                walk(source.getPath(), new EntryVisitor() {
+                    @Override
+                    public void directory(Path dir, String relative, BasicFileAttributes attrs) throws IOException {
+                        TarArchiveEntry entry = new TarArchiveEntry(join(prefix, relative) + "/");
+                        entry.setModTime(attrs.lastModifiedTime().toMillis());
+                        tar.putArchiveEntry(entry);
+                        tar.closeArchiveEntry();
+                    }
+
+                    @Override
+                    public void file(Path file, String relative, BasicFileAttributes attrs) throws IOException {
+                        // 已压缩文件（图片、视频、压缩包）直接存储，其余恢复默认级别
+                        boolean store = attrs.size() >= STORE_THRESHOLD
+                                && compression.shouldStore(file.getFileName().toString());
+                        gzip.setLevel(store ? Deflater.NO_COMPRESSION : defaultLevel);
+                        TarArchiveEntry entry = new TarArchiveEntry(join(prefix, relative));
+                        entry.setSize(attrs.size());
+                        entry.setModTime(attrs.lastModifiedTime().toMillis());
+                        tar.putArchiveEntry(entry);
+                        copyExactly(file, attrs.size(), tar, buffer);
+                        tar.closeArchiveEntry();
+                    }
+
+                    @Override
+                    public void symlink(Path link, String relative, Path target) throws IOException {
+                        TarArchiveEntry entry = new TarArchiveEntry(join(prefix, relative), TarConstants.LF_SYMLINK);
+                        entry.setLinkName(target.toString());
+                        tar.putArchiveEntry(entry);
+                        tar.closeArchiveEntry();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * tar 条目头里已经写了大小，这里严格写入 size 字节：
+     * 文件在读取期间变长则截断，变短或读取失败则补零，保证包结构完整
+     */
+    private static void copyExactly(Path file, long size, OutputStream out, byte[] buffer) throws IOException {
+        long remaining = size;
+        try (InputStream in = Files.newInputStream(file)) {
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read == -1) {
+                    break;
+                }
+                out.write(buffer, 0, read);
+                remaining -= read;
+            }
+        } catch (IOException e) {
+            log.warn("⚠️ 读取文件失败，剩余部分以空字节填充: {} - {}", file, e.getMessage());
+        }
+        if (remaining > 0) {
+            Arrays.fill(buffer, (byte) 0);
+            while (remaining > 0) {
+                int chunk = (int) Math.min(buffer.length, remaining);
+                out.write(buffer, 0, chunk);
+                remaining -= chunk;
+            }
+        }
+    }
+
+    /**
+     * 遍历源路径（不跟随符号链接），按目录、普通文件、符号链接回调，其余类型跳过
+     */
+    public static void walk(Path root, EntryVisitor visitor) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS)) {
+            log.info("⚠️ 路径不存在，跳过: {}", root);
+            return;
+        }
+        if (!Files.isDirectory(root)) {
+            // 单个文件挂载：以文件名作为条目
+            BasicFileAttributes attrs = Files.readAttributes(root, BasicFileAttributes.class);
+            if (attrs.isRegularFile()) {
+                visitor.file(root, "", attrs);
+            }
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                visitor.directory(dir, relativize(root, dir), attrs);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String relative = relativize(root, file);
+                if (attrs.isRegularFile()) {
+                    visitor.file(file, relative, attrs);
+                } else if (attrs.isSymbolicLink()) {
+                    visitor.symlink(file, relative, Files.readSymbolicLink(file));
+                } else {
+                    log.info("⚠️ 跳过特殊文件 (套接字/管道/设备): {}", file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                log.warn("⚠️ 访问文件失败，跳过: {} - {}", file, exc.getMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static String relativize(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static String join(String prefix, String relative) {
+        return relative.isEmpty() ? prefix : prefix + "/" + relative;
+    }
+
+    /**
+     * 遍历回调，relative 为相对源路径的路径（源路径本身为空字符串）
+     */
+    public interface EntryVisitor {
+        void directory(Path dir, String relative, BasicFileAttributes attrs) throws IOException;
+
+        void file(Path file, String relative, BasicFileAttributes attrs) throws IOException;
+
+        void symlink(Path link, String relative, Path target) throws IOException;
+    }
+
+    /**
+     * 条目内容写入回调
+     */
+    public interface EntryContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 关闭时只 flush、不关闭底层流（内层 tar.gz 结束时 ZIP 还要继续写）
+     */
+    private static class NonClosingOutputStream extends OutputStream {
+        private final OutputStream delegate;
+
+        NonClosingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.flush();
+        }
+    }
+}
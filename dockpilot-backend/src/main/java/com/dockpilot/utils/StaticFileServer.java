@@ -0,0 +1,425 @@
+package com.dockpilot.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * 静态文件响应
+ * <p>
+ * 供下载包、背景图片、图标等接口直接把磁盘文件写入响应：
+ * <ul>
+ *   <li>强 ETag（inode + 修改时间 + 大小）、Last-Modified、Cache-Control</li>
+ *   <li>条件请求：If-None-Match / If-Modified-Since 返回 304，If-Match / If-Unmodified-Since 不满足返回 412</li>
+ *   <li>Range：单段返回 206，多段返回 multipart/byteranges，If-Range 不匹配时返回完整内容，越界返回 416</li>
+ *   <li>存在 .br / .gz 预压缩文件且客户端支持时直接返回预压缩版本</li>
+ *   <li>Tomcat 支持 sendfile 时交给容器零拷贝发送，否则用 FileChannel.transferTo 写出</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+public class StaticFileServer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 多段 Range 的段数上限，超过时返回完整内容
+     */
+    private static final int MAX_RANGES = 16;
+
+    /**
+     * Range 头无法满足（返回 416）
+     */
+    private static final List<long[]> UNSATISFIABLE = new ArrayList<>();
+
+    /**
+     * 预压缩版本：扩展名与 Content-Encoding
+     */
+    private static final String[][] PRECOMPRESSED = {{".br", "br"}, {".gz", "gzip"}};
+
+    /**
+     * 把文件写入响应
+     *
+     * @param file 文件路径
+     * @param contentType 内容类型
+     * @param cacheControl 缓存策略，可为 null
+     * @param contentDisposition Content-Disposition 头，可为 null
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response, Path file, String contentType,
+                      CacheControl cacheControl, String contentDisposition) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!attrs.isRegularFile()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        // 选择预压缩版本
+        Path body = file;
+        String encoding = null;
+        boolean hasVariants = false;
+        for (String[] variant : PRECOMPRESSED) {
+            Path candidate = file.resolveSibling(file.getFileName() + variant[0]);
+            BasicFileAttributes candidateAttrs = readIfFile(candidate);
+            if (candidateAttrs == null || candidateAttrs.lastModifiedTime().compareTo(attrs.lastModifiedTime()) < 0) {
+                continue;
+            }
+            hasVariants = true;
+            if (encoding == null && acceptsEncoding(request, variant[1])) {
+                body = candidate;
+                encoding = variant[1];
+                attrs = candidateAttrs;
+            }
+        }
+
+        long length = attrs.size();
+        long lastModified = attrs.lastModifiedTime().toMillis();
+        String etag = etag(attrs, encoding);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (cacheControl != null && cacheControl.getHeaderValue() != null) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        if (contentDisposition != null) {
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+        }
+        if (hasVariants) {
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (encoding != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding);
+        }
+
+        // 条件请求
+        if (!matchesPreconditions(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_PRECONDITION_FAILED);
+            return;
+        }
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        boolean head = "HEAD".equalsIgnoreCase(request.getMethod());
+        List<long[]> ranges = parseRanges(request, etag, lastModified, length);
+        if (ranges == UNSATISFIABLE) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        if (ranges == null) {
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType(contentType);
+            send(request, response, body, 0, length, head);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] range = ranges.get(0);
+            response.setContentType(contentType);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + range[0] + "-" + range[1] + "/" + length);
+            send(request, response, body, range[0], range[1] - range[0] + 1, head);
+            return;
+        }
+        sendMultipart(response, body, contentType, ranges, length, head);
+    }
+
+    /**
+     * 强 ETag：inode（fileKey）+ 修改时间 + 大小，预压缩版本追加编码后缀
+     */
+    private String etag(BasicFileAttributes attrs, String encoding) {
+        Object key = attrs.fileKey();
+        int inode = key != null ? key.hashCode() : 0;
+        String tag = Integer.toHexString(inode) + "-" + Long.toHexString(attrs.lastModifiedTime().toMillis())
+                + "-" + Long.toHexString(attrs.size());
+        return "\"" + (encoding != null ? tag + "-" + encoding : tag) + "\"";
+    }
+
+    /**
+     * If-Match / If-Unmodified-Since
+     */
+    private boolean matchesPreconditions(HttpServletRequest request, String etag, long lastModified) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null) {
+            return matchesAny(ifMatch, etag, false);
+        }
+        long ifUnmodifiedSince = dateHeader(request, HttpHeaders.IF_UNMODIFIED_SINCE);
+        return ifUnmodifiedSince < 0 || lastModified / 1000 <= ifUnmodifiedSince / 1000;
+    }
+
+    /**
+     * If-None-Match 优先于 If-Modified-Since
+     */
+    private boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String method = request.getMethod();
+        if (!"GET".equalsIgnoreCase(method) && !"HEAD".equalsIgnoreCase(method)) {
+            return false;
+        }
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag, true);
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private boolean matchesAny(String header, String etag, boolean weak) {
+        for (String candidate : header.split(",")) {
+            String value = candidate.trim();
+            if ("*".equals(value)) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                if (!weak) {
+                    continue;
+                }
+                value = value.substring(2);
+            }
+            if (value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 解析 Range 头
+     *
+     * @return null 表示返回完整内容，UNSATISFIABLE 表示 416，其余为按起点排序、合并后的 [start, end] 列表
+     */
+    private List<long[]> parseRanges(HttpServletRequest request, String etag, long lastModified, long length) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !header.startsWith("bytes=")) {
+            return null;
+        }
+
+        // If-Range 不匹配时忽略 Range
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null) {
+            String value = ifRange.trim();
+            if (value.startsWith("\"") || value.startsWith("W/")) {
+                if (!value.equals(etag)) {
+                    return null;
+                }
+            } else {
+                long date = dateHeader(request, HttpHeaders.IF_RANGE);
+                if (date < 0 || date / 1000 != lastModified / 1000) {
+                    return null;
+                }
+            }
+        }
+
+        List<long[]> ranges = new ArrayList<>();
+        for (String spec : header.substring("bytes=".length()).split(",")) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            try {
+                long start;
+                long end;
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0 || length == 0) {
+                        continue;
+                    }
+                    start = Math.max(0, length - suffix);
+                    end = length - 1;
+                } else {
+                    start = Long.parseLong(spec.substring(0, dash));
+                    String last = spec.substring(dash + 1);
+                    end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+                    if (end < start) {
+                        // 语法错误的 Range 按规范忽略
+                        return null;
+                    }
+                    if (start >= length) {
+                        continue;
+                    }
+                    end = Math.min(end, length - 1);
+                }
+                ranges.add(new long[]{start, end});
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (ranges.isEmpty()) {
+            return UNSATISFIABLE;
+        }
+        if (ranges.size() > MAX_RANGES) {
+            return null;
+        }
+
+        // 合并重叠或相邻的区间
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        List<long[]> merged = new ArrayList<>();
+        for (long[] range : ranges) {
+            long[] previous = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (previous != null && range[0] <= previous[1] + 1) {
+                previous[1] = Math.max(previous[1], range[1]);
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 发送文件的一段：优先交给 Tomcat sendfile，否则 transferTo 到响应流
+     */
+    private void send(HttpServletRequest request, HttpServletResponse response, Path file,
+                      long start, long count, boolean head) throws IOException {
+        response.setContentLengthLong(count);
+        if (head || count == 0) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            transfer(channel, start, count, Channels.newChannel(response.getOutputStream()));
+        } catch (IOException e) {
+            logClientAbort(file, e);
+        }
+    }
+
+    /**
+     * 多段 Range：multipart/byteranges
+     */
+    private void sendMultipart(HttpServletResponse response, Path file, String contentType,
+                               List<long[]> ranges, long length, boolean head) throws IOException {
+        String boundary = UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>();
+        long total = 0;
+        for (long[] range : ranges) {
+            byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + contentType + "\r\n"
+                    + "Content-Range: bytes " + range[0] + "-" + range[1] + "/" + length + "\r\n\r\n")
+                    .getBytes(StandardCharsets.ISO_8859_1);
+            partHeaders.add(partHeader);
+            total += partHeader.length + (range[1] - range[0] + 1);
+        }
+        byte[] end = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        total += end.length;
+
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(total);
+        if (head) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ServletOutputStream out = response.getOutputStream();
+            WritableByteChannel target = Channels.newChannel(out);
+            for (int i = 0; i < ranges.size(); i++) {
+                long[] range = ranges.get(i);
+                out.write(partHeaders.get(i));
+                transfer(channel, range[0], range[1] - range[0] + 1, target);
+            }
+            out.write(end);
+        } catch (IOException e) {
+            logClientAbort(file, e);
+        }
+    }
+
+    private static void transfer(FileChannel channel, long position, long count, WritableByteChannel target) throws IOException {
+        long end = position + count;
+        while (position < end) {
+            long sent = channel.transferTo(position, end - position, target);
+            if (sent <= 0) {
+                throw new IOException("文件在发送过程中被截断");
+            }
+            position += sent;
+        }
+    }
+
+    private static void logClientAbort(Path file, IOException e) {
+        // 客户端断开（暂停下载、关闭页面）很常见，不按错误处理
+        log.debug("发送文件中断: {} - {}", file, e.getMessage());
+    }
+
+    private static boolean acceptsEncoding(HttpServletRequest request, String encoding) {
+        String header = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (header == null) {
+            return false;
+        }
+        for (String part : header.toLowerCase(Locale.ROOT).split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!tokens[0].trim().equals(encoding)) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim();
+                if (param.startsWith("q=") && qValue(param.substring(2)) <= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 解析 q 值，格式错误时按不可接受处理
+     */
+    private static double qValue(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static BasicFileAttributes readIfFile(Path path) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            return attrs.isRegularFile() ? attrs : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
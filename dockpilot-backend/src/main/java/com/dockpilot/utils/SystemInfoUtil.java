@@ -4,18 +4,14 @@ import lombok.experimental.UtilityClass;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
-import java.io.InputStreamReader;
 import java.lang.management.ManagementFactory;
 import java.lang.management.MemoryMXBean;
-import java.lang.management.OperatingSystemMXBean;
 import java.net.InetAddress;
-import java.net.NetworkInterface;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Enumeration;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.Map;
 
 /**
  * 系统信息获取工具类
@@ -24,28 +20,6 @@ import java.util.Map;
 @UtilityClass
 public class SystemInfoUtil {
 
-    // 网络统计缓存，用于计算网速
-    private static final Map<String, NetworkStats> networkStatsCache = new ConcurrentHashMap<>();
-    
-    /**
-     * 网络统计数据结构
-     */
-    private static class NetworkStats {
-        private final long rxBytes;
-        private final long txBytes;
-        private final long timestamp;
-        
-        public NetworkStats(long rxBytes, long txBytes, long timestamp) {
-            this.rxBytes = rxBytes;
-            this.txBytes = txBytes;
-            this.timestamp = timestamp;
-        }
-        
-        public long getRxBytes() { return rxBytes; }
-        public long getTxBytes() { return txBytes; }
-        public long getTimestamp() { return timestamp; }
-    }
-
     /**
      * 获取主机名
      */
@@ -107,17 +81,18 @@ public class SystemInfoUtil {
     }
 
     /**
-     * 获取内核版本
+     * 获取内核版本（读取 /proc/sys/kernel/osrelease，与 uname -r 一致）
      */
     public String getKernelVersion() {
         try {
-            Process process = Runtime.getRuntime().exec("uname -r");
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                return reader.readLine();
+            Path osRelease = Paths.get("/proc/sys/kernel/osrelease");
+            if (Files.exists(osRelease)) {
+                return Files.readString(osRelease).trim();
             }
         } catch (Exception e) {
-            return System.getProperty("os.version", "未知");
+            // 忽略，使用系统属性
         }
+        return System.getProperty("os.version", "未知");
     }
 
     /**
@@ -227,42 +202,22 @@ public class SystemInfoUtil {
     }
 
     /**
-     * 获取磁盘使用信息
+     * 获取磁盘使用信息（根文件系统，statvfs）
      */
     public DiskInfo getDiskInfo() {
         try {
-            // 尝试使用df命令
-            Process process = Runtime.getRuntime().exec("df /");
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                reader.readLine(); // 跳过标题行
-                String line = reader.readLine();
-                if (line != null) {
-                    String[] parts = line.trim().split("\\s+");
-                    if (parts.length >= 5) {
-                        String usagePercent = parts[4]; // 使用百分比
-                        String available = parts[3]; // 可用空间
-                        
-                        // 格式化可用空间
-                        String freeSpace = formatDiskSpace(Long.parseLong(available));
-                        
-                        return new DiskInfo(usagePercent, freeSpace);
-                    }
-                }
-            }
-            
-            // 备选方案：使用Java File API
-            java.io.File root = new java.io.File("/");
-            long totalSpace = root.getTotalSpace();
-            long freeSpace = root.getFreeSpace();
-            
+            FileStore store = Files.getFileStore(Paths.get("/"));
+            long totalSpace = store.getTotalSpace();
+            long freeSpace = store.getUsableSpace();
+
             if (totalSpace > 0) {
-                long usedSpace = totalSpace - freeSpace;
-                int usagePercent = (int) ((usedSpace * 100) / totalSpace);
-                String freeSpaceStr = formatBytes(freeSpace);
-                
-                return new DiskInfo(usagePercent + "%", freeSpaceStr);
+                // 与 df 一致：已用 / (已用 + 普通用户可用)，不计入保留块
+                long usedSpace = totalSpace - store.getUnallocatedSpace();
+                long base = usedSpace + freeSpace;
+                int usagePercent = base > 0 ? (int) Math.ceil(usedSpace * 100.0 / base) : 0;
+                return new DiskInfo(usagePercent + "%", formatBytes(freeSpace));
             }
-            
+
             return new DiskInfo("0%", "未知");
         } catch (Exception e) {
             LogUtil.logSysError("获取磁盘信息失败: " + e.getMessage());
@@ -271,246 +226,37 @@ public class SystemInfoUtil {
     }
 
     /**
-     * 获取网络信息
-     */
-    public NetworkInfo getNetworkInfo() {
-        try {
-            String ipAddress = "未知";
-            String gateway = "未知";
-            
-            // 获取本机IP地址
-            Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            while (interfaces.hasMoreElements()) {
-                NetworkInterface iface = interfaces.nextElement();
-                if (iface.isLoopback() || !iface.isUp()) continue;
-                
-                Enumeration<InetAddress> addresses = iface.getInetAddresses();
-                while (addresses.hasMoreElements()) {
-                    InetAddress addr = addresses.nextElement();
-                    if (addr.getHostAddress().contains(":")) continue; // 跳过IPv6
-                    if (!addr.getHostAddress().startsWith("127.")) {
-                        ipAddress = addr.getHostAddress();
-                        break;
-                    }
-                }
-                if (!"未知".equals(ipAddress)) break;
-            }
-            
-            // 获取默认网关
-            try {
-                Process process = Runtime.getRuntime().exec("ip route show default");
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line = reader.readLine();
-                    if (line != null && line.contains("via")) {
-                        String[] parts = line.split("\\s+");
-                        for (int i = 0; i < parts.length - 1; i++) {
-                            if ("via".equals(parts[i])) {
-                                gateway = parts[i + 1];
-                                break;
-                            }
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                // 忽略网关获取失败
-            }
-            
-            return new NetworkInfo(ipAddress, gateway);
-        } catch (Exception e) {
-            LogUtil.logSysError("获取网络信息失败: " + e.getMessage());
-            return new NetworkInfo("未知", "未知");
-        }
-    }
-
-    /**
-     * 获取CPU使用率
+     * 从 /proc/net/route 读取默认网关（目标为 00000000 的路由），与 ip route show default 一致
+     *
+     * @return 网关地址，没有默认路由时返回 null
      */
-    public Double getCpuUsage() {
-        try {
-            OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
-            
-            // 如果是com.sun.management.OperatingSystemMXBean，可以获取更详细信息
-            if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
-                com.sun.management.OperatingSystemMXBean sunOsBean = 
-                    (com.sun.management.OperatingSystemMXBean) osBean;
-                double cpuLoad = sunOsBean.getProcessCpuLoad() * 100;
-                if (cpuLoad >= 0) {
-                    return Double.parseDouble(String.format("%.2f", cpuLoad));
-                }
-            }
-            
-            // 备选方案：使用系统命令
-            Process process = Runtime.getRuntime().exec("cat /proc/loadavg");
-            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                String line = reader.readLine();
-                if (line != null) {
-                    String[] parts = line.split(" ");
-                    if (parts.length > 0) {
-                        double load = Double.parseDouble(parts[0]);
-                        // 简单计算：负载 / CPU核心数 * 100
-                        double cpuUsage = (load / getCpuCores()) * 100;
-                        return Double.parseDouble(String.format("%.2f", Math.min(cpuUsage, 100.0)));
-                    }
-                }
-            }
-            
-            return 0.0;
-        } catch (Exception e) {
-            LogUtil.logSysError("获取CPU使用率失败: " + e.getMessage());
-            return 0.0;
+    public String getDefaultGateway() {
+        Path routeFile = Paths.get("/proc/net/route");
+        if (!Files.exists(routeFile)) {
+            return null;
         }
-    }
-
-    /**
-     * 获取网络速度信息
-     */
-    public NetworkSpeedInfo getNetworkSpeed() {
-        try {
-            long totalRxBytes = 0;
-            long totalTxBytes = 0;
-            
-            // 检测操作系统类型
-            String osName = System.getProperty("os.name").toLowerCase();
-            
-            if (osName.contains("linux")) {
-                // Linux系统：读取 /proc/net/dev
-                if (Files.exists(Paths.get("/proc/net/dev"))) {
-                    try (BufferedReader reader = new BufferedReader(new FileReader("/proc/net/dev"))) {
-                        String line;
-                        reader.readLine(); // 跳过头部
-                        reader.readLine(); // 跳过分割线
-                        
-                        while ((line = reader.readLine()) != null) {
-                            String[] parts = line.trim().split("\\s+");
-                            if (parts.length >= 10) {
-                                String interfaceName = parts[0].replace(":", "");
-                                
-                                // 跳过回环接口和虚拟接口
-                                if (interfaceName.equals("lo") || 
-                                    interfaceName.startsWith("docker") || 
-                                    interfaceName.startsWith("br-") ||
-                                    interfaceName.startsWith("veth")) {
-                                    continue;
-                                }
-                                
-                                try {
-                                    // 接收字节数（第1列）和发送字节数（第9列）
-                                    long rxBytes = Long.parseLong(parts[1]);
-                                    long txBytes = Long.parseLong(parts[9]);
-                                    
-                                    totalRxBytes += rxBytes;
-                                    totalTxBytes += txBytes;
-                                } catch (NumberFormatException e) {
-                                    // 忽略解析错误的行
-                                }
-                            }
-                        }
-                    }
-                } else {
-                    return new NetworkSpeedInfo("Linux系统文件不存在", "Linux系统文件不存在", 0.0, 0.0);
-                }
-            } else if (osName.contains("mac") || osName.contains("darwin")) {
-                // macOS系统：使用 netstat -ib 命令
-                Process process = Runtime.getRuntime().exec("netstat -ib");
-                try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    reader.readLine(); // 跳过头部
-                    
-                    while ((line = reader.readLine()) != null) {
-                        String[] parts = line.trim().split("\\s+");
-                        if (parts.length >= 7) {
-                            String interfaceName = parts[0];
-                            
-                            // 跳过回环接口、虚拟接口和无效接口
-                            if (interfaceName.equals("lo0") || 
-                                interfaceName.startsWith("utun") ||
-                                interfaceName.startsWith("awdl") ||
-                                interfaceName.startsWith("llw") ||
-                                interfaceName.startsWith("bridge") ||
-                                interfaceName.startsWith("vmenet") ||
-                                interfaceName.startsWith("anpi") ||
-                                interfaceName.startsWith("gif") ||
-                                interfaceName.startsWith("stf") ||
-                                interfaceName.contains("*") ||
-                                interfaceName.contains("#") ||
-                                interfaceName.contains(":")
-                                ) {
-                                continue;
-                            }
-                            
-                            try {
-                                // netstat -ib 格式: Name Mtu Network Address Ipkts Ierrs Ibytes Opkts Oerrs Obytes Coll
-                                // Ibytes在第6列（索引6），Obytes在第9列（索引9）
-                                if (parts.length >= 10) {
-                                    long rxBytes = Long.parseLong(parts[6]); // Ibytes
-                                    long txBytes = Long.parseLong(parts[9]); // Obytes
-                                    
-                                    totalRxBytes += rxBytes;
-                                    totalTxBytes += txBytes;
-                                }
-                            } catch (NumberFormatException e) {
-                                // 忽略解析错误的行
-                            }
-                        }
-                    }
-                    process.waitFor();
-                }
-            } else {
-                return new NetworkSpeedInfo("不支持的操作系统", "不支持的操作系统", 0.0, 0.0);
-            }
-            
-            long currentTime = System.currentTimeMillis();
-            String cacheKey = "total_network";
-            
-            // 获取上次的统计数据
-            NetworkStats lastStats = networkStatsCache.get(cacheKey);
-            
-            if (lastStats != null) {
-                // 计算时间差（秒）
-                double timeDiffSeconds = (currentTime - lastStats.getTimestamp()) / 1000.0;
-                
-                // 确保时间差足够大，避免计算误差
-                if (timeDiffSeconds >= 1.0) {
-                    // 计算字节差
-                    long rxDiff = totalRxBytes - lastStats.getRxBytes();
-                    long txDiff = totalTxBytes - lastStats.getTxBytes();
-                    
-                    // 防止负数（可能因为网络接口重置）
-                    if (rxDiff >= 0 && txDiff >= 0) {
-                        // 计算速度（字节/秒）
-                        double downloadSpeed = rxDiff / timeDiffSeconds;
-                        double uploadSpeed = txDiff / timeDiffSeconds;
-                        
-                        // 更新缓存
-                        networkStatsCache.put(cacheKey, new NetworkStats(totalRxBytes, totalTxBytes, currentTime));
-                        
-                        return new NetworkSpeedInfo(
-                            formatNetworkSpeed(downloadSpeed), 
-                            formatNetworkSpeed(uploadSpeed),
-                            downloadSpeed,
-                            uploadSpeed
-                        );
-                    }
+        try (BufferedReader reader = Files.newBufferedReader(routeFile)) {
+            reader.readLine(); // 跳过标题行
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                // Iface Destination Gateway Flags ...，地址为小端序十六进制
+                if (parts.length >= 3 && "00000000".equals(parts[1]) && !"00000000".equals(parts[2])) {
+                    long value = Long.parseLong(parts[2], 16);
+                    return (value & 0xFF) + "." + ((value >> 8) & 0xFF) + "."
+                            + ((value >> 16) & 0xFF) + "." + ((value >> 24) & 0xFF);
                 }
-                
-                // 时间差太小或数据异常，返回上次的结果
-                return new NetworkSpeedInfo("计算中...", "计算中...", 0.0, 0.0);
             }
-            
-            // 第一次获取，保存当前数据，返回初始化状态
-            networkStatsCache.put(cacheKey, new NetworkStats(totalRxBytes, totalTxBytes, currentTime));
-            return new NetworkSpeedInfo("初始化中...", "初始化中...", 0.0, 0.0);
-            
         } catch (Exception e) {
-            LogUtil.logSysError("获取网络速度失败: " + e.getMessage());
-            return new NetworkSpeedInfo("获取失败", "获取失败", 0.0, 0.0);
+            // 忽略网关获取失败
         }
+        return null;
     }
 
     /**
      * 格式化网络速度显示
      */
-    private String formatNetworkSpeed(double bytesPerSecond) {
+    public String formatNetworkSpeed(double bytesPerSecond) {
         if (bytesPerSecond < 0) {
             bytesPerSecond = 0;
         }
@@ -526,19 +272,7 @@ public class SystemInfoUtil {
         }
     }
 
-    private String formatDiskSpace(long kbytes) {
-        if (kbytes >= 1024 * 1024 * 1024) { // GB
-            return String.format("%.1fTB", kbytes / (1024.0 * 1024.0 * 1024.0));
-        } else if (kbytes >= 1024 * 1024) { // GB
-            return String.format("%.1fGB", kbytes / (1024.0 * 1024.0));
-        } else if (kbytes >= 1024) { // MB
-            return String.format("%.1fMB", kbytes / 1024.0);
-        } else {
-            return kbytes + "KB";
-        }
-    }
-
-    private String formatBytes(long bytes) {
+    public String formatBytes(long bytes) {
         if (bytes >= 1024L * 1024L * 1024L * 1024L) { // TB
             return String.format("%.1fTB", bytes / (1024.0 * 1024.0 * 1024.0 * 1024.0));
         } else if (bytes >= 1024L * 1024L * 1024L) { // GB
@@ -587,47 +321,4 @@ public class SystemInfoUtil {
         public String getUsagePercent() { return usagePercent; }
         public String getFreeSpace() { return freeSpace; }
     }
-
-    /**
-     * 网络信息类
-     */
-    public static class NetworkInfo {
-        private final String ipAddress;
-        private final String gateway;
-
-        public NetworkInfo(String ipAddress, String gateway) {
-            this.ipAddress = ipAddress;
-            this.gateway = gateway;
-        }
-
-        public String getIpAddress() { return ipAddress; }
-        public String getGateway() { return gateway; }
-    }
-
-    /**
-     * 网络速度信息类
-     */
-    public static class NetworkSpeedInfo {
-        private final String downloadSpeedFormatted;
-        private final String uploadSpeedFormatted;
-        private final double downloadSpeedRaw;
-        private final double uploadSpeedRaw;
-
-        public NetworkSpeedInfo(String downloadSpeedFormatted, String uploadSpeedFormatted, 
-                              double downloadSpeedRaw, double uploadSpeedRaw) {
-            this.downloadSpeedFormatted = downloadSpeedFormatted;
-            this.uploadSpeedFormatted = uploadSpeedFormatted;
-            this.downloadSpeedRaw = downloadSpeedRaw;
-            this.uploadSpeedRaw = uploadSpeedRaw;
-        }
-
-        public String getDownloadSpeedFormatted() { return downloadSpeedFormatted; }
-        public String getUploadSpeedFormatted() { return uploadSpeedFormatted; }
-        public double getDownloadSpeedRaw() { return downloadSpeedRaw; }
-        public double getUploadSpeedRaw() { return uploadSpeedRaw; }
-        
-        public String getCombinedSpeed() {
-            return "↓" + downloadSpeedFormatted + " ↑" + uploadSpeedFormatted;
-        }
-    }
-} 
\ No newline at end of file
+}
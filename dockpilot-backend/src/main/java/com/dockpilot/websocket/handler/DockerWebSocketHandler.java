@@ -1,15 +1,18 @@
 package com.dockpilot.websocket.handler;
 
 import com.alibaba.fastjson.JSON;
+import com.dockpilot.common.event.WebSocketSessionClosedEvent;
 import com.dockpilot.model.MessageType;
 import com.dockpilot.websocket.manager.WebSocketSessionManager;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
 import com.dockpilot.websocket.router.MessageRouter;
+import com.dockpilot.websocket.sender.EncodedMessage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
@@ -37,6 +40,9 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private WebSocketSessionManager sessionManager;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Operation(
             summary = "WebSocket连接建立",
             description = "当客户端建立WebSocket连接时调用"
@@ -58,8 +64,12 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
             @Parameter(description = "WebSocket会话") WebSocketSession session,
             @Parameter(description = "接收到的消息") TextMessage message
     ) {
+        // 发送必须经过登记的并发包装，不能直接使用容器传入的原始会话
+        session = sessionManager.decorated(session);
+        // 只解析一次，出错时复用已解析的消息获取 taskId
+        DockerWebSocketMessage wsMessage = null;
         try {
-            DockerWebSocketMessage wsMessage = JSON.parseObject(message.getPayload(), DockerWebSocketMessage.class);
+            wsMessage = JSON.parseObject(message.getPayload(), DockerWebSocketMessage.class);
             
             // 注册任务到会话的映射
             if (wsMessage.getTaskId() != null) {
@@ -69,20 +79,12 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
             messageRouter.route(session, wsMessage);
         } catch (Exception e) {
             log.error("处理消息时发生错误", e);
-            // 尝试获取 taskId
-            String taskId = "unknown";
-            try {
-                DockerWebSocketMessage wsMessage = JSON.parseObject(message.getPayload(), DockerWebSocketMessage.class);
-                if (wsMessage.getTaskId() != null) {
-                    taskId = wsMessage.getTaskId();
-                }
-            } catch (Exception ignore) {
-            }
+            String taskId = wsMessage != null && wsMessage.getTaskId() != null ? wsMessage.getTaskId() : "unknown";
             Map<String, Object> errorData = new HashMap<>();
             errorData.put("message", e.getMessage());
             DockerWebSocketMessage errorResponse = new DockerWebSocketMessage(MessageType.ERROR.name(), taskId, errorData);
             try {
-                session.sendMessage(new TextMessage(JSON.toJSONString(errorResponse)));
+                session.sendMessage(EncodedMessage.of(errorResponse).frameFor(session));
             } catch (Exception sendEx) {
                 log.warn("发送错误响应失败", sendEx);
             }
@@ -99,6 +101,7 @@ public class DockerWebSocketHandler extends TextWebSocketHandler {
             @Parameter(description = "关闭状态") CloseStatus status
     ) {
         sessionManager.removeSession(session.getId());
+        eventPublisher.publishEvent(new WebSocketSessionClosedEvent(session.getId()));
         log.info("WebSocket连接已关闭: {}", session.getId());
     }
 } 
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.dockpilot.websocket.manager;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -15,6 +16,16 @@ import java.util.concurrent.ConcurrentMap;
 @Component
 public class WebSocketSessionManager {
 
+    /**
+     * 单次发送的最长耗时，超过后关闭会话（慢客户端）
+     */
+    private static final int SEND_TIME_LIMIT_MS = 10_000;
+
+    /**
+     * 发送缓冲上限，积压超过后关闭会话
+     */
+    private static final int SEND_BUFFER_SIZE_LIMIT = 4 * 1024 * 1024;
+
     /**
      * 存储所有活跃的 WebSocket 会话
      * Key: sessionId, Value: WebSocketSession
@@ -34,14 +45,32 @@ public class WebSocketSessionManager {
 
     /**
      * 添加新的 WebSocket 会话
+     * <p>
+     * 原始会话不允许并发 sendMessage，而 stats 流回调、日志刷新、拓扑推送等会在不同线程上推送，
+     * 因此登记的是 {@link ConcurrentWebSocketSessionDecorator} 包装后的会话，所有发送都必须经过它。
      *
      * @param session WebSocket 会话
+     * @return 包装后的线程安全会话
      */
-    public void addSession(WebSocketSession session) {
+    public WebSocketSession addSession(WebSocketSession session) {
         String sessionId = session.getId();
-        activeSessions.put(sessionId, session);
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, SEND_TIME_LIMIT_MS, SEND_BUFFER_SIZE_LIMIT);
+        activeSessions.put(sessionId, decorated);
         latestSessionId = sessionId;
         log.info("WebSocket 会话已添加: {}, 当前活跃会话数: {}", sessionId, activeSessions.size());
+        return decorated;
+    }
+
+    /**
+     * 获取会话登记的线程安全包装，未登记时（连接已关闭）返回原会话
+     *
+     * @param session 容器回调中拿到的原始会话
+     * @return 用于发送的会话
+     */
+    public WebSocketSession decorated(WebSocketSession session) {
+        WebSocketSession decorated = activeSessions.get(session.getId());
+        return decorated != null ? decorated : session;
     }
 
     /**
@@ -146,6 +175,17 @@ public class WebSocketSessionManager {
         return null;
     }
 
+    /**
+     * 根据会话ID获取活跃的会话
+     *
+     * @param sessionId 会话ID
+     * @return 打开状态的会话，不存在或已关闭时返回 null
+     */
+    public WebSocketSession getSession(String sessionId) {
+        WebSocketSession session = activeSessions.get(sessionId);
+        return session != null && session.isOpen() ? session : null;
+    }
+
     /**
      * 获取活跃会话数量
      *
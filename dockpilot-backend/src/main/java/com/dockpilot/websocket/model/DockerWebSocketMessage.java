@@ -1,9 +1,15 @@
 package com.dockpilot.websocket.model;
 
 import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.annotation.JSONField;
+import com.alibaba.fastjson.parser.ParserConfig;
+import com.alibaba.fastjson.util.TypeUtils;
 import com.dockpilot.model.MessageType;
 import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 
 import java.io.Serializable;
 
@@ -87,6 +93,14 @@ public class DockerWebSocketMessage implements Serializable {
     )
     private Integer progress;
 
+    /**
+     * 解析后的消息类型（仅在服务端内部使用，不参与序列化）
+     */
+    @JSONField(serialize = false, deserialize = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient MessageType messageType;
+
     /**
      * 无参构造函数
      */
@@ -141,6 +155,42 @@ public class DockerWebSocketMessage implements Serializable {
         return new DockerWebSocketMessage(MessageType.LOG.name(), taskId, logMessage);
     }
 
+    /**
+     * 设置消息类型，同时清除已解析的枚举缓存
+     */
+    public void setType(String type) {
+        this.type = type;
+        this.messageType = null;
+    }
+
+    /**
+     * 获取消息类型枚举，首次调用时解析并缓存
+     *
+     * @return 消息类型，未知类型返回 null
+     */
+    public MessageType messageType() {
+        if (messageType == null && type != null) {
+            messageType = MessageType.fromName(type);
+        }
+        return messageType;
+    }
+
+    /**
+     * 将消息数据绑定为指定的类型
+     *
+     * @param payloadType 数据体类型
+     * @return 绑定后的数据体，data 为空时返回 null
+     */
+    public <T> T bindData(Class<T> payloadType) {
+        if (data == null) {
+            return null;
+        }
+        if (payloadType.isInstance(data)) {
+            return payloadType.cast(data);
+        }
+        return TypeUtils.cast(data, payloadType, ParserConfig.getGlobalInstance());
+    }
+
     public String toJson() {
         return JSON.toJSONString(this);
     }
@@ -0,0 +1,26 @@
+package com.dockpilot.websocket.model.payload;
+
+import lombok.Data;
+
+/**
+ * 应用安装消息的数据体
+ * 用于 APP_INSTALL 消息的 data 字段绑定
+ */
+@Data
+public class AppInstallPayload {
+
+    /**
+     * 应用ID
+     */
+    private Long appId;
+
+    /**
+     * 应用名称
+     */
+    private String appName;
+
+    /**
+     * YAML配置内容
+     */
+    private String yamlContent;
+}
@@ -0,0 +1,44 @@
+package com.dockpilot.websocket.model.payload;
+
+import com.dockpilot.model.JsonContainerRequest;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 容器类消息的数据体
+ * 用于 CONTAINER_* 消息的 data 字段绑定
+ */
+@Data
+public class ContainerPayload {
+
+    /**
+     * 容器ID
+     */
+    private String containerId;
+
+    /**
+     * 容器ID列表（CONTAINER_STATS_SUBSCRIBE / CONTAINER_STATS_UNSUBSCRIBE 批量操作）
+     */
+    private List<String> containerIds;
+
+    /**
+     * 容器配置（CONTAINER_UPDATE 时携带，为空表示仅更新镜像）
+     */
+    private JsonContainerRequest config;
+
+    /**
+     * Web访问地址（CONTAINER_UPDATE_INFO）
+     */
+    private String webUrl;
+
+    /**
+     * 图标地址（CONTAINER_UPDATE_INFO）
+     */
+    private String iconUrl;
+
+    /**
+     * 日志流ID（CONTAINER_LOGS_STOP）
+     */
+    private String streamId;
+}
@@ -0,0 +1,18 @@
+package com.dockpilot.websocket.model.payload;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 目录大小统计消息的数据体
+ * 用于 DIRECTORY_SIZE 消息的 data 字段绑定
+ */
+@Data
+public class DirectorySizePayload {
+
+    /**
+     * 要统计的宿主机路径
+     */
+    private List<String> paths;
+}
@@ -0,0 +1,36 @@
+package com.dockpilot.websocket.model.payload;
+
+import lombok.Data;
+
+/**
+ * 镜像类消息的数据体
+ * 用于 IMAGE_* / PULL_IMAGE 消息的 data 字段绑定
+ */
+@Data
+public class ImagePayload {
+
+    /**
+     * 镜像ID（IMAGE_DETAIL / IMAGE_DELETE）
+     */
+    private String imageId;
+
+    /**
+     * 删除镜像时是否同时删除状态记录，默认删除
+     */
+    private Boolean removeStatus;
+
+    /**
+     * 镜像名称（IMAGE_UPDATE）
+     */
+    private String image;
+
+    /**
+     * 镜像标签（IMAGE_UPDATE）
+     */
+    private String tag;
+
+    /**
+     * 完整镜像名称，如 nginx:latest（PULL_IMAGE）
+     */
+    private String imageName;
+}
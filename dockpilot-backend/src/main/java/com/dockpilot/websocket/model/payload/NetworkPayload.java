@@ -0,0 +1,16 @@
+package com.dockpilot.websocket.model.payload;
+
+import lombok.Data;
+
+/**
+ * 网络类消息的数据体
+ * 用于 NETWORK_* 消息的 data 字段绑定
+ */
+@Data
+public class NetworkPayload {
+
+    /**
+     * 网络ID
+     */
+    private String networkId;
+}
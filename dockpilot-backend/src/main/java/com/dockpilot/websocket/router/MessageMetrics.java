@@ -0,0 +1,142 @@
+package com.dockpilot.websocket.router;
+
+import com.dockpilot.model.MessageType;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket消息统计
+ * 按消息类型记录请求数、完成数、错误数和处理耗时
+ * <p>
+ * 带 taskId 的请求大多交给异步任务处理，分发返回时任务还没有结束：
+ * 分发时登记开始时间，任务发送 COMPLETE / ERROR 时才记录耗时和结果。
+ */
+@Component
+public class MessageMetrics {
+
+    /**
+     * 未结束任务数超过该值时清理过期登记（有些请求不会发送 COMPLETE / ERROR）
+     */
+    private static final int MAX_PENDING = 10000;
+
+    /**
+     * 登记保留时间，超过后视为不会结束，不再计入耗时
+     */
+    private static final long PENDING_TTL_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+    private final Map<MessageType, Stats> statsByType = new EnumMap<>(MessageType.class);
+
+    /**
+     * 未结束的任务，taskId -> 登记
+     */
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    public MessageMetrics() {
+        // 预先为所有类型创建计数器，运行期只读，无需加锁
+        for (MessageType type : MessageType.values()) {
+            statsByType.put(type, new Stats());
+        }
+    }
+
+    /**
+     * 记录收到一个请求；带 taskId 时登记开始时间，等待 {@link #finished} 记录结果
+     *
+     * @param type        消息类型
+     * @param taskId      任务ID，可为空
+     * @param startNanos  开始时间（System.nanoTime）
+     */
+    public void started(MessageType type, String taskId, long startNanos) {
+        statsByType.get(type).count.increment();
+        if (taskId == null) {
+            return;
+        }
+        if (pending.size() >= MAX_PENDING) {
+            pending.values().removeIf(item -> startNanos - item.startNanos > PENDING_TTL_NANOS);
+        }
+        pending.put(taskId, new Pending(type, startNanos));
+    }
+
+    /**
+     * 任务结束（发送 COMPLETE / ERROR，或分发时抛出异常），每个任务只记录一次
+     *
+     * @param taskId 任务ID
+     * @param failed 是否失败
+     */
+    public void finished(String taskId, boolean failed) {
+        if (taskId == null) {
+            return;
+        }
+        Pending item = pending.remove(taskId);
+        if (item != null) {
+            record(item.type, System.nanoTime() - item.startNanos, failed);
+        }
+    }
+
+    /**
+     * 记录一次已结束的处理（不带 taskId 的请求在分发返回时结束）
+     *
+     * @param type         消息类型
+     * @param elapsedNanos 处理耗时（纳秒）
+     * @param failed       是否处理失败
+     */
+    public void record(MessageType type, long elapsedNanos, boolean failed) {
+        Stats stats = statsByType.get(type);
+        stats.completed.increment();
+        stats.totalNanos.add(elapsedNanos);
+        stats.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    /**
+     * 获取已处理过的消息类型的统计快照
+     *
+     * @return 消息类型 -> 统计数据
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        statsByType.forEach((type, stats) -> {
+            long count = stats.count.sum();
+            if (count == 0) {
+                return;
+            }
+            long completed = stats.completed.sum();
+            long totalNanos = stats.totalNanos.sum();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("count", count);
+            item.put("completed", completed);
+            item.put("errors", stats.errors.sum());
+            item.put("totalMillis", TimeUnit.NANOSECONDS.toMillis(totalNanos));
+            item.put("avgMillis", completed == 0 ? 0d : totalNanos / (double) completed / 1_000_000d);
+            item.put("maxMillis", stats.maxNanos.get() / 1_000_000d);
+            result.put(type.name(), item);
+        });
+        return result;
+    }
+
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+    }
+
+    private static final class Pending {
+        private final MessageType type;
+        private final long startNanos;
+
+        private Pending(MessageType type, long startNanos) {
+            this.type = type;
+            this.startNanos = startNanos;
+        }
+    }
+}
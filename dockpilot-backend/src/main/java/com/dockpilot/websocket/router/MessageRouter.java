@@ -1,72 +1,100 @@
 package com.dockpilot.websocket.router;
 
-import com.alibaba.fastjson.JSON;
+import com.dockpilot.common.annotation.HandlesMessage;
 import com.dockpilot.model.MessageType;
-//import com.dockpilot.service.websocket.AppStoreService;
-import com.dockpilot.service.websocket.ApplicationWebSocketService;
-import com.dockpilot.service.websocket.ContainerWebSocketService;
-import com.dockpilot.service.websocket.ImageWebSocketService;
-import com.dockpilot.service.websocket.NetworkWebSocketService;
-import com.dockpilot.service.websocket.SystemWebSocketService;
+import com.dockpilot.service.websocket.BaseService;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.sender.EncodedMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
+import javax.annotation.PostConstruct;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 消息路由器
  * 负责消息的路由和分发
+ * <p>
+ * 启动时扫描所有标注了 {@link HandlesMessage} 的 {@link BaseService}，
+ * 构建 消息类型 -> 服务 的分发表，运行期按枚举直接查表分发。
  */
 @Slf4j
 @Component
 public class MessageRouter {
 
     @Autowired
-    private ContainerWebSocketService containerService;
-
-    @Autowired
-    private ImageWebSocketService imageService;
-//
-//    @Autowired
-//    private AppStoreService appStoreService;
+    private List<BaseService> services;
 
     @Autowired
-    private ApplicationWebSocketService applicationService;
+    private MessageMetrics messageMetrics;
 
-    @Autowired
-    private NetworkWebSocketService networkService;
+    /**
+     * 消息分发表，启动后只读
+     */
+    private final Map<MessageType, BaseService> handlers = new EnumMap<>(MessageType.class);
 
-    @Autowired
-    private SystemWebSocketService systemService;
+    /**
+     * 根据服务上的 @HandlesMessage 注解构建分发表
+     */
+    @PostConstruct
+    public void init() {
+        for (BaseService service : services) {
+            Class<?> targetClass = AopUtils.getTargetClass(service);
+            HandlesMessage mapping = AnnotationUtils.findAnnotation(targetClass, HandlesMessage.class);
+            if (mapping == null) {
+                log.warn("WebSocket服务未声明处理的消息类型，已忽略: {}", targetClass.getSimpleName());
+                continue;
+            }
+            for (MessageType type : mapping.value()) {
+                BaseService previous = handlers.putIfAbsent(type, service);
+                if (previous != null) {
+                    throw new IllegalStateException("消息类型 " + type + " 被重复注册: "
+                            + AopUtils.getTargetClass(previous).getSimpleName() + ", " + targetClass.getSimpleName());
+                }
+            }
+        }
+        log.info("WebSocket消息分发表构建完成，共 {} 种消息类型", handlers.size());
+    }
 
     /**
      * 路由消息到对应的服务
      */
     public void route(WebSocketSession session, DockerWebSocketMessage message) {
-        String type = message.getType();
-        try {
-            MessageType messageType = MessageType.valueOf(type);
+        MessageType messageType = message.messageType();
+        if (messageType == null) {
+            throw new IllegalArgumentException("未知的消息类型: " + message.getType());
+        }
 
-            // 根据消息类型前缀路由到对应的服务
-            if (type.startsWith("CONTAINER_")) {
-                containerService.handle(session, message);
-            } else if (type.startsWith("IMAGE_") || type.startsWith("PULL_")) {
-                imageService.handle(session, message);
-            } else if (type.startsWith("APP_")) {
-                applicationService.handle(session, message);
-            } else if (type.startsWith("NETWORK_")) {
-                networkService.handle(session, message);
-            } else if (type.startsWith("SYSTEM_")) {
-                systemService.handle(session, message);
+        long start = System.nanoTime();
+        String taskId = message.getTaskId();
+        // 带 taskId 的请求在发送 COMPLETE / ERROR 时结束（见 WebSocketMessageSender），耗时覆盖异步任务本身
+        messageMetrics.started(messageType, taskId, start);
+        boolean failed = false;
+        BaseService handler = handlers.get(messageType);
+        try {
+            if (handler != null) {
+                handler.handle(session, message);
             } else {
                 // 处理系统消息
                 handleSystemMessage(session, message);
             }
-        } catch (Exception e) {
-            log.error("路由消息时发生错误: {}", type, e);
+        } catch (RuntimeException e) {
+            failed = true;
+            log.error("路由消息时发生错误: {}", messageType, e);
             throw e;
+        } finally {
+            if (taskId == null) {
+                messageMetrics.record(messageType, System.nanoTime() - start, failed);
+            } else if (failed || handler == null) {
+                // 分发失败，或系统消息不会发送 COMPLETE / ERROR，在这里结束
+                messageMetrics.finished(taskId, failed);
+            }
         }
     }
 
@@ -75,7 +103,7 @@ public class MessageRouter {
      */
     private void handleSystemMessage(WebSocketSession session, DockerWebSocketMessage message) {
         try {
-            switch (MessageType.valueOf(message.getType())) {
+            switch (message.messageType()) {
                 case HEARTBEAT:
                     // 处理心跳消息，返回 PONG
                     DockerWebSocketMessage response = new DockerWebSocketMessage(
@@ -83,7 +111,7 @@ public class MessageRouter {
                             message.getTaskId(),
                             System.currentTimeMillis()
                     );
-                    session.sendMessage(new TextMessage(JSON.toJSONString(response)));
+                    session.sendMessage(EncodedMessage.of(response).frameFor(session));
                     break;
                 case TEST_NOTIFY:
                     // 处理测试通知
@@ -98,4 +126,4 @@ public class MessageRouter {
             log.error("处理系统消息时发生错误", e);
         }
     }
-}
\ No newline at end of file
+}
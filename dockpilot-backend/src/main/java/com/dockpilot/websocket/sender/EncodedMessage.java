@@ -0,0 +1,135 @@
+package com.dockpilot.websocket.sender;
+
+import com.alibaba.fastjson.JSON;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 预编码的出站 WebSocket 消息
+ * <p>
+ * 消息只序列化一次（写入线程复用的字节缓冲区），之后可以按会话取出对应的帧发送：
+ * 协商了 permessage-deflate 的会话发送共享字节的 BinaryMessage，其余会话发送共享的 TextMessage。
+ * 广播时所有接收者复用同一份编码结果，不再逐个会话重复序列化。
+ */
+public final class EncodedMessage {
+
+    /**
+     * permessage-deflate 扩展名称
+     */
+    private static final String PERMESSAGE_DEFLATE = "permessage-deflate";
+
+    /**
+     * 线程缓冲区保留的最大容量，超过后丢弃，避免个别超大消息长期占用内存
+     */
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+
+    private static final ThreadLocal<ReusableBuffer> BUFFER = ThreadLocal.withInitial(ReusableBuffer::new);
+
+    private final byte[] bytes;
+
+    private volatile TextMessage textMessage;
+
+    private EncodedMessage(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * 将消息序列化为 JSON 字节
+     *
+     * @param message 消息对象
+     * @return 编码后的消息
+     */
+    public static EncodedMessage of(Object message) {
+        ReusableBuffer buffer = BUFFER.get();
+        buffer.reset();
+        try {
+            JSON.writeJSONString(buffer, message);
+        } catch (IOException e) {
+            // 写入内存缓冲区不会真正发生 IO 异常
+            throw new UncheckedIOException(e);
+        }
+        byte[] bytes = buffer.toByteArray();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return new EncodedMessage(bytes);
+    }
+
+    /**
+     * 获取编码后的字节长度
+     */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * 获取共享的文本帧（懒加载，所有会话复用同一个实例）
+     */
+    public TextMessage asText() {
+        TextMessage message = textMessage;
+        if (message == null) {
+            message = new TextMessage(bytes);
+            textMessage = message;
+        }
+        return message;
+    }
+
+    /**
+     * 获取二进制帧
+     * 每次返回新的 BinaryMessage，但底层共享同一份字节数组，发送时推进的是各自的 ByteBuffer 位置
+     */
+    public BinaryMessage asBinary() {
+        return new BinaryMessage(bytes);
+    }
+
+    /**
+     * 根据会话协商的扩展选择要发送的帧
+     *
+     * @param session WebSocket会话
+     * @return 文本帧或二进制帧
+     */
+    public WebSocketMessage<?> frameFor(WebSocketSession session) {
+        return supportsDeflate(session) ? asBinary() : asText();
+    }
+
+    private static boolean supportsDeflate(WebSocketSession session) {
+        List<WebSocketExtension> extensions = session.getExtensions();
+        if (extensions == null) {
+            return false;
+        }
+        for (WebSocketExtension extension : extensions) {
+            if (PERMESSAGE_DEFLATE.equalsIgnoreCase(extension.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 暴露容量的字节缓冲区，reset 后复用已分配的数组
+     */
+    private static final class ReusableBuffer extends ByteArrayOutputStream {
+
+        private ReusableBuffer() {
+            super(8192);
+        }
+
+        private int capacity() {
+            return buf.length;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
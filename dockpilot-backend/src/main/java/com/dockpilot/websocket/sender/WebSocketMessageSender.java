@@ -1,15 +1,18 @@
 package com.dockpilot.websocket.sender;
 
+import com.dockpilot.common.metrics.AppMetrics;
 import com.dockpilot.model.MessageType;
 import com.dockpilot.websocket.manager.WebSocketSessionManager;
 import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import com.dockpilot.websocket.router.MessageMetrics;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -23,6 +26,12 @@ public class WebSocketMessageSender {
     @Autowired
     private WebSocketSessionManager sessionManager;
 
+    @Autowired
+    private AppMetrics appMetrics;
+
+    @Autowired
+    private MessageMetrics messageMetrics;
+
     /**
      * 检查WebSocket会话是否可用
      *
@@ -70,7 +79,7 @@ public class WebSocketMessageSender {
      * @param message 消息内容
      * @param taskId  任务ID（用于日志）
      */
-    private void safeSendMessage(WebSocketSession session, TextMessage message, String taskId) {
+    private void safeSendMessage(WebSocketSession session, EncodedMessage message, String taskId) {
         WebSocketSession availableSession = getAvailableSession(session, taskId);
         
         if (availableSession == null) {
@@ -79,14 +88,30 @@ public class WebSocketMessageSender {
         }
         
         try {
-            availableSession.sendMessage(message);
+            sendFrame(availableSession, message);
         } catch (IOException e) {
             log.error("发送WebSocket消息失败: taskId={}", taskId, e);
+        } catch (SessionLimitExceededException e) {
+            log.warn("WebSocket客户端接收过慢，会话已关闭: taskId={}, error={}", taskId, e.getMessage());
         } catch (IllegalStateException e) {
             log.warn("WebSocket会话状态异常，跳过消息发送: taskId={}, error={}", taskId, e.getMessage());
         }
     }
 
+    /**
+     * 发送一帧并记录发送指标，慢客户端会阻塞在这里，进行中的发送数随之升高
+     */
+    private void sendFrame(WebSocketSession session, EncodedMessage message) throws IOException {
+        appMetrics.wsSendStarted();
+        boolean failed = true;
+        try {
+            session.sendMessage(message.frameFor(session));
+            failed = false;
+        } finally {
+            appMetrics.wsSendFinished(message.size(), failed);
+        }
+    }
+
     /**
      * 发送普通消息
      *
@@ -98,7 +123,7 @@ public class WebSocketMessageSender {
     public void sendMessage(WebSocketSession session, MessageType type, String taskId, Object data) {
         try {
             DockerWebSocketMessage message = new DockerWebSocketMessage(type.name(), taskId, data);
-            safeSendMessage(session, new TextMessage(message.toJson()), taskId);
+            safeSendMessage(session, EncodedMessage.of(message), taskId);
         } catch (Exception e) {
             log.error("发送消息失败: type={}, taskId={}", type, taskId, e);
         }
@@ -114,7 +139,7 @@ public class WebSocketMessageSender {
     public void sendProgress(WebSocketSession session, String taskId, int progress) {
         try {
             DockerWebSocketMessage progressMessage = DockerWebSocketMessage.progress(taskId, progress);
-            safeSendMessage(session, new TextMessage(progressMessage.toJson()), taskId);
+            safeSendMessage(session, EncodedMessage.of(progressMessage), taskId);
         } catch (Exception e) {
             log.error("发送进度消息失败: taskId={}, progress={}%", taskId, progress, e);
         }
@@ -140,7 +165,7 @@ public class WebSocketMessageSender {
             progressMessage.setData(data);
             progressMessage.setTimestamp(System.currentTimeMillis());
             
-            safeSendMessage(session, new TextMessage(progressMessage.toJson()), taskId);
+            safeSendMessage(session, EncodedMessage.of(progressMessage), taskId);
         } catch (Exception e) {
             log.error("发送进度消息失败: taskId={}, progress={}%, imageName={}", taskId, progress, imageName, e);
         }
@@ -156,7 +181,7 @@ public class WebSocketMessageSender {
     public void sendLog(WebSocketSession session, String taskId, String logMessage) {
         try {
             DockerWebSocketMessage logMsg = DockerWebSocketMessage.log(taskId, logMessage);
-            safeSendMessage(session, new TextMessage(logMsg.toJson()), taskId);
+            safeSendMessage(session, EncodedMessage.of(logMsg), taskId);
         } catch (Exception e) {
             log.error("发送日志消息失败: taskId={}", taskId, e);
         }
@@ -182,7 +207,7 @@ public class WebSocketMessageSender {
             logMsg.setData(data);
             logMsg.setTimestamp(System.currentTimeMillis());
             
-            safeSendMessage(session, new TextMessage(logMsg.toJson()), taskId);
+            safeSendMessage(session, EncodedMessage.of(logMsg), taskId);
         } catch (Exception e) {
             log.error("发送日志消息失败: taskId={}, imageName={}", taskId, imageName, e);
         }
@@ -196,9 +221,10 @@ public class WebSocketMessageSender {
      * @param errorMessage 错误消息
      */
     public void sendError(WebSocketSession session, String taskId, String errorMessage) {
+        messageMetrics.finished(taskId, true);
         try {
             DockerWebSocketMessage errorMsg = DockerWebSocketMessage.fail(taskId, errorMessage);
-            safeSendMessage(session, new TextMessage(errorMsg.toJson()), taskId);
+            safeSendMessage(session, EncodedMessage.of(errorMsg), taskId);
         } catch (Exception e) {
             log.error("发送错误消息失败: taskId={}, error={}", taskId, errorMessage, e);
         }
@@ -229,6 +255,7 @@ public class WebSocketMessageSender {
      * @param data    完成数据
      */
     public void sendComplete(WebSocketSession session, String taskId, Object data) {
+        messageMetrics.finished(taskId, false);
         try {
             sendMessage(session, MessageType.COMPLETE, taskId, data);
         } catch (Exception e) {
@@ -245,14 +272,15 @@ public class WebSocketMessageSender {
     public void broadcastToAll(MessageType type, Object data) {
         try {
             DockerWebSocketMessage message = new DockerWebSocketMessage(type.name(), null, data);
-            TextMessage textMessage = new TextMessage(message.toJson());
+            // 只序列化一次，所有会话共享同一份编码结果
+            EncodedMessage encoded = EncodedMessage.of(message);
             
             // 获取所有活跃会话
             int broadcastCount = 0;
             for (WebSocketSession session : sessionManager.getAllActiveSessions()) {
                 if (session != null && session.isOpen()) {
                     try {
-                        session.sendMessage(textMessage);
+                        sendFrame(session, encoded);
                         broadcastCount++;
                     } catch (Exception e) {
                         log.warn("广播消息失败到会话: {}", session.getId(), e);
@@ -260,13 +288,46 @@ public class WebSocketMessageSender {
                 }
             }
             
-            log.debug("广播消息完成: type={}, 成功发送到 {} 个会话", type, broadcastCount);
+            log.debug("广播消息完成: type={}, 大小={} 字节, 成功发送到 {} 个会话", type, encoded.size(), broadcastCount);
             
         } catch (Exception e) {
             log.error("广播消息失败: type={}", type, e);
         }
     }
 
+    /**
+     * 推送消息到指定的一组会话（订阅推送），消息只编码一次
+     *
+     * @param sessionIds 会话ID集合
+     * @param type       消息类型
+     * @param data       消息数据
+     * @return 成功发送的会话数
+     */
+    public int sendToSessions(Collection<String> sessionIds, MessageType type, Object data) {
+        if (sessionIds.isEmpty()) {
+            return 0;
+        }
+        int sentCount = 0;
+        try {
+            EncodedMessage encoded = EncodedMessage.of(new DockerWebSocketMessage(type.name(), null, data));
+            for (String sessionId : sessionIds) {
+                WebSocketSession session = sessionManager.getSession(sessionId);
+                if (session == null) {
+                    continue;
+                }
+                try {
+                    sendFrame(session, encoded);
+                    sentCount++;
+                } catch (Exception e) {
+                    log.warn("推送消息失败到会话: {}, type={}", sessionId, type, e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("推送消息失败: type={}", type, e);
+        }
+        return sentCount;
+    }
+
     /**
      * 发送Docker事件通知（广播到所有客户端）
      *
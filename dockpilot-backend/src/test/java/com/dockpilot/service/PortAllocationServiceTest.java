@@ -0,0 +1,103 @@
+package com.dockpilot.service;
+
+import com.dockpilot.api.DockerService;
+import com.dockpilot.common.exception.BusinessException;
+import com.dockpilot.model.PortCheckResultDTO;
+import com.dockpilot.model.PortConflictDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 端口分配索引：YAML 端口映射解析与保留
+ */
+class PortAllocationServiceTest {
+
+    private PortAllocationService service;
+
+    @BeforeEach
+    void setUp() {
+        DockerService dockerService = mock(DockerService.class);
+        when(dockerService.listContainers()).thenReturn(Collections.emptyList());
+        // 宿主机上没有进程占用端口
+        PortCheckService portCheckService = mock(PortCheckService.class);
+        when(portCheckService.checkMultiplePorts(any())).thenAnswer(invocation -> {
+            Map<Integer, Boolean> result = new HashMap<>();
+            for (int port : (int[]) invocation.getArgument(0)) {
+                result.put(port, true);
+            }
+            return result;
+        });
+        service = new PortAllocationService(dockerService, portCheckService);
+    }
+
+    @Test
+    void expandsPortRanges() {
+        PortCheckResultDTO result = service.checkYaml(yaml("\"8000-8003:8000-8003\""));
+        assertTrue(result.isAvailable());
+        assertEquals(Arrays.asList(8000, 8001, 8002, 8003), result.getPorts());
+    }
+
+    @Test
+    void parsesIpPrefixedMappings() {
+        PortCheckResultDTO result = service.checkYaml(yaml("\"127.0.0.1:9000:80\"", "\"0.0.0.0:9100-9101:80-81/tcp\""));
+        assertEquals(Arrays.asList(9000, 9100, 9101), result.getPorts());
+    }
+
+    @Test
+    void ignoresUdpAndContainerOnlyMappings() {
+        PortCheckResultDTO result = service.checkYaml(yaml("\"53:53/udp\"", "\"80\"", "\"8080:80\""));
+        assertEquals(Collections.singletonList(8080), result.getPorts());
+    }
+
+    @Test
+    void rejectsOversizedRanges() {
+        assertThrows(BusinessException.class, () -> service.checkYaml(yaml("\"10000-20000:10000-20000\"")));
+    }
+
+    @Test
+    void reservesEveryPortInRange() {
+        String token = service.reserveYaml("app-a", yaml("\"8000-8010:8000-8010\""));
+        assertNotNull(token);
+
+        PortCheckResultDTO result = service.checkYaml(yaml("\"8005:80\""));
+        assertFalse(result.isAvailable());
+        PortConflictDTO conflict = result.getConflicts().get(0);
+        assertEquals(8005, conflict.getPort());
+        assertTrue(conflict.getOccupiedBy().contains("app-a"));
+
+        assertThrows(BusinessException.class, () -> service.reserveYaml("app-b", yaml("\"8010-8012:80-82\"")));
+
+        service.release(token);
+        assertTrue(service.checkYaml(yaml("\"8005:80\"")).isAvailable());
+    }
+
+    @Test
+    void detectsOverlapWithinApplication() {
+        PortCheckResultDTO result = service.checkYaml(yaml("\"8000-8002:80-82\"", "\"8002:90\""));
+        assertFalse(result.isAvailable());
+        assertEquals(1, result.getConflicts().size());
+        assertEquals(8002, result.getConflicts().get(0).getPort());
+    }
+
+    private static String yaml(String... ports) {
+        StringBuilder builder = new StringBuilder("services:\n  web:\n    image: nginx\n    ports:\n");
+        for (String port : ports) {
+            builder.append("      - ").append(port).append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,219 @@
+package com.dockpilot.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 静态文件响应：Range 解析与合并、416、条件请求和预压缩版本选择
+ */
+class StaticFileServerTest {
+
+    private static final String CONTENT = "0123456789";
+
+    @TempDir
+    Path dir;
+
+    private final StaticFileServer server = new StaticFileServer();
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = dir.resolve("app.js");
+        Files.write(file, CONTENT.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    void servesWholeFileWithoutRange() throws IOException {
+        MockHttpServletResponse response = serve(request());
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void servesSingleRange() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = serve(request);
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void servesSuffixAndOpenEndedRanges() throws IOException {
+        MockHttpServletRequest suffix = request();
+        suffix.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        assertEquals("789", serve(suffix).getContentAsString());
+
+        MockHttpServletRequest openEnded = request();
+        openEnded.addHeader(HttpHeaders.RANGE, "bytes=7-");
+        MockHttpServletResponse response = serve(openEnded);
+        assertEquals("bytes 7-9/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("789", response.getContentAsString());
+
+        // 超出文件长度的结束位置截断到末尾
+        MockHttpServletRequest clamped = request();
+        clamped.addHeader(HttpHeaders.RANGE, "bytes=8-100");
+        assertEquals("89", serve(clamped).getContentAsString());
+    }
+
+    @Test
+    void mergesOverlappingAndAdjacentRanges() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-5,0-1,2-3");
+        MockHttpServletResponse response = serve(request);
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 0-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("012345", response.getContentAsString());
+    }
+
+    @Test
+    void servesDisjointRangesAsMultipart() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=8-9,0-2,1-3");
+        MockHttpServletResponse response = serve(request);
+        assertEquals(206, response.getStatus());
+        assertTrue(response.getContentType().startsWith("multipart/byteranges; boundary="));
+
+        String body = response.getContentAsString();
+        int first = body.indexOf("Content-Range: bytes 0-3/10\r\n\r\n0123\r\n");
+        int second = body.indexOf("Content-Range: bytes 8-9/10\r\n\r\n89\r\n");
+        assertTrue(first >= 0 && second > first, body);
+        assertEquals(body.length(), response.getContentLengthLong());
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() throws IOException {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+        MockHttpServletResponse response = serve(request);
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void ignoresMalformedRange() throws IOException {
+        for (String range : new String[]{"bytes=5-2", "bytes=abc", "items=0-1"}) {
+            MockHttpServletRequest request = request();
+            request.addHeader(HttpHeaders.RANGE, range);
+            MockHttpServletResponse response = serve(request);
+            assertEquals(200, response.getStatus(), range);
+            assertEquals(CONTENT, response.getContentAsString(), range);
+        }
+    }
+
+    @Test
+    void honoursIfRange() throws IOException {
+        String etag = serve(request()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest matching = request();
+        matching.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        matching.addHeader(HttpHeaders.IF_RANGE, etag);
+        assertEquals(206, serve(matching).getStatus());
+
+        MockHttpServletRequest stale = request();
+        stale.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        MockHttpServletResponse response = serve(stale);
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString());
+
+        MockHttpServletRequest oldDate = request();
+        oldDate.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        oldDate.addHeader(HttpHeaders.IF_RANGE, Files.getLastModifiedTime(file).toMillis() - 60_000);
+        assertEquals(200, serve(oldDate).getStatus());
+
+        MockHttpServletRequest sameDate = request();
+        sameDate.addHeader(HttpHeaders.RANGE, "bytes=0-1");
+        sameDate.addHeader(HttpHeaders.IF_RANGE, Files.getLastModifiedTime(file).toMillis());
+        assertEquals(206, serve(sameDate).getStatus());
+    }
+
+    @Test
+    void honoursIfNoneMatch() throws IOException {
+        String etag = serve(request()).getHeader(HttpHeaders.ETAG);
+
+        for (String value : new String[]{etag, "W/" + etag, "\"other\", " + etag, "*"}) {
+            MockHttpServletRequest request = request();
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, value);
+            MockHttpServletResponse response = serve(request);
+            assertEquals(304, response.getStatus(), value);
+            assertEquals(0, response.getContentAsByteArray().length, value);
+        }
+
+        MockHttpServletRequest changed = request();
+        changed.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        assertEquals(200, serve(changed).getStatus());
+
+        // If-None-Match 优先于 If-Modified-Since
+        MockHttpServletRequest precedence = request();
+        precedence.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\"");
+        precedence.addHeader(HttpHeaders.IF_MODIFIED_SINCE, System.currentTimeMillis() + 60_000);
+        assertEquals(200, serve(precedence).getStatus());
+    }
+
+    @Test
+    void honoursIfMatch() throws IOException {
+        String etag = serve(request()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest matching = request();
+        matching.addHeader(HttpHeaders.IF_MATCH, etag);
+        assertEquals(200, serve(matching).getStatus());
+
+        // If-Match 使用强比较
+        MockHttpServletRequest weak = request();
+        weak.addHeader(HttpHeaders.IF_MATCH, "W/" + etag);
+        assertEquals(412, serve(weak).getStatus());
+    }
+
+    @Test
+    void selectsPrecompressedVariant() throws IOException {
+        Path gz = dir.resolve("app.js.gz");
+        Files.write(gz, new byte[]{1, 2, 3});
+        Files.setLastModifiedTime(gz, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 1000));
+
+        MockHttpServletRequest accepted = request();
+        accepted.addHeader(HttpHeaders.ACCEPT_ENCODING, "br;q=0, gzip");
+        MockHttpServletResponse response = serve(accepted);
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(3, response.getContentAsByteArray().length);
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeader(HttpHeaders.VARY));
+
+        for (String header : new String[]{"gzip;q=0", "gzip;q=abc", "identity"}) {
+            MockHttpServletRequest request = request();
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, header);
+            MockHttpServletResponse identity = serve(request);
+            assertEquals(200, identity.getStatus(), header);
+            assertNull(identity.getHeader(HttpHeaders.CONTENT_ENCODING), header);
+            assertEquals(CONTENT, identity.getContentAsString(), header);
+        }
+    }
+
+    private MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/app.js");
+    }
+
+    private MockHttpServletResponse serve(MockHttpServletRequest request) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        server.serve(request, response, file, "application/javascript", null, null);
+        return response;
+    }
+}
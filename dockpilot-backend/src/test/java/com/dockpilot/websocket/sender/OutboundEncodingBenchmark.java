@@ -0,0 +1,150 @@
+package com.dockpilot.websocket.sender;
+
+import com.dockpilot.model.ContainerDTO;
+import com.dockpilot.model.MessageType;
+import com.dockpilot.model.SystemStatusDTO;
+import com.dockpilot.websocket.model.DockerWebSocketMessage;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.socket.TextMessage;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 出站消息编码基准测试
+ * 对比原有的逐次 fastjson toJson 路径与 EncodedMessage 一次编码、多会话共享帧的路径
+ * <p>
+ * 运行方式：在 IDE 中直接运行 main 方法，或
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.dockpilot.websocket.sender.OutboundEncodingBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboundEncodingBenchmark {
+
+    /**
+     * 代表性负载：容器列表（CONTAINER_LIST）和系统状态（SYSTEM_STATUS）
+     */
+    @Param({"containerList", "systemStatus"})
+    private String payload;
+
+    /**
+     * 接收者数量（单播 / 多个仪表盘同时在线）
+     */
+    @Param({"1", "10"})
+    private int recipients;
+
+    private DockerWebSocketMessage message;
+
+    @Setup
+    public void setup() {
+        Object data = "containerList".equals(payload) ? buildContainerList(60) : buildSystemStatus();
+        message = new DockerWebSocketMessage(MessageType.COMPLETE.name(), "benchmark-task", data);
+    }
+
+    @Benchmark
+    public void fastjsonPerRecipient(Blackhole bh) {
+        for (int i = 0; i < recipients; i++) {
+            bh.consume(new TextMessage(message.toJson()));
+        }
+    }
+
+    @Benchmark
+    public void sharedTextFrame(Blackhole bh) {
+        EncodedMessage encoded = EncodedMessage.of(message);
+        for (int i = 0; i < recipients; i++) {
+            bh.consume(encoded.asText());
+        }
+    }
+
+    @Benchmark
+    public void sharedBinaryFrame(Blackhole bh) {
+        EncodedMessage encoded = EncodedMessage.of(message);
+        for (int i = 0; i < recipients; i++) {
+            bh.consume(encoded.asBinary());
+        }
+    }
+
+    private static List<ContainerDTO> buildContainerList(int count) {
+        List<ContainerDTO> containers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ContainerDTO dto = new ContainerDTO();
+            dto.setId(String.format("%064x", i));
+            dto.setNames(new String[]{"/service-" + i});
+            dto.setImage("linuxserver/jellyfin:10.8." + i);
+            dto.setImageId("sha256:" + String.format("%064x", i * 31L));
+            dto.setCommand("/init");
+            dto.setCreated(1700000000L + i);
+            dto.setState("running");
+            dto.setStatus("Up 3 days (healthy)");
+
+            ContainerDTO.ContainerPortDTO port = new ContainerDTO.ContainerPortDTO();
+            port.setPrivatePort("8096");
+            port.setPublicPort(String.valueOf(18000 + i));
+            port.setType("tcp");
+            dto.setPorts(new ContainerDTO.ContainerPortDTO[]{port});
+
+            Map<String, String> labels = new HashMap<>();
+            labels.put("com.docker.compose.project", "media");
+            labels.put("com.docker.compose.service", "service-" + i);
+            labels.put("org.opencontainers.image.version", "10.8." + i);
+            dto.setLabels(labels);
+
+            List<ContainerDTO.ContainerMountDTO> mounts = new ArrayList<>();
+            for (int m = 0; m < 3; m++) {
+                ContainerDTO.ContainerMountDTO mount = new ContainerDTO.ContainerMountDTO();
+                mount.setSource("/mnt/user/appdata/service-" + i + "/vol" + m);
+                mount.setDestination("/config/vol" + m);
+                mounts.add(mount);
+            }
+            dto.setMounts(mounts);
+            dto.setWebUrl("http://192.168.1.10:" + (18000 + i));
+            dto.setIconUrl("/api/icons/jellyfin.png");
+            containers.add(dto);
+        }
+        return containers;
+    }
+
+    private static SystemStatusDTO buildSystemStatus() {
+        return SystemStatusDTO.builder()
+                .hostname("nas")
+                .os("Debian GNU/Linux 12 (bookworm)")
+                .kernel("6.1.0-18-amd64")
+                .uptime("12天3小时")
+                .cpuCores(8)
+                .cpuModel("Intel(R) Core(TM) i5-12400")
+                .cpuUsage(23.5)
+                .memoryTotal(32L * 1024 * 1024 * 1024)
+                .memoryUsed(12L * 1024 * 1024 * 1024)
+                .memoryUsage(37.5)
+                .diskUsage("41%")
+                .diskFree("1.2T")
+                .ipAddress("192.168.1.10")
+                .gateway("192.168.1.1")
+                .runningContainers(42)
+                .totalContainers(57)
+                .totalImages(80)
+                .totalNetworks(9)
+                .dockerVersion("24.0.7")
+                .networkDownloadSpeed("1.2 MB/s")
+                .networkUploadSpeed("320 KB/s")
+                .networkDownloadSpeedRaw(1258291.2)
+                .networkUploadSpeedRaw(327680.0)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(OutboundEncodingBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
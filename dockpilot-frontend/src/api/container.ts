@@ -1,4 +1,4 @@
-import { sendWebSocketMessage } from './websocket'
+import { onServerPush, sendWebSocketMessage } from './websocket'
 import type { WebSocketCallbacks } from './websocket/types'
 import { MessageType } from './websocket/types'
 
@@ -38,6 +38,99 @@ export function getContainerStats(containerId: string, callbacks: WebSocketCallb
   })
 }
 
+/**
+ * 订阅容器实时性能数据，服务端按间隔推送 CONTAINER_STATS_UPDATE 消息
+ * @param containerIds 容器ID列表
+ * @param callbacks WebSocket回调函数
+ */
+export function subscribeContainerStats(containerIds: string[], callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.CONTAINER_STATS_SUBSCRIBE,
+    data: { containerIds },
+    callbacks,
+    timeout: TIMEOUT.LIST
+  })
+}
+
+/**
+ * 取消订阅容器实时性能数据
+ * @param containerIds 容器ID列表
+ * @param callbacks WebSocket回调函数
+ */
+export function unsubscribeContainerStats(containerIds: string[], callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.CONTAINER_STATS_UNSUBSCRIBE,
+    data: { containerIds },
+    callbacks,
+    timeout: TIMEOUT.LIST
+  })
+}
+
+/**
+ * 监听已订阅容器的实时性能数据推送（CONTAINER_STATS_UPDATE）
+ * @param listener 回调，参数为容器ID和性能数据
+ * @returns 取消监听的函数
+ */
+export function onContainerStatsUpdate(listener: (containerId: string, stats: any) => void) {
+  return onServerPush(MessageType.CONTAINER_STATS_UPDATE, (data) => {
+    if (data?.containerId) {
+      listener(data.containerId, data.stats)
+    }
+  })
+}
+
+/**
+ * 获取所有运行中容器的资源占用概览（按CPU降序）
+ * @param callbacks WebSocket回调函数
+ */
+export function getContainerStatsOverview(callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.CONTAINER_STATS_OVERVIEW,
+    callbacks,
+    timeout: TIMEOUT.LIST
+  })
+}
+
+/**
+ * 容器日志查询参数
+ */
+export interface ContainerLogQuery {
+  containerId: string
+  tail?: number        // 从末尾返回的行数，默认100，-1表示全部
+  since?: number       // 起始时间（Unix秒）
+  until?: number       // 截止时间（Unix秒），跟踪时忽略
+  timestamps?: boolean // 每行附带时间戳
+}
+
+/**
+ * 持续跟踪容器日志，成功后 onComplete 返回 { streamId }，
+ * 日志随后以 CONTAINER_LOGS_BATCH 消息推送：{ streamId, lines: [{ stream, text }], dropped, finished }
+ * @param query 日志查询参数
+ * @param callbacks WebSocket回调函数
+ */
+export function followContainerLogs(query: ContainerLogQuery, callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.CONTAINER_LOGS_FOLLOW,
+    data: { ...query, follow: true },
+    callbacks,
+    timeout: TIMEOUT.LIST
+  })
+}
+
+/**
+ * 停止跟踪容器日志
+ * @param streamId 日志流ID
+ * @param callbacks WebSocket回调函数
+ */
+export function stopContainerLogs(streamId: string, callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.CONTAINER_LOGS_STOP,
+    data: { streamId },
+    callbacks,
+    timeout: TIMEOUT.LIST
+  })
+}
+
 /**
  * 启动容器
  * @param containerId 容器ID
@@ -11,6 +11,8 @@ export interface ContainerYamlRequest {
   envDescriptions?: Record<string, string>  // 环境变量描述配置（可选）
   includeConfigPackages?: boolean  // 是否包含配置包（可选）
   selectedPaths?: string[]   // 用户选择的要打包的路径列表（可选）
+  archiveLayout?: 'nested' | 'flat'  // 导出包结构：nested 每个服务一个 tar.gz（默认），flat 直接展开目录
+  compressionLevel?: number  // 压缩级别（可选）：0-9
 }
 
 /**
@@ -54,6 +56,8 @@ export interface PathMapping {
   description: string      // 路径描述
   isSystemPath: boolean    // 是否为系统路径
   recommended: boolean     // 是否推荐打包
+  sizeBytes?: number       // 最近一次统计的路径大小（字节），未统计时为空
+  sizeCalculatedAt?: number // 大小统计时间（毫秒时间戳）
   selected?: boolean       // 是否被用户选择（前端使用）
 }
 
@@ -68,6 +72,8 @@ export interface PackageTask {
   projectName: string      // 项目名称
   containerIds: string[]   // 容器ID列表
   selectedPaths: string[]  // 选择的路径列表
+  archiveLayout?: string   // 导出包结构：nested, flat
+  compressionLevel?: number   // 压缩级别
   filePath?: string        // 生成的文件路径（完成后）
   fileName?: string        // 文件名
   errorMessage?: string    // 错误信息（失败时）
@@ -6,6 +6,28 @@ export interface FileNode {
   path: string
   directory: boolean
   children?: FileNode[]
+  size?: number
+  lastModified?: number
+}
+
+// 目录分页结果
+export interface FileTreePage {
+  items: FileNode[]
+  nextCursor: string | null
+  hasMore: boolean
+  totalEntries: number
+}
+
+// 目录分页查询参数
+export interface FileTreePageParams {
+  path?: string
+  cursor?: string
+  limit?: number
+  sort?: 'name' | 'size' | 'mtime'
+  order?: 'asc' | 'desc'
+  type?: 'all' | 'dir' | 'file'
+  keyword?: string
+  showHidden?: boolean
 }
 
 // 获取文件树列表
@@ -16,4 +38,9 @@ export function getFileTree(path: string = '/', maxFilesPerDir: number = 100): P
       maxFilesPerDir
     }
   })
-} 
\ No newline at end of file
+}
+
+// 分页获取目录列表（服务端排序、过滤，翻页时传入上一页的 nextCursor）
+export function getFileTreePage(params: FileTreePageParams): Promise<FileTreePage> {
+  return request.get('/file-tree/page', { params })
+}
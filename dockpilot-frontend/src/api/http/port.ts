@@ -49,4 +49,40 @@ export const checkCommonPorts = (): Promise<{
   totalCount: number
 }> => {
   return request.get('/api/port/check-common')
-} 
\ No newline at end of file
+} 
+/**
+ * 端口冲突
+ */
+export interface PortConflict {
+  service: string
+  port: number
+  occupiedBy: string
+  suggestedPort: number | null
+}
+
+/**
+ * 检查应用YAML中所有服务的端口冲突
+ * @param yamlContent 应用YAML内容
+ * @returns 检查结果，冲突时附带建议端口
+ */
+export const checkYamlPorts = (yamlContent: string): Promise<{
+  available: boolean
+  ports: number[]
+  conflicts: PortConflict[]
+}> => {
+  return request.post('/api/port/check-yaml', yamlContent, {
+    headers: { 'Content-Type': 'text/plain' }
+  })
+}
+
+/**
+ * 推荐离指定端口最近的空闲端口
+ * @param port 参考端口
+ * @param count 需要的数量
+ * @returns 空闲端口数组
+ */
+export const suggestPorts = (port: number, count: number = 3): Promise<number[]> => {
+  return request.get('/api/port/suggest', {
+    params: { port, count }
+  })
+}
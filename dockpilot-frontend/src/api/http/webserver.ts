@@ -10,6 +10,25 @@ export interface CategoryVO {
   updatedAt: string
 }
 
+// 单个地址的可达性检测结果
+export interface UrlStatus {
+  url: string
+  up: boolean
+  statusCode?: number
+  latencyMs?: number
+  // 证书过期时间（毫秒时间戳），非 HTTPS 时为空
+  tlsExpiresAt?: number
+  error?: string
+  checkedAt: number
+}
+
+// 应用可达性状态（GET /web-servers/status，或 WebSocket 推送的 WEB_SERVER_STATUS）
+export interface WebServerStatusVO {
+  id: string
+  internal?: UrlStatus
+  external?: UrlStatus
+}
+
 // 应用信息接口
 export interface WebServerVO {
   id: string
@@ -28,6 +47,7 @@ export interface WebServerVO {
   isFavorite?: boolean
   createdAt: string
   updatedAt: string
+  status?: WebServerStatusVO
 }
 
 // 创建应用请求接口
@@ -115,4 +135,9 @@ export const toggleFavorite = (id: string) => {
 // 获取收藏列表
 export const getFavorites = () => {
   return request.get<WebServerVO[]>('/web-servers/favorites')
-} 
\ No newline at end of file
+} 
+
+// 获取所有应用的可达性状态
+export const getWebServerStatus = () => {
+  return request.get<WebServerStatusVO[]>('/web-servers/status')
+}
@@ -75,4 +75,34 @@ export interface DeleteNetworkRequest {
 /**
  * 网络列表响应
  */
-export type NetworkListResponse = Network[] 
\ No newline at end of file
+export type NetworkListResponse = Network[] 
+/**
+ * 容器-网络拓扑图（NETWORK_TOPOLOGY / NETWORK_TOPOLOGY_UPDATE）
+ */
+export interface Topology {
+  /** 版本号，每次变化递增 */
+  version: number
+  containers: Array<{
+    id: string
+    name: string
+    image: string
+    state: string
+    /** 已发布端口，如 8080->80/tcp */
+    ports: string[]
+  }>
+  networks: Array<{
+    id: string
+    name: string
+    driver: string
+    scope: string
+    subnets: string[]
+  }>
+  links: Array<{
+    containerId: string
+    networkId: string
+    ipv4Address?: string
+    ipv6Address?: string
+    macAddress?: string
+    aliases: string[]
+  }>
+}
@@ -68,4 +68,42 @@ export function getNetworkDetail(networkId: string, callbacks: WebSocketCallback
     callbacks,
     timeout: TIMEOUT.DETAIL
   })
-} 
\ No newline at end of file
+} 
+/**
+ * 获取容器-网络拓扑图（服务端缓存，不访问Docker）
+ * @param callbacks WebSocket回调函数
+ */
+export function getNetworkTopology(callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.NETWORK_TOPOLOGY,
+    data: {},
+    callbacks,
+    timeout: TIMEOUT.DETAIL
+  })
+}
+
+/**
+ * 订阅拓扑图变化，服务端在变化时推送 NETWORK_TOPOLOGY_UPDATE 消息（完整快照）
+ * @param callbacks WebSocket回调函数
+ */
+export function subscribeNetworkTopology(callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.NETWORK_TOPOLOGY_SUBSCRIBE,
+    data: {},
+    callbacks,
+    timeout: TIMEOUT.DETAIL
+  })
+}
+
+/**
+ * 取消订阅拓扑图变化
+ * @param callbacks WebSocket回调函数
+ */
+export function unsubscribeNetworkTopology(callbacks: WebSocketCallbacks) {
+  return sendWebSocketMessage({
+    type: MessageType.NETWORK_TOPOLOGY_UNSUBSCRIBE,
+    data: {},
+    callbacks,
+    timeout: TIMEOUT.DETAIL
+  })
+}
@@ -5,8 +5,25 @@ import { MessageType } from './websocket/types'
 // 定义超时时间常量（毫秒）
 const TIMEOUT = {
   SYSTEM_STATUS: 10000,  // 系统状态请求可能需要较长时间
+  DIRECTORY_SIZE: 600000 // 大目录首次统计可能需要数分钟
 } as const
 
+/**
+ * 目录大小统计结果（DIRECTORY_SIZE_PROGRESS 推送的部分结果 done=false）
+ */
+export interface DirectorySizeResult {
+  path: string          // 宿主机路径
+  bytes: number         // 总字节数
+  files: number         // 文件数
+  dirs: number          // 目录数
+  reusedDirs: number    // 复用缓存的目录数
+  errors: number        // 读取失败的条目数
+  done: boolean         // 是否统计完成
+  durationMs?: number   // 耗时（毫秒）
+  calculatedAt: number  // 统计时间（毫秒时间戳）
+  error?: string        // 统计失败原因
+}
+
 /**
  * 获取系统状态信息
  * @param callbacks WebSocket回调函数
@@ -20,6 +37,35 @@ export function getSystemStatus(callbacks: WebSocketCallbacks) {
   })
 }
 
+/**
+ * 统计宿主机路径大小，过程中通过 onProgress 回调各路径的部分结果，完成后 onComplete 返回结果列表
+ * @param paths 宿主机路径（单次最多50个）
+ * @param callbacks 统计回调
+ */
+export function calculateDirectorySize(
+  paths: string[],
+  callbacks: {
+    onProgress?: (partial: DirectorySizeResult) => void
+    onComplete?: (results: DirectorySizeResult[]) => void
+    onError?: (error: string) => void
+  }
+) {
+  return sendWebSocketMessage({
+    type: MessageType.DIRECTORY_SIZE,
+    data: { paths },
+    callbacks: {
+      onMessage: (message) => {
+        if (message.type === MessageType.DIRECTORY_SIZE_PROGRESS) {
+          callbacks.onProgress?.(message.data as DirectorySizeResult)
+        }
+      },
+      onComplete: (message) => callbacks.onComplete?.((message.data || []) as DirectorySizeResult[]),
+      onError: (error) => callbacks.onError?.(error)
+    },
+    timeout: TIMEOUT.DIRECTORY_SIZE
+  })
+}
+
 /**
  * 获取Docker Events监听状态
  */
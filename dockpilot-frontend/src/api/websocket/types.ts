@@ -19,6 +19,14 @@ export enum MessageType {
   CONTAINER_DELETE = 'CONTAINER_DELETE',
   CONTAINER_LIST = 'CONTAINER_LIST',
   CONTAINER_STATS = 'CONTAINER_STATS',
+  CONTAINER_STATS_SUBSCRIBE = 'CONTAINER_STATS_SUBSCRIBE',
+  CONTAINER_STATS_UNSUBSCRIBE = 'CONTAINER_STATS_UNSUBSCRIBE',
+  CONTAINER_STATS_UPDATE = 'CONTAINER_STATS_UPDATE',
+  CONTAINER_STATS_OVERVIEW = 'CONTAINER_STATS_OVERVIEW',
+  CONTAINER_LOGS = 'CONTAINER_LOGS',
+  CONTAINER_LOGS_FOLLOW = 'CONTAINER_LOGS_FOLLOW',
+  CONTAINER_LOGS_STOP = 'CONTAINER_LOGS_STOP',
+  CONTAINER_LOGS_BATCH = 'CONTAINER_LOGS_BATCH',
   CONTAINER_DETAIL = 'CONTAINER_DETAIL',
   CONTAINER_UPDATE = 'CONTAINER_UPDATE',
   CONTAINER_UPDATE_INFO = 'CONTAINER_UPDATE_INFO',
@@ -31,6 +39,10 @@ export enum MessageType {
   NETWORK_CREATE = 'NETWORK_CREATE',
   NETWORK_DELETE = 'NETWORK_DELETE',
   NETWORK_DETAIL = 'NETWORK_DETAIL',
+  NETWORK_TOPOLOGY = 'NETWORK_TOPOLOGY',
+  NETWORK_TOPOLOGY_SUBSCRIBE = 'NETWORK_TOPOLOGY_SUBSCRIBE',
+  NETWORK_TOPOLOGY_UNSUBSCRIBE = 'NETWORK_TOPOLOGY_UNSUBSCRIBE',
+  NETWORK_TOPOLOGY_UPDATE = 'NETWORK_TOPOLOGY_UPDATE',
 
   // 系统状态相关
   SYSTEM_STATUS = 'SYSTEM_STATUS',
@@ -38,6 +50,13 @@ export enum MessageType {
   // Docker事件通知
   DOCKER_EVENT_NOTIFICATION = 'DOCKER_EVENT_NOTIFICATION',
 
+  // 目录大小统计
+  DIRECTORY_SIZE = 'DIRECTORY_SIZE',
+  DIRECTORY_SIZE_PROGRESS = 'DIRECTORY_SIZE_PROGRESS',
+
+  // 导航卡片可达性状态变化
+  WEB_SERVER_STATUS = 'WEB_SERVER_STATUS',
+
   // 系统消息
   COMPLETE = 'COMPLETE',
   ERROR = 'ERROR',
@@ -67,6 +86,7 @@ export interface WebSocketCallbacks {
   onLog?: (log: string, taskId: string, imageName?: string) => void;
   onComplete?: (data: DockerWebSocketMessage, taskId: string) => void;
   onError?: (error: string, taskId: string) => void;
+  onMessage?: (message: DockerWebSocketMessage, taskId: string) => void; // 其他类型的任务消息（如 DIRECTORY_SIZE_PROGRESS）
 }
 
 export interface WebSocketRequestOptions {
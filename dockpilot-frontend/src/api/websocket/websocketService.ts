@@ -35,9 +35,9 @@ class TaskManager {
   handleMessage(message: DockerWebSocketMessage) {
     console.log('🔍 TaskManager 收到消息:', message.type, 'taskId:', message.taskId, 'progress:', message.progress)
     
-    // 🔥 特殊处理：Docker事件通知（无需注册任务，直接广播）
-    if (message.type === 'DOCKER_EVENT_NOTIFICATION') {
-      console.log('🔔 处理Docker事件通知:', message.data)
+    // 🔥 特殊处理：Docker事件通知和不带 taskId 的服务端推送（订阅类消息），无需注册任务，直接广播
+    if (message.type === 'DOCKER_EVENT_NOTIFICATION' || !message.taskId) {
+      console.log('🔔 处理服务端推送:', message.type)
       // 触发自定义事件，让通知处理器接收
       window.dispatchEvent(new CustomEvent('docker-websocket-message', {
         detail: message
@@ -131,7 +131,11 @@ class TaskManager {
         }
         break
       default:
-        console.log(`🔍 未处理的消息类型: ${message.type} (taskId: ${message.taskId})`)
+        if (handler.onMessage) {
+          handler.onMessage(message, message.taskId)
+        } else {
+          console.log(`🔍 未处理的消息类型: ${message.type} (taskId: ${message.taskId})`)
+        }
     }
   }
 
@@ -234,5 +238,22 @@ export async function sendWebSocketMessage(options: WebSocketRequestOptions): Pr
   }
 }
 
+/**
+ * 监听指定类型的服务端推送消息（如 CONTAINER_STATS_UPDATE）
+ * @param type 消息类型
+ * @param listener 推送数据回调
+ * @returns 取消监听的函数
+ */
+export function onServerPush(type: string, listener: (data: any) => void): () => void {
+  const handler = (event: Event) => {
+    const message = (event as CustomEvent<DockerWebSocketMessage>).detail
+    if (message?.type === type) {
+      listener(message.data)
+    }
+  }
+  window.addEventListener('docker-websocket-message', handler)
+  return () => window.removeEventListener('docker-websocket-message', handler)
+}
+
 // 导出全局任务管理器，供其他模块使用
 export { taskManager } 
\ No newline at end of file
@@ -4,6 +4,9 @@ import type { DockerWebSocketMessage } from '@/api/websocket/types'
 // WebSocket 连接状态
 export const wsStatus = ref<'connecting' | 'connected' | 'disconnected'>('disconnected')
 
+// 二进制帧解码器
+const textDecoder = new TextDecoder('utf-8')
+
 // WebSocket 客户端类
 class WebSocketClient {
   private static instance: WebSocketClient | null = null
@@ -89,6 +92,8 @@ class WebSocketClient {
     try {
       this.isReconnecting = true
       this.ws = new WebSocket(this.url)
+      // 服务端在协商 permessage-deflate 后会以二进制帧发送 UTF-8 JSON
+      this.ws.binaryType = 'arraybuffer'
       wsStatus.value = 'connecting'
 
       this.ws.onopen = () => {
@@ -102,7 +107,8 @@ class WebSocketClient {
 
       this.ws.onmessage = (event) => {
         try {
-          const message = JSON.parse(event.data) as DockerWebSocketMessage
+          const raw = typeof event.data === 'string' ? event.data : textDecoder.decode(event.data)
+          const message = JSON.parse(raw) as DockerWebSocketMessage
           
           // 处理心跳响应
           if (message.type === 'HEARTBEAT') {